@@ -25,6 +25,7 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.*;
 
 // TODO: Auto-generated Javadoc
@@ -52,8 +53,11 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 	@Serial
 	private static final long serialVersionUID = 1L;
 
+	/** The inner thread factory. */
+	private ThreadFactory threadFactory = ConveyorThreadFactory.PLATFORM;
+
 	/** The constructor. */
-	private Supplier<Conveyor> constructor = AssemblingConveyor::new;
+	private Supplier<Conveyor> constructor = () -> new AssemblingConveyor(Priority.DEFAULT, threadFactory, collectorType());
 
 	/** The idle heart beat. */
 	private Duration idleHeartBeat = null;
@@ -142,6 +146,15 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 	/** The max queue size. */
 	private int maxQueueSize = 0;
 
+	/** The placement mode. */
+	private PlacementMode placementMode = null;
+
+	/** The placement timeout. */
+	private Duration placementTimeout = null;
+
+	/** The collector key type. */
+	private Class collectorKeyType = null;
+
 	/** The persistence. */
 	private String persistence = null;
 
@@ -206,8 +219,9 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 				
 			}
 
+			final Supplier<Conveyor> conveyorSupplier = placementAware(constructor);
 			if (parallelFactor > 1) {
-				instance = new KBalancedParallelConveyor(constructor, parallelFactor);
+				instance = new KBalancedParallelConveyor(conveyorSupplier, parallelFactor);
 				LOG.info("Instantiate K-Balanced conveyor with parallelizm={}", parallelFactor);
 			} else if (lParallel.size() > 1) {
 				LOG.info("Instantiate L-Balanced conveyor with parallelizm={}", lParallel);
@@ -215,7 +229,7 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 				lConveyors = lParallel.toArray(lConveyors);
 				instance = new LBalancedParallelConveyor<>(lConveyors);
 			} else {
-				instance = constructor.get();
+				instance = conveyorSupplier.get();
 				LOG.info("Instantiate {}", instance.getClass().getName());
 			}
 
@@ -298,6 +312,42 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 		}
 	}
 
+	/**
+	 * Collector type of the AssemblingConveyor created by default, by maxQueueSize or by priority.
+	 *
+	 * @return the collector type
+	 */
+	private CollectorType collectorType() {
+		return collectorKeyType == null ? CollectorType.hashed() : CollectorType.keyType(collectorKeyType);
+	}
+
+	/**
+	 * Applies placement mode and placement timeout to conveyors created by the supplier.
+	 * The collector key type is chosen by the constructor, custom suppliers must apply it themselves.
+	 *
+	 * @param supplier
+	 *            the supplier
+	 * @return the supplier
+	 */
+	private Supplier<Conveyor> placementAware(Supplier<Conveyor> supplier) {
+		if (placementMode == null && placementTimeout == null && collectorKeyType == null) {
+			return supplier;
+		}
+		return () -> {
+			Conveyor c = supplier.get();
+			if (c instanceof AssemblingConveyor ac) {
+				setIfNotNull(placementMode, ac::setPlacementMode);
+				setIfNotNull(placementTimeout, ac::setPlacementTimeout);
+				if (collectorKeyType != null && collectorKeyType != ac.getCollectorKeyType()) {
+					LOG.warn("Collector key type {} is not applied to the conveyor created by the custom supplier", collectorKeyType.getName());
+				}
+			} else {
+				LOG.warn("Placement mode and collector key type are not supported by {}", c.getClass().getName());
+			}
+			return c;
+		};
+	}
+
 	/**
 	 * Idle heart beat.
 	 *
@@ -784,17 +834,75 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 		b.maxQueueSize = maxSize;
 		if(b.maxQueueSize > 0) {
 			b.enablePriorityQueue = false;
-			b.constructor = ()->new AssemblingConveyor( ()->new ArrayBlockingQueue(maxSize) );
+			b.constructor = ()->new AssemblingConveyor( ()->new ArrayBlockingQueue(maxSize), b.threadFactory, b.collectorType() );
 		}
 	}
 
+	/**
+	 * Placement mode. REJECT, BLOCK or ASYNC
+	 *
+	 * @param b
+	 *            the b
+	 * @param cp
+	 *            the s
+	 */
+	public static void placementMode(ConveyorBuilder b, ConveyorProperty cp) {
+		logRegister(cp);
+		b.placementMode = PlacementMode.valueOf(cp.getValueAsString().trim().toUpperCase());
+	}
+
+	/**
+	 * Placement timeout.
+	 *
+	 * @param b
+	 *            the b
+	 * @param cp
+	 *            the s
+	 */
+	public static void placementTimeout(ConveyorBuilder b, ConveyorProperty cp) {
+		logRegister(cp);
+		b.placementTimeout = cp.getValueAsDuration();
+	}
+
+	/**
+	 * Collector key type. java.lang.Long and java.lang.Integer keys are stored unboxed.
+	 * Applies to AssemblingConveyor created by default, by maxQueueSize or by priority.
+	 *
+	 * @param b
+	 *            the b
+	 * @param cp
+	 *            the s
+	 */
+	public static void collectorKeyType(ConveyorBuilder b, ConveyorProperty cp) {
+		logRegister(cp);
+		try {
+			b.collectorKeyType = Class.forName(cp.getValueAsString().trim());
+		} catch (ClassNotFoundException e) {
+			throw new ConveyorConfigurationException("Unknown collector key type " + cp.getValueAsString(), e);
+		}
+	}
+
+	/**
+	 * Thread factory for the conveyor inner thread. PLATFORM, DAEMON or VIRTUAL.
+	 * Applies to AssemblingConveyor created by default, by maxQueueSize or by priority.
+	 *
+	 * @param b
+	 *            the b
+	 * @param cp
+	 *            the s
+	 */
+	public static void threadFactory(ConveyorBuilder b, ConveyorProperty cp) {
+		logRegister(cp);
+		b.threadFactory = ConveyorThreadFactory.valueOf(cp.getValueAsString());
+	}
+
 	public static void priority(ConveyorBuilder b, ConveyorProperty cp) {
 		logRegister(cp);
 		try {
 			final Supplier<PriorityBlockingQueue<Cart>> queueSupplier=Priority.valueOf(cp.getValueAsString());
 			b.enablePriorityQueue = true;
 			b.maxQueueSize = 0;
-			b.constructor = () -> new AssemblingConveyor(queueSupplier);
+			b.constructor = () -> new AssemblingConveyor(queueSupplier, b.threadFactory, b.collectorType());
 		} catch (Exception e) {
 			b.enablePriorityQueue = false;
 			LOG.error("Failed Applying priority {}", cp, e);
@@ -843,6 +951,10 @@ public class ConveyorBuilder implements Supplier<Conveyor>, Testing {
 				+ (completed != null ? "completed=" + completed + ", " : "")
 				+ (constructor != null ? "constructor=" + constructor + ", " : "")
 				+ (maxQueueSize > 0 ? "maxQueueSize=" + maxQueueSize + ", " : "")
+				+ (placementMode != null ? "placementMode=" + placementMode + ", " : "")
+				+ (threadFactory != ConveyorThreadFactory.PLATFORM ? "threadFactory=" + threadFactory + ", " : "")
+				+ (placementTimeout != null ? "placementTimeout=" + placementTimeout + ", " : "")
+				+ (collectorKeyType != null ? "collectorKeyType=" + collectorKeyType.getName() + ", " : "")
 				+ (enablePriorityQueue != null && enablePriorityQueue ? "enablePriorityQueue=" + enablePriorityQueue + ", " : "")
 				+ (idleHeartBeat != null ? "idleHeartBeat=" + idleHeartBeat + ", " : "")
 				+ (defaultBuilderTimeout != null ? "defaultBuilderTimeout=" + defaultBuilderTimeout + ", " : "")
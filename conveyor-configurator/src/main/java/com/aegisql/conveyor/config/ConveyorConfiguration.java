@@ -174,6 +174,10 @@ public class ConveyorConfiguration {
 					.<String>when("dependency", ConveyorBuilder::dependency)
 					.<ConveyorProperty>when("parallel", ConveyorBuilder::parallel)
 					.<ConveyorProperty>when("maxQueueSize", ConveyorBuilder::maxQueueSize)
+					.<ConveyorProperty>when("placementMode", ConveyorBuilder::placementMode)
+					.<ConveyorProperty>when("placementTimeout", ConveyorBuilder::placementTimeout)
+					.<ConveyorProperty>when("collectorKeyType", ConveyorBuilder::collectorKeyType)
+					.<ConveyorProperty>when("threadFactory", ConveyorBuilder::threadFactory)
 					.<ConveyorProperty>when("priority", ConveyorBuilder::priority)
 					.<ConveyorProperty>when("persistence", ConveyorBuilder::persitence)
 					.<ConveyorProperty>when("readyWhenAccepted", ConveyorBuilder::readyWhen)
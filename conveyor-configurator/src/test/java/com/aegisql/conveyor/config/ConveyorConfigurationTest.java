@@ -2,6 +2,7 @@ package com.aegisql.conveyor.config;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -29,6 +30,8 @@ import org.junit.contrib.java.lang.system.ProvideSystemProperty;
 import com.aegisql.conveyor.AssemblingConveyor;
 import com.aegisql.conveyor.BuilderSupplier;
 import com.aegisql.conveyor.Conveyor;
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.PlacementMode;
 import com.aegisql.conveyor.Status;
 import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.config.harness.NameLabel;
@@ -445,4 +448,20 @@ public class ConveyorConfigurationTest {
 	}
 
 	
+	@Test
+	public void testPlacementModeYaml() throws Exception {
+		ConveyorConfiguration.build("CP:test13.yml");
+		AssemblingConveyor<Integer, NameLabel, String> c = (AssemblingConveyor<Integer, NameLabel, String>) Conveyor.byName("c13");
+		assertNotNull(c);
+		assertEquals(PlacementMode.BLOCK, c.getPlacementMode());
+		assertSame(ConveyorThreadFactory.DAEMON, c.getThreadFactory());
+		assertEquals(Integer.class, c.getCollectorKeyType());
+		CompletableFuture<Boolean> lastPart = null;
+		for(int i = 0; i < 100; i++) {
+			c.part().id(i).label(NameLabel.FIRST).value("f"+i).place();
+			lastPart = c.part().id(i).label(NameLabel.LAST).value("l"+i).place();
+		}
+		assertTrue(lastPart.join());
+	}
+
 }
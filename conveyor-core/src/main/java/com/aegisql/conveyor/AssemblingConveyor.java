@@ -10,17 +10,29 @@ import com.aegisql.conveyor.cart.command.GeneralCommand;
 import com.aegisql.conveyor.consumers.result.ForwardResult.ForwardingConsumer;
 import com.aegisql.conveyor.consumers.result.ResultConsumer;
 import com.aegisql.conveyor.consumers.scrap.ScrapConsumer;
+import com.aegisql.conveyor.consumers.scrap.ScrapLogger;
 import com.aegisql.conveyor.delay.DelayProvider;
+import com.aegisql.conveyor.delay.ExpirationQueue;
 import com.aegisql.conveyor.exception.ConveyorRuntimeException;
 import com.aegisql.conveyor.exception.KeepRunningConveyorException;
 import com.aegisql.conveyor.loaders.*;
+import com.aegisql.conveyor.utils.PrimitiveKeyMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.*;
@@ -51,11 +63,93 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The m queue. */
 	protected final Queue<GeneralCommand<K, ?>> mQueue;
 
+	/** The expiration queue supplier. */
+	private Supplier<? extends ExpirationQueue<K>> expirationQueueSupplier = DelayProvider::new;
+
 	/** The delay provider. */
-	private final DelayProvider<K> delayProvider = new DelayProvider<>();
+	private volatile ExpirationQueue<K> delayProvider = expirationQueueSupplier.get();
+
+	/** Expired builds waiting for the timeout processing. Accessed by the conveyor thread only. */
+	private final ArrayDeque<BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>> expiredBacklog = new ArrayDeque<>();
+
+	/** Size of the expired backlog, published by the conveyor thread for other threads. */
+	private volatile int expiredBacklogSize = 0;
+
+	/** Max number of expired builds processed per wakeup. */
+	private volatile int expirationBatchSize = Integer.MAX_VALUE;
+
+	/** Max time in nanoseconds spent on expired builds per wakeup. 0 - no limit */
+	private volatile long expirationTimeBudgetNanos = 0;
+
+	/** Default estimated size of a building site. */
+	public final static long DEFAULT_SITE_BYTES = 256;
+
+	/** Default estimated size of a cart kept on the building site. */
+	public final static long DEFAULT_SAVED_CART_BYTES = 112;
+
+	/** The default collector size estimator. */
+	private final static ToLongFunction<BuildingSite<?,?,?,?>> DEFAULT_SITE_SIZE_ESTIMATOR =
+			bs -> DEFAULT_SITE_BYTES + DEFAULT_SAVED_CART_BYTES * bs.getAcceptedCarts().size();
+
+	/** Max number of open builds. Integer.MAX_VALUE - no limit */
+	private volatile int maxCollectorSize = Integer.MAX_VALUE;
+
+	/** Max estimated bytes of open builds. Long.MAX_VALUE - no limit */
+	private volatile long maxCollectorBytes = Long.MAX_VALUE;
+
+	/** The eviction policy. */
+	private volatile EvictionPolicy evictionPolicy = EvictionPolicy.OLDEST_CREATED;
+
+	/** The collector size estimator. */
+	private volatile ToLongFunction<BuildingSite<?,?,?,?>> collectorSizeEstimator = DEFAULT_SITE_SIZE_ESTIMATOR;
+
+	/** The collector overflow handler. Evicted builds go to the scrap consumer, if not set. */
+	private volatile ScrapConsumer<K,?> collectorOverflowHandler = null;
+
+	/** The eviction queue. Created when collector limits are set. Accessed by the conveyor thread only. */
+	private EvictionQueue<K> evictionQueue = null;
+
+	/** The builds evicted from the collector. */
+	private final LongAdder evictedBuildCounter = new LongAdder();
+
+	/** Min interval between two heap checks of the spill. */
+	private final static long SPILL_CHECK_INTERVAL_MSEC = 1000;
+
+	/** The spill file. Null - spill is disabled. */
+	private volatile Path spillFile = null;
+
+	/** The used to max heap ratio, above which idle builds are spilled. */
+	private volatile double spillHeapThreshold = 0.8;
+
+	/** Builds that did not receive carts for this time can be spilled. */
+	private volatile long spillIdleTimeMsec = 60_000;
+
+	/** The site spill. Created on first spill. Accessed by the conveyor thread only. */
+	private SiteSpill<K> siteSpill = null;
+
+	/** The time of the next heap check. */
+	private long nextSpillCheck = 0;
+
+	/** The number of spilled builds. */
+	private volatile int spilledBuildCount = 0;
+
+	/** The bytes of spilled builds. */
+	private volatile long spilledBytes = 0;
+
+	/** The collector type. */
+	private final CollectorType<K> collectorType;
+
+	/** The collector index. Null, if the collector type has no index. */
+	private final CollectorIndex<K,L> collectorIndex;
 
 	/** The collector. */
-	protected final Map<K, BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>> collector = new HashMap<>();
+	protected final Map<K, BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>> collector;
+
+	/**
+	 * Keys of the collector, for checks from other threads. Modified by the conveyor thread only.
+	 * Null for the HashMap collector without the EXISTING_BUILDS_FIRST priority.
+	 */
+	private final Set<K> openKeys;
 
 	/**  Keeps static values. */
 	protected final Map<L,Cart<K,?,L>> staticValues = new HashMap<>();
@@ -66,6 +160,12 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The command counter. */
 	protected long commandCounter = 0;
 
+	/** The carts rejected at placement. */
+	private final LongAdder rejectedCartCounter = new LongAdder();
+
+	/** The scraps by failure type. */
+	private final LongAdder[] scrapCounters = newScrapCounters();
+
 	/** The builder timeout. */
 	protected long builderTimeout = 0;
 
@@ -78,11 +178,18 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The result consumer. */
 	protected ResultConsumer <K,OUT> resultConsumer = null;
 
-	/** The scrap logger. */
-	protected ScrapConsumer<K,?> scrapLogger = scrapBin-> LOG.error("{}",scrapBin);
+	/** The scrap logger. Asynchronous and rate limited. */
+	protected ScrapConsumer<K,?> scrapLogger = new ScrapLogger<>(LOG);
 
 	/** The scrap consumer. */
 	protected ScrapConsumer<K,?> scrapConsumer = scrapLogger;
+
+	/** Counts the scrap and passes it to the current scrap consumer. */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private final ScrapConsumer<K,?> countingScrapConsumer = bin -> {
+		scrapCounters[(bin.failureType == null ? FailureType.GENERAL_FAILURE : bin.failureType).ordinal()].increment();
+		((ScrapConsumer) scrapConsumer).accept(bin);
+	};
 	
 	/** The cart consumer. */
 	protected LabeledValueConsumer<L, Cart<K,?,L>, Supplier<? extends OUT>> cartConsumer = (l, v, b) -> {
@@ -126,7 +233,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The key before eviction. */
 	private Consumer<AcknowledgeStatus<K>> keyBeforeEviction = status -> {
 		LOG.trace("Key is ready to be evicted {} status:{}", status.getKey(), status.getStatus());
-		collector.remove(status.getKey());
+		removeSite(status.getKey());
 		if(autoAck) {
 			if(ackStatusSet.contains(status.getStatus())) {
 				ackAction.accept(status);
@@ -140,14 +247,16 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	private BiConsumer<K, Long> keyBeforeReschedule = (key, newExpirationTime) -> {
 		Objects.requireNonNull(key, "NULL key cannot be rescheduld");
 		Objects.requireNonNull(newExpirationTime, "NULL newExpirationTime cannot be applied to the schedile");
-		var buildingSite = collector.get(key);
+		var buildingSite = getSite(key);
 		if (buildingSite != null) {
 			long oldExpirationTime = buildingSite.expireableSource.getExpirationTime();
-			delayProvider.getBox(oldExpirationTime).delete(key);
+			delayProvider.delete(key, oldExpirationTime);
+			// the stale backlog entry is skipped when polled
+			buildingSite.expiredBacklog = false;
 			buildingSite.updateExpirationTime(newExpirationTime);
 			LOG.trace("Rescheduled {}. added expiration {} msec", key, newExpirationTime - oldExpirationTime);
 			if (newExpirationTime > 0) {
-				delayProvider.getBox(newExpirationTime).add(key);
+				delayProvider.add(key, newExpirationTime);
 			}
 		} else {
 			LOG.trace("Build is not found for the key {}", key);
@@ -160,6 +269,15 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 
 	protected volatile boolean suspended = false;
 
+	/** True while the conveyor thread runs the processing cycle or an inline cart. */
+	private boolean inCycle = false;
+
+	/** Resources closed when the conveyor leaves. */
+	private final Queue<AutoCloseable> closeOnStop = new ConcurrentLinkedQueue<>();
+
+	/** True, when the conveyor has left and closed its resources. */
+	private volatile boolean left = false;
+
 	/** The synchronize builder. */
 	protected boolean synchronizeBuilder = false;
 
@@ -172,9 +290,18 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The conveyor future lock. */
 	private final Object conveyorFutureLock = new Object();
 	
-	/** The inner thread. */
+	/** The inner thread. Null, when conveyor runs in the conveyor group. */
 	private final Thread innerThread;
 
+	/** The conveyor group. Null, when conveyor runs in its own thread. */
+	private final ConveyorGroup group;
+
+	/** The conveyor group member. */
+	private final GroupMember groupMember;
+
+	/** The inner thread factory. */
+	private final ThreadFactory threadFactory;
+
 	/**
 	 * The Class Lock.
 	 */
@@ -212,10 +339,23 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		/** The expiration collection unit. */
 		private TimeUnit expirationCollectionUnit = TimeUnit.MILLISECONDS;
 
+		/** True while the inner thread waits on the condition. */
+		private volatile boolean parked = false;
+
+		/** Conveyor group wake up. Replaces the condition when conveyor runs in the conveyor group. */
+		private Runnable wakeUp = null;
+
 		/**
-		 * Tell.
+		 * Tell. Takes the lock only when the inner thread is parked.
 		 */
 		public void tell() {
+			if (wakeUp != null) {
+				wakeUp.run();
+				return;
+			}
+			if (!parked) {
+				return;
+			}
 			rLock.lock();
 			try {
 				hasCarts.signal();
@@ -225,21 +365,46 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		}
 
 		/**
-		 * Wait data.
+		 * Wait data. Sleeps until data arrives or the next expiration time.
+		 * Suspended conveyor wakes up every expiration collection interval.
 		 *
+		 * @param suspended
+		 *            the suspended
 		 * @param q
 		 *            the q
+		 * @param commands
+		 *            the command queue
+		 * @param pending
+		 *            carts waiting for the queue capacity
+		 * @param nextExpirationTime
+		 *            the next expiration time
 		 * @throws InterruptedException
 		 *             the interrupted exception
 		 */
-		public void waitData(boolean suspended, Queue<?> q) throws InterruptedException {
+		public void waitData(boolean suspended, Queue<?> q, Queue<?> commands, Queue<?> pending, LongSupplier nextExpirationTime) throws InterruptedException {
+			if (!suspended && !(q.isEmpty() && commands.isEmpty() && pending.isEmpty())) {
+				return;
+			}
 			rLock.lock();
 			try {
-				if (suspended || q.isEmpty()) {
+				parked = true;
+				if (suspended) {
 					//noinspection ResultOfMethodCallIgnored
 					hasCarts.await(expirationCollectionInterval, expirationCollectionUnit);
+				} else if (q.isEmpty() && commands.isEmpty() && pending.isEmpty()) {
+					long next = nextExpirationTime.getAsLong();
+					if (next == Long.MAX_VALUE) {
+						hasCarts.await();
+					} else {
+						long delay = next - System.currentTimeMillis();
+						if (delay > 0) {
+							//noinspection ResultOfMethodCallIgnored
+							hasCarts.await(delay, TimeUnit.MILLISECONDS);
+						}
+					}
 				}
 			} finally {
+				parked = false;
 				rLock.unlock();
 			}
 		}
@@ -249,6 +414,57 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	/** The lock. */
 	private final Lock lock = new Lock();
 
+	/** Max number of carts drained from the input queue per wakeup. */
+	private volatile int drainBatchSize = 1;
+
+	/** Max time in nanoseconds spent draining the input queue per wakeup. 0 - no limit */
+	private volatile long drainTimeBudgetNanos = 0;
+
+	/** Max number of carts actually drained in one wakeup. Written by the conveyor thread only. */
+	private volatile int maxDrained = 0;
+
+	/** What to do when bounded input queue is full. */
+	private volatile PlacementMode placementMode = PlacementMode.REJECT;
+
+	/** Max time in nanoseconds the producer waits for capacity in BLOCK mode. */
+	private volatile long placementTimeoutNanos = Long.MAX_VALUE;
+
+	/** Carts waiting for the input queue capacity in ASYNC mode. */
+	private final Queue<Cart<K, ?, L>> pendingPlacements = new ConcurrentLinkedQueue<>();
+
+	/** The number of carts in pendingPlacements. */
+	private final AtomicInteger pendingPlacementsCounter = new AtomicInteger();
+
+	/** Max number of carts waiting for the input queue capacity in ASYNC mode. */
+	private volatile int maxPendingPlacements = 10_000;
+
+	/** Stamp carts created by the conveyor with System.nanoTime(). */
+	private volatile boolean nanoTimeStamping = true;
+
+	/** The capacity lock. */
+	private final ReentrantLock capacityLock = new ReentrantLock();
+
+	/** Signalled when the inner thread frees input queue capacity. */
+	private final Condition notFull = capacityLock.newCondition();
+
+	/** Number of producers blocked in BLOCK mode. */
+	private final AtomicInteger waitingProducers = new AtomicInteger();
+
+	/** The queue high watermark. */
+	private volatile int highWatermark = Integer.MAX_VALUE;
+
+	/** The queue low watermark. */
+	private volatile int lowWatermark = 0;
+
+	/** The high watermark action. */
+	private volatile Runnable onHighWatermark = null;
+
+	/** The low watermark action. */
+	private volatile Runnable onLowWatermark = null;
+
+	/** True after the high watermark was crossed and until the low watermark is reached. */
+	private final AtomicBoolean aboveHighWatermark = new AtomicBoolean(false);
+
 	/** The save carts. */
 	private boolean saveCarts;
 	
@@ -293,19 +509,108 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 *            the cart queue supplier
 	 */
 	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier) {
+		this(cartQueueSupplier, ConveyorThreadFactory.PLATFORM);
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param threadFactory
+	 *            the inner thread factory
+	 */
+	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, ThreadFactory threadFactory) {
+		this(cartQueueSupplier, threadFactory, CollectorType.hashed());
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param collectorType
+	 *            the collector type
+	 */
+	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, CollectorType<K> collectorType) {
+		this(cartQueueSupplier, ConveyorThreadFactory.PLATFORM, collectorType);
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param threadFactory
+	 *            the inner thread factory
+	 * @param collectorType
+	 *            the collector type
+	 */
+	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, ThreadFactory threadFactory, CollectorType<K> collectorType) {
+		this(cartQueueSupplier, Objects.requireNonNull(threadFactory, "Thread factory cannot be null"), null, collectorType);
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor that runs on the shared event loop of the conveyor group
+	 * instead of its own thread.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param group
+	 *            the conveyor group
+	 */
+	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, ConveyorGroup group) {
+		this(cartQueueSupplier, group, CollectorType.hashed());
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor that runs on the shared event loop of the conveyor group
+	 * instead of its own thread.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param group
+	 *            the conveyor group
+	 * @param collectorType
+	 *            the collector type
+	 */
+	public AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, ConveyorGroup group, CollectorType<K> collectorType) {
+		this(cartQueueSupplier, Objects.requireNonNull(group, "Conveyor group cannot be null").getThreadFactory(), group, collectorType);
+	}
+
+	/**
+	 * Instantiates a new assembling conveyor.
+	 *
+	 * @param cartQueueSupplier
+	 *            the cart queue supplier
+	 * @param threadFactory
+	 *            the inner thread factory
+	 * @param group
+	 *            the conveyor group, or null for the dedicated inner thread
+	 * @param collectorType
+	 *            the collector type
+	 */
+	private AssemblingConveyor(Supplier<Queue<? extends Cart<K, ?, ?>>> cartQueueSupplier, ThreadFactory threadFactory, ConveyorGroup group, CollectorType<K> collectorType) {
+		this.threadFactory = threadFactory;
+		this.group = group;
 		this.inQueue = (Queue<Cart<K, ?, L>>) cartQueueSupplier.get();
 		this.mQueue = (Queue<GeneralCommand<K, ?>>) cartQueueSupplier.get();
 		existingBuildsFirst = Priority.EXISTING_BUILDS_FIRST.equals(cartQueueSupplier);
+		this.collectorType = Objects.requireNonNull(collectorType, "Collector type cannot be null");
+		this.collector = collectorType.newMap();
+		this.collectorIndex = collectorType.newIndex();
+		this.openKeys = existingBuildsFirst || ! collectorType.isHashed() ? ConcurrentHashMap.newKeySet() : null;
 		this.addCartBeforePlacementValidator(CART_NOT_NULL());
 		this.addCartBeforePlacementValidator(NOT_RUNNING(()->running,()->name));
 		this.addCartBeforePlacementValidator(CART_EXPIRED());
 		this.addCartBeforePlacementValidator(CART_TOO_OLD(()->startTimeReject));
+		this.addCartBeforePlacementValidator(this::checkIndexFilter);
 
 		commandBeforePlacementValidator = commandBeforePlacementValidator.andThen(cmd -> {
 			if (!running) {
 				throw new IllegalStateException("Conveyor "+getName()+" is not running");
 			}
-		}).andThen(cmd -> {
+		}).andThen(cmd -> checkIndexFilter(cmd.getFilter())).andThen(cmd -> {
 			if (cmd.expired()) {
 				throw new IllegalStateException("Command has already expired " + cmd);
 			}
@@ -315,44 +620,177 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 			}
 		});
 		acceptedLabels.add(null);
-		this.innerThread = new Thread(() -> {
+		if (group != null) {
+			this.innerThread = null;
+			this.groupMember = new GroupMember(group.nextMemberId());
+			lock.wakeUp = groupMember::wakeUp;
+			this.name = "AssemblingConveyor " + group.getName() + "-" + groupMember.id();
+			this.setMbean(this.name);
+			// the event loop sees the conveyor only when it is initialized
 			try {
-				while (running || ! inQueue.isEmpty() || ! mQueue.isEmpty()) {
+				group.register(groupMember);
+				if (groupMember.hasInput()) {
+					groupMember.wakeUp();
+				}
+			} catch (RuntimeException e) {
+				group.unregister(groupMember);
+				unRegister();
+				throw e;
+			}
+			return;
+		}
+		this.groupMember = null;
+		this.innerThread = threadFactory.newThread(() -> {
+			try {
+				while (hasWork()) {
 					if (!waitData())
 						break; //When interrupted, which is exceptional behavior, should return right away
-					processManagementCommands();
-					if(suspended) {
-						continue;
-					}
-					var cart = inQueue.poll();
-					if (cart != null) {
-						cartCounter++;
-						processSite(cart, true);
-					}
-					removeExpired();
-					if(this.conveyorFuture != null && (inQueue.peek() == null) && (mQueue.peek() == null) && (collector.size() == 0)) {
-						running = false;
-						this.conveyorFuture.complete(true);
-						statusLine = "Completed all tasks and stopped";
-						LOG.info("No pending messages or commands. Ready to leave {}", Thread.currentThread().getName());
-					}
-					currentSite = null;
+					processCycle();
 				}
-				LOG.info("Leaving {}", Thread.currentThread().getName());
-				drainQueues();
+				leave();
 			} catch (Throwable e) { // Let it crash, but don't pretend it is running
 				stop();
 				statusLine = "Unrecoverable error: "+e.getMessage();
 				throw e;
 			}
 		});
-		innerThread.setDaemon(false);
 		this.name = "AssemblingConveyor " + innerThread.getId();
 		innerThread.setName(this.name);
 		this.setMbean(this.name);
 		innerThread.start();
 	}
 
+	/**
+	 * Checks for work. Conveyor keeps running until stopped and all queues are empty.
+	 *
+	 * @return true, if successful
+	 */
+	private boolean hasWork() {
+		return running || ! inQueue.isEmpty() || ! mQueue.isEmpty() || ! pendingPlacements.isEmpty();
+	}
+
+	/**
+	 * Single processing cycle: management commands, input queue, expired builds.
+	 */
+	private void processCycle() {
+		inCycle = true;
+		try {
+			runCycle();
+		} finally {
+			inCycle = false;
+		}
+	}
+
+	/**
+	 * Runs the processing cycle.
+	 */
+	private void runCycle() {
+		processManagementCommands();
+		if(suspended) {
+			return;
+		}
+		drainInputQueue();
+		releaseCapacity();
+		removeExpired();
+		if(this.conveyorFuture != null) {
+			faultIn(k -> true);
+		} else {
+			spillIdleSites();
+		}
+		if(this.conveyorFuture != null && (inQueue.peek() == null) && (mQueue.peek() == null) && pendingPlacements.isEmpty() && (collector.size() == 0)) {
+			running = false;
+			this.conveyorFuture.complete(true);
+			statusLine = "Completed all tasks and stopped";
+			LOG.info("No pending messages or commands. Ready to leave {}", name);
+		}
+		currentSite = null;
+	}
+
+	/**
+	 * Leave. Called once, when conveyor has stopped.
+	 */
+	private void leave() {
+		LOG.info("Leaving {}", name);
+		drainQueues();
+		left = true;
+		closeResources();
+	}
+
+	/**
+	 * Closes resources registered by the {@link #closeOnStop(AutoCloseable)}.
+	 */
+	private void closeResources() {
+		AutoCloseable resource;
+		while ((resource = closeOnStop.poll()) != null) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				LOG.error("Conveyor {} failed to close {}", name, resource, e);
+			}
+		}
+	}
+
+	/**
+	 * The Class GroupMember. Runs the conveyor cycle on the conveyor group event loop.
+	 */
+	private final class GroupMember extends ConveyorGroup.Member {
+
+		/**
+		 * Instantiates a new group member.
+		 *
+		 * @param id the id
+		 */
+		GroupMember(long id) {
+			super(id);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.aegisql.conveyor.ConveyorGroup.Member#step()
+		 */
+		@Override
+		boolean step() {
+			try {
+				if (hasWork()) {
+					processCycle();
+				}
+				if (hasWork()) {
+					return true;
+				}
+				leave();
+				return false;
+			} catch (Throwable e) { // Let it crash, but don't pretend it is running
+				AssemblingConveyor.this.stop();
+				statusLine = "Unrecoverable error: "+e.getMessage();
+				LOG.error("Unrecoverable error in {}", name, e);
+				return false;
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see com.aegisql.conveyor.ConveyorGroup.Member#hasInput()
+		 */
+		@Override
+		boolean hasInput() {
+			return ! mQueue.isEmpty() || ! suspended && ( ! inQueue.isEmpty() || ! pendingPlacements.isEmpty());
+		}
+
+		/* (non-Javadoc)
+		 * @see com.aegisql.conveyor.ConveyorGroup.Member#nextExpirationTime()
+		 */
+		@Override
+		long nextExpirationTime() {
+			return suspended ? Long.MAX_VALUE : AssemblingConveyor.this.nextExpirationTime();
+		}
+
+		/* (non-Javadoc)
+		 * @see com.aegisql.conveyor.ConveyorGroup.Member#stop()
+		 */
+		@Override
+		void stop() {
+			AssemblingConveyor.this.stop();
+		}
+	}
+
 	/**
 	 * Wait data.
 	 *
@@ -360,7 +798,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 */
 	private boolean waitData() {
 		try {
-			lock.waitData(suspended, inQueue);
+			lock.waitData(suspended, inQueue, mQueue, pendingPlacements, this::nextExpirationTime);
 		} catch (InterruptedException e) {
 			LOG.info("Interrupted {}",name,e);
 			stop();
@@ -369,6 +807,141 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		return running;
 	}
 
+	/**
+	 * Drains up to drainBatchSize carts, or until the drain time budget is exhausted,
+	 * before the loop returns to the housekeeping. Pending commands interrupt the batch.
+	 */
+	private void drainInputQueue() {
+		final int batchSize = drainBatchSize;
+		final long budget = drainTimeBudgetNanos;
+		final long deadline = budget > 0 ? System.nanoTime() + budget : 0;
+		int drained = 0;
+		while (drained < batchSize) {
+			var cart = inQueue.poll();
+			if (cart == null) {
+				break;
+			}
+			drained++;
+			cartCounter++;
+			processSite(cart, true);
+			if (suspended || mQueue.peek() != null) {
+				break;
+			}
+			if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+				break;
+			}
+		}
+		if (drained > maxDrained) {
+			maxDrained = drained;
+		}
+	}
+
+	/**
+	 * Moves parked carts into the input queue, wakes up blocked producers
+	 * and fires the low watermark action when the queue size drops to it.
+	 */
+	private void releaseCapacity() {
+		Cart<K, ?, L> cart;
+		while ((cart = pendingPlacements.peek()) != null && inQueue.offer(cart)) {
+			pendingPlacements.poll();
+			pendingPlacementsCounter.decrementAndGet();
+		}
+		if (waitingProducers.get() > 0) {
+			signalCapacity();
+		}
+		if (aboveHighWatermark.get() && inQueue.size() + pendingPlacementsCounter.get() <= lowWatermark
+				&& aboveHighWatermark.compareAndSet(true, false)) {
+			var action = onLowWatermark;
+			if (action != null) {
+				action.run();
+			}
+		}
+	}
+
+	/**
+	 * Signals producers blocked on the full queue.
+	 */
+	private void signalCapacity() {
+		capacityLock.lock();
+		try {
+			notFull.signalAll();
+		} finally {
+			capacityLock.unlock();
+		}
+	}
+
+	/**
+	 * Offers cart to the input queue according to the placement mode.
+	 *
+	 * @param cart the cart
+	 * @return true, if cart was accepted or parked, false - the queue or the pending placements are full
+	 */
+	private boolean offer(Cart<K, ?, L> cart) {
+		switch (placementMode) {
+			case BLOCK:
+				if (!offerBlocking(cart)) {
+					throw new IllegalStateException("Input queue is full. Timed out waiting for capacity");
+				}
+				break;
+			case ASYNC:
+				if (!pendingPlacements.isEmpty() || !inQueue.offer(cart)) {
+					if (pendingPlacementsCounter.incrementAndGet() > maxPendingPlacements) {
+						pendingPlacementsCounter.decrementAndGet();
+						return false;
+					}
+					pendingPlacements.add(cart);
+				}
+				break;
+			default:
+				if (!inQueue.add(cart)) {
+					return false;
+				}
+		}
+		if (onHighWatermark != null && !aboveHighWatermark.get()
+				&& inQueue.size() + pendingPlacementsCounter.get() >= highWatermark
+				&& aboveHighWatermark.compareAndSet(false, true)) {
+			onHighWatermark.run();
+		}
+		return true;
+	}
+
+	/**
+	 * Offers cart to the input queue, waiting for capacity up to the placement timeout.
+	 *
+	 * @param cart the cart
+	 * @return true, if successful
+	 */
+	private boolean offerBlocking(Cart<K, ?, L> cart) {
+		if (inQueue.offer(cart)) {
+			return true;
+		}
+		if (ConveyorGroup.isEventLoopThread()) {
+			// waiting would stall all conveyors of the event loop, including the one that has to free the capacity
+			throw new IllegalStateException("Input queue is full. Conveyor group event loop thread cannot wait for capacity");
+		}
+		long nanos = placementTimeoutNanos;
+		capacityLock.lock();
+		waitingProducers.incrementAndGet();
+		try {
+			while (!inQueue.offer(cart)) {
+				if (!running) {
+					throw new IllegalStateException("Conveyor " + name + " is not running");
+				}
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for input queue capacity", e);
+		} finally {
+			waitingProducers.decrementAndGet();
+			capacityLock.unlock();
+		}
+	}
+
 	/**
 	 * Gets the building site.
 	 *
@@ -384,7 +957,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 			returnNull = true;
 		} else if (Status.TIMED_OUT.equals(cart.getValue())) {
 			returnNull = true;
-		} else if ((buildingSite = collector.get(key)) == null) {
+		} else if ((buildingSite = collector.get(key)) == null && (buildingSite = faultIn(key)) == null) {
 			BuilderSupplier<OUT> bs;
 			if (cart.getValue() != null && cart.getValue() instanceof BuilderSupplier) {
 				bs = ((Supplier<BuilderSupplier<OUT>>) cart).get();
@@ -396,12 +969,12 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 					buildingSite = new BuildingSite<>(cart, bs, cartConsumer, readiness,
 							timeoutAction, builderTimeout, TimeUnit.MILLISECONDS, synchronizeBuilder, saveCarts,
 							postponeExpirationEnabled, postponeExpirationMills, postponeExpirationOnTimeoutEnabled,staticValues,resultConsumer,
-							ackAction,null);
+							ackAction,this);
 					if (cart.getValue() instanceof FutureSupplier futureSupplier) {
 						buildingSite.addFuture(futureSupplier.getFuture());
 					}
 				} else {
-					cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart,
+					cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart,
 							"Ignore cart. Neither creating cart nor default builder supplier available",
 							null,
 							FailureType.BUILD_INITIALIZATION_FAILED,cart.getAllProperties(), null));
@@ -411,19 +984,26 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 				buildingSite = new BuildingSite<>(cart, builderSupplier, cartConsumer,
 						readiness, timeoutAction, builderTimeout, TimeUnit.MILLISECONDS, synchronizeBuilder, saveCarts,
 						postponeExpirationEnabled, postponeExpirationMills, postponeExpirationOnTimeoutEnabled,staticValues,resultConsumer,
-						ackAction,null);
+						ackAction,this);
 			} else {
-				cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart,
+				cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart,
 						"Ignore cart. Neither builder nor builder supplier available",
 						null,
 						FailureType.BUILD_INITIALIZATION_FAILED,cart.getAllProperties(), null));
 				returnNull = true;
 			}
 			if (buildingSite != null) {
-				collector.put(key, buildingSite);
+				if (collectorIndex != null) {
+					collectorIndex.add(key, cart);
+				}
+				putSite(key, buildingSite);
 				if (buildingSite.isExpireable()) {
-					delayProvider.getBox(buildingSite.getExpirationTime()).add(key);
+					delayProvider.add(key, buildingSite.getExpirationTime());
 				}
+				if (evictionQueue != null) {
+					evictionQueue.created(buildingSite);
+				}
+				enforceCollectorLimits(buildingSite);
 			}
 		}
 		if (returnNull) {
@@ -450,7 +1030,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 
 				@Override
 				public long getThreadId() {
-					return thisConv.innerThread.getId();
+					return thisConv.conveyorThread().getId();
 				}
 
 				@Override
@@ -526,6 +1106,21 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 					return thisConv.commandCounter;
 				}
 
+				@Override
+				public long getRejectedCartCounter() {
+					return thisConv.rejectedCartCounter.sum();
+				}
+
+				@Override
+				public long getScrapCounter() {
+					return thisConv.getScrapCounter();
+				}
+
+				@Override
+				public Map<String, Long> getScrapCounters() {
+					return thisConv.getScrapCounters();
+				}
+
 				@Override
 				public Conveyor<K, L, OUT> conveyor() {
 					return thisConv;
@@ -583,23 +1178,137 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 				}
 
 				@Override
-				public String getStatus() {
-					return thisConv.statusLine ;
+				public int getDrainBatchSize() {
+					return thisConv.drainBatchSize;
 				}
 
 				@Override
-				public boolean isSuspended() {
-					return thisConv.suspended;
+				public void setDrainBatchSize(int size) {
+					if(size > 0) {
+						thisConv.setDrainBatchSize(size);
+						LOG.info("Conveyor {} changed DrainBatchSize to {}",name,size);
+					}
 				}
 
 				@Override
-				public void suspend() {
-					thisConv.suspend();
+				public long getDrainTimeBudgetMicros() {
+					return TimeUnit.NANOSECONDS.toMicros(thisConv.drainTimeBudgetNanos);
 				}
 
 				@Override
-				public void resume() {
-					thisConv.resume();
+				public void setDrainTimeBudgetMicros(long micros) {
+					if(micros >= 0) {
+						thisConv.setDrainTimeBudget(micros, TimeUnit.MICROSECONDS);
+						LOG.info("Conveyor {} changed DrainTimeBudget to {}usec",name,micros);
+					}
+				}
+
+				@Override
+				public int getExpirationBatchSize() {
+					return thisConv.expirationBatchSize;
+				}
+
+				@Override
+				public void setExpirationBatchSize(int size) {
+					if(size > 0) {
+						thisConv.setExpirationBatchSize(size);
+						LOG.info("Conveyor {} changed ExpirationBatchSize to {}",name,size);
+					}
+				}
+
+				@Override
+				public long getExpirationTimeBudgetMicros() {
+					return TimeUnit.NANOSECONDS.toMicros(thisConv.expirationTimeBudgetNanos);
+				}
+
+				@Override
+				public void setExpirationTimeBudgetMicros(long micros) {
+					if(micros >= 0) {
+						thisConv.setExpirationTimeBudget(micros, TimeUnit.MICROSECONDS);
+						LOG.info("Conveyor {} changed ExpirationTimeBudget to {}usec",name,micros);
+					}
+				}
+
+				@Override
+				public int getExpiredBacklogSize() {
+					return thisConv.expiredBacklogSize;
+				}
+
+				@Override
+				public int getMaxCollectorSize() {
+					return thisConv.maxCollectorSize;
+				}
+
+				@Override
+				public void setMaxCollectorSize(int size) {
+					if(size > 0) {
+						thisConv.setMaxCollectorSize(size);
+						LOG.info("Conveyor {} changed MaxCollectorSize to {}",name,size);
+					}
+				}
+
+				@Override
+				public long getMaxCollectorBytes() {
+					return thisConv.maxCollectorBytes;
+				}
+
+				@Override
+				public void setMaxCollectorBytes(long bytes) {
+					if(bytes > 0) {
+						thisConv.setMaxCollectorBytes(bytes);
+						LOG.info("Conveyor {} changed MaxCollectorBytes to {}",name,bytes);
+					}
+				}
+
+				@Override
+				public long getEstimatedCollectorBytes() {
+					return thisConv.getEstimatedCollectorBytes();
+				}
+
+				@Override
+				public String getSpillFile() {
+					var path = thisConv.spillFile;
+					return path == null ? "" : path.toString();
+				}
+
+				@Override
+				public int getSpilledBuildCount() {
+					return thisConv.spilledBuildCount;
+				}
+
+				@Override
+				public long getSpilledBytes() {
+					return thisConv.spilledBytes;
+				}
+
+				@Override
+				public String getEvictionPolicy() {
+					return thisConv.evictionPolicy.name();
+				}
+
+				@Override
+				public long getEvictedBuildCounter() {
+					return thisConv.evictedBuildCounter.sum();
+				}
+
+				@Override
+				public String getStatus() {
+					return thisConv.statusLine ;
+				}
+
+				@Override
+				public boolean isSuspended() {
+					return thisConv.suspended;
+				}
+
+				@Override
+				public void suspend() {
+					thisConv.suspend();
+				}
+
+				@Override
+				public void resume() {
+					thisConv.resume();
 				}
 			});
 	}
@@ -623,13 +1332,9 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 					cmdFuture.complete(true);
 					return;
 				}
-				List<GeneralCommand> commands = collector
-						.keySet()
-						.stream()
-						.filter(cmdCart.getFilter())
-						.map(k -> new GeneralCommand(k, value, label, expTime)).toList();
-				
-				commands.forEach(nextCommandCart->{
+				// commands are created one at a time, not for all matching keys upfront
+				for (K k : matchingKeys(cmdCart.getFilter())) {
+					var nextCommandCart = new GeneralCommand(k, value, label, expTime);
 					try {
 						processManagementCommand(nextCommandCart);
 					} catch(Exception e) {
@@ -637,7 +1342,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 						cmdFuture.completeExceptionally(ex);
 						throw ex;
 					}
-				});
+				}
 				cmdFuture.complete(true);
 			}
 		}
@@ -653,6 +1358,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		LOG.debug("processing command {}", cmdCart);
 		var l = cmdCart.getLabel();
 		try {
+			faultIn(cmdCart.getKey());
 			l.get().accept(this, cmdCart);
 		} catch (Exception e) {
 			cmdCart.getFuture().completeExceptionally(e);
@@ -666,17 +1372,37 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	protected void drainQueues() {
 		Cart<K, ?, L> cart;
 		while ((cart = inQueue.poll()) != null) {
-			cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart, "Draining inQueue",
+			cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart, "Draining inQueue",
 					null, 
 					FailureType.CONVEYOR_STOPPED,cart.getAllProperties(), null));
 		}
+		while ((cart = pendingPlacements.poll()) != null) {
+			pendingPlacementsCounter.decrementAndGet();
+			cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart, "Draining pending placements",
+					null,
+					FailureType.CONVEYOR_STOPPED,cart.getAllProperties(), null));
+		}
 		delayProvider.clear();
+		expiredBacklog.clear();
+		expiredBacklogSize = 0;
+		faultIn(k -> true);
+		if (siteSpill != null) {
+			siteSpill.close();
+			siteSpill = null;
+		}
 		collector.forEach((k, bs) -> {
 			bs.setStatus(Status.CANCELED);
-			scrapConsumer.accept(new ScrapBin(this, k, bs, "Draining collector", null, FailureType.CONVEYOR_STOPPED,bs.getProperties(), bs.getAcknowledge()));
+			countingScrapConsumer.accept(new ScrapBin(this, k, bs, "Draining collector", null, FailureType.CONVEYOR_STOPPED,bs.getProperties(), bs.getAcknowledge()));
 			bs.cancelFutures();
 		});
 		collector.clear();
+		if (openKeys != null) {
+			openKeys.clear();
+		}
+		if (collectorIndex != null) {
+			collectorIndex.clear();
+		}
+		evictionQueue = null;
 	}
 
 	/* (non-Javadoc)
@@ -684,22 +1410,88 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 */
 	@Override
 	public PartLoader<K,L> part() {
-		return new PartLoader<>(pl -> {
-			PartLoader<K, L> partLoader;
-			if (existingBuildsFirst && collector.containsKey(pl.key)) {
-				partLoader = pl.increasePriority();
-			} else {
-				partLoader = pl;
-			}
-			Cart<K, ?, L> cart;
-			if (partLoader.filter != null) {
-				cart = new MultiKeyCart<>(partLoader.filter, partLoader.partValue, partLoader.label, partLoader.creationTime, partLoader.expirationTime, partLoader.priority);
-			} else {
-				cart = new ShoppingCart<>(partLoader.key, partLoader.partValue, partLoader.label, partLoader.creationTime, partLoader.expirationTime, partLoader.priority);
-			}
-			partLoader.getAllProperties().forEach(cart::addProperty);
-			return place(cart);
-		});
+		return new PartLoader<>(pl -> place(partCart(pl)), pl -> {
+			var cart = partCart(pl);
+			cart.markUnobserved();
+			placeAndForget(cart);
+		}, (pl, parts) -> placeAll(parts.map(e -> partCart(pl, e.getKey(), e.getValue())).toList()));
+	}
+
+	/**
+	 * Creates the part cart, the same way {@link #part()} does, without placing it.
+	 * Priority of parts for open builds is increased for the {@link Priority#EXISTING_BUILDS_FIRST} queue,
+	 * the nano timestamp is set if {@link #setNanoTimeStamping(boolean)} is enabled.
+	 *
+	 * @param pl the part loader
+	 * @return the cart
+	 */
+	public AbstractCart<K, ?, L> partCart(PartLoader<K, L> pl) {
+		PartLoader<K, L> partLoader;
+		if (existingBuildsFirst && isOpen(pl.key)) {
+			partLoader = pl.increasePriority();
+		} else {
+			partLoader = pl;
+		}
+		AbstractCart<K, ?, L> cart;
+		long nanoTimestamp = nanoTimeStamping ? System.nanoTime() : 0;
+		if (partLoader.filter != null) {
+			cart = new MultiKeyCart<>(partLoader.filter, partLoader.partValue, partLoader.label, partLoader.creationTime, partLoader.expirationTime, PART, null, partLoader.priority, nanoTimestamp);
+		} else {
+			cart = new ShoppingCart<>(partLoader.key, partLoader.partValue, partLoader.label, partLoader.creationTime, partLoader.expirationTime, null, PART, partLoader.priority, nanoTimestamp);
+		}
+		partLoader.getAllProperties().forEach(cart::addProperty);
+		return cart;
+	}
+
+	/**
+	 * Creates the part cart for the key and value, using the part loader as a template.
+	 *
+	 * @param pl the part loader
+	 * @param key the key
+	 * @param value the value
+	 * @return the cart
+	 */
+	private AbstractCart<K, ?, L> partCart(PartLoader<K, L> pl, K key, Object value) {
+		return partCart(key, value, pl.label, pl.creationTime, pl.expirationTime, pl.priority, pl.getAllProperties());
+	}
+
+	/**
+	 * Creates the part cart from the current state of the reusable part loader.
+	 *
+	 * @param rl the reusable part loader
+	 * @return the cart
+	 */
+	private AbstractCart<K, ?, L> partCart(ReusablePartLoader<K, L> rl) {
+		return partCart(rl.getKey(), rl.getPartValue(), rl.getLabel(), rl.getCreationTime(), rl.getExpirationTime(), rl.getPriority(), rl.getAllProperties());
+	}
+
+	/**
+	 * Creates the part cart.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param label the label
+	 * @param creationTime the creation time
+	 * @param expirationTime the expiration time
+	 * @param priority the priority
+	 * @param properties the properties
+	 * @return the cart
+	 */
+	private AbstractCart<K, ?, L> partCart(K key, Object value, L label, long creationTime, long expirationTime, long priority, Map<String,Object> properties) {
+		if (existingBuildsFirst && isOpen(key)) {
+			priority++;
+		}
+		AbstractCart<K, ?, L> cart = new ShoppingCart<>(key, value, label, creationTime, expirationTime, null, PART, priority, nanoTimeStamping ? System.nanoTime() : 0);
+		cart.putAllProperties(properties);
+		return cart;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.Conveyor#reusablePart()
+	 */
+	@Override
+	public ReusablePartLoader<K,L> reusablePart() {
+		return new ReusablePartLoader<>(rl -> place(partCart(rl)), rl -> placeAndForget(partCart(rl)));
 	}
 
 	/* (non-Javadoc)
@@ -786,7 +1578,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 			}
 			return future;
 		} catch (RuntimeException e) {
-			cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(
+			cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(
 					new ScrapBin(this, cart.getKey(), cart, e.getMessage(), e, FailureType.COMMAND_REJECTED,cart.getAllProperties(), null));
 			throw e;
 		} finally {
@@ -861,11 +1653,13 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		var future = cart.getFuture();
 		try {
 			cartBeforePlacementValidator.accept(cart);
-			if ( ! inQueue.add(cart) ) {
+			if ( ! offer(cart) ) {
+				rejectedCartCounter.increment();
 				future.cancel(true);
 			}
 		} catch (RuntimeException e) {
-			cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(
+			rejectedCartCounter.increment();
+			cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(
 					new ScrapBin(this, cart.getKey(), cart, e.getMessage(), e, FailureType.CART_REJECTED,cart.getAllProperties(), null));
 		} finally {
 			lock.tell();
@@ -873,6 +1667,94 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		return future;
 	}
 
+	/**
+	 * Processes the cart on the calling thread, bypassing the input queue. Possible only when the caller
+	 * is the thread running this conveyor, which is the case for conveyors sharing an event loop of the
+	 * {@link ConveyorGroup}, and when no carts or commands are waiting, so the cart cannot overtake them.
+	 * The cart is not placed when it cannot be processed inline.
+	 * Rejected and failed carts are reported to the scrap consumer only.
+	 *
+	 * @param <V> the value type
+	 * @param cart the cart
+	 * @return true, if the cart was processed inline, false - the cart must be placed
+	 */
+	public <V> boolean processInline(Cart<K, V, L> cart) {
+		if (Thread.currentThread() != conveyorThread() || inCycle || suspended || ! running
+				|| inQueue.peek() != null || mQueue.peek() != null || ! pendingPlacements.isEmpty()) {
+			return false;
+		}
+		if (cart instanceof AbstractCart<K, V, L> abstractCart) {
+			abstractCart.markUnobserved();
+		}
+		try {
+			cartBeforePlacementValidator.accept(cart);
+		} catch (RuntimeException e) {
+			rejectedCartCounter.increment();
+			countingScrapConsumer.accept(new ScrapBin(this, cart.getKey(), cart, e.getMessage(), e, FailureType.CART_REJECTED,cart.getAllProperties(), null));
+			return true;
+		}
+		inCycle = true;
+		try {
+			cartCounter++;
+			processSite(cart, true);
+		} finally {
+			currentSite = null;
+			inCycle = false;
+		}
+		// the event loop re-arms the expiration timer of this conveyor
+		lock.tell();
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.Conveyor#placeAll(java.util.Collection)
+	 */
+	@Override
+	public CompletableFuture<Boolean> placeAll(Collection<? extends Cart<K, ?, L>> carts) {
+		var batch = new CartBatchFuture(carts.size());
+		try {
+			for (Cart<K, ?, L> cart : carts) {
+				batch.add(cart);
+				try {
+					cartBeforePlacementValidator.accept(cart);
+					if ( ! offer(cart) ) {
+						rejectedCartCounter.increment();
+						cart.getFuture().cancel(true);
+					}
+				} catch (RuntimeException e) {
+					rejectedCartCounter.increment();
+					cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(
+							new ScrapBin(this, cart.getKey(), cart, e.getMessage(), e, FailureType.CART_REJECTED,cart.getAllProperties(), null));
+				}
+			}
+		} finally {
+			lock.tell();
+		}
+		return batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.Conveyor#placeAndForget(com.aegisql.conveyor.cart.Cart)
+	 */
+	@Override
+	public <V> void placeAndForget(Cart<K, V, L> cart) {
+		if (cart instanceof AbstractCart<K, V, L> abstractCart) {
+			abstractCart.markUnobserved();
+		}
+		try {
+			cartBeforePlacementValidator.accept(cart);
+			if ( ! offer(cart) ) {
+				rejectedCartCounter.increment();
+				cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart, "Input queue is full", null, FailureType.CART_REJECTED,cart.getAllProperties(), null));
+			}
+		} catch (RuntimeException e) {
+			rejectedCartCounter.increment();
+			cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getKey(), cart, e.getMessage(), e, FailureType.CART_REJECTED,cart.getAllProperties(), null));
+		} finally {
+			lock.tell();
+		}
+	}
+
 	/**
 	 * Gets the collector size.
 	 *
@@ -910,6 +1792,33 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		this.scrapConsumer = scrapConsumer;
 	}
 
+	/**
+	 * Closes the resource when the conveyor stops, after the last product was delivered.
+	 * Result consumers that deliver products on their own threads, like {@link com.aegisql.conveyor.consumers.result.AsyncResult},
+	 * register themselves on the first product. Closed right away, if the conveyor has already stopped.
+	 *
+	 * @param resource the resource
+	 */
+	public void closeOnStop(AutoCloseable resource) {
+		Objects.requireNonNull(resource, "Resource must not be null");
+		closeOnStop.add(resource);
+		if (left) {
+			closeResources();
+		}
+	}
+
+	/**
+	 * Counts the scrap and passes it to the scrap consumer of this conveyor.
+	 * Used by result consumers that deliver products on their own threads to report failed products.
+	 * The scrap consumer must be thread safe in this case.
+	 *
+	 * @param bin the scrap bin
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void scrap(ScrapBin<K,?> bin) {
+		((ScrapConsumer) countingScrapConsumer).accept(bin);
+	}
+
 	/**
 	 * Stop.
 	 */
@@ -919,6 +1828,9 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 			this.conveyorFuture.complete(false);
 		}
 		lock.tell();
+		if (waitingProducers.get() > 0) {
+			signalCapacity();
+		}
 		statusLine = "Stopped";
 		LOG.info("Conveyor {} has stopped!",name);
 	}
@@ -936,13 +1848,13 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 				if(this.conveyorFuture == null) {
 					this.addCartBeforePlacementValidator(c->{
 						var key = c.getKey();
-						if(key != null && ! this.collector.containsKey(key)) {
+						if(key != null && ! this.isOpen(key)) {
 							throw new IllegalStateException("Conveyor preparing to shut down. No new messages can be accepted");
 						}
 					});
 					this.commandBeforePlacementValidator = commandBeforePlacementValidator.andThen(cmd -> {
 						var key = cmd.getKey();
-						if(key != null && ! this.collector.containsKey(key)) {
+						if(key != null && ! this.isOpen(key)) {
 							throw new IllegalStateException("Conveyor preparing to shut down. No new commands can be accepted");
 						}
 					});
@@ -956,256 +1868,1110 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	}
 
 	/**
-	 * Gets the expiration collection interval.
+	 * Gets the expiration collection interval.
+	 *
+	 * @return the expiration collection interval
+	 */
+	public long getExpirationCollectionIdleInterval() {
+		return lock.expirationCollectionInterval;
+	}
+
+	/**
+	 * Gets the expiration collection idle time unit.
+	 *
+	 * @return the expiration collection idle time unit
+	 */
+	public TimeUnit getExpirationCollectionIdleTimeUnit() {
+		return lock.expirationCollectionUnit;
+	}
+
+	/**
+	 * Process site.
+	 *
+	 * @param cart
+	 *            the cart
+	 * @param accept
+	 *            the accept
+	 */
+	@SuppressWarnings("unchecked")
+	private void processSite(Cart<K, ?, L> cart, boolean accept) {
+		var key = cart.getKey();
+		if (key == null) {
+			if (cart.getLoadType() == MULTI_KEY_PART) {
+				try {
+					MultiKeyCart<K,?,L> mc = ((MultiKeyCart<K,?,L>)cart);
+					final var label = cart.getLabel();
+					final var load = mc.getValue();
+					final var filter = load.getFilter();
+					final Function<K,Cart<K, ?, L>> cartBuilder;
+					if (load.getLoadType() == RESULT_CONSUMER) {
+						cartBuilder = k -> {
+							ResultConsumerCart rcc = new ResultConsumerCart(k, (ResultConsumer) load.getValue(), cart.getCreationTime(), cart.getExpirationTime(), cart.getPriority());
+							rcc.putAllProperties(cart.getAllProperties());
+							rcc.markUnobserved();
+							return rcc;
+						};
+					} else {
+						cartBuilder = k -> {
+							ShoppingCart<K, ?, L> c = new ShoppingCart<>(k, load.getValue(), label, cart.getCreationTime(), cart.getExpirationTime());
+							c.putAllProperties(mc.getAllProperties());
+							c.markUnobserved();
+							return c;
+						};
+					}
+					LOG.trace("READY TO APPLY MULTI");
+					matchingKeys(filter)
+					.forEach(k -> {
+								LOG.trace("MULTI FILTER MATCH {}",k);
+								processSite(cartBuilder.apply(k), accept);
+							});
+					cart.getFuture().complete(true);
+				} catch (Exception e) {
+					cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(new ScrapBin(this, cart.getLabel(), cart, "MultiKey cart failure", e, FailureType.GENERAL_FAILURE,cart.getAllProperties(), null));
+					throw e;
+				}
+			} else if(cart.getLoadType() == STATIC_PART) {
+				if( cart.getProperty("CREATE", Boolean.class) ) {
+					staticValues.put(cart.getLabel(), cart);
+				} else {
+					staticValues.remove(cart.getLabel());
+				}
+				cart.getFuture().complete(true);
+			}
+			if( ! (cart.getLoadType() == PART && cart.getValue() instanceof Cart)) {
+				return;
+			}
+		}
+		currentSite = null;
+		CompletableFuture resultFuture = null;
+		ResultConsumer newConsumer     = null;
+		if (cart.getLoadType() == FUTURE) {
+			var fc = (FutureCart<K, ? extends OUT, L>) cart;
+			resultFuture = fc.getValue();
+		}
+		if (cart.getLoadType() == RESULT_CONSUMER) {
+			var rc = (ResultConsumerCart<K,OUT, L>) cart;
+			newConsumer = rc.getValue();
+		}
+		var failureType = FailureType.GENERAL_FAILURE;
+		try {
+			LOG.trace("Read {}",cart);
+			currentSite = getBuildingSite(cart);
+			if (currentSite == null) {
+				if (cart.getLoadType() == BUILDER) {
+					cart.getFuture().complete(Boolean.TRUE);
+				} else {
+					cart.getFuture().complete(Boolean.FALSE);
+				}
+				if (resultFuture != null) {
+					resultFuture.completeExceptionally(new Exception("No active building site found"));
+				}
+				return;
+			}
+			if (spillFile != null) {
+				currentSite.lastUpdated = System.currentTimeMillis();
+			}
+			currentSite.addProperties(cart.getAllProperties());
+			if (resultFuture != null) {
+				currentSite.addFuture(resultFuture);
+				cart.getFuture().complete(true);
+				return;
+			}
+			if (newConsumer != null) {
+				currentSite.setResultConsumer(newConsumer);
+				cart.getFuture().complete(true);
+				return;
+			}
+			if (Status.TIMED_OUT.equals(cart.getValue())) {
+				failureType = FailureType.ON_TIMEOUT_FAILED;
+				currentSite.timeout(cart);
+			} else if (accept) {
+				failureType = FailureType.DATA_REJECTED;
+				currentSite.accept(cart);
+				if (evictionQueue != null) {
+					evictionQueue.updated(currentSite);
+					enforceCollectorLimits(currentSite);
+				}
+			}
+			failureType = FailureType.READY_FAILED;
+			if (currentSite.ready()) {
+				failureType = FailureType.BUILD_FAILED;
+				OUT res = currentSite.unsafeBuild();
+				failureType = FailureType.RESULT_CONSUMER_FAILED;
+				completeSuccessfully((BuildingSite<K, L, ?, OUT>) currentSite,res,Status.READY);
+				failureType = FailureType.BEFORE_EVICTION_FAILED;
+				keyBeforeEviction.accept(new AcknowledgeStatus<>(key, Status.READY, currentSite.getProperties()));
+			}
+			cart.getFuture().complete(Boolean.TRUE);
+		} catch (KeepRunningConveyorException e) {
+			if (currentSite != null) {
+				currentSite.setLastError(e);
+				currentSite.setLastCart(cart);
+				cart.getScrapConsumer().accept(new ScrapBin(this, cart.getKey(), cart,
+						"Cart Processor failed. Keep running", e, FailureType.KEEP_RUNNING_EXCEPTION,cart.getAllProperties(), null));
+				countingScrapConsumer.accept(new ScrapBin(this, cart.getKey(), cart,
+						"Site Processor failed. Keep running", e, FailureType.KEEP_RUNNING_EXCEPTION,cart.getAllProperties(), currentSite.getAcknowledge()));
+				currentSite.completeFuturesExceptionaly(e);
+			}
+		} catch (Exception e) {
+			if (currentSite != null) {
+				currentSite.setStatus(Status.INVALID);
+				currentSite.setLastError(e);
+				currentSite.setLastCart(cart);
+				cart.getScrapConsumer().accept(new ScrapBin(this, cart.getKey(), cart,
+						"Cart Processor failed", e, failureType,cart.getAllProperties(), null));
+				countingScrapConsumer.accept(new ScrapBin(this, cart.getKey(), currentSite,
+						"Site Processor failed", e, failureType,cart.getAllProperties(), currentSite.getAcknowledge()));
+				currentSite.completeFuturesExceptionaly(e);
+			} else {
+				cart.getScrapConsumer().andThen((ScrapConsumer)countingScrapConsumer).accept(
+						new ScrapBin(this, cart.getKey(), cart, "Cart Processor Failed", e, failureType,cart.getAllProperties(), null));
+			}
+			if (!failureType.equals(FailureType.BEFORE_EVICTION_FAILED)) {
+				try {
+					keyBeforeEviction.accept(new AcknowledgeStatus<>(key, Status.INVALID, currentSite==null?null:currentSite.getProperties()));
+				} catch (Exception e2) {
+					LOG.error("BeforeEviction failed after processing failure: {} {} {}", failureType, e.getMessage(),
+							e2.getMessage());
+					removeSite(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Postpone timeout.
+	 *
+	 * @param bs
+	 *            the bs
+	 * @return true, if successful
+	 */
+	private boolean postponeTimeout(BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> bs) {
+		if (postponeExpirationEnabled) {
+			if (!bs.expired()) {
+				LOG.trace("Expiration will bin postponed for key={}", bs.getKey());
+				delayProvider.add(bs.getKey(), bs.getExpirationTime());
+				return true;
+			}
+		}
+		bs.setStatus(Status.TIMED_OUT);
+		return false;
+	}
+
+	/**
+	 * Next expiration time. Now, when expired builds are waiting in the backlog.
+	 *
+	 * @return the next expiration time
+	 */
+	private long nextExpirationTime() {
+		return expiredBacklog.isEmpty() ? delayProvider.nextExpirationTime() : 0;
+	}
+
+	/**
+	 * Removes the expired.
+	 */
+	private void removeExpired() {
+		if (expiredBacklog.isEmpty()) {
+			if (System.currentTimeMillis() < delayProvider.nextExpirationTime()) {
+				return;
+			}
+			for (K key : delayProvider.getAllExpiredKeys()) {
+				var buildingSite = collector.get(key);
+				if (buildingSite == null) {
+					buildingSite = faultIn(key);
+				}
+				if (buildingSite != null) {
+					buildingSite.expiredBacklog = true;
+					expiredBacklog.add(buildingSite);
+				}
+			}
+			expiredBacklogSize = expiredBacklog.size();
+		}
+		final int batchSize = expirationBatchSize;
+		final long budget = expirationTimeBudgetNanos;
+		final long deadline = budget > 0 ? System.nanoTime() + budget : 0;
+		int processed = 0;
+		int cnt = 0;
+		var statusForEviction = Status.TIMED_OUT;
+		BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> buildingSite;
+		while (processed < batchSize && (processed == 0 || deadline == 0 || System.nanoTime() - deadline < 0)
+				&& (buildingSite = expiredBacklog.poll()) != null) {
+			var key = buildingSite.getKey();
+			if ( ! buildingSite.expiredBacklog || collector.get(key) != buildingSite) {
+				continue;
+			}
+			buildingSite.expiredBacklog = false;
+			processed++;
+			if (timeoutAction != null || buildingSite.getTimeoutAction() != null) {
+				try {
+					var to = new ShoppingCart<K, Object, L>(buildingSite.getKey(),
+							Status.TIMED_OUT, null);
+					buildingSite.timeout(to);
+
+					if (buildingSite.ready()) {
+						LOG.trace("Expired and finished {}",key);
+						var res = buildingSite.build();
+						completeSuccessfully((BuildingSite<K, L, ?, OUT>) buildingSite,res,Status.TIMED_OUT);
+						statusForEviction = Status.READY;
+					} else {
+						if (postponeTimeout(buildingSite)) {
+							continue;
+						}
+						LOG.trace("Expired and not finished {}",key);
+						countingScrapConsumer.accept(new ScrapBin(this, key,
+								buildingSite, "Site expired", null, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
+						buildingSite.cancelFutures();
+					}
+				} catch (Exception e) {
+					buildingSite.setStatus(Status.INVALID);
+					buildingSite.setLastError(e);
+					statusForEviction = Status.INVALID;
+					countingScrapConsumer.accept(new ScrapBin(this, key,
+							buildingSite, "Timeout processor failed ", e, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
+					buildingSite.completeFuturesExceptionaly(e);
+				}
+			} else {
+				if (postponeTimeout(buildingSite)) {
+					continue;
+				}
+				LOG.trace("Expired and removed {}",key);
+				countingScrapConsumer.accept(new ScrapBin(this, key,
+						buildingSite, "Site expired. No timeout action", null, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
+				buildingSite.cancelFutures();
+			}
+			keyBeforeEviction.accept(new AcknowledgeStatus<>(key, statusForEviction, buildingSite.getProperties()));
+			cnt++;
+		}
+		expiredBacklogSize = expiredBacklog.size();
+		if (cnt > 0) {
+			LOG.trace("Timeout collected: {}",cnt);
+		}
+	}
+
+	/**
+	 * Gets the site from the collector.
+	 *
+	 * @param key the key
+	 * @return the building site, null if not found
+	 */
+	private BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> getSite(K key) {
+		return collector.get(key);
+	}
+
+	/**
+	 * Puts the site into the collector.
+	 *
+	 * @param key the key
+	 * @param buildingSite the building site
+	 */
+	private void putSite(K key, BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> buildingSite) {
+		collector.put(key, buildingSite);
+		if (openKeys != null) {
+			openKeys.add(key);
+		}
+	}
+
+	/**
+	 * Checks if the collector has the build. Safe to call from any thread
+	 * unless the collector is the HashMap and the priority is not EXISTING_BUILDS_FIRST.
+	 *
+	 * @param key the key
+	 * @return true, if the build is open
+	 */
+	private boolean isOpen(K key) {
+		if (openKeys != null) {
+			return key != null && openKeys.contains(key);
+		}
+		return collector.containsKey(key);
+	}
+
+	/**
+	 * Removes the site from the collector and from the collector index.
+	 *
+	 * @param key the key
+	 */
+	private void removeSite(K key) {
+		unloadSite(key);
+		if (collectorIndex != null) {
+			collectorIndex.remove(key);
+		}
+	}
+
+	/**
+	 * Removes the site from the collector. The key stays in the collector index.
+	 *
+	 * @param key the key
+	 */
+	private void unloadSite(K key) {
+		var buildingSite = collector.remove(key);
+		if (openKeys != null) {
+			openKeys.remove(key);
+		}
+		if (buildingSite != null && evictionQueue != null) {
+			evictionQueue.removed(buildingSite);
+		}
+	}
+
+	/**
+	 * Moves idle builds to the spill file, when the heap usage is above the threshold.
+	 * Builds with futures or custom result consumers, and builds with not serializable builders stay on heap.
+	 */
+	@SuppressWarnings("unchecked")
+	private void spillIdleSites() {
+		final var path = spillFile;
+		if (path == null || ! expiredBacklog.isEmpty()) {
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		if (now < nextSpillCheck) {
+			return;
+		}
+		nextSpillCheck = now + SPILL_CHECK_INTERVAL_MSEC;
+		var runtime = Runtime.getRuntime();
+		double heapUsage = (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+		if (heapUsage < spillHeapThreshold) {
+			return;
+		}
+		var spill = siteSpill(path);
+		if (spill == null) {
+			return;
+		}
+		final long idleSince = now - spillIdleTimeMsec;
+		var idle = new ArrayList<BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>>();
+		collector.values().forEach(bs -> {
+			if (bs.lastUpdated <= idleSince && SiteSpill.spillable(bs)) {
+				idle.add(bs);
+			}
+		});
+		int cnt = 0;
+		for (var bs : idle) {
+			var key = bs.getKey();
+			if (spill.spill(key, bs.getMemento())) {
+				// expiration time and index values stay
+				unloadSite(key);
+				cnt++;
+			}
+		}
+		updateSpillStats();
+		LOG.debug("Heap usage {}. Spilled {} of {} idle builds to {}", heapUsage, cnt, idle.size(), path);
+	}
+
+	/**
+	 * Gets the site spill. Creates new one, when the spill file was changed.
+	 *
+	 * @param path the path
+	 * @return the site spill, null if the file cannot be created
+	 */
+	private SiteSpill<K> siteSpill(Path path) {
+		if (siteSpill != null && siteSpill.getPath().equals(path)) {
+			return siteSpill;
+		}
+		if (siteSpill != null && siteSpill.size() > 0) {
+			return siteSpill;
+		}
+		if (siteSpill != null) {
+			siteSpill.close();
+		}
+		try {
+			siteSpill = new SiteSpill<>(path, collectorType.getKeyType());
+		} catch (IOException e) {
+			LOG.error("Conveyor {} failed creating spill file {}. Spill is disabled", name, path, e);
+			siteSpill = null;
+			spillFile = null;
+		}
+		return siteSpill;
+	}
+
+	/**
+	 * Restores the spilled build into the collector.
+	 *
+	 * @param key the key
+	 * @return the building site, null if the key was not spilled
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> faultIn(K key) {
+		if (key == null || siteSpill == null || siteSpill.size() == 0) {
+			return null;
+		}
+		final Memento memento = siteSpill.restore(key);
+		if (memento == null) {
+			return null;
+		}
+		var cart = new ShoppingCart<K, Memento, L>(key, memento, null, memento.getCreationTime(), memento.getExpirationTime());
+		BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> buildingSite = new BuildingSite<>(cart, () -> memento.builder, cartConsumer,
+				readiness, timeoutAction, builderTimeout, TimeUnit.MILLISECONDS, synchronizeBuilder, saveCarts,
+				postponeExpirationEnabled, postponeExpirationMills, postponeExpirationOnTimeoutEnabled, null, resultConsumer,
+				ackAction, this);
+		// drops the label of the restoring cart from the history
+		buildingSite.restore(memento);
+		buildingSite.lastUpdated = System.currentTimeMillis();
+		putSite(key, buildingSite);
+		if (evictionQueue != null) {
+			evictionQueue.created(buildingSite);
+		}
+		updateSpillStats();
+		return buildingSite;
+	}
+
+	/**
+	 * Rejects the multi-key cart with the {@link IndexFilter} without the fallback predicate, if this conveyor has no such index.
+	 *
+	 * @param cart the cart
+	 */
+	@SuppressWarnings("unchecked")
+	private void checkIndexFilter(Cart<K, ?, L> cart) {
+		if (cart.getLoadType() == MULTI_KEY_PART) {
+			checkIndexFilter(((MultiKeyCart<K,?,L>) cart).getValue().getFilter());
+		}
+	}
+
+	/**
+	 * Rejects the {@link IndexFilter} without the fallback predicate, if this conveyor has no such index.
+	 *
+	 * @param filter the filter
+	 */
+	private void checkIndexFilter(Predicate<K> filter) {
+		if (filter instanceof IndexFilter<K> indexFilter && ! indexFilter.hasFallback()
+				&& ! collectorType.hasIndex(indexFilter.getIndex())) {
+			throw new IllegalStateException("Conveyor " + name + " has no collector index '" + indexFilter.getIndex()
+					+ "' and " + indexFilter + " has no fallback predicate");
+		}
+	}
+
+	/**
+	 * Keys of open builds matching the filter. Keys of the {@link IndexFilter} are taken from the collector index,
+	 * keys of the {@link KeyRange} are taken from the sub map of the sorted collector,
+	 * other filters, including the {@link IndexFilter} of the index this conveyor does not have, are tested against all keys.
+	 *
+	 * @param filter the filter
+	 * @return the list of keys
+	 */
+	private List<K> matchingKeys(Predicate<K> filter) {
+		if (filter instanceof IndexFilter<K> indexFilter) {
+			if (collectorIndex != null && collectorIndex.defines(indexFilter.getIndex())) {
+				// spilled builds are restored when the cart or command is processed
+				return collectorIndex.keys(indexFilter.getIndex(), indexFilter.getValue());
+			}
+			if ( ! indexFilter.hasFallback()) {
+				// rejected on placement, unless the cart was placed bypassing the validators
+				LOG.warn("Conveyor {} has no collector index '{}'. No keys match {}", name, indexFilter.getIndex(), indexFilter);
+				return Collections.emptyList();
+			}
+		}
+		faultIn(filter);
+		if (filter instanceof KeyRange<K> range && collector instanceof NavigableMap<K, BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>> sorted) {
+			return new ArrayList<>(range.subMap(sorted).keySet());
+		}
+		return collector.keySet().stream().filter(filter).toList();
+	}
+
+	/**
+	 * Restores spilled builds with keys matching the filter.
+	 *
+	 * @param filter the filter
+	 */
+	private void faultIn(Predicate<K> filter) {
+		if (siteSpill == null || siteSpill.size() == 0) {
+			return;
+		}
+		siteSpill.keys(filter).forEach(this::faultIn);
+	}
+
+	/**
+	 * Updates the spill statistics.
+	 */
+	private void updateSpillStats() {
+		spilledBuildCount = siteSpill.size();
+		spilledBytes      = siteSpill.getBytes();
+	}
+
+	/**
+	 * Gets the eviction queue. Creates or rebuilds the queue, when the policy or the estimator were changed.
+	 *
+	 * @return the eviction queue
+	 */
+	private EvictionQueue<K> evictionQueue() {
+		var policy    = evictionPolicy;
+		var estimator = collectorSizeEstimator;
+		if (evictionQueue == null || evictionQueue.getPolicy() != policy || evictionQueue.getEstimator() != estimator) {
+			var queue = new EvictionQueue<K>(policy, estimator, bs -> collector.get(bs.getKey()) == bs);
+			collector.values().forEach(queue::created);
+			evictionQueue = queue;
+		}
+		return evictionQueue;
+	}
+
+	/**
+	 * Evicts builds, while the collector exceeds its max size or max estimated bytes.
+	 *
+	 * @param current the site being processed, it is never evicted
+	 */
+	@SuppressWarnings("unchecked")
+	private void enforceCollectorLimits(BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> current) {
+		final int maxSize   = maxCollectorSize;
+		final long maxBytes = maxCollectorBytes;
+		if (maxSize == Integer.MAX_VALUE && maxBytes == Long.MAX_VALUE) {
+			return;
+		}
+		var queue = evictionQueue();
+		while (collector.size() > maxSize || queue.getEstimatedBytes() > maxBytes) {
+			var victim = (BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT>) queue.victim(current);
+			if (victim == null) {
+				break;
+			}
+			evict(victim);
+		}
+	}
+
+	/**
+	 * Evicts the build. The build is sent to the overflow handler, or to the scrap consumer,
+	 * its futures are cancelled and the key is removed from the collector.
+	 *
+	 * @param buildingSite the building site
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void evict(BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> buildingSite) {
+		var key = buildingSite.getKey();
+		LOG.trace("Collector limit exceeded. Evicting {}", key);
+		evictedBuildCounter.increment();
+		buildingSite.setStatus(Status.CANCELED);
+		if (buildingSite.isExpireable()) {
+			delayProvider.delete(key, buildingSite.getExpirationTime());
+		}
+		ScrapConsumer handler = collectorOverflowHandler == null ? countingScrapConsumer : collectorOverflowHandler;
+		try {
+			handler.accept(new ScrapBin(this, key, buildingSite, "Site evicted. Collector limit exceeded", null,
+					FailureType.BUILD_EVICTED, buildingSite.getProperties(), buildingSite.getAcknowledge()));
+		} catch (Exception e) {
+			LOG.error("Overflow handler failed for key {}: {}", key, e.getMessage());
+		}
+		buildingSite.cancelFutures();
+		try {
+			keyBeforeEviction.accept(new AcknowledgeStatus<>(key, Status.CANCELED, buildingSite.getProperties()));
+		} catch (Exception e) {
+			LOG.error("BeforeEviction failed for evicted key {}: {}", key, e.getMessage());
+			removeSite(key);
+		}
+	}
+
+	/**
+	 * Sets the max number of open builds. When the limit is exceeded, builds are evicted
+	 * according to the {@link EvictionPolicy}. Default is unlimited.
+	 *
+	 * @param maxCollectorSize the max collector size, Integer.MAX_VALUE - no limit
+	 */
+	public void setMaxCollectorSize(int maxCollectorSize) {
+		if (maxCollectorSize < 1) {
+			throw new IllegalArgumentException("Max collector size must be positive: " + maxCollectorSize);
+		}
+		this.maxCollectorSize = maxCollectorSize;
+	}
+
+	/**
+	 * Gets the max collector size.
+	 *
+	 * @return the max collector size
+	 */
+	public int getMaxCollectorSize() {
+		return maxCollectorSize;
+	}
+
+	/**
+	 * Sets the max estimated bytes of open builds. When the limit is exceeded, builds are evicted
+	 * according to the {@link EvictionPolicy}. Default is unlimited.
+	 *
+	 * @param maxCollectorBytes the max collector bytes, Long.MAX_VALUE - no limit
+	 * @see #setCollectorSizeEstimator(ToLongFunction)
+	 */
+	public void setMaxCollectorBytes(long maxCollectorBytes) {
+		if (maxCollectorBytes < 1) {
+			throw new IllegalArgumentException("Max collector bytes must be positive: " + maxCollectorBytes);
+		}
+		this.maxCollectorBytes = maxCollectorBytes;
+	}
+
+	/**
+	 * Gets the max collector bytes.
+	 *
+	 * @return the max collector bytes
+	 */
+	public long getMaxCollectorBytes() {
+		return maxCollectorBytes;
+	}
+
+	/**
+	 * Sets the building site size estimator. Estimation is called when a build is created
+	 * and after each accepted cart. Default estimation is {@link #DEFAULT_SITE_BYTES}
+	 * plus {@link #DEFAULT_SAVED_CART_BYTES} for each cart kept on the site.
+	 *
+	 * @param estimator the estimator
+	 */
+	public void setCollectorSizeEstimator(ToLongFunction<BuildingSite<?,?,?,?>> estimator) {
+		this.collectorSizeEstimator = Objects.requireNonNull(estimator, "Collector size estimator cannot be null");
+	}
+
+	/**
+	 * Gets the estimated bytes of open builds. 0, if no collector limit was set.
+	 *
+	 * @return the estimated collector bytes
+	 */
+	public long getEstimatedCollectorBytes() {
+		var queue = evictionQueue;
+		return queue == null ? 0 : queue.getEstimatedBytes();
+	}
+
+	/**
+	 * Sets the eviction policy. Default is {@link EvictionPolicy#OLDEST_CREATED}
+	 *
+	 * @param evictionPolicy the eviction policy
+	 */
+	public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = Objects.requireNonNull(evictionPolicy, "Eviction policy cannot be null");
+	}
+
+	/**
+	 * Gets the eviction policy.
+	 *
+	 * @return the eviction policy
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	/**
+	 * Sets the consumer of builds evicted from the collector.
+	 * Evicted builds go to the scrap consumer with {@link FailureType#BUILD_EVICTED}, if not set.
+	 *
+	 * @param collectorOverflowHandler the collector overflow handler
+	 */
+	public void setCollectorOverflowHandler(ScrapConsumer<K,?> collectorOverflowHandler) {
+		this.collectorOverflowHandler = collectorOverflowHandler;
+	}
+
+	/**
+	 * Gets the number of builds evicted from the collector.
+	 *
+	 * @return the evicted build counter
+	 */
+	public long getEvictedBuildCounter() {
+		return evictedBuildCounter.sum();
+	}
+
+	/**
+	 * Sets the spill file. When the heap usage is above the {@link #setSpillHeapThreshold(double)},
+	 * idle builds are serialized into the memory mapped file and removed from the collector.
+	 * The build is restored, when the next cart or command for its key arrives, or when it expires.
+	 * Only builds with serializable builders, properties and saved carts, and without futures
+	 * or custom result consumers can be spilled. The file is deleted when the conveyor stops.
+	 *
+	 * @param spillFile the spill file, null - spill is disabled
+	 */
+	public void setSpillFile(Path spillFile) {
+		if (spillFile == null && spilledBuildCount > 0) {
+			throw new IllegalStateException("Spill cannot be disabled while " + spilledBuildCount + " builds are spilled");
+		}
+		this.spillFile = spillFile;
+	}
+
+	/**
+	 * Gets the spill file.
+	 *
+	 * @return the spill file, null if spill is disabled
+	 */
+	public Path getSpillFile() {
+		return spillFile;
+	}
+
+	/**
+	 * Sets the used to max heap ratio, above which idle builds are spilled. Default is 0.8
+	 *
+	 * @param spillHeapThreshold the spill heap threshold, 0 - always spill idle builds
+	 */
+	public void setSpillHeapThreshold(double spillHeapThreshold) {
+		if (spillHeapThreshold < 0 || spillHeapThreshold > 1) {
+			throw new IllegalArgumentException("Spill heap threshold must be between 0 and 1: " + spillHeapThreshold);
+		}
+		this.spillHeapThreshold = spillHeapThreshold;
+	}
+
+	/**
+	 * Gets the spill heap threshold.
+	 *
+	 * @return the spill heap threshold
+	 */
+	public double getSpillHeapThreshold() {
+		return spillHeapThreshold;
+	}
+
+	/**
+	 * Sets the time without new carts, after which the build can be spilled. Default is 1 minute.
+	 *
+	 * @param idleTime the idle time
+	 * @param unit the unit
+	 */
+	public void setSpillIdleTime(long idleTime, TimeUnit unit) {
+		if (idleTime < 0) {
+			throw new IllegalArgumentException("Spill idle time cannot be negative: " + idleTime);
+		}
+		this.spillIdleTimeMsec = unit.toMillis(idleTime);
+	}
+
+	/**
+	 * Gets the spill idle time in milliseconds.
+	 *
+	 * @return the spill idle time
+	 */
+	public long getSpillIdleTime() {
+		return spillIdleTimeMsec;
+	}
+
+	/**
+	 * Gets the number of builds in the spill file.
+	 *
+	 * @return the spilled build count
+	 */
+	public int getSpilledBuildCount() {
+		return spilledBuildCount;
+	}
+
+	/**
+	 * Gets the bytes of builds in the spill file.
+	 *
+	 * @return the spilled bytes
+	 */
+	public long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+	/**
+	 * Sets the expiration collection interval. Running conveyor sleeps until the next build expiration time
+	 * or new data, so the interval only limits the sleep time of the suspended conveyor.
+	 *
+	 * @param expirationCollectionInterval
+	 *            the expiration collection interval
+	 * @param unit
+	 *            the unit
+	 */
+	public void setIdleHeartBeat(long expirationCollectionInterval, TimeUnit unit) {
+		lock.setExpirationCollectionInterval(expirationCollectionInterval);
+		lock.setExpirationCollectionUnit(unit);
+		lock.tell();
+	}
+
+	/**
+	 * Sets the max number of carts processed per wakeup of the inner thread
+	 * before expired builds are collected. Default is 1.
+	 *
+	 * @param drainBatchSize the drain batch size
+	 */
+	public void setDrainBatchSize(int drainBatchSize) {
+		if (drainBatchSize < 1) {
+			throw new IllegalArgumentException("Drain batch size must be positive: " + drainBatchSize);
+		}
+		this.drainBatchSize = drainBatchSize;
+	}
+
+	/**
+	 * Gets the drain batch size.
+	 *
+	 * @return the drain batch size
+	 */
+	public int getDrainBatchSize() {
+		return drainBatchSize;
+	}
+
+	/**
+	 * Sets the max time spent draining the input queue per wakeup of the inner thread.
+	 * Zero means the batch is limited only by the drain batch size.
+	 *
+	 * @param budget the budget
+	 * @param unit the unit
+	 */
+	public void setDrainTimeBudget(long budget, TimeUnit unit) {
+		if (budget < 0) {
+			throw new IllegalArgumentException("Drain time budget cannot be negative: " + budget);
+		}
+		this.drainTimeBudgetNanos = unit.toNanos(budget);
+	}
+
+	/**
+	 * Sets the drain time budget.
+	 *
+	 * @param duration the duration
+	 */
+	public void setDrainTimeBudget(Duration duration) {
+		this.setDrainTimeBudget(duration.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the drain time budget in nanoseconds.
+	 *
+	 * @return the drain time budget
+	 */
+	public long getDrainTimeBudgetNanos() {
+		return drainTimeBudgetNanos;
+	}
+
+	/**
+	 * Gets the max number of carts drained from the input queue in one wakeup of the inner thread.
+	 * Never exceeds the drain batch size.
+	 *
+	 * @return the max drained
+	 */
+	public int getMaxDrained() {
+		return maxDrained;
+	}
+
+	/**
+	 * Sets the max number of expired builds processed per wakeup of the inner thread.
+	 * Remaining expired builds wait in the backlog and are processed after the next portion
+	 * of the input queue. Default is unlimited.
+	 *
+	 * @param expirationBatchSize the expiration batch size
+	 */
+	public void setExpirationBatchSize(int expirationBatchSize) {
+		if (expirationBatchSize < 1) {
+			throw new IllegalArgumentException("Expiration batch size must be positive: " + expirationBatchSize);
+		}
+		this.expirationBatchSize = expirationBatchSize;
+	}
+
+	/**
+	 * Gets the expiration batch size.
+	 *
+	 * @return the expiration batch size
+	 */
+	public int getExpirationBatchSize() {
+		return expirationBatchSize;
+	}
+
+	/**
+	 * Sets the max time spent on expired builds per wakeup of the inner thread.
+	 * Zero means the batch is limited only by the expiration batch size.
+	 *
+	 * @param budget the budget
+	 * @param unit the unit
+	 */
+	public void setExpirationTimeBudget(long budget, TimeUnit unit) {
+		if (budget < 0) {
+			throw new IllegalArgumentException("Expiration time budget cannot be negative: " + budget);
+		}
+		this.expirationTimeBudgetNanos = unit.toNanos(budget);
+	}
+
+	/**
+	 * Sets the expiration time budget.
+	 *
+	 * @param duration the duration
+	 */
+	public void setExpirationTimeBudget(Duration duration) {
+		this.setExpirationTimeBudget(duration.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the expiration time budget in nanoseconds.
+	 *
+	 * @return the expiration time budget
+	 */
+	public long getExpirationTimeBudgetNanos() {
+		return expirationTimeBudgetNanos;
+	}
+
+	/**
+	 * Gets the number of expired builds waiting for the timeout processing.
+	 *
+	 * @return the expired backlog size
+	 */
+	public int getExpiredBacklogSize() {
+		return expiredBacklogSize;
+	}
+
+	/**
+	 * Gets the inner thread factory.
+	 *
+	 * @return the thread factory
+	 */
+	public ThreadFactory getThreadFactory() {
+		return threadFactory;
+	}
+
+	/**
+	 * Gets the conveyor group.
+	 *
+	 * @return the conveyor group, or null when conveyor runs in its own thread
+	 */
+	public ConveyorGroup getConveyorGroup() {
+		return group;
+	}
+
+	/**
+	 * Gets the thread running this conveyor. Event loop thread when conveyor runs in the conveyor group.
+	 *
+	 * @return the thread
+	 */
+	private Thread conveyorThread() {
+		return innerThread != null ? innerThread : groupMember.thread();
+	}
+
+	/**
+	 * Sets the placement mode. Defines what happens when bounded input queue is full.
+	 * Has no effect for unbounded queues.
+	 *
+	 * @param placementMode the placement mode
+	 */
+	public void setPlacementMode(PlacementMode placementMode) {
+		this.placementMode = Objects.requireNonNull(placementMode, "Placement mode cannot be null");
+	}
+
+	/**
+	 * Gets the placement mode.
+	 *
+	 * @return the placement mode
+	 */
+	public PlacementMode getPlacementMode() {
+		return placementMode;
+	}
+
+	/**
+	 * Sets max time the producer waits for the queue capacity in BLOCK mode.
+	 * When expired, cart is rejected. Default - wait until capacity frees up.
+	 *
+	 * @param timeout the timeout
+	 * @param unit the unit
+	 */
+	public void setPlacementTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Placement timeout cannot be negative: " + timeout);
+		}
+		this.placementTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Sets the placement timeout.
+	 *
+	 * @param duration the duration
+	 */
+	public void setPlacementTimeout(Duration duration) {
+		this.setPlacementTimeout(duration.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets the queue watermarks. onHigh runs in the producer thread when the number of
+	 * carts waiting in the input queue reaches the high watermark. onLow runs in the conveyor
+	 * thread when it drops to the low watermark. Each action runs once per crossing.
+	 * Note that size() of some queues, e.g. ConcurrentLinkedQueue, is not a constant time operation.
+	 *
+	 * @param highWatermark the high watermark
+	 * @param lowWatermark the low watermark
+	 * @param onHigh the high watermark action
+	 * @param onLow the low watermark action
+	 */
+	public void setQueueWatermarks(int highWatermark, int lowWatermark, Runnable onHigh, Runnable onLow) {
+		if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+			throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high: low=" + lowWatermark + " high=" + highWatermark);
+		}
+		this.highWatermark = highWatermark;
+		this.lowWatermark = lowWatermark;
+		this.onLowWatermark = onLow;
+		this.onHighWatermark = onHigh;
+	}
+
+	/**
+	 * Gets the number of carts waiting for the input queue capacity in ASYNC mode.
 	 *
-	 * @return the expiration collection interval
+	 * @return the pending placements size
 	 */
-	public long getExpirationCollectionIdleInterval() {
-		return lock.expirationCollectionInterval;
+	public int getPendingPlacementsSize() {
+		return pendingPlacementsCounter.get();
 	}
 
 	/**
-	 * Gets the expiration collection idle time unit.
+	 * Sets the max number of carts waiting for the input queue capacity in ASYNC mode.
+	 * When it is reached, carts are rejected as in REJECT mode. Default is 10000.
 	 *
-	 * @return the expiration collection idle time unit
+	 * @param maxPendingPlacements the max pending placements
 	 */
-	public TimeUnit getExpirationCollectionIdleTimeUnit() {
-		return lock.expirationCollectionUnit;
+	public void setMaxPendingPlacements(int maxPendingPlacements) {
+		if (maxPendingPlacements < 0) {
+			throw new IllegalArgumentException("Max pending placements cannot be negative: " + maxPendingPlacements);
+		}
+		this.maxPendingPlacements = maxPendingPlacements;
 	}
 
 	/**
-	 * Process site.
+	 * Gets the max number of carts waiting for the input queue capacity in ASYNC mode.
 	 *
-	 * @param cart
-	 *            the cart
-	 * @param accept
-	 *            the accept
+	 * @return the max pending placements
 	 */
-	@SuppressWarnings("unchecked")
-	private void processSite(Cart<K, ?, L> cart, boolean accept) {
-		var key = cart.getKey();
-		if (key == null) {
-			if (cart.getLoadType() == MULTI_KEY_PART) {
-				try {
-					MultiKeyCart<K,?,L> mc = ((MultiKeyCart<K,?,L>)cart);
-					final var label = cart.getLabel();
-					final var load = mc.getValue();
-					final var filter = load.getFilter();
-					final Function<K,Cart<K, ?, L>> cartBuilder;
-					if (load.getLoadType() == RESULT_CONSUMER) {
-						cartBuilder = k -> {
-							ResultConsumerCart rcc = new ResultConsumerCart(k, (ResultConsumer) load.getValue(), cart.getCreationTime(), cart.getExpirationTime(), cart.getPriority());
-							rcc.putAllProperties(cart.getAllProperties());
-							return rcc;
-						};
-					} else {
-						cartBuilder = k -> {
-							ShoppingCart<K, ?, L> c = new ShoppingCart<>(k, load.getValue(), label, cart.getCreationTime(), cart.getExpirationTime());
-							c.putAllProperties(mc.getAllProperties());
-							return c;
-						};
-					}
-					LOG.trace("READY TO APPLY MULTI");
-					collector.keySet().stream().filter(filter).toList()
-					.forEach(k -> {
-								LOG.trace("MULTI FILTER MATCH {}",k);
-								processSite(cartBuilder.apply(k), accept);
-							});
-					cart.getFuture().complete(true);
-				} catch (Exception e) {
-					cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(new ScrapBin(this, cart.getLabel(), cart, "MultiKey cart failure", e, FailureType.GENERAL_FAILURE,cart.getAllProperties(), null));
-					throw e;
-				}
-			} else if(cart.getLoadType() == STATIC_PART) {
-				if( cart.getProperty("CREATE", Boolean.class) ) {
-					staticValues.put(cart.getLabel(), cart);
-				} else {
-					staticValues.remove(cart.getLabel());
-				}
-				cart.getFuture().complete(true);
-			}
-			if( ! (cart.getLoadType() == PART && cart.getValue() instanceof Cart)) {
-				return;
-			}
-		}
-		currentSite = null;
-		CompletableFuture resultFuture = null;
-		ResultConsumer newConsumer     = null;
-		if (cart.getLoadType() == FUTURE) {
-			var fc = (FutureCart<K, ? extends OUT, L>) cart;
-			resultFuture = fc.getValue();
-		}
-		if (cart.getLoadType() == RESULT_CONSUMER) {
-			var rc = (ResultConsumerCart<K,OUT, L>) cart;
-			newConsumer = rc.getValue();
-		}
-		var failureType = FailureType.GENERAL_FAILURE;
-		try {
-			LOG.trace("Read {}",cart);
-			currentSite = getBuildingSite(cart);
-			if (currentSite == null) {
-				if (cart.getLoadType() == BUILDER) {
-					cart.getFuture().complete(Boolean.TRUE);
-				} else {
-					cart.getFuture().complete(Boolean.FALSE);
-				}
-				if (resultFuture != null) {
-					resultFuture.completeExceptionally(new Exception("No active building site found"));
-				}
-				return;
-			}
-			currentSite.addProperties(cart.getAllProperties());
-			if (resultFuture != null) {
-				currentSite.addFuture(resultFuture);
-				cart.getFuture().complete(true);
-				return;
-			}
-			if (newConsumer != null) {
-				currentSite.setResultConsumer(newConsumer);
-				cart.getFuture().complete(true);
-				return;
-			}
-			if (Status.TIMED_OUT.equals(cart.getValue())) {
-				failureType = FailureType.ON_TIMEOUT_FAILED;
-				currentSite.timeout(cart);
-			} else if (accept) {
-				failureType = FailureType.DATA_REJECTED;
-				currentSite.accept(cart);
-			}
-			failureType = FailureType.READY_FAILED;
-			if (currentSite.ready()) {
-				failureType = FailureType.BUILD_FAILED;
-				OUT res = currentSite.unsafeBuild();
-				failureType = FailureType.RESULT_CONSUMER_FAILED;
-				completeSuccessfully((BuildingSite<K, L, ?, OUT>) currentSite,res,Status.READY);
-				failureType = FailureType.BEFORE_EVICTION_FAILED;
-				keyBeforeEviction.accept(new AcknowledgeStatus<>(key, Status.READY, currentSite.getProperties()));
-			}
-			cart.getFuture().complete(Boolean.TRUE);
-		} catch (KeepRunningConveyorException e) {
-			if (currentSite != null) {
-				currentSite.setLastError(e);
-				currentSite.setLastCart(cart);
-				cart.getScrapConsumer().accept(new ScrapBin(this, cart.getKey(), cart,
-						"Cart Processor failed. Keep running", e, FailureType.KEEP_RUNNING_EXCEPTION,cart.getAllProperties(), null));
-				scrapConsumer.accept(new ScrapBin(this, cart.getKey(), cart,
-						"Site Processor failed. Keep running", e, FailureType.KEEP_RUNNING_EXCEPTION,cart.getAllProperties(), currentSite.getAcknowledge()));
-				currentSite.completeFuturesExceptionaly(e);
-			}
-		} catch (Exception e) {
-			if (currentSite != null) {
-				currentSite.setStatus(Status.INVALID);
-				currentSite.setLastError(e);
-				currentSite.setLastCart(cart);
-				cart.getScrapConsumer().accept(new ScrapBin(this, cart.getKey(), cart,
-						"Cart Processor failed", e, failureType,cart.getAllProperties(), null));
-				scrapConsumer.accept(new ScrapBin(this, cart.getKey(), currentSite,
-						"Site Processor failed", e, failureType,cart.getAllProperties(), currentSite.getAcknowledge()));
-				currentSite.completeFuturesExceptionaly(e);
-			} else {
-				cart.getScrapConsumer().andThen((ScrapConsumer)scrapConsumer).accept(
-						new ScrapBin(this, cart.getKey(), cart, "Cart Processor Failed", e, failureType,cart.getAllProperties(), null));
-			}
-			if (!failureType.equals(FailureType.BEFORE_EVICTION_FAILED)) {
-				try {
-					keyBeforeEviction.accept(new AcknowledgeStatus<>(key, Status.INVALID, currentSite==null?null:currentSite.getProperties()));
-				} catch (Exception e2) {
-					LOG.error("BeforeEviction failed after processing failure: {} {} {}", failureType, e.getMessage(),
-							e2.getMessage());
-					collector.remove(key);
-				}
-			}
-		}
+	public int getMaxPendingPlacements() {
+		return maxPendingPlacements;
 	}
 
 	/**
-	 * Postpone timeout.
+	 * Enables or disables nanotime stamping of the carts created by this conveyor from part loaders. Enabled by default.
+	 * The stamp keeps carts with the same priority in the FIFO order in priority queues,
+	 * so it cannot be disabled for a conveyor with a priority input queue.
 	 *
-	 * @param bs
-	 *            the bs
-	 * @return true, if successful
+	 * @param enabled the enabled
 	 */
-	private boolean postponeTimeout(BuildingSite<K, L, Cart<K, ?, L>, ? extends OUT> bs) {
-		if (postponeExpirationEnabled) {
-			if (!bs.expired()) {
-				LOG.trace("Expiration will bin postponed for key={}", bs.getKey());
-				delayProvider.getBox(bs.getExpirationTime()).add(bs.getKey());
-				return true;
-			}
+	public void setNanoTimeStamping(boolean enabled) {
+		if (!enabled && inQueue instanceof PriorityBlockingQueue) {
+			throw new IllegalStateException("Nano time stamping cannot be disabled for the priority input queue of " + name);
 		}
-		bs.setStatus(Status.TIMED_OUT);
-		return false;
+		this.nanoTimeStamping = enabled;
 	}
 
 	/**
-	 * Removes the expired.
+	 * Checks if is nanotime stamping.
+	 *
+	 * @return true, if the carts created by this conveyor are stamped
 	 */
-	private void removeExpired() {
-		int cnt = 0;
-		var statusForEviction = Status.TIMED_OUT;
-		for (K key : delayProvider.getAllExpiredKeys()) {
-			var buildingSite = collector.get(key);
-			if (buildingSite == null) {
-				continue;
-			}
+	public boolean isNanoTimeStamping() {
+		return nanoTimeStamping;
+	}
 
-			if (timeoutAction != null || buildingSite.getTimeoutAction() != null) {
-				try {
-					var to = new ShoppingCart<K, Object, L>(buildingSite.getKey(),
-							Status.TIMED_OUT, null);
-					buildingSite.timeout(to);
+	/**
+	 * Gets the collector type.
+	 *
+	 * @return the collector type
+	 */
+	public CollectorType<K> getCollectorType() {
+		return collectorType;
+	}
 
-					if (buildingSite.ready()) {
-						LOG.trace("Expired and finished {}",key);
-						var res = buildingSite.build();
-						completeSuccessfully((BuildingSite<K, L, ?, OUT>) buildingSite,res,Status.TIMED_OUT);
-						statusForEviction = Status.READY;
-					} else {
-						if (postponeTimeout(buildingSite)) {
-							continue;
-						}
-						LOG.trace("Expired and not finished {}",key);
-						scrapConsumer.accept(new ScrapBin(this, key,
-								buildingSite, "Site expired", null, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
-						buildingSite.cancelFutures();
-					}
-				} catch (Exception e) {
-					buildingSite.setStatus(Status.INVALID);
-					buildingSite.setLastError(e);
-					statusForEviction = Status.INVALID;
-					scrapConsumer.accept(new ScrapBin(this, key,
-							buildingSite, "Timeout processor failed ", e, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
-					buildingSite.completeFuturesExceptionaly(e);
-				}
-			} else {
-				if (postponeTimeout(buildingSite)) {
-					continue;
-				}
-				LOG.trace("Expired and removed {}",key);
-				scrapConsumer.accept(new ScrapBin(this, key,
-						buildingSite, "Site expired. No timeout action", null, FailureType.BUILD_EXPIRED,buildingSite.getProperties(), buildingSite.getAcknowledge()));
-				buildingSite.cancelFutures();
-			}
-			keyBeforeEviction.accept(new AcknowledgeStatus<>(key, statusForEviction, buildingSite.getProperties()));
-			cnt++;
-		}
-		if (cnt > 0) {
-			LOG.trace("Timeout collected: {}",cnt);
-		}
+	/**
+	 * Checks if the collector is sorted.
+	 *
+	 * @return true, if is sorted collector
+	 */
+	public boolean isSortedCollector() {
+		return collectorType.isSorted();
 	}
 
 	/**
-	 * Sets the expiration collection interval.
+	 * Gets the collector key type.
 	 *
-	 * @param expirationCollectionInterval
-	 *            the expiration collection interval
-	 * @param unit
-	 *            the unit
+	 * @return the collector key type, null if not set
 	 */
-	public void setIdleHeartBeat(long expirationCollectionInterval, TimeUnit unit) {
-		lock.setExpirationCollectionInterval(expirationCollectionInterval);
-		lock.setExpirationCollectionUnit(unit);
-		lock.tell();
+	public Class<K> getCollectorKeyType() {
+		return collectorType.getKeyType();
+	}
+
+	/**
+	 * Sets the expiration queue supplier. Default is {@link DelayProvider}.
+	 * {@link com.aegisql.conveyor.delay.TimingWheelDelayProvider} is a better choice
+	 * for large number of builds with distinct expiration times.
+	 * Must be set before any expireable build is created.
+	 *
+	 * @param expirationQueueSupplier the expiration queue supplier
+	 */
+	public void setExpirationQueue(Supplier<? extends ExpirationQueue<K>> expirationQueueSupplier) {
+		Objects.requireNonNull(expirationQueueSupplier, "Expiration queue supplier cannot be null");
+		if (delayProvider.delayedSize() > 0) {
+			throw new IllegalStateException("Expiration queue cannot be replaced while builds are scheduled for expiration");
+		}
+		this.expirationQueueSupplier = expirationQueueSupplier;
+		this.delayProvider = expirationQueueSupplier.get();
 	}
 
 	/**
@@ -1317,7 +3083,9 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 */
 	public void setName(String name) {
 		this.name = name;
-		this.innerThread.setName(name);
+		if (innerThread != null) {
+			this.innerThread.setName(name);
+		}
 		this.setMbean(this.name);
 	}
 
@@ -1426,8 +3194,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 				cart.getValue().accept(bin);
 				cart.getFuture().complete(true);
 			} catch (Exception e) {
-				var prop = bs.getProperties();
-				prop.put("ERROR", e);
+				bs.addProperty("ERROR", e);
 				var bin = new ProductBin(conveyor, key, null, bs.getExpirationTime(), Status.INVALID, bs.getProperties(), null);
 				cart.getValue().accept(bin);
 				cart.getFuture().complete(false);
@@ -1611,7 +3378,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 * @return the assembling conveyor
 	 */
 	public AssemblingConveyor<K, L, OUT> detach() {
-		var c = new AssemblingConveyor<K,L,OUT>();
+		var c = group == null ? new AssemblingConveyor<K,L,OUT>(Priority.DEFAULT, threadFactory, collectorType) : new AssemblingConveyor<K,L,OUT>(Priority.DEFAULT, group, collectorType);
 		c.setBuilderSupplier(builderSupplier);
 		c.setDefaultBuilderTimeout(builderTimeout, TimeUnit.MILLISECONDS);
 		c.setIdleHeartBeat(getExpirationCollectionIdleInterval(), getExpirationCollectionIdleTimeUnit());
@@ -1624,6 +3391,22 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		c.setKeepCartsOnSite(saveCarts);
 		c.setOnTimeoutAction(timeoutAction);
 		c.setSynchronizeBuilder(synchronizeBuilder);
+		c.setDrainBatchSize(drainBatchSize);
+		c.setDrainTimeBudget(drainTimeBudgetNanos, TimeUnit.NANOSECONDS);
+		c.setExpirationBatchSize(expirationBatchSize);
+		c.setExpirationTimeBudget(expirationTimeBudgetNanos, TimeUnit.NANOSECONDS);
+		c.setMaxCollectorSize(maxCollectorSize);
+		c.setMaxCollectorBytes(maxCollectorBytes);
+		c.setEvictionPolicy(evictionPolicy);
+		c.setCollectorSizeEstimator(collectorSizeEstimator);
+		c.setCollectorOverflowHandler(collectorOverflowHandler);
+		c.setSpillHeapThreshold(spillHeapThreshold);
+		c.setSpillIdleTime(spillIdleTimeMsec, TimeUnit.MILLISECONDS);
+		c.setExpirationQueue(expirationQueueSupplier);
+		c.setPlacementMode(placementMode);
+		c.setMaxPendingPlacements(maxPendingPlacements);
+		c.setNanoTimeStamping(nanoTimeStamping);
+		c.setPlacementTimeout(placementTimeoutNanos, TimeUnit.NANOSECONDS);
 		c.startTimeReject = this.startTimeReject;
 		return c;
 	}
@@ -1663,7 +3446,7 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 	 */
 	@Override
 	public String toString() {
-		return "AssemblingConveyor [name=" + name + ", thread=" + innerThread.getId() + "]";
+		return "AssemblingConveyor [name=" + name + ", thread=" + conveyorThread().getId() + "]";
 	}
 
 	/*
@@ -1727,6 +3510,67 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		return commandCounter;
 	}
 
+	/**
+	 * Gets the number of carts rejected at placement.
+	 *
+	 * @return the rejected cart counter
+	 */
+	public long getRejectedCartCounter() {
+		return rejectedCartCounter.sum();
+	}
+
+	/**
+	 * Gets the number of scraps of the failure type.
+	 *
+	 * @param failureType the failure type
+	 * @return the scrap counter
+	 */
+	public long getScrapCounter(FailureType failureType) {
+		return scrapCounters[failureType.ordinal()].sum();
+	}
+
+	/**
+	 * Gets the number of scraps of all failure types.
+	 *
+	 * @return the scrap counter
+	 */
+	public long getScrapCounter() {
+		long total = 0;
+		for (LongAdder counter : scrapCounters) {
+			total += counter.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the non-zero scrap counters by failure type name.
+	 *
+	 * @return the scrap counters
+	 */
+	public Map<String, Long> getScrapCounters() {
+		Map<String, Long> counters = new LinkedHashMap<>();
+		for (FailureType type : FailureType.values()) {
+			long n = scrapCounters[type.ordinal()].sum();
+			if (n > 0) {
+				counters.put(type.name(), n);
+			}
+		}
+		return counters;
+	}
+
+	/**
+	 * New scrap counters, one per failure type.
+	 *
+	 * @return the counters
+	 */
+	private static LongAdder[] newScrapCounters() {
+		var counters = new LongAdder[FailureType.values().length];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LongAdder();
+		}
+		return counters;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.aegisql.conveyor.Conveyor#setIdleHeartBeat(java.time.Duration)
 	 */
@@ -1794,15 +3638,21 @@ public class AssemblingConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		return resultConsumer;
 	}
 
-	/* (non-Javadoc)
-	 * @see com.aegisql.conveyor.Conveyor#interrupt(java.lang.String)
+	/**
+	 * Interrupts the active build of the conveyor with the given name.
+	 * Ignored for members of the {@link ConveyorGroup}, because the event loop thread is shared
+	 * and the interrupt could hit another conveyor of the group.
+	 *
+	 * @param conveyorName the conveyor name
 	 */
 	@Override
 	public void interrupt(String conveyorName) {
-		if(name.equals(conveyorName)) {
+		if(name.equals(conveyorName) && groupMember != null) {
+			LOG.warn("{} runs on the shared event loop of the conveyor group. Interruption ignored", name);
+		} else if(name.equals(conveyorName)) {
 			BuildingSite bs = currentSite;
 			if(bs != null) {
-				bs.interrupt(innerThread);
+				bs.interrupt(conveyorThread());
 				LOG.info("interrupted "+conveyorName);
 			} else {
 				LOG.warn("No active build found for "+conveyorName);				
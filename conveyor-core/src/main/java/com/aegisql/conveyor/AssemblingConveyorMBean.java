@@ -3,6 +3,8 @@
  */
 package com.aegisql.conveyor;
 
+import java.util.Map;
+
 // TODO: Auto-generated Javadoc
 /**
  * The Interface AssemblingConveyorMBean.
@@ -120,6 +122,27 @@ public interface AssemblingConveyorMBean {
 	 * @return the command counter
 	 */
 	long getCommandCounter();
+
+	/**
+	 * Gets the number of carts rejected at placement.
+	 *
+	 * @return the rejected cart counter
+	 */
+	long getRejectedCartCounter();
+
+	/**
+	 * Gets the number of scraps of all failure types.
+	 *
+	 * @return the scrap counter
+	 */
+	long getScrapCounter();
+
+	/**
+	 * Gets the non-zero scrap counters by failure type.
+	 *
+	 * @return the scrap counters
+	 */
+	Map<String, Long> getScrapCounters();
 	
 	/**
 	 * Conveyor.
@@ -174,6 +197,139 @@ public interface AssemblingConveyorMBean {
 	 */
 	void setExpirationPostponeTimeMsec(long msec);
 	
+	/**
+	 * Gets the max number of carts drained per wakeup.
+	 *
+	 * @return the drain batch size
+	 */
+	int getDrainBatchSize();
+
+	/**
+	 * Sets the max number of carts drained per wakeup.
+	 *
+	 * @param size the new drain batch size
+	 */
+	void setDrainBatchSize(int size);
+
+	/**
+	 * Gets the drain time budget in microseconds. 0 - unlimited
+	 *
+	 * @return the drain time budget
+	 */
+	long getDrainTimeBudgetMicros();
+
+	/**
+	 * Sets the drain time budget in microseconds. 0 - unlimited
+	 *
+	 * @param micros the new drain time budget
+	 */
+	void setDrainTimeBudgetMicros(long micros);
+
+	/**
+	 * Gets the max number of expired builds processed per wakeup.
+	 *
+	 * @return the expiration batch size
+	 */
+	int getExpirationBatchSize();
+
+	/**
+	 * Sets the max number of expired builds processed per wakeup.
+	 *
+	 * @param size the new expiration batch size
+	 */
+	void setExpirationBatchSize(int size);
+
+	/**
+	 * Gets the expiration time budget in microseconds. 0 - unlimited
+	 *
+	 * @return the expiration time budget
+	 */
+	long getExpirationTimeBudgetMicros();
+
+	/**
+	 * Sets the expiration time budget in microseconds. 0 - unlimited
+	 *
+	 * @param micros the new expiration time budget
+	 */
+	void setExpirationTimeBudgetMicros(long micros);
+
+	/**
+	 * Gets the number of expired builds waiting for the timeout processing.
+	 *
+	 * @return the expired backlog size
+	 */
+	int getExpiredBacklogSize();
+
+	/**
+	 * Gets the max number of open builds. Integer.MAX_VALUE - unlimited
+	 *
+	 * @return the max collector size
+	 */
+	int getMaxCollectorSize();
+
+	/**
+	 * Sets the max number of open builds.
+	 *
+	 * @param size the new max collector size
+	 */
+	void setMaxCollectorSize(int size);
+
+	/**
+	 * Gets the max estimated bytes of open builds. Long.MAX_VALUE - unlimited
+	 *
+	 * @return the max collector bytes
+	 */
+	long getMaxCollectorBytes();
+
+	/**
+	 * Sets the max estimated bytes of open builds.
+	 *
+	 * @param bytes the new max collector bytes
+	 */
+	void setMaxCollectorBytes(long bytes);
+
+	/**
+	 * Gets the estimated bytes of open builds. 0, if no collector limit was set.
+	 *
+	 * @return the estimated collector bytes
+	 */
+	long getEstimatedCollectorBytes();
+
+	/**
+	 * Gets the eviction policy.
+	 *
+	 * @return the eviction policy
+	 */
+	String getEvictionPolicy();
+
+	/**
+	 * Gets the number of builds evicted from the collector.
+	 *
+	 * @return the evicted build counter
+	 */
+	long getEvictedBuildCounter();
+
+	/**
+	 * Gets the spill file. Empty, if spill is disabled
+	 *
+	 * @return the spill file
+	 */
+	String getSpillFile();
+
+	/**
+	 * Gets the number of builds in the spill file.
+	 *
+	 * @return the spilled build count
+	 */
+	int getSpilledBuildCount();
+
+	/**
+	 * Gets the bytes of builds in the spill file.
+	 *
+	 * @return the spilled bytes
+	 */
+	long getSpilledBytes();
+
 	boolean isSuspended();
 	
 	void suspend();
@@ -13,7 +13,6 @@ import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -166,11 +165,8 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	/** The save carts. */
 	private final boolean saveCarts;
 
-	/** The all carts. */
-	private final List<C> allCarts = new ArrayList<>();
-	
-	/** The futures. */
-	private final List<CompletableFuture<? extends OUT>> futures = new ArrayList<>();
+	/** The all carts. Created on first saved cart. */
+	private List<C> allCarts;
 	
 	/** The initial cart. */
 	private final  C initialCart;
@@ -195,10 +191,10 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	private Throwable lastError;
 	
 	/** The event history. */
-	private final Map<L,AtomicInteger> eventHistory = new LinkedHashMap<>();
+	private final EventHistory<L> eventHistory = new EventHistory<>();
 	
-	/** The properties. */
-	private Map<String,Object> properties = new HashMap<>();
+	/** The properties. Created on first added property. */
+	private Map<String,Object> properties;
 	
 	/** The lock. */
 	private final Lock lock;
@@ -224,8 +220,29 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	/** The exceptional result consumer. */
 	private Consumer<Throwable> exceptionalResultConsumer = t->{};
 
-	/** The acknowledge. */
-	private final Acknowledge acknowledge;
+	/** The ack action. */
+	private final Consumer<AcknowledgeStatus<K>> ackAction;
+
+	/** The acknowledge. Created on first request. */
+	private Acknowledge acknowledge;
+
+	/** The acknowledged. */
+	private volatile boolean acknowledged = false;
+
+	/** The estimated bytes. Maintained by the {@link EvictionQueue}. */
+	long estimatedBytes;
+
+	/** The number of entries of this site in the {@link EvictionQueue}. */
+	int evictionRefs;
+
+	/** The time of the last cart. Maintained by the conveyor when spill is enabled. */
+	long lastUpdated;
+
+	/** True while the site waits in the expired backlog of the conveyor. Cleared when rescheduled. */
+	boolean expiredBacklog;
+
+	/** The futures or the result consumer of this build were set. */
+	private boolean attachedConsumers = false;
 
 	private final Conveyor<K,Object,OUT> conveyor;
 	
@@ -274,22 +291,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 		this.postponeExpirationOnTimeoutEnabled = postponeExpirationOnTimeoutEnabled;
 		this.addExpirationTimeMsec     = addExpirationTimeMsec;
 		this.defaultValueConsumer      = (LabeledValueConsumer<L, Cart<K,?,L>, Supplier<? extends OUT>>) cartConsumer;
-		this.acknowledge               = new Acknowledge() {
-			
-			private volatile boolean acknowledged = false;
-			@Override
-			public boolean isAcknowledged() {
-				return acknowledged;
-			}
-			
-			@Override
-			public synchronized void ack() {
-				if(! acknowledged) {
-					ackAction.accept(new AcknowledgeStatus<>(getKey(),status,properties));
-					acknowledged = true;
-				}
-			}
-		};
+		this.ackAction                 = ackAction;
 		this.conveyor = (Conveyor<K, Object, OUT>) conveyor;
 		this.resultConsumer = Objects.requireNonNullElseGet(resultConsumer, () -> bin -> LOG.error("LOST RESULT {} {}", bin.key, bin.product));
 		
@@ -341,7 +343,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 				};
 			}			
 		}
-		this.eventHistory.put(cart.getLabel(), new AtomicInteger(0));
+		this.eventHistory.register(cart.getLabel());
 		if(productSupplier instanceof Expireable expireable) {
 			builderCreated    = System.currentTimeMillis();
 			expireableSource  = expireable;
@@ -381,17 +383,16 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 		try {
 			this.lastCart     = cart;
 			if( saveCarts) {
+				if(allCarts == null) {
+					allCarts = new ArrayList<>();
+				}
 				allCarts.add(cart);
 			}
 			L label      = cart.getLabel();
 
 			getValueConsumer(label).accept(label, cart, builder);
 			acceptCount++;
-			if (eventHistory.containsKey(label)) {
-				eventHistory.get(label).incrementAndGet();
-			} else {
-				eventHistory.put(label, new AtomicInteger(1));
-			}
+			eventHistory.increment(label);
 			// this itself does not affect expiration time
 			// it should be enabled
 			// enabling may affect performance
@@ -488,8 +489,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	 * @return the state
 	 */
 	public State<K,L> getState() {
-		final var history = new LinkedHashMap<L,Integer>();
-		eventHistory.forEach((k,v)->history.put(k, v.get()));
+		final var history = new LinkedHashMap<L,Integer>(eventHistory);
 		return new State<>(
 				initialCart.getKey(),
 				builderCreated,
@@ -498,7 +498,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 				initialCart.getExpirationTime(),
 				acceptCount,
 				Collections.unmodifiableMap( history ),
-				Collections.unmodifiableList(allCarts)
+				allCarts == null ? Collections.emptyList() : Collections.unmodifiableList(allCarts)
 				);
 	}
 	
@@ -509,12 +509,22 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	 */
 	public boolean ready() {
 		var res = false;
-		var state = getState();
+		var state = ReadinessView.<K,L>bind(
+				initialCart.getKey(),
+				builderCreated,
+				expireableSource.getExpirationTime(),
+				initialCart.getCreationTime(),
+				initialCart.getExpirationTime(),
+				acceptCount,
+				eventHistory,
+				allCarts == null ? Collections.emptyList() : allCarts
+				);
 		lock.lock();
 		try {
 			res = readiness.test(state, builder);
 		} finally {
 			lock.unlock();
+			ReadinessView.release();
 		}
 		if( res ) {
 			status = Status.READY;
@@ -570,7 +580,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	 * @return the accepted carts
 	 */
 	public List<C> getAcceptedCarts() {
-		return Collections.unmodifiableList( allCarts );
+		return allCarts == null ? Collections.emptyList() : Collections.unmodifiableList( allCarts );
 	}
 
 	/**
@@ -669,6 +679,17 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	 */
 	void setResultConsumer(ResultConsumer<K,OUT> resultConsumer) {
 		this.resultConsumer = resultConsumer;
+		this.attachedConsumers = true;
+	}
+
+	/**
+	 * Checks if futures or the result consumer were set for this build.
+	 * Such builds cannot be restored from the {@link Memento}.
+	 *
+	 * @return true, if successful
+	 */
+	boolean hasAttachedConsumers() {
+		return attachedConsumers;
 	}
 
 	/**
@@ -697,7 +718,7 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 		this.completeResultConsumer = this.completeResultConsumer.andThen(bin-> resultFuture.complete(bin.product));
 		this.cancelResultConsumer = this.cancelResultConsumer.andThen(resultFuture::cancel);
 		this.exceptionalResultConsumer = this.exceptionalResultConsumer.andThen(resultFuture::completeExceptionally);
-		futures.add(resultFuture);
+		this.attachedConsumers = true;
 	}
 
 	/**
@@ -761,11 +782,12 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 
 	/**
 	 * Gets the properties.
+	 * Empty read only map, if no property was added yet.
 	 *
 	 * @return the properties
 	 */
 	public Map<String,Object> getProperties() {
-		return properties;
+		return properties == null ? Collections.emptyMap() : properties;
 	}
 
 	/**
@@ -774,25 +796,67 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 	 * @param properties the properties
 	 */
 	public void addProperties(Map<String,Object> properties) {
+		if(properties.isEmpty()) {
+			return;
+		}
+		if(this.properties == null) {
+			this.properties = new HashMap<>();
+		}
 		this.properties.putAll(properties);
 	}
 
+	/**
+	 * Adds the property.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void addProperty(String key, Object value) {
+		if(this.properties == null) {
+			this.properties = new HashMap<>();
+		}
+		this.properties.put(key, value);
+	}
+
 	/**
 	 * Gets the acknowledge.
 	 *
 	 * @return the acknowledge
 	 */
 	public Acknowledge getAcknowledge() {
+		if(acknowledge == null) {
+			acknowledge = new Acknowledge() {
+				@Override
+				public boolean isAcknowledged() {
+					return acknowledged;
+				}
+
+				@Override
+				public void ack() {
+					acknowledge();
+				}
+			};
+		}
 		return acknowledge;
 	}
 
+	/**
+	 * Acknowledge. Only the first call reaches the ack action.
+	 */
+	private synchronized void acknowledge() {
+		if(! acknowledged) {
+			ackAction.accept(new AcknowledgeStatus<>(getKey(),status,getProperties()));
+			acknowledged = true;
+		}
+	}
+
 	/**
 	 * Gets the memento.
 	 *
 	 * @return the memento
 	 */
 	public Memento getMemento() {
-		return new Memento(getState(), builder, properties);
+		return new Memento(getState(), builder, getProperties());
 	}
 
 	/**
@@ -804,10 +868,9 @@ public class BuildingSite <K, L, C extends Cart<K, ?, L>, OUT> implements Expire
 		this.builder = memento.builder;
 		this.properties = memento.properties;
 		this.acceptCount = memento.state.previouslyAccepted;
-		this.allCarts.clear();
-		this.allCarts.addAll((Collection<? extends C>) memento.state.carts);
-		this.eventHistory.clear(); 
-		memento.state.eventHistory.forEach((l,i)-> this.eventHistory.put((L) l, new AtomicInteger((int) i)));
+		this.allCarts = memento.state.carts.isEmpty() ? null : new ArrayList<>((Collection<? extends C>) memento.state.carts);
+		this.eventHistory.reset();
+		memento.state.eventHistory.forEach((l,i)-> this.eventHistory.set((L) l, (int) i));
 	}
 	
 	/* (non-Javadoc)
@@ -0,0 +1,143 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.cart.Cart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The Class CollectorIndex.
+ * Secondary indexes of the collector keys. Index values are extracted from the cart that created the build
+ * and kept until the build is removed from the collector. Spilled builds stay in the index.
+ * Accessed by the conveyor thread only.
+ *
+ * @param <K> the key type
+ * @param <L> the label type
+ */
+final class CollectorIndex<K,L> {
+
+	/**
+	 * The Class Index.
+	 *
+	 * @param <K> the key type
+	 * @param <L> the label type
+	 */
+	private static final class Index<K,L> {
+
+		/** The extractor. */
+		final Function<Cart<K,?,?>,?> extractor;
+
+		/** Keys by value. */
+		final Map<Object,Set<K>> keys = new HashMap<>();
+
+		/** Value by key. */
+		final Map<K,Object> values = new HashMap<>();
+
+		/**
+		 * Instantiates a new index.
+		 *
+		 * @param extractor the extractor
+		 */
+		Index(Function<Cart<K,?,?>,?> extractor) {
+			this.extractor = extractor;
+		}
+	}
+
+	/** The indexes. */
+	private final Map<String,Index<K,L>> indexes = new LinkedHashMap<>();
+
+	/**
+	 * Instantiates a new collector index.
+	 *
+	 * @param definitions extractors by index name
+	 * @see CollectorType#withIndex(String, Function)
+	 */
+	CollectorIndex(Map<String,Function<Cart<K,?,?>,?>> definitions) {
+		definitions.forEach((name, extractor) -> indexes.put(name, new Index<>(extractor)));
+	}
+
+	/**
+	 * Checks if the index is defined.
+	 *
+	 * @param name the name
+	 * @return true, if successful
+	 */
+	boolean defines(String name) {
+		return indexes.containsKey(name);
+	}
+
+	/**
+	 * Indexes the key of the new build.
+	 *
+	 * @param key the key
+	 * @param cart the cart that created the build
+	 */
+	void add(K key, Cart<K,?,L> cart) {
+		// extract all values first, failed extractor leaves no partial entries
+		var extracted = new Object[indexes.size()];
+		int i = 0;
+		for (var index : indexes.values()) {
+			extracted[i++] = index.extractor.apply(cart);
+		}
+		i = 0;
+		for (var index : indexes.values()) {
+			var value = extracted[i++];
+			if (value != null) {
+				index.keys.computeIfAbsent(value, v -> new LinkedHashSet<>()).add(key);
+				index.values.put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Removes the key.
+	 *
+	 * @param key the key
+	 */
+	void remove(K key) {
+		for (var index : indexes.values()) {
+			var value = index.values.remove(key);
+			if (value != null) {
+				var keys = index.keys.get(value);
+				keys.remove(key);
+				if (keys.isEmpty()) {
+					index.keys.remove(value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keys with the index value.
+	 *
+	 * @param name the index name
+	 * @param value the value
+	 * @return the list of keys
+	 */
+	List<K> keys(String name, Object value) {
+		var index = indexes.get(name);
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		var keys = index.keys.get(value);
+		return keys == null ? Collections.emptyList() : new ArrayList<>(keys);
+	}
+
+	/**
+	 * Removes all keys. Index definitions are kept.
+	 */
+	void clear() {
+		for (var index : indexes.values()) {
+			index.keys.clear();
+			index.values.clear();
+		}
+	}
+
+}
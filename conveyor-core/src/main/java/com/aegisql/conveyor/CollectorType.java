@@ -0,0 +1,188 @@
+/*
+ * COPYRIGHT (C) AEGIS DATA SOLUTIONS, LLC, 2015
+ */
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.utils.PrimitiveKeyMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * The Class CollectorType.
+ * Chooses the map that keeps open builds of the {@link AssemblingConveyor} and its collector indexes.
+ * The type is passed to the conveyor constructor and cannot be changed later.
+ *
+ * @param <K> the key type
+ */
+public final class CollectorType<K> {
+
+	/** The hashed collector. */
+	@SuppressWarnings("rawtypes")
+	private static final CollectorType HASHED = new CollectorType<>(null, false, Collections.emptyMap());
+
+	/** The sorted collector. */
+	@SuppressWarnings("rawtypes")
+	private static final CollectorType SORTED = new CollectorType<>(null, true, Collections.emptyMap());
+
+	/** The key type. Null, if keys are not typed. */
+	private final Class<K> keyType;
+
+	/** The sorted. */
+	private final boolean sorted;
+
+	/** Extractors of collector indexes by index name. */
+	private final Map<String,Function<Cart<K,?,?>,?>> indexes;
+
+	/**
+	 * Instantiates a new collector type.
+	 *
+	 * @param keyType the key type
+	 * @param sorted the sorted
+	 * @param indexes the indexes
+	 */
+	private CollectorType(Class<K> keyType, boolean sorted, Map<String,Function<Cart<K,?,?>,?>> indexes) {
+		this.keyType = keyType;
+		this.sorted  = sorted;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Keys are kept in the HashMap. The default.
+	 *
+	 * @param <K> the key type
+	 * @return the collector type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K> CollectorType<K> hashed() {
+		return HASHED;
+	}
+
+	/**
+	 * Keys are kept sorted in the TreeMap. Keys must be {@link Comparable}.
+	 * Multi-key parts and commands with the {@link KeyRange} walk only the keys of the range,
+	 * at the cost of the O(log n) access to builds.
+	 * Parts with not comparable keys are rejected when a build is created.
+	 *
+	 * @param <K> the key type
+	 * @return the collector type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K> CollectorType<K> sorted() {
+		return SORTED;
+	}
+
+	/**
+	 * Keys of the given type. Long and Integer keys are stored unboxed
+	 * in the open addressing {@link PrimitiveKeyMap}, other types use the HashMap.
+	 * Use {@link com.aegisql.conveyor.delay.TimingWheelDelayProvider#TimingWheelDelayProvider(long, java.util.concurrent.TimeUnit, Class)}
+	 * to store keys of the expiration queue the same way.
+	 * Parts with keys of other types are rejected when a build is created.
+	 *
+	 * @param <K> the key type
+	 * @param keyType the key type
+	 * @return the collector type
+	 */
+	public static <K> CollectorType<K> keyType(Class<K> keyType) {
+		return new CollectorType<>(Objects.requireNonNull(keyType, "Collector key type cannot be null"), false, Collections.emptyMap());
+	}
+
+	/**
+	 * Collector type with the additional collector index. The value is extracted from the cart that creates the build,
+	 * null values are not indexed. Multi-key parts and commands with the {@link IndexFilter}
+	 * find keys with the value without scanning the whole collector.
+	 *
+	 * @param name the index name
+	 * @param extractor the value extractor
+	 * @return the new collector type
+	 */
+	public CollectorType<K> withIndex(String name, Function<Cart<K,?,?>,?> extractor) {
+		Objects.requireNonNull(name, "Collector index name cannot be null");
+		Objects.requireNonNull(extractor, "Collector index extractor cannot be null");
+		if (indexes.containsKey(name)) {
+			throw new IllegalArgumentException("Collector index '" + name + "' is already defined");
+		}
+		var withIndex = new LinkedHashMap<>(indexes);
+		withIndex.put(name, extractor);
+		return new CollectorType<>(keyType, sorted, Collections.unmodifiableMap(withIndex));
+	}
+
+	/**
+	 * Gets the key type.
+	 *
+	 * @return the key type, null if not set
+	 */
+	public Class<K> getKeyType() {
+		return keyType;
+	}
+
+	/**
+	 * Checks if is sorted.
+	 *
+	 * @return true, if is sorted
+	 */
+	public boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Checks if the collector index is defined.
+	 *
+	 * @param name the index name
+	 * @return true, if defined
+	 */
+	public boolean hasIndex(String name) {
+		return indexes.containsKey(name);
+	}
+
+	/**
+	 * Checks if the map is the plain HashMap.
+	 *
+	 * @return true, if is hashed
+	 */
+	boolean isHashed() {
+		return ! sorted && (keyType == null || ! PrimitiveKeyMap.supports(keyType));
+	}
+
+	/**
+	 * New collector map.
+	 *
+	 * @param <V> the value type
+	 * @return the map
+	 */
+	<V> Map<K,V> newMap() {
+		if (sorted) {
+			return new TreeMap<>();
+		} else if (keyType != null && PrimitiveKeyMap.supports(keyType)) {
+			return new PrimitiveKeyMap<>(keyType);
+		} else {
+			return new HashMap<>();
+		}
+	}
+
+	/**
+	 * New collector index.
+	 *
+	 * @param <L> the label type
+	 * @return the collector index, null if no index is defined
+	 */
+	<L> CollectorIndex<K,L> newIndex() {
+		return indexes.isEmpty() ? null : new CollectorIndex<>(indexes);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "CollectorType [" + (sorted ? "sorted" : keyType == null ? "hashed" : "keyType=" + keyType.getName())
+				+ (indexes.isEmpty() ? "" : ", indexes=" + indexes.keySet()) + "]";
+	}
+
+}
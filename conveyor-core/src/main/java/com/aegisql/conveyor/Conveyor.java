@@ -4,6 +4,7 @@
 package com.aegisql.conveyor;
 
 import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.CartBatchFuture;
 import com.aegisql.conveyor.cart.command.GeneralCommand;
 import com.aegisql.conveyor.consumers.result.ResultConsumer;
 import com.aegisql.conveyor.consumers.scrap.ScrapConsumer;
@@ -44,6 +45,15 @@ public interface Conveyor<K, L, OUT> extends ConveyorInitiatingService {
 	 */
 	PartLoader<K,L> part();
 
+	/**
+	 * Reusable part loader. Loader is mutable and not thread safe, keep one per producer thread.
+	 *
+	 * @return the reusable part loader
+	 */
+	default ReusablePartLoader<K,L> reusablePart() {
+		return new ReusablePartLoader<>(rl -> rl.toPartLoader(part()).place(), rl -> rl.toPartLoader(part()).fire());
+	}
+
 	/**
 	 * StaticPart.
 	 *
@@ -81,6 +91,32 @@ public interface Conveyor<K, L, OUT> extends ConveyorInitiatingService {
 	 */
 	<V> CompletableFuture<Boolean> place(Cart<K, V, L> cart);
 
+	/**
+	 * Adds the cart to the input queue without tracking its completion.
+	 * No future is returned. Rejected and failed carts are reported to the scrap consumer only.
+	 *
+	 * @param <V>  the value type
+	 * @param cart the cart
+	 */
+	default <V> void placeAndForget(Cart<K, V, L> cart) {
+		place(cart);
+	}
+
+	/**
+	 * Adds all carts to the input queue.
+	 *
+	 * @param carts the carts
+	 * @return the aggregate future. True, if all carts were accepted
+	 */
+	default CompletableFuture<Boolean> placeAll(Collection<? extends Cart<K, ?, L>> carts) {
+		var batch = new CartBatchFuture(carts.size());
+		for (Cart<K, ?, L> cart : carts) {
+			batch.add(cart);
+			place(cart);
+		}
+		return batch;
+	}
+
 	/**
 	 * Adds the command to the management queue.
 	 *
@@ -0,0 +1,522 @@
+package com.aegisql.conveyor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The Class ConveyorGroup.
+ * Runtime that multiplexes many {@link AssemblingConveyor}s on a small fixed pool of event loop threads.
+ * Each conveyor is pinned to a single event loop, so its collector is still accessed by one thread only.
+ * The event loop runs a conveyor when it receives carts or commands, and keeps one timer per conveyor
+ * set to the earliest expiration time of its builds, so idle conveyors cause no wakeups at all.
+ * <p>
+ * Conveyors join the group through the {@link AssemblingConveyor#AssemblingConveyor(java.util.function.Supplier, ConveyorGroup)}
+ * constructor and leave it when stopped.
+ * <p>
+ * Builders, result and scrap consumers of the members run on the event loop thread and must not block,
+ * e.g. wait for a future, since that stalls all conveyors pinned to the loop.
+ * Placement in {@link PlacementMode#BLOCK} mode does not wait on an event loop thread, a cart that does not
+ * fit into the queue is rejected instead.
+ */
+public class ConveyorGroup {
+
+	/** The Constant LOG. */
+	private final static Logger LOG = LoggerFactory.getLogger(ConveyorGroup.class);
+
+	/** True for event loop threads. */
+	private final static ThreadLocal<Boolean> EVENT_LOOP_THREAD = ThreadLocal.withInitial(() -> false);
+
+	/**
+	 * Conveyor as seen by the event loop. Implemented by the AssemblingConveyor.
+	 */
+	static abstract class Member {
+
+		/** True while the member is in the ready queue. */
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		/** The active timer. Accessed by the event loop thread only. */
+		private Timer timer;
+
+		/** The event loop. Null until the member is registered. */
+		private volatile EventLoop loop;
+
+		/** The member id. */
+		private final long id;
+
+		/**
+		 * Instantiates a new member.
+		 *
+		 * @param id the id, see {@link ConveyorGroup#nextMemberId()}
+		 */
+		Member(long id) {
+			this.id = id;
+		}
+
+		/**
+		 * Runs one processing cycle.
+		 *
+		 * @return false, when conveyor has stopped and must leave the group
+		 */
+		abstract boolean step();
+
+		/**
+		 * Checks for unprocessed input.
+		 *
+		 * @return true, if conveyor has to run again without waiting
+		 */
+		abstract boolean hasInput();
+
+		/**
+		 * Gets the next expiration time in milliseconds.
+		 *
+		 * @return the next expiration time, Long.MAX_VALUE when no timer is needed
+		 */
+		abstract long nextExpirationTime();
+
+		/**
+		 * Stops the conveyor.
+		 */
+		abstract void stop();
+
+		/**
+		 * Wakes up the member. Ignored until the member is registered.
+		 */
+		final void wakeUp() {
+			var l = loop;
+			if (l != null) {
+				l.schedule(this);
+			}
+		}
+
+		/**
+		 * Gets the event loop thread.
+		 *
+		 * @return the thread, null until the member is registered
+		 */
+		final Thread thread() {
+			var l = loop;
+			return l == null ? null : l.thread;
+		}
+
+		/**
+		 * Gets the id.
+		 *
+		 * @return the id
+		 */
+		final long id() {
+			return id;
+		}
+	}
+
+	/**
+	 * The Class Timer.
+	 */
+	private static final class Timer {
+
+		/** The deadline nanos. */
+		private final long deadline;
+
+		/** The member. */
+		private final Member member;
+
+		/**
+		 * Instantiates a new timer.
+		 *
+		 * @param deadline the deadline
+		 * @param member the member
+		 */
+		private Timer(long deadline, Member member) {
+			this.deadline = deadline;
+			this.member = member;
+		}
+	}
+
+	/**
+	 * The Class EventLoop.
+	 */
+	private final class EventLoop implements Runnable {
+
+		/** Members with pending input. */
+		private final Queue<Member> ready = new ConcurrentLinkedQueue<>();
+
+		/** Timers. Accessed by the event loop thread only. */
+		private final PriorityQueue<Timer> timers = new PriorityQueue<>(Comparator.comparingLong(t -> t.deadline));
+
+		/** Number of superseded timers still in the timers queue. */
+		private int staleTimers = 0;
+
+		/** Number of members pinned to this loop. */
+		private final AtomicInteger members = new AtomicInteger();
+
+		/** True while the loop thread is parked. */
+		private volatile boolean parked = false;
+
+		/** The thread. */
+		private final Thread thread;
+
+		/**
+		 * Instantiates a new event loop.
+		 *
+		 * @param threadFactory the thread factory
+		 * @param index the index
+		 */
+		private EventLoop(ThreadFactory threadFactory, int index) {
+			this.thread = threadFactory.newThread(this);
+			this.thread.setName("ConveyorGroup " + name + " #" + index);
+		}
+
+		/**
+		 * Schedule. Called by any thread.
+		 *
+		 * @param member the member
+		 */
+		private void schedule(Member member) {
+			if (member.scheduled.compareAndSet(false, true)) {
+				ready.offer(member);
+				if (parked) {
+					LockSupport.unpark(thread);
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			EVENT_LOOP_THREAD.set(true);
+			while (!shutdown || members.get() > 0) {
+				for (int i = ready.size(); i > 0; i--) {
+					Member member = ready.poll();
+					if (member == null) {
+						break;
+					}
+					member.scheduled.set(false);
+					runMember(member);
+				}
+				Timer timer;
+				while ((timer = timers.peek()) != null && timer.deadline - System.nanoTime() <= 0) {
+					timers.poll();
+					if (timer.member.timer == timer) {
+						timer.member.timer = null;
+						runMember(timer.member);
+					} else {
+						staleTimers--;
+					}
+				}
+				if (!ready.isEmpty()) {
+					continue;
+				}
+				parked = true;
+				if (ready.isEmpty() && (!shutdown || members.get() > 0)) {
+					timer = timers.peek();
+					if (timer == null) {
+						LockSupport.park(this);
+					} else {
+						LockSupport.parkNanos(this, timer.deadline - System.nanoTime());
+					}
+					wakeUps.increment();
+				}
+				parked = false;
+			}
+			LOG.info("Leaving {}", thread.getName());
+		}
+
+		/**
+		 * Run member.
+		 *
+		 * @param member the member
+		 */
+		private void runMember(Member member) {
+			boolean alive;
+			try {
+				alive = member.step();
+			} catch (Throwable e) {
+				LOG.error("Conveyor group member failed {}", member.id, e);
+				alive = false;
+			} finally {
+				Thread.interrupted(); // interrupt could target the member build, not the loop
+				steps.increment();
+			}
+			if (!alive) {
+				cancelTimer(member);
+				members.decrementAndGet();
+				groupMembers.remove(member);
+				return;
+			}
+			if (member.hasInput()) {
+				schedule(member);
+			}
+			long next = member.nextExpirationTime();
+			if (next == Long.MAX_VALUE) {
+				cancelTimer(member);
+				return;
+			}
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, next - System.currentTimeMillis()));
+			if (member.timer == null || member.timer.deadline - deadline > 0) {
+				cancelTimer(member);
+				member.timer = new Timer(deadline, member);
+				timers.add(member.timer);
+			}
+		}
+
+		/**
+		 * Cancels the active timer of the member. Superseded timers are removed from the queue
+		 * once they make up the half of it, so a busy member does not fill the queue with them.
+		 *
+		 * @param member the member
+		 */
+		private void cancelTimer(Member member) {
+			if (member.timer == null) {
+				return;
+			}
+			member.timer = null;
+			if (++staleTimers > 16 && staleTimers > timers.size() / 2) {
+				timers.removeIf(t -> t.member.timer != t);
+				staleTimers = 0;
+			}
+		}
+
+	}
+
+	/** The name. */
+	private final String name;
+
+	/** The thread factory. */
+	private final ThreadFactory threadFactory;
+
+	/** The event loops. */
+	private final List<EventLoop> loops;
+
+	/** All members. */
+	private final Set<Member> groupMembers = ConcurrentHashMap.newKeySet();
+
+	/** The member id sequence. */
+	private final AtomicLong idSequence = new AtomicLong();
+
+	/** The next loop. */
+	private final AtomicInteger nextLoop = new AtomicInteger();
+
+	/** The wake ups counter. */
+	private final LongAdder wakeUps = new LongAdder();
+
+	/** The steps counter. */
+	private final LongAdder steps = new LongAdder();
+
+	/** The shutdown. */
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Instantiates a new conveyor group with platform threads.
+	 *
+	 * @param name the name
+	 * @param threads the number of event loop threads
+	 */
+	public ConveyorGroup(String name, int threads) {
+		this(name, threads, ConveyorThreadFactory.PLATFORM);
+	}
+
+	/**
+	 * Instantiates a new conveyor group.
+	 *
+	 * @param name the name
+	 * @param threads the number of event loop threads
+	 * @param threadFactory the thread factory
+	 */
+	public ConveyorGroup(String name, int threads, ThreadFactory threadFactory) {
+		Objects.requireNonNull(name, "Conveyor group name cannot be null");
+		this.threadFactory = Objects.requireNonNull(threadFactory, "Thread factory cannot be null");
+		if (threads < 1) {
+			throw new IllegalArgumentException("Conveyor group requires at least one thread: " + threads);
+		}
+		this.name = name;
+		List<EventLoop> list = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			list.add(new EventLoop(threadFactory, i));
+		}
+		this.loops = Collections.unmodifiableList(list);
+		loops.forEach(loop -> loop.thread.start());
+	}
+
+	/**
+	 * Next member id.
+	 *
+	 * @return the id
+	 */
+	long nextMemberId() {
+		return idSequence.incrementAndGet();
+	}
+
+	/**
+	 * Register. Pins member to the least loaded event loop.
+	 * Must be called when the member is completely initialized.
+	 *
+	 * @param member the member
+	 */
+	void register(Member member) {
+		if (shutdown) {
+			throw new IllegalStateException("Conveyor group " + name + " is shut down");
+		}
+		int start = nextLoop.getAndIncrement();
+		EventLoop loop = loops.get(Math.floorMod(start, loops.size()));
+		for (int i = 1; i < loops.size(); i++) {
+			EventLoop candidate = loops.get(Math.floorMod(start + i, loops.size()));
+			if (candidate.members.get() < loop.members.get()) {
+				loop = candidate;
+			}
+		}
+		loop.members.incrementAndGet();
+		groupMembers.add(member);
+		member.loop = loop;
+	}
+
+	/**
+	 * Unregisters the member that has never run, e.g. when the conveyor constructor fails after the registration.
+	 *
+	 * @param member the member
+	 */
+	void unregister(Member member) {
+		var loop = member.loop;
+		if (loop != null && groupMembers.remove(member)) {
+			loop.members.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Stops all conveyors of the group. Event loop threads leave when the last conveyor is gone.
+	 * No new conveyors can join the group after shutdown.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		LOG.info("Conveyor group {} is shutting down", name);
+		groupMembers.forEach(Member::stop);
+		loops.forEach(loop -> LockSupport.unpark(loop.thread));
+	}
+
+	/**
+	 * Waits for the event loop threads to leave.
+	 *
+	 * @param timeout the timeout
+	 * @param unit the unit
+	 * @return true, if all threads have left
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (EventLoop loop : loops) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (millis > 0) {
+				loop.thread.join(millis);
+			}
+		}
+		return loops.stream().noneMatch(l -> l.thread.isAlive());
+	}
+
+	/**
+	 * Checks if the current thread is an event loop thread of a conveyor group.
+	 *
+	 * @return true, if called on an event loop thread
+	 */
+	static boolean isEventLoopThread() {
+		return EVENT_LOOP_THREAD.get();
+	}
+
+	/**
+	 * Checks if is shutdown.
+	 *
+	 * @return true, if is shutdown
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the thread factory.
+	 *
+	 * @return the thread factory
+	 */
+	public ThreadFactory getThreadFactory() {
+		return threadFactory;
+	}
+
+	/**
+	 * Gets the number of event loop threads.
+	 *
+	 * @return the threads
+	 */
+	public int getThreads() {
+		return loops.size();
+	}
+
+	/**
+	 * Gets the number of conveyors in the group.
+	 *
+	 * @return the conveyors
+	 */
+	public int getConveyors() {
+		return groupMembers.size();
+	}
+
+	/**
+	 * Gets the total number of event loop wake ups.
+	 *
+	 * @return the wake ups
+	 */
+	public long getWakeUps() {
+		return wakeUps.sum();
+	}
+
+	/**
+	 * Gets the number of timers queued by the event loops, including superseded ones. Approximate.
+	 *
+	 * @return the timers
+	 */
+	int getTimers() {
+		return loops.stream().mapToInt(loop -> loop.timers.size()).sum();
+	}
+
+	/**
+	 * Gets the total number of conveyor processing cycles.
+	 *
+	 * @return the steps
+	 */
+	public long getSteps() {
+		return steps.sum();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ConveyorGroup [name=" + name + ", threads=" + loops.size() + ", conveyors=" + groupMembers.size() + "]";
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.exception.ConveyorRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the conveyor inner threads.
+ */
+public final class ConveyorThreadFactory {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ConveyorThreadFactory.class);
+
+    /** Non-daemon platform thread. Default for all conveyors. */
+    public final static ThreadFactory PLATFORM = runnable -> {
+        var thread = new Thread(runnable);
+        thread.setDaemon(false);
+        return thread;
+    };
+
+    /** Daemon platform thread. Does not prevent JVM from exiting. */
+    public final static ThreadFactory DAEMON = runnable -> {
+        var thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final static ThreadFactory VIRTUAL = lookupVirtualThreadFactory();
+
+    private ConveyorThreadFactory() {
+    }
+
+    /**
+     * Checks if virtual threads are supported by the running JDK.
+     *
+     * @return true, if supported
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL != null;
+    }
+
+    /**
+     * Virtual thread factory when running on a JDK that has virtual threads, PLATFORM otherwise.
+     * Virtual threads are always daemon threads.
+     *
+     * @return the thread factory
+     */
+    public static ThreadFactory virtual() {
+        if (VIRTUAL == null) {
+            LOG.warn("Virtual threads are not supported by Java {}. Using platform threads", Runtime.version());
+            return PLATFORM;
+        }
+        return VIRTUAL;
+    }
+
+    /**
+     * Thread factory by name. PLATFORM, DAEMON or VIRTUAL
+     *
+     * @param name the name
+     * @return the thread factory
+     */
+    public static ThreadFactory valueOf(String name) {
+        return switch (name.trim().toUpperCase()) {
+            case "PLATFORM" -> PLATFORM;
+            case "DAEMON" -> DAEMON;
+            case "VIRTUAL" -> virtual();
+            default -> throw new ConveyorRuntimeException("Unsupported thread factory " + name);
+        };
+    }
+
+    private static ThreadFactory lookupVirtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * COPYRIGHT (C) AEGIS DATA SOLUTIONS, LLC, 2015
+ */
+package com.aegisql.conveyor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The Class EventHistory.
+ * Compact per building site counter of accepted labels.
+ * <p>
+ * While all labels are constants of the same enum, counters are kept in an int array
+ * indexed by the label ordinal and are iterated in the ordinal order, as in the {@link java.util.EnumMap}.
+ * Any other label, including null, switches the history to parallel arrays of labels and counters,
+ * iterated in the insertion order. No object is allocated per counter update.
+ * <p>
+ * The map itself is read only, the building site modifies it through package access methods.
+ * Not thread safe.
+ *
+ * @param <L> the label type
+ */
+final class EventHistory<L> extends AbstractMap<L,Integer> {
+
+	/** Cached enum constants. Shared by all histories. */
+	private static final ClassValue<Object[]> ENUM_CONSTANTS = new ClassValue<>() {
+		@Override
+		protected Object[] computeValue(Class<?> type) {
+			return type.getEnumConstants();
+		}
+	};
+
+	/** Number of labels scanned linearly, before the index is built. */
+	private static final int INDEX_THRESHOLD = 8;
+
+	/** The enum class. Null, if not in the enum mode. */
+	private Class<?> enumClass;
+
+	/**
+	 * The labels. Enum constants in the enum mode, which are shared,
+	 * or labels in the insertion order.
+	 */
+	private Object[] labels;
+
+	/** The counters. In the enum mode counter+1 by ordinal, zero means absent. */
+	private int[] counters;
+
+	/** The size. */
+	private int size;
+
+	/** The label index. Created when linear scan becomes too long. */
+	private Map<Object,Integer> index;
+
+	/** The entry set. */
+	private Set<Map.Entry<L,Integer>> entrySet;
+
+	/**
+	 * Registers the label with zero counter, if it is not present.
+	 *
+	 * @param label the label
+	 */
+	void register(L label) {
+		slot(label);
+	}
+
+	/**
+	 * Increments the label counter.
+	 *
+	 * @param label the label
+	 */
+	void increment(L label) {
+		int i = slot(label);
+		counters[i]++;
+	}
+
+	/**
+	 * Sets the label counter.
+	 *
+	 * @param label the label
+	 * @param count the count
+	 */
+	void set(L label, int count) {
+		int i = slot(label);
+		counters[i] = enumClass != null ? count + 1 : count;
+	}
+
+	/**
+	 * Removes all counters.
+	 */
+	void reset() {
+		enumClass = null;
+		labels    = null;
+		counters  = null;
+		index     = null;
+		size      = 0;
+	}
+
+	/**
+	 * Slot of the label. Adds the label with zero counter, if absent.
+	 *
+	 * @param label the label
+	 * @return the slot
+	 */
+	private int slot(L label) {
+		if (enumClass != null) {
+			if (label != null && label.getClass() == enumClass) {
+				int i = ((Enum<?>) label).ordinal();
+				if (counters[i] == 0) {
+					counters[i] = 1;
+					size++;
+				}
+				return i;
+			}
+			toLinear();
+		} else if (labels == null && label instanceof Enum<?> e) {
+			// getDeclaringClass for constants with a body, the label class must match exactly for the fast path
+			if (e.getClass() == e.getDeclaringClass()) {
+				enumClass = e.getClass();
+				labels    = ENUM_CONSTANTS.get(enumClass);
+				counters  = new int[labels.length];
+				return slot(label);
+			}
+		}
+		int i = find(label);
+		if (i >= 0) {
+			return i;
+		}
+		if (labels == null) {
+			labels   = new Object[2];
+			counters = new int[2];
+		} else if (size == labels.length) {
+			labels   = Arrays.copyOf(labels, size * 2);
+			counters = Arrays.copyOf(counters, size * 2);
+		}
+		labels[size] = label;
+		if (index != null) {
+			index.put(label, size);
+		} else if (size == INDEX_THRESHOLD) {
+			index = new HashMap<>();
+			for (int j = 0; j <= size; j++) {
+				index.put(labels[j], j);
+			}
+		}
+		return size++;
+	}
+
+	/**
+	 * Switches from the enum to the linear mode, keeping the ordinal order.
+	 */
+	private void toLinear() {
+		Object[] constants = labels;
+		int[] enumCounters = counters;
+		int n              = size;
+		enumClass = null;
+		labels    = new Object[Math.max(2, n + 1)];
+		counters  = new int[labels.length];
+		size      = 0;
+		for (int i = 0; i < constants.length; i++) {
+			if (enumCounters[i] > 0) {
+				labels[size]   = constants[i];
+				counters[size] = enumCounters[i] - 1;
+				size++;
+			}
+		}
+		if (size > INDEX_THRESHOLD) {
+			index = new HashMap<>();
+			for (int j = 0; j < size; j++) {
+				index.put(labels[j], j);
+			}
+		}
+	}
+
+	/**
+	 * Finds the slot of the label in the linear mode.
+	 *
+	 * @param label the label
+	 * @return the slot, or -1
+	 */
+	private int find(Object label) {
+		if (index != null) {
+			Integer i = index.get(label);
+			return i == null ? -1 : i;
+		}
+		for (int i = 0; i < size; i++) {
+			if (Objects.equals(labels[i], label)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Counter of the label.
+	 *
+	 * @param label the label
+	 * @return the counter, or -1 if absent
+	 */
+	private int count(Object label) {
+		if (enumClass != null) {
+			if (label == null || label.getClass() != enumClass) {
+				return -1;
+			}
+			return counters[((Enum<?>) label).ordinal()] - 1;
+		}
+		int i = find(label);
+		return i < 0 ? -1 : counters[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public Integer get(Object label) {
+		int c = count(label);
+		return c < 0 ? null : c;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object label) {
+		return count(label) >= 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Map#forEach(java.util.function.BiConsumer)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super L, ? super Integer> action) {
+		if (enumClass != null) {
+			for (int i = 0; i < counters.length; i++) {
+				if (counters[i] > 0) {
+					action.accept((L) labels[i], counters[i] - 1);
+				}
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				action.accept((L) labels[i], counters[i]);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<L,Integer>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<>() {
+				@Override
+				public Iterator<Map.Entry<L,Integer>> iterator() {
+					return new EntryIterator();
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * The Class EntryIterator.
+	 */
+	private final class EntryIterator implements Iterator<Map.Entry<L,Integer>> {
+
+		/** The labels the iterator was created for. */
+		private final Object[] ls = labels;
+
+		/** The counters the iterator was created for. */
+		private final int[] cs = counters;
+
+		/** True for the enum mode. */
+		private final boolean enumMode = enumClass != null;
+
+		/** The next slot. */
+		private int next = -1;
+
+		/**
+		 * Instantiates a new entry iterator.
+		 */
+		EntryIterator() {
+			advance();
+		}
+
+		/**
+		 * Moves to the next present counter.
+		 */
+		private void advance() {
+			next++;
+			if (enumMode) {
+				while (next < cs.length && cs[next] == 0) {
+					next++;
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			if (ls != labels) {
+				throw new ConcurrentModificationException();
+			}
+			return cs != null && next < (enumMode ? cs.length : size);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public Map.Entry<L,Integer> next() {
+			if ( ! hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Map.Entry<L,Integer> e = new SimpleImmutableEntry<>((L) ls[next], enumMode ? cs[next] - 1 : cs[next]);
+			advance();
+			return e;
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.aegisql.conveyor;
+
+/**
+ * The Enum EvictionPolicy.
+ * Defines which build is evicted first, when the collector of the {@link AssemblingConveyor}
+ * exceeds its max size or max estimated bytes.
+ */
+public enum EvictionPolicy {
+
+	/** The build created first is evicted first. */
+	OLDEST_CREATED,
+
+	/** The build that did not accept any cart for the longest time is evicted first. */
+	LEAST_RECENTLY_UPDATED,
+
+	/** The build with the nearest expiration time is evicted first. Unexpireable builds are evicted last. */
+	SOONEST_EXPIRING
+}
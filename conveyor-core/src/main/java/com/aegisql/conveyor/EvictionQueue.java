@@ -0,0 +1,267 @@
+package com.aegisql.conveyor;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * The Class EvictionQueue.
+ * Orders building sites of the collector according to the {@link EvictionPolicy}
+ * and keeps the total of their estimated sizes.
+ * <p>
+ * Removed and updated sites are not searched in the queue. Stale entries are skipped
+ * when the next victim is requested and dropped when the queue grows twice as large as the collector.
+ * Accessed by the conveyor thread only.
+ *
+ * @param <K> the key type
+ */
+final class EvictionQueue<K> {
+
+	/** The Constant MIN_COMPACT_SIZE. */
+	private static final int MIN_COMPACT_SIZE = 64;
+
+	/**
+	 * The Record Expiring.
+	 *
+	 * @param time the expiration time when the entry was added
+	 * @param site the site
+	 */
+	private record Expiring(long time, BuildingSite<?,?,?,?> site) {}
+
+	/** The policy. */
+	private final EvictionPolicy policy;
+
+	/** The size estimator. */
+	private final ToLongFunction<BuildingSite<?,?,?,?>> estimator;
+
+	/** Checks if the site is still in the collector. */
+	private final Predicate<BuildingSite<?,?,?,?>> live;
+
+	/** The sites in the creation or update order. */
+	private final ArrayDeque<BuildingSite<?,?,?,?>> order;
+
+	/** The sites in the expiration order. */
+	private final PriorityQueue<Expiring> expiring;
+
+	/** The number of sites. */
+	private int size;
+
+	/** The estimated bytes. */
+	private long estimatedBytes;
+
+	/**
+	 * Instantiates a new eviction queue.
+	 *
+	 * @param policy the policy
+	 * @param estimator the size estimator
+	 * @param live the live site predicate
+	 */
+	EvictionQueue(EvictionPolicy policy, ToLongFunction<BuildingSite<?,?,?,?>> estimator, Predicate<BuildingSite<?,?,?,?>> live) {
+		this.policy    = policy;
+		this.estimator = estimator;
+		this.live      = live;
+		if (policy == EvictionPolicy.SOONEST_EXPIRING) {
+			this.order    = null;
+			this.expiring = new PriorityQueue<>(Comparator.comparingLong(Expiring::time));
+		} else {
+			this.order    = new ArrayDeque<>();
+			this.expiring = null;
+		}
+	}
+
+	/**
+	 * Gets the policy.
+	 *
+	 * @return the policy
+	 */
+	EvictionPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the estimator.
+	 *
+	 * @return the estimator
+	 */
+	ToLongFunction<BuildingSite<?,?,?,?>> getEstimator() {
+		return estimator;
+	}
+
+	/**
+	 * Gets the number of sites.
+	 *
+	 * @return the size
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the estimated bytes of all sites.
+	 *
+	 * @return the estimated bytes
+	 */
+	long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	/**
+	 * Expiration time used for ordering. Unexpireable sites go last.
+	 *
+	 * @param site the site
+	 * @return the time
+	 */
+	private static long expirationTime(BuildingSite<?,?,?,?> site) {
+		long time = site.getExpirationTime();
+		return time == 0 ? Long.MAX_VALUE : time;
+	}
+
+	/**
+	 * Registers new site.
+	 *
+	 * @param site the site
+	 */
+	void created(BuildingSite<?,?,?,?> site) {
+		size++;
+		site.estimatedBytes = estimator.applyAsLong(site);
+		estimatedBytes += site.estimatedBytes;
+		if (order != null) {
+			site.evictionRefs = 1;
+			order.addLast(site);
+		} else {
+			expiring.add(new Expiring(expirationTime(site), site));
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Registers update of the site.
+	 *
+	 * @param site the site
+	 */
+	void updated(BuildingSite<?,?,?,?> site) {
+		long bytes = estimator.applyAsLong(site);
+		estimatedBytes += bytes - site.estimatedBytes;
+		site.estimatedBytes = bytes;
+		if (policy == EvictionPolicy.LEAST_RECENTLY_UPDATED) {
+			site.evictionRefs++;
+			order.addLast(site);
+			compactIfNeeded();
+		}
+	}
+
+	/**
+	 * Registers removal of the site from the collector.
+	 *
+	 * @param site the site
+	 */
+	void removed(BuildingSite<?,?,?,?> site) {
+		size--;
+		estimatedBytes -= site.estimatedBytes;
+		site.estimatedBytes = 0;
+	}
+
+	/**
+	 * Polls the next site to evict. The returned site must be removed from the collector by the caller.
+	 *
+	 * @param current the site that cannot be evicted, can be null
+	 * @return the site, or null if there is nothing to evict
+	 */
+	BuildingSite<?,?,?,?> victim(BuildingSite<?,?,?,?> current) {
+		return order != null ? pollOrder(current) : pollExpiring(current);
+	}
+
+	/**
+	 * Polls the creation or update order.
+	 *
+	 * @param current the current
+	 * @return the site
+	 */
+	private BuildingSite<?,?,?,?> pollOrder(BuildingSite<?,?,?,?> current) {
+		BuildingSite<?,?,?,?> site;
+		BuildingSite<?,?,?,?> skipped = null;
+		BuildingSite<?,?,?,?> victim = null;
+		while ((site = order.pollFirst()) != null) {
+			if ( ! live.test(site)) {
+				continue;
+			}
+			if (site.evictionRefs > 1) {
+				// site was updated later, its last entry is further in the queue
+				site.evictionRefs--;
+				continue;
+			}
+			if (site == current) {
+				skipped = site;
+				continue;
+			}
+			victim = site;
+			break;
+		}
+		if (skipped != null) {
+			order.addFirst(skipped);
+		}
+		return victim;
+	}
+
+	/**
+	 * Polls the expiration order.
+	 *
+	 * @param current the current
+	 * @return the site
+	 */
+	private BuildingSite<?,?,?,?> pollExpiring(BuildingSite<?,?,?,?> current) {
+		Expiring entry;
+		Expiring skipped = null;
+		BuildingSite<?,?,?,?> victim = null;
+		while ((entry = expiring.poll()) != null) {
+			var site = entry.site();
+			if ( ! live.test(site)) {
+				continue;
+			}
+			long time = expirationTime(site);
+			if (time > entry.time()) {
+				// expiration was postponed after the site was added
+				expiring.add(new Expiring(time, site));
+				continue;
+			}
+			if (site == current) {
+				skipped = entry;
+				continue;
+			}
+			victim = site;
+			break;
+		}
+		if (skipped != null) {
+			expiring.add(skipped);
+		}
+		return victim;
+	}
+
+	/**
+	 * Drops stale entries, when the queue is twice as large as the collector.
+	 */
+	private void compactIfNeeded() {
+		int queued = order != null ? order.size() : expiring.size();
+		if (queued < MIN_COMPACT_SIZE || queued < 2 * size) {
+			return;
+		}
+		if (order != null) {
+			for (int i = 0; i < queued; i++) {
+				var site = order.pollFirst();
+				if ( ! live.test(site)) {
+					continue;
+				}
+				if (site.evictionRefs > 1) {
+					site.evictionRefs--;
+					continue;
+				}
+				order.addLast(site);
+			}
+		} else {
+			expiring.removeIf(e -> ! live.test(e.site()));
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.serial.SerializablePredicate;
+
+import java.io.Serial;
+import java.util.Objects;
+
+/**
+ * The Class IndexFilter.
+ * Selects keys of the multi-key parts and commands by the value of the collector index.
+ * Conveyor that declared the index finds matching keys without scanning the whole collector.
+ * Conveyor without the index tests all keys with the fallback predicate. Filter without the fallback
+ * is rejected by such conveyor when the cart or command is placed.
+ *
+ * @param <K> the key type
+ * @see CollectorType#withIndex(String, java.util.function.Function)
+ */
+public final class IndexFilter<K> implements SerializablePredicate<K> {
+
+	/** The Constant serialVersionUID. */
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/** The index name. */
+	private final String index;
+
+	/** The value. */
+	private final Object value;
+
+	/** The fallback predicate. Null, if keys cannot be tested without the index. */
+	private final SerializablePredicate<K> fallback;
+
+	/**
+	 * Instantiates a new index filter.
+	 *
+	 * @param index the index name
+	 * @param value the value
+	 * @param fallback the fallback predicate
+	 */
+	private IndexFilter(String index, Object value, SerializablePredicate<K> fallback) {
+		this.index    = Objects.requireNonNull(index, "Index name cannot be null");
+		this.value    = Objects.requireNonNull(value, "Index value cannot be null");
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param <K> the key type
+	 * @param index the index name
+	 * @param value the value
+	 * @return the index filter
+	 */
+	public static <K> IndexFilter<K> of(String index, Object value) {
+		return new IndexFilter<>(index, value, null);
+	}
+
+	/**
+	 * Creates the filter with the fallback predicate for conveyors without the index.
+	 * The fallback must match the same keys as the index.
+	 *
+	 * @param <K> the key type
+	 * @param index the index name
+	 * @param value the value
+	 * @param fallback the fallback predicate
+	 * @return the index filter
+	 */
+	public static <K> IndexFilter<K> of(String index, Object value, SerializablePredicate<K> fallback) {
+		return new IndexFilter<>(index, value, Objects.requireNonNull(fallback, "Index fallback predicate cannot be null"));
+	}
+
+	/**
+	 * Gets the index name.
+	 *
+	 * @return the index name
+	 */
+	public String getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the value.
+	 *
+	 * @return the value
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Checks for the fallback predicate.
+	 *
+	 * @return true, if keys can be tested without the index
+	 */
+	public boolean hasFallback() {
+		return fallback != null;
+	}
+
+	/**
+	 * Tests the key with the fallback predicate.
+	 *
+	 * @param key the key
+	 * @return true, if the key matches
+	 * @throws IllegalStateException if the filter has no fallback predicate
+	 */
+	@Override
+	public boolean test(K key) {
+		if (fallback == null) {
+			throw new IllegalStateException("Index filter " + this + " has no fallback predicate. Keys can be selected by the collector index only");
+		}
+		return fallback.test(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "IndexFilter [" + index + "=" + value + (fallback == null ? "" : ", with fallback") + "]";
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.serial.SerializablePredicate;
+
+import java.io.Serial;
+import java.util.NavigableMap;
+
+/**
+ * The Class KeyRange.
+ * Selects keys of the multi-key parts and commands from the range. The lower bound is inclusive,
+ * the upper bound is exclusive, null bound means no limit. Keys must be {@link Comparable}.
+ * Conveyor with the sorted collector walks only the matching sub-map,
+ * other conveyors test each key.
+ *
+ * @param <K> the key type
+ * @see CollectorType#sorted()
+ */
+public final class KeyRange<K> implements SerializablePredicate<K> {
+
+	/** The Constant serialVersionUID. */
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/** The lower bound, inclusive. */
+	private final K from;
+
+	/** The upper bound, exclusive. */
+	private final K to;
+
+	/**
+	 * Instantiates a new key range.
+	 *
+	 * @param from the from
+	 * @param to the to
+	 */
+	private KeyRange(K from, K to) {
+		if (from != null && ! (from instanceof Comparable)) {
+			throw new IllegalArgumentException("Range bound must be Comparable: " + from);
+		}
+		if (to != null && ! (to instanceof Comparable)) {
+			throw new IllegalArgumentException("Range bound must be Comparable: " + to);
+		}
+		this.from = from;
+		this.to   = to;
+	}
+
+	/**
+	 * Keys from the lower bound, inclusive, to the upper bound, exclusive.
+	 *
+	 * @param <K> the key type
+	 * @param from the from, null - no lower bound
+	 * @param to the to, null - no upper bound
+	 * @return the key range
+	 */
+	public static <K> KeyRange<K> of(K from, K to) {
+		return new KeyRange<>(from, to);
+	}
+
+	/**
+	 * Keys below the bound.
+	 *
+	 * @param <K> the key type
+	 * @param to the upper bound, exclusive
+	 * @return the key range
+	 */
+	public static <K> KeyRange<K> below(K to) {
+		return new KeyRange<>(null, to);
+	}
+
+	/**
+	 * Keys starting from the bound.
+	 *
+	 * @param <K> the key type
+	 * @param from the lower bound, inclusive
+	 * @return the key range
+	 */
+	public static <K> KeyRange<K> from(K from) {
+		return new KeyRange<>(from, null);
+	}
+
+	/**
+	 * Gets the lower bound.
+	 *
+	 * @return the from
+	 */
+	public K getFrom() {
+		return from;
+	}
+
+	/**
+	 * Gets the upper bound.
+	 *
+	 * @return the to
+	 */
+	public K getTo() {
+		return to;
+	}
+
+	/**
+	 * Sub map of the range.
+	 *
+	 * @param <V> the value type
+	 * @param map the map
+	 * @return the sub map
+	 */
+	<V> NavigableMap<K,V> subMap(NavigableMap<K,V> map) {
+		if (from == null && to == null) {
+			return map;
+		} else if (from == null) {
+			return map.headMap(to, false);
+		} else if (to == null) {
+			return map.tailMap(from, true);
+		} else if (compare(from, to) >= 0) {
+			return map.subMap(from, true, from, false);
+		} else {
+			return map.subMap(from, true, to, false);
+		}
+	}
+
+	/**
+	 * Compare.
+	 *
+	 * @param a the a
+	 * @param b the b
+	 * @return the int
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K> int compare(K a, K b) {
+		return ((Comparable<K>) a).compareTo(b);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.function.Predicate#test(java.lang.Object)
+	 */
+	@Override
+	public boolean test(K key) {
+		return (from == null || compare(from, key) <= 0) && (to == null || compare(key, to) < 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "KeyRange [" + (from == null ? "" : from) + ".." + (to == null ? "" : to) + ")";
+	}
+
+}
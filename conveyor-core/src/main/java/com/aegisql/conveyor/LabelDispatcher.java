@@ -0,0 +1,198 @@
+/*
+ * COPYRIGHT (C) AEGIS DATA SOLUTIONS, LLC, 2015
+ */
+package com.aegisql.conveyor;
+
+import java.io.Serial;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The Class LabelDispatcher.
+ * Compiled form of the {@link LabeledValueConsumer#when} chain.
+ * Consumers registered for exact labels are kept in a hash table, or in an {@link EnumMap} when all labels
+ * belong to the same enum, so dispatching does not depend on the length of the chain.
+ * Labels not found in the table go to the fallback consumer, exactly like in the chain of lambdas.
+ * <p>
+ * Instances are immutable. Every call to when(...) returns a new dispatcher with one more entry
+ * and the same fallback. A later entry for the same label replaces the earlier one,
+ * same as in the chain, where the outermost check wins.
+ *
+ * @param <L> the label type
+ * @param <V> the value type
+ * @param <B> the builder type
+ */
+public final class LabelDispatcher<L,V,B> implements LabeledValueConsumer<L,V,B> {
+
+	/** The Constant serialVersionUID. */
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/** The dispatch table. */
+	private final Map<L,LabeledValueConsumer<L,V,B>> table;
+
+	/** The fallback. */
+	private final LabeledValueConsumer<L,V,B> fallback;
+
+	/**
+	 * Instantiates a new label dispatcher.
+	 *
+	 * @param table the table
+	 * @param fallback the fallback
+	 */
+	private LabelDispatcher(Map<L,LabeledValueConsumer<L,V,B>> table, LabeledValueConsumer<L,V,B> fallback) {
+		this.table = table;
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Empty dispatcher. All labels go to the fallback consumer.
+	 *
+	 * @param <L> the label type
+	 * @param <V> the value type
+	 * @param <B> the builder type
+	 * @param fallback the fallback
+	 * @return the label dispatcher
+	 */
+	public static <L,V,B> LabelDispatcher<L,V,B> of(LabeledValueConsumer<L,V,B> fallback) {
+		Objects.requireNonNull(fallback, "Fallback consumer cannot be null");
+		if(fallback instanceof LabelDispatcher<L,V,B> dispatcher) {
+			return dispatcher;
+		}
+		return new LabelDispatcher<>(Collections.emptyMap(), fallback);
+	}
+
+	/**
+	 * Dispatcher for all constants of an enum based SmartLabel.
+	 * Setters of all constants are resolved once and indexed by ordinal.
+	 *
+	 * @param <E> the enum type
+	 * @param <B> the builder type
+	 * @param labels the SmartLabel enum class
+	 * @param fallback the fallback for labels of other types
+	 * @return the label dispatcher
+	 */
+	public static <E extends Enum<E> & SmartLabel<B>,B> LabelDispatcher<E,Object,B> of(Class<E> labels, LabeledValueConsumer<E,Object,B> fallback) {
+		Objects.requireNonNull(fallback, "Fallback consumer cannot be null");
+		Map<E,LabeledValueConsumer<E,Object,B>> table = new EnumMap<>(labels);
+		for(E label:labels.getEnumConstants()) {
+			BiConsumer<B,Object> setter = label.get();
+			table.put(label, (l,v,b)->setter.accept(b, v));
+		}
+		return new LabelDispatcher<>(table, fallback);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.LabeledValueConsumer#accept(java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public void accept(L label, V value, B builder) {
+		LabeledValueConsumer<L,V,B> consumer = label == null ? null : table.get(label);
+		if(consumer != null) {
+			consumer.accept(label, value, builder);
+		} else {
+			fallback.accept(label, value, builder);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.LabeledValueConsumer#when(java.lang.Object, java.util.function.BiConsumer)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> LabelDispatcher<L,V,B> when(L label, BiConsumer<B,T> consumer) {
+		return with(label, (l,v,b)->consumer.accept(b, (T)v));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.LabeledValueConsumer#when(java.lang.Object, java.util.function.Consumer)
+	 */
+	@Override
+	public LabelDispatcher<L,V,B> when(L label, Consumer<V> consumer) {
+		return with(label, (l,v,b)->consumer.accept(v));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.LabeledValueConsumer#when(java.lang.Object, java.lang.Runnable)
+	 */
+	@Override
+	public LabelDispatcher<L,V,B> when(L label, Runnable runnable) {
+		return with(label, (l,v,b)->runnable.run());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.LabeledValueConsumer#ignore(java.lang.Object)
+	 */
+	@Override
+	public LabelDispatcher<L,V,B> ignore(L label) {
+		return with(label, (l,v,b)->{});
+	}
+
+	/**
+	 * Gets the labels with own consumers.
+	 *
+	 * @return the labels
+	 */
+	public Set<L> labels() {
+		return Collections.unmodifiableSet(table.keySet());
+	}
+
+	/**
+	 * Gets the fallback.
+	 *
+	 * @return the fallback
+	 */
+	public LabeledValueConsumer<L,V,B> getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * New dispatcher with one more entry. Null label never matches, so it is not added.
+	 *
+	 * @param label the label
+	 * @param consumer the consumer
+	 * @return the label dispatcher
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private LabelDispatcher<L,V,B> with(L label, LabeledValueConsumer<L,V,B> consumer) {
+		if(label == null) {
+			return this;
+		}
+		Map<L,LabeledValueConsumer<L,V,B>> copy;
+		if(table instanceof EnumMap enumMap && label instanceof Enum e && e.getDeclaringClass() == enumType(enumMap)) {
+			copy = new EnumMap(enumMap);
+		} else if(table.isEmpty() && label instanceof Enum e) {
+			copy = new EnumMap(e.getDeclaringClass());
+		} else {
+			copy = new HashMap<>(table);
+		}
+		copy.put(label, consumer);
+		return new LabelDispatcher<>(copy, fallback);
+	}
+
+	/**
+	 * Enum type of the non empty enum map.
+	 *
+	 * @param map the map
+	 * @return the enum class
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Class<?> enumType(EnumMap<?,?> map) {
+		return map.isEmpty() ? null : ((Enum)map.keySet().iterator().next()).getDeclaringClass();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "LabelDispatcher [labels=" + table.keySet() + "]";
+	}
+
+}
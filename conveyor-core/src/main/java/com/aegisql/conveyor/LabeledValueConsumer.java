@@ -59,7 +59,8 @@ public interface LabeledValueConsumer<L,V,B> extends Serializable {
 	}
 
 	/**
-	 * When.
+	 * When. Consecutive when(...) calls are compiled into the {@link LabelDispatcher}
+	 * with the constant lookup time.
 	 *
 	 * @param <T> the generic type
 	 * @param label the label
@@ -67,7 +68,7 @@ public interface LabeledValueConsumer<L,V,B> extends Serializable {
 	 * @return the labeled value consumer
 	 */
 	default <T> LabeledValueConsumer<L,V,B> when(L label, BiConsumer<B,T> consumer) {
-		return filter(l->l.equals(label),consumer);
+		return LabelDispatcher.of(this).when(label,consumer);
 	}
 
 	/**
@@ -78,7 +79,7 @@ public interface LabeledValueConsumer<L,V,B> extends Serializable {
 	 * @return the labeled value consumer
 	 */
 	default LabeledValueConsumer<L,V,B> when(L label, Consumer<V> consumer) {
-		return filter(l->l.equals(label),consumer);
+		return LabelDispatcher.of(this).when(label,consumer);
 	}
 
 	/**
@@ -89,7 +90,7 @@ public interface LabeledValueConsumer<L,V,B> extends Serializable {
 	 * @return the labeled value consumer
 	 */
 	default LabeledValueConsumer<L,V,B> when(L label, Runnable runnable) {
-		return filter(l->l.equals(label),runnable);
+		return LabelDispatcher.of(this).when(label,runnable);
 	}
 
 	/**
@@ -201,7 +202,7 @@ public interface LabeledValueConsumer<L,V,B> extends Serializable {
 	 * @return the labeled value consumer
 	 */
 	default LabeledValueConsumer<L,V,B> ignore(L label) {
-		return ignore(l->l.equals(label));
+		return LabelDispatcher.of(this).ignore(label);
 	}
 
 	/**
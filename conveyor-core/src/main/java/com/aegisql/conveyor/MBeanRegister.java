@@ -6,11 +6,16 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import javax.management.StandardMBean;
 import java.lang.management.ManagementFactory;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The singleton MBean register.
+ * Conveyors are looked up by name in a concurrent map without locking.
+ * JMX registration is kept for management tools, the MBean server is queried only
+ * for conveyors unknown to the map.
  */
 enum MBeanRegister {
 
@@ -20,7 +25,7 @@ enum MBeanRegister {
     MBEAN;
 
     private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
-    private final Map<String,Conveyor> knownConveyors = new HashMap<>();
+    private final Map<String,Conveyor> knownConveyors = new ConcurrentHashMap<>();
 
     private String getType(String name) {
         return "com.aegisql.conveyor:type="+name;
@@ -33,16 +38,18 @@ enum MBeanRegister {
      * @return the conveyor
      */
     public Conveyor byName(String name) {
+        if(name != null) {
+            var conveyor = knownConveyors.get(name);
+            if(conveyor != null) {
+                return conveyor;
+            }
+        }
         var type = getType(name);
         try {
-
-            if(knownConveyors.containsKey(type)) {
-                return knownConveyors.get(type);
-            }
             var objectName = new ObjectName(type);
             var conveyor = (Conveyor) mBeanServer.invoke(objectName, "conveyor", null, null);
-            knownConveyors.put(type,conveyor);
-            return conveyor;
+            var known = knownConveyors.putIfAbsent(name,conveyor);
+            return known != null ? known : conveyor;
         } catch (Exception e) {
             throw new ConveyorRuntimeException("Conveyor with name '"+type +"' not found",e);
         }
@@ -57,18 +64,19 @@ enum MBeanRegister {
     public void register(Conveyor conveyor, Object mbeanObject) {
         try {
             var mBeanInterface = conveyor.mBeanInterface();
-            var type = getType(conveyor.getName());
+            var name = Objects.requireNonNull(conveyor.getName(), "Conveyor name must not be null");
+            var type = getType(name);
             if(mBeanInterface != null) {
                 var mbean = new StandardMBean(mbeanObject, mBeanInterface, false);
                 var objectName = new ObjectName(type);
                 synchronized (mBeanServer) {
                     unRegister(conveyor.getName());
                     mBeanServer.registerMBean(mbean, objectName);
-                    knownConveyors.put(type,conveyor);
+                    knownConveyors.put(name,conveyor);
                 }
                 Conveyor.LOG.debug("Registered conveyor MBean {}", type);
             } else {
-                knownConveyors.put(type,conveyor);
+                knownConveyors.put(name,conveyor);
                 Conveyor.LOG.debug("Registered conveyor {}", type);
             }
         } catch( ConveyorRuntimeException cre) {
@@ -87,7 +95,7 @@ enum MBeanRegister {
         try {
             var type = getType(name);
             var objectName = new ObjectName(type);
-            knownConveyors.remove(type);
+            knownConveyors.remove(name);
             synchronized (mBeanServer) {
                 if (mBeanServer.isRegistered(objectName)) {
                     Conveyor.LOG.warn("Unregister existing mbean with name {}", objectName);
@@ -100,19 +108,13 @@ enum MBeanRegister {
     }
 
     public void resetConveyor(String name) {
-        knownConveyors.remove(getType(name));
+        if(name != null) {
+            knownConveyors.remove(name);
+        }
     }
 
     public Set<String> getKnownConveyorNames() {
-        return knownConveyors
-                .keySet()
-                .stream()
-                .filter(Objects::nonNull)
-                .map(longName -> {
-                    var parts = longName.split("=");
-                    return parts[1];
-                })
-                .collect(Collectors.toUnmodifiableSet());
+        return Set.copyOf(knownConveyors.keySet());
     }
 
 }
@@ -0,0 +1,24 @@
+package com.aegisql.conveyor;
+
+/**
+ * The Enum PlacementMode.
+ * Defines what happens when a cart is placed into a bounded conveyor queue that is full.
+ */
+public enum PlacementMode {
+
+	/** Cart is rejected and sent to the scrap consumer as CART_REJECTED. Default. */
+	REJECT,
+
+	/**
+	 * Producer thread blocks until capacity frees up or placement timeout expires.
+	 * On a {@link ConveyorGroup} event loop thread the producer does not wait, the cart is rejected.
+	 */
+	BLOCK,
+
+	/**
+	 * Cart is parked and moved into the queue by the conveyor thread when capacity frees up.
+	 * At most maxPendingPlacements carts are parked, the rest is rejected as in REJECT mode.
+	 * The future returned by place() still completes when the cart is processed, not when it enters the queue.
+	 */
+	ASYNC
+}
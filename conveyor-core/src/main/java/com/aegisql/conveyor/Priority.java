@@ -2,6 +2,7 @@ package com.aegisql.conveyor;
 
 import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.exception.ConveyorRuntimeException;
+import com.aegisql.conveyor.utils.MpscRingBufferQueue;
 
 import java.util.Comparator;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -12,6 +13,8 @@ public final class Priority {
 
     private final static int INITIAL_CAPACITY = 100;
 
+    private final static int RING_BUFFER_CAPACITY = 1 << 16;
+
     public final static Supplier DEFAULT = ConcurrentLinkedQueue::new;
 
     public final static Supplier<PriorityBlockingQueue<Cart>> FIFO = priorityQueueSupplier(Comparator.comparingLong(Cart::getCartCreationNanoTime));
@@ -54,6 +57,12 @@ public final class Priority {
 
     public final static Supplier<PriorityBlockingQueue<Cart>> EXISTING_BUILDS_FIRST = PriorityBlockingQueue::new;
 
+    public final static Supplier<MpscRingBufferQueue<Cart>> RING_BUFFER = ringBuffer(RING_BUFFER_CAPACITY);
+
+    public static Supplier<MpscRingBufferQueue<Cart>> ringBuffer(int capacity) {
+        return ()->new MpscRingBufferQueue<>(capacity);
+    }
+
     public static Supplier<PriorityBlockingQueue<Cart>> priorityQueueSupplier(Comparator<Cart> comparator) {
         return ()->new PriorityBlockingQueue(INITIAL_CAPACITY,comparator);
     }
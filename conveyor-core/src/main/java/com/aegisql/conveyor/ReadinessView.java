@@ -0,0 +1,90 @@
+/*
+ * COPYRIGHT (C) AEGIS DATA SOLUTIONS, LLC, 2015
+ */
+package com.aegisql.conveyor;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+import com.aegisql.conveyor.cart.Cart;
+
+/**
+ * The Class ReadinessView.
+ * Per thread read only view of the cart list of the building site under the readiness test.
+ * <p>
+ * The view is bound before the test and released after it, so the readiness test
+ * does not copy the event history and the carts. The {@link State} itself stays immutable.
+ *
+ * @param <K> the key type
+ * @param <L> the label type
+ */
+final class ReadinessView<K,L> extends AbstractList<Cart<K,?,L>> {
+
+	/** The views. One per thread. */
+	private static final ThreadLocal<ReadinessView<?,?>> VIEW = ThreadLocal.withInitial(ReadinessView::new);
+
+	/** The carts. */
+	private List<? extends Cart<K,?,L>> carts = Collections.emptyList();
+
+	/**
+	 * Instantiates a new readiness view.
+	 */
+	private ReadinessView() {
+	}
+
+	/**
+	 * Binds the thread local cart view to the building site data and creates the state.
+	 *
+	 * @param <K> the key type
+	 * @param <L> the label type
+	 * @param k the k
+	 * @param builderCreated the builder created
+	 * @param builderExpiration the builder expiration
+	 * @param cartCreated the cart created
+	 * @param cartExpiration the cart expiration
+	 * @param previouslyAccepted the previously accepted
+	 * @param eventHistory the read only live event history
+	 * @param carts the live carts
+	 * @return the state
+	 */
+	@SuppressWarnings("unchecked")
+	static <K,L> State<K,L> bind(
+			K k
+			,long builderCreated
+			,long builderExpiration
+			,long cartCreated
+			,long cartExpiration
+			,int previouslyAccepted
+			,EventHistory<L> eventHistory
+			,List<? extends Cart<K,?,L>> carts
+			) {
+		ReadinessView<K,L> view = (ReadinessView<K,L>) VIEW.get();
+		view.carts = carts;
+		return new State<>(k, builderCreated, builderExpiration, cartCreated, cartExpiration, previouslyAccepted, eventHistory, view);
+	}
+
+	/**
+	 * Releases the building site data held by the thread local cart view.
+	 */
+	static void release() {
+		VIEW.get().carts = Collections.emptyList();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public Cart<K,?,L> get(int index) {
+		return carts.get(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return carts.size();
+	}
+
+}
@@ -60,6 +60,10 @@ GENERAL_FAILURE
 
 /** The keep running exception. */
 KEEP_RUNNING_EXCEPTION
+		,
+
+/** The build evicted to keep the collector within its limits. */
+BUILD_EVICTED
 	}
 	
 	/** The comment. */
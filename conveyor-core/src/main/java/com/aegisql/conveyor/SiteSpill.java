@@ -0,0 +1,192 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.BuildingSite.Memento;
+import com.aegisql.conveyor.utils.MappedSpillFile;
+import com.aegisql.conveyor.utils.PrimitiveKeyMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The Class SiteSpill.
+ * Keeps mementos of idle building sites in the {@link MappedSpillFile}.
+ * Only the key and the packed position of the record stay on heap.
+ * Accessed by the conveyor thread only.
+ *
+ * @param <K> the key type
+ */
+final class SiteSpill<K> {
+
+	/** The Constant LOG. */
+	private final static Logger LOG = LoggerFactory.getLogger(SiteSpill.class);
+
+	/** Bits of the packed record length. */
+	private final static int LENGTH_BITS = 24;
+
+	/** Max record length. */
+	private final static int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+
+	/** The file. */
+	private final MappedSpillFile file;
+
+	/** The index. Key to the record position and length, packed into a long. */
+	private final Map<K,Long> index;
+
+	/**
+	 * Instantiates a new site spill.
+	 *
+	 * @param path the path
+	 * @param keyType the key type, can be null
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	SiteSpill(Path path, Class<K> keyType) throws IOException {
+		this.file  = new MappedSpillFile(path, Math.min(MAX_LENGTH, MappedSpillFile.DEFAULT_SEGMENT_SIZE));
+		this.index = keyType != null && PrimitiveKeyMap.supports(keyType) ? new PrimitiveKeyMap<>(keyType) : new HashMap<>();
+	}
+
+	/**
+	 * Gets the path.
+	 *
+	 * @return the path
+	 */
+	Path getPath() {
+		return file.getPath();
+	}
+
+	/**
+	 * Checks if the memento of the site can be spilled.
+	 *
+	 * @param site the site
+	 * @return true, if successful
+	 */
+	static boolean spillable(BuildingSite<?,?,?,?> site) {
+		return site.getStatus() == Status.WAITING_DATA && ! site.hasAttachedConsumers()
+				&& site.getBuilder() instanceof Serializable;
+	}
+
+	/**
+	 * Writes the memento of the site.
+	 *
+	 * @param key the key
+	 * @param memento the memento
+	 * @return true, if spilled. False, if memento cannot be serialized
+	 */
+	boolean spill(K key, Memento<?,?,?> memento) {
+		byte[] data;
+		try (var bytes = new ByteArrayOutputStream(); var out = new ObjectOutputStream(bytes)) {
+			out.writeObject(memento);
+			out.flush();
+			data = bytes.toByteArray();
+		} catch (IOException e) {
+			LOG.debug("Memento of {} cannot be spilled: {}", key, e.getMessage());
+			return false;
+		}
+		if (data.length > MAX_LENGTH) {
+			LOG.debug("Memento of {} is too large to be spilled: {} bytes", key, data.length);
+			return false;
+		}
+		try {
+			long position = file.append(data);
+			index.put(key, position << LENGTH_BITS | data.length);
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed writing spill file " + file.getPath(), e);
+		}
+	}
+
+	/**
+	 * Removes the memento of the key from the spill and returns it.
+	 *
+	 * @param key the key
+	 * @return the memento, or null if the key was not spilled
+	 */
+	@SuppressWarnings("rawtypes")
+	Memento restore(K key) {
+		Long packed = index.remove(key);
+		if (packed == null) {
+			return null;
+		}
+		int length = (int) (packed & MAX_LENGTH);
+		long position = packed >>> LENGTH_BITS;
+		try {
+			byte[] data = file.read(position, length);
+			try (var in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+				return (Memento) in.readObject();
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Failed reading spilled build " + key + " from " + file.getPath(), e);
+		} finally {
+			file.release(position, length);
+		}
+	}
+
+	/**
+	 * Checks if the key is spilled.
+	 *
+	 * @param key the key
+	 * @return true, if successful
+	 */
+	boolean contains(K key) {
+		return index.containsKey(key);
+	}
+
+	/**
+	 * Spilled keys matching the filter.
+	 *
+	 * @param filter the filter
+	 * @return the list
+	 */
+	List<K> keys(Predicate<K> filter) {
+		var keys = new ArrayList<K>();
+		index.forEach((k, v) -> {
+			if (filter.test(k)) {
+				keys.add(k);
+			}
+		});
+		return keys;
+	}
+
+	/**
+	 * Number of spilled builds.
+	 *
+	 * @return the size
+	 */
+	int size() {
+		return index.size();
+	}
+
+	/**
+	 * Gets the bytes of spilled builds.
+	 *
+	 * @return the bytes
+	 */
+	long getBytes() {
+		return file.getLiveBytes();
+	}
+
+	/**
+	 * Closes and deletes the file.
+	 */
+	void close() {
+		index.clear();
+		try {
+			file.close();
+		} catch (IOException e) {
+			LOG.error("Failed closing spill file {}", file.getPath(), e);
+		}
+	}
+
+}
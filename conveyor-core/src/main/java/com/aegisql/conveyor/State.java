@@ -13,6 +13,10 @@ import com.aegisql.conveyor.cart.Cart;
 // TODO: Auto-generated Javadoc
 /**
  * The Class State.
+ * <p>
+ * Readiness evaluators receive a state whose event history and carts are read only views
+ * of the live building site. The views are only valid for the duration of the test.
+ * Use {@link BuildingSite#getState()} or copy the collections, if the state has to be kept.
  *
  * @author Mikhail Teplitskiy
  * @version 1.0.0
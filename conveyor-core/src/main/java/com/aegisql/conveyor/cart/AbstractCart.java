@@ -6,6 +6,7 @@ package com.aegisql.conveyor.cart;
 import com.aegisql.conveyor.consumers.scrap.ScrapConsumer;
 
 import java.io.Serial;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -47,17 +48,20 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	/** The priority. */
 	protected final long priority;
 
-	/** The future. */
+	/** Shared future of carts nobody waits for. Completed, so completion attempts are ignored. */
+	public static final CompletableFuture<Boolean> NEVER_OBSERVED = new NeverObservedFuture();
+
+	/** The future. Created on first access. */
 	protected transient CompletableFuture<Boolean> future = null;
 	
-	/** The properties. */
-	protected final Map<String, Object> properties = new HashMap<>();
+	/** The properties. Created by the first write. */
+	protected Map<String, Object> properties = null;
 
 	/** The load type. */
 	protected final LoadType loadType;
 
 	/** The cart creation nano timestamp. */
-	private final long cartCreationNanoTimestamp = System.nanoTime();
+	private final long cartCreationNanoTimestamp;
 	
 	/**
 	 * Instantiates a new abstract cart.
@@ -72,16 +76,36 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	 * @param priority the priority
 	 */
 	public AbstractCart(K k, V v, L label, long creation, long expiration, Map<String,Object> properties, LoadType loadType, long priority) {
+		this(k,v,label,creation,expiration,properties,loadType,priority,System.nanoTime());
+	}
+
+	/**
+	 * Instantiates a new abstract cart.
+	 * The nano timestamp keeps carts with the same priority in the FIFO order in priority queues.
+	 * Zero leaves the cart unstamped.
+	 *
+	 * @param k the k
+	 * @param v the v
+	 * @param label the label
+	 * @param creation the creation
+	 * @param expiration the expiration
+	 * @param properties the properties
+	 * @param loadType the load type
+	 * @param priority the priority
+	 * @param nanoTimestamp the cart creation nano timestamp
+	 */
+	public AbstractCart(K k, V v, L label, long creation, long expiration, Map<String,Object> properties, LoadType loadType, long priority, long nanoTimestamp) {
 		this.k              = k;
 		this.v              = v;
 		this.label          = label;
 		this.creationTime   = creation;
 		this.expirationTime = expiration;
 		this.loadType       = loadType;
-		if(properties != null) {
-			this.properties.putAll(properties);
+		if(properties != null && ! properties.isEmpty()) {
+			this.properties = new HashMap<>(properties);
 		}
 		this.priority = priority;
+		this.cartCreationNanoTimestamp = nanoTimestamp;
 	}
 
 	/**
@@ -198,6 +222,23 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 		}
 		return future;
 	}
+
+	/**
+	 * Marks the cart as one nobody waits for. getFuture() returns the shared {@link #NEVER_OBSERVED} future,
+	 * so no future is allocated for the cart. Must be called before the cart is placed.
+	 */
+	public void markUnobserved() {
+		future = NEVER_OBSERVED;
+	}
+
+	/**
+	 * Checks if is unobserved.
+	 *
+	 * @return true, if the cart uses the shared never observed future
+	 */
+	public boolean isUnobserved() {
+		return future == NEVER_OBSERVED;
+	}
 	
 	/*
 	 * (non-Javadoc)
@@ -211,7 +252,7 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 				+ ", value=" + v 
 				+ ", label=" + label 
 				+ ", expirationTime=" + expirationTime
-				+ (properties.size() == 0 ? "":", properties="+properties)
+				+ (properties == null || properties.isEmpty() ? "":", properties="+properties)
 				+ "]";
 	}
 
@@ -235,6 +276,9 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	 */
 	@Override
 	public <X> void addProperty(String name, X property) {
+		if(properties == null) {
+			properties = new HashMap<>();
+		}
 		properties.put(name, property);
 	}
 
@@ -243,7 +287,7 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	 */
 	@Override
 	public Map<String,Object> getAllProperties() {
-		return properties;
+		return properties == null ? Collections.emptyMap() : properties;
 	}
 	
 	/**
@@ -252,7 +296,14 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	 * @param other the other
 	 */
 	public void putAllProperties(Map<String,Object> other) {
-		properties.putAll(other);
+		if(other == null || other.isEmpty()) {
+			return;
+		}
+		if(properties == null) {
+			properties = new HashMap<>(other);
+		} else {
+			properties.putAll(other);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -260,7 +311,9 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 	 */
 	@Override
 	public void clearProperty(String name) {
-		properties.remove(name);
+		if(properties != null) {
+			properties.remove(name);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -301,4 +354,31 @@ public abstract class AbstractCart<K, V, L> implements Cart<K, V, L> {
 		return cmpRes;
 	}
 	
+	/**
+	 * Completed future shared by all unobserved carts. Cannot be completed, cancelled or obtruded.
+	 */
+	private static final class NeverObservedFuture extends CompletableFuture<Boolean> {
+
+		/**
+		 * Instantiates a new never observed future.
+		 */
+		private NeverObservedFuture() {
+			super.complete(Boolean.TRUE);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#obtrudeValue(java.lang.Object)
+		 */
+		@Override
+		public void obtrudeValue(Boolean value) {
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#obtrudeException(java.lang.Throwable)
+		 */
+		@Override
+		public void obtrudeException(Throwable ex) {
+		}
+	}
+
 }
@@ -0,0 +1,171 @@
+/*
+ * COPYRIGHT (C) AEGIS DATA SOLUTIONS, LLC, 2015
+ */
+package com.aegisql.conveyor.cart;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The Class CartBatchFuture.
+ * Aggregate future of the bulk placement. Completes when all members of the batch are completed:
+ * true, if all members completed with true; false, if any member completed with false or was cancelled;
+ * exceptionally with the first error otherwise.
+ * <p>
+ * Carts extending {@link AbstractCart} get a light member future that reports to the batch directly,
+ * so the batch costs one small object per cart and no dependency chains.
+ */
+public final class CartBatchFuture extends CompletableFuture<Boolean> {
+
+	/** Members not completed yet. */
+	private final AtomicInteger pending;
+
+	/** All members completed with true. */
+	private volatile boolean allTrue = true;
+
+	/** The first error. */
+	private volatile Throwable error = null;
+
+	/**
+	 * Instantiates a new cart batch future.
+	 *
+	 * @param size the number of members
+	 */
+	public CartBatchFuture(int size) {
+		this.pending = new AtomicInteger(size);
+		if (size == 0) {
+			super.complete(Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Adds the cart to the batch. Must be called before the cart is placed.
+	 *
+	 * @param cart the cart
+	 */
+	public void add(Cart<?, ?, ?> cart) {
+		if (cart instanceof AbstractCart<?, ?, ?> abstractCart && abstractCart.future == null) {
+			abstractCart.future = new Member(this);
+		} else {
+			add(cart.getFuture());
+		}
+	}
+
+	/**
+	 * Adds the future to the batch.
+	 *
+	 * @param future the future
+	 */
+	public void add(CompletableFuture<Boolean> future) {
+		future.whenComplete(this::arrive);
+	}
+
+	/**
+	 * Arrival of the member.
+	 *
+	 * @param result the result
+	 * @param e the error
+	 */
+	private void arrive(Boolean result, Throwable e) {
+		if (e != null) {
+			Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof CancellationException) {
+				allTrue = false;
+			} else if (error == null) {
+				error = cause;
+			}
+		} else if (!Boolean.TRUE.equals(result)) {
+			allTrue = false;
+		}
+		if (pending.decrementAndGet() == 0) {
+			if (error != null) {
+				super.completeExceptionally(error);
+			} else {
+				super.complete(allTrue);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of members not completed yet.
+	 *
+	 * @return the pending
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * Member future of the cart. Reports the first completion to the batch.
+	 */
+	private static final class Member extends CompletableFuture<Boolean> {
+
+		/** The Constant ARRIVED. */
+		private static final AtomicIntegerFieldUpdater<Member> ARRIVED = AtomicIntegerFieldUpdater.newUpdater(Member.class, "arrived");
+
+		/** The batch. */
+		private final CartBatchFuture batch;
+
+		/** 1, when reported to the batch. */
+		private volatile int arrived = 0;
+
+		/**
+		 * Instantiates a new member.
+		 *
+		 * @param batch the batch
+		 */
+		private Member(CartBatchFuture batch) {
+			this.batch = batch;
+		}
+
+		/**
+		 * Reports the completed member to the batch once.
+		 */
+		private void report() {
+			if (isDone() && ARRIVED.compareAndSet(this, 0, 1)) {
+				Boolean result = null;
+				Throwable e = null;
+				try {
+					result = join();
+				} catch (CancellationException | CompletionException ex) {
+					e = ex;
+				}
+				batch.arrive(result, e);
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#complete(java.lang.Object)
+		 */
+		@Override
+		public boolean complete(Boolean value) {
+			boolean res = super.complete(value);
+			report();
+			return res;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#completeExceptionally(java.lang.Throwable)
+		 */
+		@Override
+		public boolean completeExceptionally(Throwable ex) {
+			boolean res = super.completeExceptionally(ex);
+			report();
+			return res;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean res = super.cancel(mayInterruptIfRunning);
+			report();
+			return res;
+		}
+	}
+
+}
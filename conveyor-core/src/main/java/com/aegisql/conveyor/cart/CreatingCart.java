@@ -41,7 +41,7 @@ public class CreatingCart<K, B, L> extends AbstractCart<K, BuilderSupplier<B>, L
 			Map<String, Object> allProperties, long priority) {
 		super(key, v, null, creation, expiration,null,LoadType.BUILDER,priority);
 		Objects.requireNonNull(k);
-		this.properties.putAll(allProperties);
+		putAllProperties(allProperties);
 	}
 
 	/* (non-Javadoc)
@@ -52,7 +52,7 @@ public class FutureCart<K, B, L> extends AbstractCart<K, CompletableFuture<B>, L
 			Map<String, Object> allProperties, long priority) {
 		super(k, v, null, creation,expiration,null,LoadType.FUTURE,priority);
 		Objects.requireNonNull(k);
-		this.properties.putAll(allProperties);
+		putAllProperties(allProperties);
 	}
 
 	/* (non-Javadoc)
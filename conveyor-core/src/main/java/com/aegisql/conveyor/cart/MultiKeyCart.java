@@ -35,6 +35,23 @@ public class MultiKeyCart<K, V, L> extends AbstractCart<K, Load<K,V>, L> {
 		super(null, new Load<>(v, filter, loadType), label, creation,expiration,properties,LoadType.MULTI_KEY_PART,priority);
 	}
 
+	/**
+	 * Instantiates a new multi key cart.
+	 *
+	 * @param filter the filter
+	 * @param v the v
+	 * @param label the label
+	 * @param creation the creation
+	 * @param expiration the expiration
+	 * @param loadType the load type
+	 * @param properties the properties
+	 * @param priority the priority
+	 * @param nanoTimestamp the cart creation nano timestamp, zero for unstamped cart
+	 */
+	public MultiKeyCart(SerializablePredicate<K> filter, V v, L label, long creation, long expiration, LoadType loadType,Map<String,Object> properties,long priority,long nanoTimestamp) {
+		super(null, new Load<>(v, filter, loadType), label, creation,expiration,properties,LoadType.MULTI_KEY_PART,priority,nanoTimestamp);
+	}
+
 	
 	/**
 	 * Instantiates a new shopping cart.
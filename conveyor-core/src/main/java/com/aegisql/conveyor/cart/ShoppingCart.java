@@ -35,6 +35,23 @@ public class ShoppingCart<K, V, L> extends AbstractCart<K, V, L> {
 		super(k,v,label,creation,expiration,properties,loadType,priority);
 	}
 
+	/**
+	 * Instantiates a new shopping cart.
+	 *
+	 * @param k the k
+	 * @param v the v
+	 * @param label the label
+	 * @param creation the creation
+	 * @param expiration the expiration
+	 * @param properties the properties
+	 * @param loadType the load type
+	 * @param priority the priority
+	 * @param nanoTimestamp the cart creation nano timestamp, zero for unstamped cart
+	 */
+	public ShoppingCart(K k, V v, L label, long creation, long expiration, Map<String,Object> properties, LoadType loadType, long priority, long nanoTimestamp) {
+		super(k,v,label,creation,expiration,properties,loadType,priority,nanoTimestamp);
+	}
+
 	/**
 	 * Instantiates a new shopping cart.
 	 *
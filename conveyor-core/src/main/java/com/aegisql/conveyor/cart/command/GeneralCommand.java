@@ -61,7 +61,7 @@ public class GeneralCommand<K, V> extends AbstractCart<K, V, CommandLabel> {
 				", label=" + label + 
 				", creationTime=" + creationTime +
 				", expirationTime=" + expirationTime +
-				", properties=" + properties +
+				", properties=" + getAllProperties() +
 				 "]";
 	}
 
@@ -0,0 +1,518 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.ProductBin;
+import com.aegisql.conveyor.ScrapBin;
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.exception.ConveyorRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The Class AsyncResult.
+ * Delivers products to the wrapped consumer on its own threads, so the conveyor thread only hands off the {@link ProductBin}.
+ * Products are distributed between lanes by the key hash. Each lane is a bounded queue served by a single thread,
+ * so products with the same key are delivered in the order they were built.
+ * When the lane is full, the {@link Overflow} policy decides what happens to the product.
+ * Consumer failures are sent to the scrap consumer of the {@link AssemblingConveyor} that built the product
+ * as RESULT_CONSUMER_FAILED. The scrap consumer is called on the lane thread.
+ * <p>
+ * Lane threads are started on the first product and stopped by {@link #close()}.
+ * The AssemblingConveyor that built the product closes the consumer when it stops.
+ * The consumer shared by several conveyors is closed when the last of them stops.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class AsyncResult<K,V> implements ResultConsumer<K,V>, AutoCloseable {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/** The Constant LOG. */
+	private final static Logger LOG = LoggerFactory.getLogger(AsyncResult.class);
+
+	/** How often an idle lane checks if the consumer was closed. */
+	private final static long CLOSE_CHECK_INTERVAL_MSEC = 100;
+
+	/** The default lane capacity. */
+	public final static int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The Enum Overflow.
+	 * Defines what happens when the product is handed off to a full lane.
+	 */
+	public enum Overflow {
+
+		/** Conveyor thread blocks until the lane has capacity. Default. */
+		BLOCK,
+
+		/** Handoff fails. The product is sent to the scrap consumer as RESULT_CONSUMER_FAILED. */
+		FAIL,
+
+		/** Product is dropped and counted. */
+		DISCARD
+	}
+
+	/**
+	 * Product waiting for delivery.
+	 *
+	 * @param bin the bin
+	 * @param handoffNanoTime the handoff nano time
+	 */
+	private record Delivery<K,V>(ProductBin<K,V> bin, long handoffNanoTime) {
+	}
+
+	/** The consumer. */
+	private final ResultConsumer<K,V> consumer;
+
+	/** The lanes. */
+	private final transient List<Lane> lanes;
+
+	/** The overflow. */
+	private final Overflow overflow;
+
+	/** The thread factory. */
+	private final transient ThreadFactory threadFactory;
+
+	/** Products handed off, but not delivered yet. */
+	private final AtomicLong pending = new AtomicLong();
+
+	/** The delivered counter. */
+	private final LongAdder delivered = new LongAdder();
+
+	/** The failed counter. */
+	private final LongAdder failed = new LongAdder();
+
+	/** The discarded counter. */
+	private final LongAdder discarded = new LongAdder();
+
+	/** The total delivery latency in nanoseconds. */
+	private final LongAdder totalLatencyNanos = new LongAdder();
+
+	/** The max delivery latency in nanoseconds. */
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	/** Conveyors closing this consumer when they stop. */
+	private final transient ConveyorOwners owners = new ConveyorOwners(this);
+
+	/** Handoffs share the read lock, the close takes the write lock, so no product is handed off after the close. */
+	private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	/** The closed. */
+	private volatile boolean closed = false;
+
+	/**
+	 * Instantiates a new async result with a lane per available processor,
+	 * lanes of the default capacity, the BLOCK policy and daemon threads.
+	 *
+	 * @param consumer the consumer
+	 */
+	public AsyncResult(ResultConsumer<K,V> consumer) {
+		this(consumer, Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY, Overflow.BLOCK);
+	}
+
+	/**
+	 * Instantiates a new async result with daemon threads.
+	 *
+	 * @param consumer the consumer
+	 * @param lanes the number of lanes
+	 * @param capacity the capacity of each lane
+	 * @param overflow the overflow policy
+	 */
+	public AsyncResult(ResultConsumer<K,V> consumer, int lanes, int capacity, Overflow overflow) {
+		this(consumer, lanes, capacity, overflow, ConveyorThreadFactory.DAEMON);
+	}
+
+	/**
+	 * Instantiates a new async result.
+	 *
+	 * @param consumer the consumer
+	 * @param lanes the number of lanes
+	 * @param capacity the capacity of each lane
+	 * @param overflow the overflow policy
+	 * @param threadFactory the thread factory
+	 */
+	public AsyncResult(ResultConsumer<K,V> consumer, int lanes, int capacity, Overflow overflow, ThreadFactory threadFactory) {
+		Objects.requireNonNull(consumer, "Result consumer must not be null");
+		Objects.requireNonNull(overflow, "Overflow policy must not be null");
+		Objects.requireNonNull(threadFactory, "Thread factory must not be null");
+		if (lanes < 1) {
+			throw new IllegalArgumentException("Number of lanes must be positive: " + lanes);
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Lane capacity must be positive: " + capacity);
+		}
+		this.consumer      = consumer;
+		this.overflow      = overflow;
+		this.threadFactory = threadFactory;
+		this.lanes         = new ArrayList<>(lanes);
+		for (int i = 0; i < lanes; i++) {
+			this.lanes.add(new Lane(i, capacity));
+		}
+	}
+
+	/**
+	 * Of.
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 * @param consumer the consumer
+	 * @return the async result
+	 */
+	public static <K,V> AsyncResult<K,V> of(ResultConsumer<K,V> consumer) {
+		return new AsyncResult<>(consumer);
+	}
+
+	/**
+	 * Of.
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 * @param consumer the consumer
+	 * @param lanes the number of lanes
+	 * @param capacity the capacity of each lane
+	 * @param overflow the overflow policy
+	 * @return the async result
+	 */
+	public static <K,V> AsyncResult<K,V> of(ResultConsumer<K,V> consumer, int lanes, int capacity, Overflow overflow) {
+		return new AsyncResult<>(consumer, lanes, capacity, overflow);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.function.Consumer#accept(java.lang.Object)
+	 */
+	@Override
+	public void accept(ProductBin<K,V> bin) {
+		owners.register(bin.conveyor);
+		var handoff = closeLock.readLock();
+		handoff.lock();
+		try {
+			if (closed) {
+				throw new ConveyorRuntimeException("Async result consumer is closed. Product rejected for key " + bin.key);
+			}
+			handoff(bin);
+		} finally {
+			handoff.unlock();
+		}
+	}
+
+	/**
+	 * Hands the product off to its lane. Called holding the read lock.
+	 *
+	 * @param bin the bin
+	 */
+	private void handoff(ProductBin<K,V> bin) {
+		var delivery = new Delivery<>(bin, System.nanoTime());
+		var lane = lanes.get(laneIndex(bin.key));
+		lane.start();
+		pending.incrementAndGet();
+		switch (overflow) {
+			case BLOCK:
+				try {
+					lane.queue.put(delivery);
+				} catch (InterruptedException e) {
+					pending.decrementAndGet();
+					Thread.currentThread().interrupt();
+					throw new ConveyorRuntimeException("Interrupted handoff of the product for key " + bin.key, e);
+				}
+				break;
+			case FAIL:
+				if ( ! lane.queue.offer(delivery)) {
+					pending.decrementAndGet();
+					throw new ConveyorRuntimeException("Async result lane " + lane.index + " is full. Product rejected for key " + bin.key);
+				}
+				break;
+			case DISCARD:
+				if ( ! lane.queue.offer(delivery)) {
+					pending.decrementAndGet();
+					discarded.increment();
+					LOG.debug("Async result lane {} is full. Product discarded {}", lane.index, bin);
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Lane index of the key. Same key is always delivered by the same lane.
+	 *
+	 * @param key the key
+	 * @return the lane index
+	 */
+	private int laneIndex(K key) {
+		int h = Objects.hashCode(key);
+		h ^= (h >>> 16);
+		return Math.floorMod(h, lanes.size());
+	}
+
+	/**
+	 * Delivers the product to the consumer.
+	 *
+	 * @param delivery the delivery
+	 */
+	private void deliver(Delivery<K,V> delivery) {
+		try {
+			consumer.accept(delivery.bin);
+			delivered.increment();
+		} catch (RuntimeException e) {
+			failed.increment();
+			scrap(delivery.bin, e);
+		}
+		long latency = System.nanoTime() - delivery.handoffNanoTime;
+		totalLatencyNanos.add(latency);
+		maxLatencyNanos.accumulateAndGet(latency, Math::max);
+		pending.decrementAndGet();
+	}
+
+	/**
+	 * Sends the failed product to the scrap consumer of the conveyor that built it.
+	 *
+	 * @param bin the bin
+	 * @param error the error
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void scrap(ProductBin<K,V> bin, RuntimeException error) {
+		if (bin.conveyor instanceof AssemblingConveyor ac) {
+			try {
+				ac.scrap(new ScrapBin(ac, bin.key, bin, "Async result consumer failed", error,
+						FailureType.RESULT_CONSUMER_FAILED, bin.properties, bin.acknowledge));
+				return;
+			} catch (RuntimeException e) {
+				LOG.error("Scrap consumer failed for key {}", bin.key, e);
+			}
+		}
+		LOG.error("Async result consumer failed for key {}", bin.key, error);
+	}
+
+	/**
+	 * Stops accepting products and waits until the lanes deliver products already handed off.
+	 * Products left in lanes, e.g. when the lane thread was interrupted, are delivered on the calling thread.
+	 */
+	@Override
+	public void close() {
+		var exclusive = closeLock.writeLock();
+		exclusive.lock();
+		try {
+			closed = true;
+		} finally {
+			exclusive.unlock();
+		}
+		for (Lane lane : lanes) {
+			lane.stop();
+		}
+		for (Lane lane : lanes) {
+			Delivery<K,V> delivery;
+			while ((delivery = lane.queue.poll()) != null) {
+				deliver(delivery);
+			}
+		}
+	}
+
+	/**
+	 * Waits until all products handed off so far are delivered.
+	 *
+	 * @param time the time
+	 * @param unit the unit
+	 * @return true, if all products were delivered in time
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public boolean awaitDelivery(long time, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(time);
+		while (pending.get() > 0) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if is closed.
+	 *
+	 * @return true, if is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets the overflow policy.
+	 *
+	 * @return the overflow
+	 */
+	public Overflow getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Gets the number of lanes.
+	 *
+	 * @return the lanes
+	 */
+	public int getLanes() {
+		return lanes.size();
+	}
+
+	/**
+	 * Gets the number of products handed off, but not delivered yet.
+	 *
+	 * @return the pending
+	 */
+	public long getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * Gets the number of delivered products.
+	 *
+	 * @return the delivered
+	 */
+	public long getDelivered() {
+		return delivered.sum();
+	}
+
+	/**
+	 * Gets the number of products failed by the consumer.
+	 *
+	 * @return the failed
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Gets the number of products discarded by the DISCARD policy.
+	 *
+	 * @return the discarded
+	 */
+	public long getDiscarded() {
+		return discarded.sum();
+	}
+
+	/**
+	 * Gets the average time from the handoff to the end of delivery.
+	 *
+	 * @return the average latency nanos
+	 */
+	public long getAverageLatencyNanos() {
+		long n = delivered.sum() + failed.sum();
+		return n == 0 ? 0 : totalLatencyNanos.sum() / n;
+	}
+
+	/**
+	 * Gets the max time from the handoff to the end of delivery.
+	 *
+	 * @return the max latency nanos
+	 */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "AsyncResult [lanes=" + lanes.size() + ", overflow=" + overflow + ", pending=" + getPending()
+				+ ", delivered=" + getDelivered() + ", failed=" + getFailed() + ", discarded=" + getDiscarded()
+				+ ", avgLatencyNanos=" + getAverageLatencyNanos() + ", maxLatencyNanos=" + getMaxLatencyNanos() + "]";
+	}
+
+	/**
+	 * The Class Lane. Bounded queue served by a single thread.
+	 */
+	private final class Lane implements Runnable {
+
+		/** The index. */
+		private final int index;
+
+		/** The queue. */
+		private final BlockingQueue<Delivery<K,V>> queue;
+
+		/** The thread. Null until the first product. */
+		private volatile Thread thread;
+
+		/**
+		 * Instantiates a new lane.
+		 *
+		 * @param index the index
+		 * @param capacity the capacity
+		 */
+		Lane(int index, int capacity) {
+			this.index = index;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		/**
+		 * Starts the lane thread, if not started yet.
+		 */
+		void start() {
+			if (thread == null) {
+				synchronized (this) {
+					if (thread == null) {
+						var t = threadFactory.newThread(this);
+						t.setName("AsyncResult-lane-" + index);
+						t.start();
+						thread = t;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Waits until the lane thread drains the queue and stops.
+		 */
+		void stop() {
+			Thread t;
+			synchronized (this) {
+				t = thread;
+			}
+			if (t == null) {
+				return;
+			}
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			while (true) {
+				Delivery<K,V> delivery;
+				try {
+					delivery = queue.poll(CLOSE_CHECK_INTERVAL_MSEC, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				if (delivery != null) {
+					deliver(delivery);
+				} else if (closed) {
+					break;
+				}
+			}
+			LOG.debug("Async result lane {} has stopped", index);
+		}
+
+	}
+
+}
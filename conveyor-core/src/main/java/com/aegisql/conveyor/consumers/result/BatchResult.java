@@ -0,0 +1,333 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.ProductBin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Class BatchResult.
+ * Accumulates products and delivers them to the {@link BatchResultConsumer} when the batch is full,
+ * or when the first product of the batch waited for the linger time.
+ * Products are added to the list that is handed over to the batch consumer as is, without copying.
+ * <p>
+ * Full batches are delivered on the conveyor thread. The shared timer thread only takes the lingering batch,
+ * it is delivered on a pooled daemon thread, so a slow batch consumer does not delay batches of other consumers.
+ * Each batch result uses at most one pooled thread at a time.
+ * Delivery is serialized, so the batch consumer never runs concurrently and batches keep the order of products.
+ * While the batch consumer is busy with the lingering batch, the conveyor thread waits to deliver the full one.
+ * <p>
+ * The AssemblingConveyor that built the product delivers the rest of the batch when it stops.
+ * The consumer shared by several conveyors is flushed when the last of them stops.
+ * Batch consumer failures are logged and counted. They are not sent to the scrap consumer,
+ * because the batch contains products of other builds.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BatchResult<K,V> implements ResultConsumer<K,V>, AutoCloseable {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/** The Constant LOG. */
+	private final static Logger LOG = LoggerFactory.getLogger(BatchResult.class);
+
+	/** The shared linger timer. Takes lingering batches, never calls the batch consumer. */
+	private final static ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+		var thread = ConveyorThreadFactory.DAEMON.newThread(runnable);
+		thread.setName("BatchResult-linger");
+		return thread;
+	});
+
+	/** Delivers lingering batches. */
+	private final static ExecutorService DELIVERY = Executors.newCachedThreadPool(runnable -> {
+		var thread = ConveyorThreadFactory.DAEMON.newThread(runnable);
+		thread.setName("BatchResult-delivery");
+		return thread;
+	});
+
+	static {
+		TIMER.setRemoveOnCancelPolicy(true);
+	}
+
+	/** The batch consumer. */
+	private final BatchResultConsumer<K,V> consumer;
+
+	/** The batch size. */
+	private final int batchSize;
+
+	/** The linger nanos. 0 - no linger timer. */
+	private final long lingerNanos;
+
+	/** The current batch. Null until the first product of the batch arrives. Guarded by the monitor. */
+	private List<ProductBin<K,V>> batch;
+
+	/** The linger timer of the current batch. */
+	private transient ScheduledFuture<?> lingerTimer;
+
+	/** Batches taken in order, waiting for the delivery. */
+	private final transient Queue<List<ProductBin<K,V>>> ready = new ConcurrentLinkedQueue<>();
+
+	/** Serializes calls of the batch consumer. Not held together with the monitor. */
+	private final ReentrantLock deliveryLock = new ReentrantLock();
+
+	/** True, while the delivery of lingering batches is queued or running on the pooled thread. */
+	private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+
+	/** Conveyors flushing this consumer when they stop. */
+	private final transient ConveyorOwners owners = new ConveyorOwners(this);
+
+	/** The delivered batches. */
+	private final LongAdder batches = new LongAdder();
+
+	/** The delivered products. */
+	private final LongAdder products = new LongAdder();
+
+	/** The failed batches. */
+	private final LongAdder failed = new LongAdder();
+
+	/**
+	 * Instantiates a new batch result.
+	 *
+	 * @param consumer the batch consumer
+	 * @param batchSize the max batch size
+	 * @param linger the max time the first product of the batch waits for the delivery.
+	 *               Zero - no timer, the rest of the batch waits for the {@link #flush()} or the conveyor stop
+	 */
+	public BatchResult(BatchResultConsumer<K,V> consumer, int batchSize, Duration linger) {
+		Objects.requireNonNull(consumer, "Batch consumer must not be null");
+		Objects.requireNonNull(linger, "Linger must not be null");
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		if (linger.isNegative()) {
+			throw new IllegalArgumentException("Linger must not be negative: " + linger);
+		}
+		this.consumer    = consumer;
+		this.batchSize   = batchSize;
+		this.lingerNanos = linger.toNanos();
+	}
+
+	/**
+	 * Of.
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 * @param consumer the batch consumer
+	 * @param batchSize the max batch size
+	 * @param linger the linger
+	 * @return the batch result
+	 */
+	public static <K,V> BatchResult<K,V> of(BatchResultConsumer<K,V> consumer, int batchSize, Duration linger) {
+		return new BatchResult<>(consumer, batchSize, linger);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.function.Consumer#accept(java.lang.Object)
+	 */
+	@Override
+	public void accept(ProductBin<K,V> bin) {
+		owners.register(bin.conveyor);
+		boolean full;
+		synchronized (this) {
+			if (batch == null) {
+				batch = new ArrayList<>(batchSize);
+				if (lingerNanos > 0 && batchSize > 1) {
+					final var lingering = batch;
+					lingerTimer = TIMER.schedule(() -> linger(lingering), lingerNanos, TimeUnit.NANOSECONDS);
+				}
+			}
+			batch.add(bin);
+			full = batch.size() >= batchSize && take();
+		}
+		if (full) {
+			deliver();
+		}
+	}
+
+	/**
+	 * Delivers the current batch, if not empty.
+	 */
+	public void flush() {
+		boolean taken;
+		synchronized (this) {
+			taken = take();
+		}
+		if (taken) {
+			deliver();
+		}
+	}
+
+	/**
+	 * Takes the batch, if it is still the current one, and passes it to the delivery thread.
+	 * Runs on the timer thread.
+	 *
+	 * @param lingering the lingering batch
+	 */
+	private void linger(List<ProductBin<K,V>> lingering) {
+		boolean taken;
+		synchronized (this) {
+			taken = batch == lingering && take();
+		}
+		if (taken) {
+			scheduleDelivery();
+		}
+	}
+
+	/**
+	 * Queues the delivery on the pooled thread, unless it is already queued or running.
+	 */
+	private void scheduleDelivery() {
+		if (deliveryScheduled.compareAndSet(false, true)) {
+			DELIVERY.execute(this::deliverScheduled);
+		}
+	}
+
+	/**
+	 * Delivers ready batches on the pooled thread. Batches taken by the timer while the flag
+	 * was still set are picked up by the re-check.
+	 */
+	private void deliverScheduled() {
+		try {
+			deliver();
+		} finally {
+			deliveryScheduled.set(false);
+		}
+		if ( ! ready.isEmpty()) {
+			scheduleDelivery();
+		}
+	}
+
+	/**
+	 * Moves the current batch to the ready queue. Called holding the monitor, so batches keep the order.
+	 *
+	 * @return true, if the batch was not empty
+	 */
+	private boolean take() {
+		var taken = batch;
+		batch = null;
+		if (lingerTimer != null) {
+			lingerTimer.cancel(false);
+			lingerTimer = null;
+		}
+		if (taken == null || taken.isEmpty()) {
+			return false;
+		}
+		ready.add(taken);
+		return true;
+	}
+
+	/**
+	 * Hands ready batches over to the consumer. Called without holding the monitor,
+	 * so products keep coming while the consumer is busy.
+	 */
+	private void deliver() {
+		deliveryLock.lock();
+		try {
+			List<ProductBin<K,V>> next;
+			while ((next = ready.poll()) != null) {
+				try {
+					consumer.accept(next);
+					batches.increment();
+					products.add(next.size());
+				} catch (RuntimeException e) {
+					failed.increment();
+					LOG.error("Batch result consumer failed for batch of {} products", next.size(), e);
+				}
+			}
+		} finally {
+			deliveryLock.unlock();
+		}
+	}
+
+	/**
+	 * Delivers the current batch. Called by the conveyor when it stops.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Gets the batch size.
+	 *
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Gets the linger.
+	 *
+	 * @return the linger
+	 */
+	public Duration getLinger() {
+		return Duration.ofNanos(lingerNanos);
+	}
+
+	/**
+	 * Gets the number of products waiting in the current batch.
+	 *
+	 * @return the pending
+	 */
+	public int getPending() {
+		synchronized (this) {
+			return batch == null ? 0 : batch.size();
+		}
+	}
+
+	/**
+	 * Gets the number of delivered batches.
+	 *
+	 * @return the batches
+	 */
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	/**
+	 * Gets the number of delivered products.
+	 *
+	 * @return the products
+	 */
+	public long getProducts() {
+		return products.sum();
+	}
+
+	/**
+	 * Gets the number of failed batches.
+	 *
+	 * @return the failed
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BatchResult [batchSize=" + batchSize + ", linger=" + getLinger() + ", pending=" + getPending()
+				+ ", batches=" + getBatches() + ", products=" + getProducts() + ", failed=" + getFailed() + "]";
+	}
+
+}
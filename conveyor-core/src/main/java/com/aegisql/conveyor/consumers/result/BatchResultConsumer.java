@@ -0,0 +1,46 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.ProductBin;
+import com.aegisql.conveyor.serial.SerializableConsumer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The Interface BatchResultConsumer.
+ * Receives products in batches. Use {@link BatchResult} to feed it from the conveyor by batch size or linger time.
+ * The batch list is handed over to the consumer and is never reused by the conveyor.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@FunctionalInterface
+public interface BatchResultConsumer<K,V> extends SerializableConsumer<List<ProductBin<K,V>>> {
+
+	/**
+	 * And then.
+	 *
+	 * @param other the other
+	 * @return the batch result consumer
+	 */
+	default BatchResultConsumer<K,V> andThen(BatchResultConsumer<K,V> other) {
+		Objects.requireNonNull(other);
+		return batch -> {
+			accept(batch);
+			other.accept(batch);
+		};
+	}
+
+	/**
+	 * Result consumer feeding this batch consumer.
+	 *
+	 * @param batchSize the max batch size
+	 * @param linger the max time the first product of the batch waits for the delivery
+	 * @return the batch result
+	 */
+	default BatchResult<K,V> batch(int batchSize, Duration linger) {
+		return new BatchResult<>(this, batchSize, linger);
+	}
+
+}
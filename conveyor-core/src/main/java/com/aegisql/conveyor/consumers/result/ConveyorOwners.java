@@ -0,0 +1,62 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.Conveyor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Class ConveyorOwners.
+ * Conveyors delivering products to the closeable result consumer. The consumer registers the conveyor of each product,
+ * and is closed when the last registered {@link AssemblingConveyor} stops.
+ * The consumer shared by several conveyors, like inner conveyors of the parallel conveyor, stays open until all of them stop.
+ */
+final class ConveyorOwners {
+
+	/** The owners. */
+	private final Set<Conveyor<?,?,?>> owners = ConcurrentHashMap.newKeySet();
+
+	/** The resource. */
+	private final AutoCloseable resource;
+
+	/** The last registered conveyor. Saves the lookup for every product. */
+	private volatile Conveyor<?,?,?> last;
+
+	/**
+	 * Instantiates new conveyor owners.
+	 *
+	 * @param resource the resource
+	 */
+	ConveyorOwners(AutoCloseable resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * Registers the conveyor of the product.
+	 *
+	 * @param conveyor the conveyor, null if unknown
+	 */
+	void register(Conveyor<?,?,?> conveyor) {
+		if (conveyor == null || conveyor == last) {
+			return;
+		}
+		if (conveyor instanceof AssemblingConveyor<?,?,?> ac && owners.add(ac)) {
+			ac.closeOnStop(() -> release(ac));
+		}
+		last = conveyor;
+	}
+
+	/**
+	 * Releases the stopped conveyor. Closes the resource, when no owners left.
+	 *
+	 * @param conveyor the conveyor
+	 * @throws Exception the exception
+	 */
+	private void release(Conveyor<?,?,?> conveyor) throws Exception {
+		if (owners.remove(conveyor) && owners.isEmpty()) {
+			resource.close();
+		}
+	}
+
+}
@@ -1,13 +1,19 @@
 package com.aegisql.conveyor.consumers.result;
 
+import com.aegisql.conveyor.AssemblingConveyor;
 import com.aegisql.conveyor.Conveyor;
 import com.aegisql.conveyor.ProductBin;
+import com.aegisql.conveyor.cart.AbstractCart;
+import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.loaders.PartLoader;
 import com.aegisql.conveyor.serial.SerializablePredicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -137,6 +143,197 @@ public class ForwardResult<K2, L2> {
 
 	}
 
+	/**
+	 * The Class FusedForwardingConsumer.
+	 * Creates carts directly, without the loader chain, and hands them over to the target conveyor.
+	 * When the target is an {@link AssemblingConveyor} running on the same thread, e.g. both conveyors
+	 * share a single threaded {@link com.aegisql.conveyor.ConveyorGroup}, and nothing waits in its queues,
+	 * the cart is processed inline, otherwise it is placed without a future.
+	 * Products can be accumulated in batches which are placed together.
+	 *
+	 * @param <K2> the generic type
+	 * @param <L> the generic type
+	 */
+	public static class FusedForwardingConsumer<K2, L> implements ResultConsumer<Object, Object> {
+
+		/** The Constant serialVersionUID. */
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		/** The from name. */
+		private final String fromName;
+
+		/** The to conv name. */
+		private final String toConvName;
+
+		/** The to conv. */
+		private Conveyor<K2, L, ?> toConv;
+
+		/** The label. */
+		private final L label;
+
+		/** The key transformer. */
+		private final Function<ProductBin, K2> keyTransformer;
+
+		/** The filter. */
+		private final SerializablePredicate<K2> filter;
+
+		/** The batch. Null - no batching. */
+		private final BatchResult<Object, Object> batch;
+
+		/**
+		 * Instantiates a new fused forwarding consumer.
+		 *
+		 * @param label the label
+		 * @param keyTransformer the key transformer
+		 * @param toConv the to conv
+		 * @param toName the to name, used when toConv is null
+		 * @param fromName the from name
+		 * @param filter the filter
+		 * @param batchSize the batch size. 1 - no batching
+		 * @param linger the linger of the batch
+		 */
+		public FusedForwardingConsumer(L label, Function<ProductBin, K2> keyTransformer, Conveyor<K2, L, ?> toConv,
+				String toName, String fromName, SerializablePredicate<K2> filter, int batchSize, Duration linger) {
+			this.fromName = fromName;
+			this.toConv = toConv;
+			this.toConvName = toConv != null ? toConv.getName() : toName;
+			this.label = label;
+			this.keyTransformer = keyTransformer;
+			this.filter = filter;
+			this.batch = batchSize > 1 ? new BatchResult<>(this::forwardAll, batchSize, linger) : null;
+		}
+
+		/**
+		 * Gets the to conv.
+		 *
+		 * @return the to conv
+		 */
+		private Conveyor<K2, L, ?> getToConv() {
+			if (toConv == null) {
+				toConv = Conveyor.byName(toConvName);
+			}
+			return toConv;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.function.Consumer#accept(java.lang.Object)
+		 */
+		@Override
+		public void accept(ProductBin bin) {
+			if (batch != null) {
+				batch.accept(bin);
+			} else {
+				forward(bin);
+			}
+		}
+
+		/**
+		 * Creates the part loader of the target conveyor for the product.
+		 *
+		 * @param conv the target conveyor
+		 * @param bin the bin
+		 * @return the part loader
+		 */
+		private PartLoader<K2, L> part(Conveyor<K2, L, ?> conv, ProductBin bin) {
+			PartLoader<K2, L> part = conv.part().label(label).value(bin.product);
+			part = filter == null ? part.id(keyTransformer.apply(bin)) : part.foreach(filter);
+			if (bin.expirationTime > 0) {
+				part = part.expirationTime(bin.expirationTime);
+			}
+			Object forwarded = bin.properties.get("FORWARDED");
+			return part.addProperty("FORWARDED", forwarded != null ? forwarded : fromName);
+		}
+
+		/**
+		 * Creates the cart for the product by the target conveyor, so priority and timestamps
+		 * are set as for any other part of that conveyor.
+		 *
+		 * @param ac the target conveyor
+		 * @param bin the bin
+		 * @return the cart
+		 */
+		private Cart<K2, ?, L> cart(AssemblingConveyor<K2, L, ?> ac, ProductBin bin) {
+			AbstractCart<K2, ?, L> cart = ac.partCart(part(ac, bin));
+			cart.markUnobserved();
+			return cart;
+		}
+
+		/**
+		 * Processes the product inline, if possible, or places it.
+		 *
+		 * @param bin the bin
+		 */
+		private void forward(ProductBin bin) {
+			var conv = getToConv();
+			LOG.debug("Fused forward {} from {} to {} {}", label, fromName, conv.getName(), bin);
+			if (conv instanceof AssemblingConveyor<K2, L, ?> ac) {
+				var cart = cart(ac, bin);
+				if (!ac.processInline(cart)) {
+					ac.placeAndForget(cart);
+				}
+			} else {
+				part(conv, bin).fire();
+			}
+		}
+
+		/**
+		 * Forwards the batch. Carts are processed inline while possible, the rest is placed together.
+		 *
+		 * @param bins the bins
+		 */
+		private void forwardAll(List<ProductBin<Object, Object>> bins) {
+			var conv = getToConv();
+			LOG.debug("Fused forward {} products {} from {} to {}", bins.size(), label, fromName, conv.getName());
+			if (!(conv instanceof AssemblingConveyor<K2, L, ?> ac)) {
+				bins.forEach(bin -> part(conv, bin).fire());
+				return;
+			}
+			List<Cart<K2, ?, L>> rest = null;
+			for (var bin : bins) {
+				var cart = cart(ac, bin);
+				if (rest == null && ac.processInline(cart)) {
+					continue;
+				}
+				if (rest == null) {
+					rest = new ArrayList<>(bins.size());
+				}
+				rest.add(cart);
+			}
+			if (rest != null) {
+				ac.placeAll(rest);
+			}
+		}
+
+		/**
+		 * Places products waiting in the current batch.
+		 */
+		public void flush() {
+			if (batch != null) {
+				batch.flush();
+			}
+		}
+
+		/**
+		 * Gets the batch result. Null if products are not batched.
+		 *
+		 * @return the batch
+		 */
+		public BatchResult<Object, Object> getBatch() {
+			return batch;
+		}
+
+		/**
+		 * Gets the to conv name.
+		 *
+		 * @return the to conv name
+		 */
+		public String getToConvName() {
+			return toConvName;
+		}
+
+	}
+
 	/** The from conv. */
 	private final Conveyor fromConv;
 	
@@ -155,6 +352,15 @@ public class ForwardResult<K2, L2> {
 	/** The filter. */
 	private SerializablePredicate<K2> filter = null;
 
+	/** The fused. */
+	private boolean fused = false;
+
+	/** The batch size of the fused forwarding. */
+	private int batchSize = 1;
+
+	/** The linger of the fused forwarding batch. */
+	private Duration linger = Duration.ZERO;
+
 	/**
 	 * Instantiates a new forward result.
 	 *
@@ -173,15 +379,22 @@ public class ForwardResult<K2, L2> {
 	 * @param keyTransformer the key transformer
 	 * @param toName the to name
 	 * @param filter the filter
+	 * @param fused the fused
+	 * @param batchSize the batch size
+	 * @param linger the linger
 	 */
 	private ForwardResult(Conveyor fromConv, Conveyor<K2, L2, ?> toConv, L2 label,
-			Function<ProductBin, K2> keyTransformer, String toName, SerializablePredicate<K2> filter) {
+			Function<ProductBin, K2> keyTransformer, String toName, SerializablePredicate<K2> filter,
+			boolean fused, int batchSize, Duration linger) {
 		this.fromConv = fromConv;
 		this.toConv = toConv;
 		this.label = label;
 		this.keyTransformer = keyTransformer;
 		this.toConvName = toName;
 		this.filter = filter;
+		this.fused = fused;
+		this.batchSize = batchSize;
+		this.linger = linger;
 	}
 
 	/**
@@ -202,7 +415,7 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> to(Conveyor<K2, L2, ?> tc) {
-		return new ForwardResult<>(fromConv, tc, label, keyTransformer, null, filter);
+		return new ForwardResult<>(fromConv, tc, label, keyTransformer, null, filter, fused, batchSize, linger);
 	}
 
 	/**
@@ -212,7 +425,7 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> to(String toConv) {
-		return new ForwardResult<>(fromConv, null, label, keyTransformer, toConv, filter);
+		return new ForwardResult<>(fromConv, null, label, keyTransformer, toConv, filter, fused, batchSize, linger);
 	}
 
 	/**
@@ -222,7 +435,7 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> label(L2 l) {
-		return new ForwardResult<>(fromConv, toConv, l, keyTransformer, toConvName, filter);
+		return new ForwardResult<>(fromConv, toConv, l, keyTransformer, toConvName, filter, fused, batchSize, linger);
 	}
 
 	/**
@@ -232,7 +445,7 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> transformKey(Function<ProductBin, K2> t) {
-		return new ForwardResult<>(fromConv, toConv, label, t, toConvName, filter);
+		return new ForwardResult<>(fromConv, toConv, label, t, toConvName, filter, fused, batchSize, linger);
 	}
 
 	/**
@@ -241,7 +454,7 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> foreach() {
-		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, k -> true);
+		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, k -> true, fused, batchSize, linger);
 	}
 
 	/**
@@ -251,14 +464,41 @@ public class ForwardResult<K2, L2> {
 	 * @return the forward result
 	 */
 	public ForwardResult<K2, L2> foreach(SerializablePredicate<K2> f) {
-		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, f);
+		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, f, fused, batchSize, linger);
+	}
+
+	/**
+	 * Fused forwarding. Carts are created without the loader chain and processed inline when possible.
+	 *
+	 * @return the forward result
+	 */
+	public ForwardResult<K2, L2> fused() {
+		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, filter, true, 1, Duration.ZERO);
+	}
+
+	/**
+	 * Fused forwarding of products in batches.
+	 *
+	 * @param batchSize the max batch size
+	 * @param linger the max time the first product of the batch waits for forwarding
+	 * @return the forward result
+	 */
+	public ForwardResult<K2, L2> fused(int batchSize, Duration linger) {
+		Objects.requireNonNull(linger, "Linger must not be null");
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		return new ForwardResult<>(fromConv, toConv, label, keyTransformer, toConvName, filter, true, batchSize, linger);
 	}
 
 	/**
 	 * Bind.
 	 */
 	public void bind() {
-		if (toConv != null) {
+		if (fused && (toConv != null || toConvName != null)) {
+			fromConv.resultConsumer().andThen(new FusedForwardingConsumer<>(label, keyTransformer, toConv, toConvName,
+					fromConv.getName(), filter, batchSize, linger)).set();
+		} else if (toConv != null) {
 			fromConv.resultConsumer()
 					.andThen(new ForwardingConsumer<>(label, keyTransformer, toConv, fromConv.getName(), filter))
 					.set();
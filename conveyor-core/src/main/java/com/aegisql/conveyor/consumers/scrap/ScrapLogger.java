@@ -0,0 +1,241 @@
+package com.aegisql.conveyor.consumers.scrap;
+
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.ScrapBin;
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import org.slf4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class ScrapLogger.
+ * Default scrap consumer of the conveyor. Scraps are logged on a shared daemon thread,
+ * so the conveyor thread only counts the scrap and hands it off.
+ * The scrap refers to the live build, so the message is rendered on the calling thread and only the text is handed off.
+ * <p>
+ * At most maxPerSecond scraps per second are logged in detail. Scraps above the limit are counted by the {@link FailureType},
+ * every sampleRate-th of them is still logged, and a summary of suppressed scraps is logged once a second.
+ * When more than capacity scraps wait for the log thread, the scrap is dropped and counted.
+ *
+ * @param <K> the key type
+ */
+public class ScrapLogger<K> implements ScrapConsumer<K,Object> {
+
+	/** The default max number of detailed logs per second. */
+	public final static int DEFAULT_MAX_PER_SECOND = 100;
+
+	/** The default sample rate of suppressed scraps. */
+	public final static int DEFAULT_SAMPLE_RATE = 1000;
+
+	/** The default max number of scraps waiting for the log thread. */
+	public final static int DEFAULT_CAPACITY = 10_000;
+
+	/** The rate limit window. */
+	private final static long WINDOW_MSEC = 1000;
+
+	/** The shared log thread. */
+	private final static ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1, runnable -> {
+		var thread = ConveyorThreadFactory.DAEMON.newThread(runnable);
+		thread.setName("ScrapLogger");
+		return thread;
+	});
+
+	/** The failure types. */
+	private final static FailureType[] TYPES = FailureType.values();
+
+	/** The log. */
+	private final Logger log;
+
+	/** The max per second. */
+	private final int maxPerSecond;
+
+	/** The sample rate. 0 - no sampling. */
+	private final int sampleRate;
+
+	/** The capacity. */
+	private final int capacity;
+
+	/** The suppressed scraps by failure type, since the last summary. */
+	private final LongAdder[] suppressed = new LongAdder[TYPES.length];
+
+	/** The suppressed scraps. */
+	private final AtomicLong suppressedCounter = new AtomicLong();
+
+	/** The dropped scraps. */
+	private final LongAdder droppedCounter = new LongAdder();
+
+	/** The logged scraps. */
+	private final LongAdder loggedCounter = new LongAdder();
+
+	/** Scraps waiting for the log thread. */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/** The window start. */
+	private final AtomicLong windowStart = new AtomicLong();
+
+	/** The scraps logged in the current window. */
+	private final AtomicInteger windowLogged = new AtomicInteger();
+
+	/** True, when the summary is scheduled. */
+	private final AtomicBoolean summaryScheduled = new AtomicBoolean(false);
+
+	/**
+	 * Instantiates a new scrap logger with the default limits.
+	 *
+	 * @param log the log
+	 */
+	public ScrapLogger(Logger log) {
+		this(log, DEFAULT_MAX_PER_SECOND, DEFAULT_SAMPLE_RATE, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new scrap logger.
+	 *
+	 * @param log the log
+	 * @param maxPerSecond the max number of detailed logs per second
+	 * @param sampleRate every sampleRate-th suppressed scrap is logged. 0 - none
+	 * @param capacity the max number of scraps waiting for the log thread
+	 */
+	public ScrapLogger(Logger log, int maxPerSecond, int sampleRate, int capacity) {
+		if (maxPerSecond < 0 || sampleRate < 0 || capacity < 1) {
+			throw new IllegalArgumentException("Invalid scrap logger limits: maxPerSecond=" + maxPerSecond
+					+ ", sampleRate=" + sampleRate + ", capacity=" + capacity);
+		}
+		this.log          = log;
+		this.maxPerSecond = maxPerSecond;
+		this.sampleRate   = sampleRate;
+		this.capacity     = capacity;
+		for (int i = 0; i < TYPES.length; i++) {
+			suppressed[i] = new LongAdder();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.function.Consumer#accept(java.lang.Object)
+	 */
+	@Override
+	public void accept(ScrapBin<K,Object> bin) {
+		if (permitted(System.currentTimeMillis())) {
+			submit(bin, false);
+			return;
+		}
+		var type = bin.failureType == null ? FailureType.GENERAL_FAILURE : bin.failureType;
+		suppressed[type.ordinal()].increment();
+		long cnt = suppressedCounter.incrementAndGet();
+		if (sampleRate > 0 && cnt % sampleRate == 0) {
+			submit(bin, true);
+		}
+		if (summaryScheduled.compareAndSet(false, true)) {
+			EXECUTOR.schedule(this::logSummary, WINDOW_MSEC, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Takes a permit of the current window.
+	 *
+	 * @param now the now
+	 * @return true, if the scrap can be logged in detail
+	 */
+	private boolean permitted(long now) {
+		long start = windowStart.get();
+		if (now - start >= WINDOW_MSEC && windowStart.compareAndSet(start, now)) {
+			windowLogged.set(0);
+		}
+		return windowLogged.incrementAndGet() <= maxPerSecond;
+	}
+
+	/**
+	 * Renders the scrap and hands the message off to the log thread.
+	 *
+	 * @param bin the bin
+	 * @param sampled the sampled
+	 */
+	private void submit(ScrapBin<K,Object> bin, boolean sampled) {
+		if ( ! log.isErrorEnabled()) {
+			return;
+		}
+		if (pending.incrementAndGet() > capacity) {
+			pending.decrementAndGet();
+			droppedCounter.increment();
+			return;
+		}
+		final String message;
+		try {
+			message = sampled ? "Sampled " + bin : bin.toString();
+		} catch (RuntimeException e) {
+			pending.decrementAndGet();
+			throw e;
+		}
+		EXECUTOR.execute(() -> {
+			try {
+				log.error(message);
+				loggedCounter.increment();
+			} finally {
+				pending.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Logs the number of scraps suppressed since the last summary.
+	 */
+	private void logSummary() {
+		summaryScheduled.set(false);
+		Map<FailureType,Long> counts = new EnumMap<>(FailureType.class);
+		long total = 0;
+		for (int i = 0; i < TYPES.length; i++) {
+			long n = suppressed[i].sumThenReset();
+			if (n > 0) {
+				counts.put(TYPES[i], n);
+				total += n;
+			}
+		}
+		if (total > 0) {
+			log.error("Suppressed {} scrap log entries: {}", total, counts);
+		}
+	}
+
+	/**
+	 * Gets the number of scraps logged in detail or sampled.
+	 *
+	 * @return the logged counter
+	 */
+	public long getLoggedCounter() {
+		return loggedCounter.sum();
+	}
+
+	/**
+	 * Gets the number of scraps suppressed by the rate limit.
+	 *
+	 * @return the suppressed counter
+	 */
+	public long getSuppressedCounter() {
+		return suppressedCounter.get();
+	}
+
+	/**
+	 * Gets the number of scraps dropped, because too many scraps waited for the log thread.
+	 *
+	 * @return the dropped counter
+	 */
+	public long getDroppedCounter() {
+		return droppedCounter.sum();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ScrapLogger [maxPerSecond=" + maxPerSecond + ", sampleRate=" + sampleRate + ", logged=" + getLoggedCounter()
+				+ ", suppressed=" + getSuppressedCounter() + ", dropped=" + getDroppedCounter() + "]";
+	}
+
+}
@@ -1,21 +1,23 @@
 package com.aegisql.conveyor.delay;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.DelayQueue;
 
+import com.aegisql.conveyor.utils.PrimitiveKeyMap;
+
 // TODO: Auto-generated Javadoc
 /**
  * The Class DelayProvider.
  *
  * @param <K> the key type
  */
-public class DelayProvider <K> {
+public class DelayProvider <K> implements ExpirationQueue<K> {
 
-	/** The boxes. */
-	private final Map<Long,DelayBox<K>> boxes = new HashMap<>();
+	/** The boxes by expiration time. */
+	private final Map<Long,DelayBox<K>> boxes = new PrimitiveKeyMap<>(Long.class);
 	
 	/** The queue. */
 	private final DelayQueue<DelayBox<K>> queue = new DelayQueue<>();
@@ -35,27 +37,57 @@ public class DelayProvider <K> {
 		}
 		return box;
 	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#add(java.lang.Object, long)
+	 */
+	@Override
+	public void add(K key, long expirationTime) {
+		getBox(expirationTime).add(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#delete(java.lang.Object, long)
+	 */
+	@Override
+	public void delete(K key, long expirationTime) {
+		getBox(expirationTime).delete(key);
+	}
 	
 	/**
 	 * Gets the all expired keys.
 	 *
 	 * @return the all expired keys
 	 */
+	@Override
 	public List<K> getAllExpiredKeys() {
-		var expired = new LinkedList<K>();
-		DelayBox<K> box;
-		while( (box = queue.poll()) != null ) {
+		DelayBox<K> box = queue.poll();
+		if(box == null) {
+			return Collections.emptyList();
+		}
+		var expired = new ArrayList<K>();
+		for( ; box != null; box = queue.poll() ) {
 			expired.addAll(box.getKeys());
 			boxes.remove(box.getExpirationTime());
 		}
 		return expired;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#nextExpirationTime()
+	 */
+	@Override
+	public long nextExpirationTime() {
+		var box = queue.peek();
+		return box == null ? Long.MAX_VALUE : box.getExpirationTime();
+	}
+
 	/**
 	 * Delayed size.
 	 *
 	 * @return the int
 	 */
+	@Override
 	public int delayedSize() {
 		return queue.size();
 	}
@@ -63,6 +95,7 @@ public class DelayProvider <K> {
 	/**
 	 * Clear.
 	 */
+	@Override
 	public void clear() {
 		boxes.clear();
 		queue.clear();
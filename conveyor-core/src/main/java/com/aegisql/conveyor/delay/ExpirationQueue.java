@@ -0,0 +1,56 @@
+package com.aegisql.conveyor.delay;
+
+import java.util.List;
+
+/**
+ * The Interface ExpirationQueue.
+ * Keeps keys of the open builds ordered by their expiration time.
+ *
+ * @param <K> the key type
+ */
+public interface ExpirationQueue<K> {
+
+	/**
+	 * Schedules the key for expiration.
+	 *
+	 * @param key the key
+	 * @param expirationTime the expiration time
+	 */
+	void add(K key, long expirationTime);
+
+	/**
+	 * Removes the key scheduled for the expiration time.
+	 *
+	 * @param key the key
+	 * @param expirationTime the expiration time
+	 */
+	void delete(K key, long expirationTime);
+
+	/**
+	 * Gets and removes all expired keys.
+	 *
+	 * @return the all expired keys
+	 */
+	List<K> getAllExpiredKeys();
+
+	/**
+	 * Gets the earliest time in milliseconds when a key may expire.
+	 * No key expires before this time, but the time can be earlier than the actual expiration.
+	 *
+	 * @return the next expiration time, Long.MAX_VALUE when nothing is scheduled
+	 */
+	long nextExpirationTime();
+
+	/**
+	 * Delayed size.
+	 *
+	 * @return the int
+	 */
+	int delayedSize();
+
+	/**
+	 * Clear.
+	 */
+	void clear();
+
+}
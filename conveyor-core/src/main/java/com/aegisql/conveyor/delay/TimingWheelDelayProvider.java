@@ -0,0 +1,400 @@
+package com.aegisql.conveyor.delay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.aegisql.conveyor.utils.PrimitiveKeyMap;
+
+/**
+ * The Class TimingWheelDelayProvider.
+ * Hashed hierarchical timing wheel. Each key keeps a single intrusive node,
+ * so add, reschedule and delete are O(1) and do not depend on the number
+ * of distinct expiration times. Expired keys are collected by advancing
+ * the wheel up to the current tick and cascading upper levels when a lower
+ * level completes a rotation.
+ * Not thread safe. Must be accessed only from the conveyor thread.
+ *
+ * @param <K> the key type
+ */
+public class TimingWheelDelayProvider<K> implements ExpirationQueue<K> {
+
+	/** Bits per wheel level. */
+	private final static int WHEEL_BITS = 8;
+
+	/** Slots per wheel level. */
+	private final static int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+	/** The slot mask. */
+	private final static int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	/** The number of levels. 5 levels of 8 bits cover 2^40 ticks */
+	private final static int LEVELS = 5;
+
+	/** The max distance of the placement. Farther nodes are placed at this distance and re-placed when their slot cascades. */
+	private final static long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+	/** Level marker for nodes waiting in the due list. */
+	private final static int DUE = -1;
+
+	/**
+	 * The Class Node.
+	 *
+	 * @param <K> the key type
+	 */
+	private static final class Node<K> {
+
+		/** The key. */
+		final K key;
+
+		/** The expiration tick. */
+		long tick;
+
+		/** The level. */
+		int level;
+
+		/** The slot. */
+		int slot;
+
+		/** The prev. */
+		Node<K> prev;
+
+		/** The next. */
+		Node<K> next;
+
+		/**
+		 * Instantiates a new node.
+		 *
+		 * @param key the key
+		 */
+		Node(K key) {
+			this.key = key;
+		}
+	}
+
+	/** The tick duration in milliseconds. */
+	private final long tickMillis;
+
+	/** The wheels. */
+	private final Node<K>[][] wheels;
+
+	/** Number of nodes on each level. */
+	private final int[] counts = new int[LEVELS];
+
+	/** The nodes by key. */
+	private final Map<K, Node<K>> nodes;
+
+	/** The due head. */
+	private Node<K> dueHead;
+
+	/** The due tail. */
+	private Node<K> dueTail;
+
+	/** The current tick. */
+	private long currentTick;
+
+	/**
+	 * Instantiates a new timing wheel delay provider with 1 millisecond tick.
+	 */
+	public TimingWheelDelayProvider() {
+		this(1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Instantiates a new timing wheel delay provider.
+	 *
+	 * @param tick the tick
+	 * @param unit the unit
+	 */
+	public TimingWheelDelayProvider(long tick, TimeUnit unit) {
+		this(tick, unit, null);
+	}
+
+	/**
+	 * Instantiates a new timing wheel delay provider.
+	 * Long and Integer keys are indexed by the {@link PrimitiveKeyMap}.
+	 *
+	 * @param tick the tick
+	 * @param unit the unit
+	 * @param keyType the key type, can be null
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheelDelayProvider(long tick, TimeUnit unit, Class<K> keyType) {
+		this.nodes = keyType != null && PrimitiveKeyMap.supports(keyType) ? new PrimitiveKeyMap<>(keyType) : new HashMap<>();
+		this.tickMillis = unit.toMillis(tick);
+		if (tickMillis < 1) {
+			throw new IllegalArgumentException("Timing wheel tick must be at least 1 millisecond");
+		}
+		this.wheels = new Node[LEVELS][WHEEL_SIZE];
+		this.currentTick = System.currentTimeMillis() / tickMillis;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#add(java.lang.Object, long)
+	 */
+	@Override
+	public void add(K key, long expirationTime) {
+		var node = nodes.get(key);
+		if (node == null) {
+			node = new Node<>(key);
+			nodes.put(key, node);
+		} else {
+			unlink(node);
+		}
+		node.tick = ceilTick(expirationTime);
+		place(node);
+	}
+
+	/**
+	 * The first tick not earlier than the time. Does not overflow near Long.MAX_VALUE.
+	 *
+	 * @param time the time
+	 * @return the tick
+	 */
+	private long ceilTick(long time) {
+		long tick = Math.floorDiv(time, tickMillis);
+		return Math.floorMod(time, tickMillis) == 0 ? tick : tick + 1;
+	}
+
+	/**
+	 * Removes the key regardless of the expiration time it was scheduled with.
+	 * The wheel keeps only one schedule per key.
+	 *
+	 * @param key the key
+	 * @param expirationTime the expiration time
+	 */
+	@Override
+	public void delete(K key, long expirationTime) {
+		var node = nodes.remove(key);
+		if (node != null) {
+			unlink(node);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#getAllExpiredKeys()
+	 */
+	@Override
+	public List<K> getAllExpiredKeys() {
+		advance(System.currentTimeMillis() / tickMillis);
+		if (dueHead == null) {
+			return Collections.emptyList();
+		}
+		var expired = new ArrayList<K>();
+		for (var node = dueHead; node != null; ) {
+			var next = node.next;
+			node.prev = null;
+			node.next = null;
+			nodes.remove(node.key);
+			expired.add(node.key);
+			node = next;
+		}
+		dueHead = null;
+		dueTail = null;
+		return expired;
+	}
+
+	/**
+	 * Gets the earliest time when a key may expire. Exact for keys on the lowest level,
+	 * start of the next non empty slot for keys on upper levels, which is when the slot cascades.
+	 *
+	 * @return the next expiration time
+	 */
+	@Override
+	public long nextExpirationTime() {
+		if (dueHead != null) {
+			return currentTick * tickMillis;
+		}
+		if (nodes.isEmpty()) {
+			return Long.MAX_VALUE;
+		}
+		long next = Long.MAX_VALUE;
+		for (int level = 0; level < LEVELS; level++) {
+			if (counts[level] == 0) {
+				continue;
+			}
+			int shift = WHEEL_BITS * level;
+			long base = currentTick >>> shift;
+			for (int d = 1; d <= WHEEL_SIZE; d++) {
+				if (wheels[level][(int) ((base + d) & WHEEL_MASK)] != null) {
+					next = Math.min(next, (base + d) << shift);
+					break;
+				}
+			}
+		}
+		return next == Long.MAX_VALUE ? Long.MAX_VALUE : next * tickMillis;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#delayedSize()
+	 */
+	@Override
+	public int delayedSize() {
+		return nodes.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.delay.ExpirationQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		nodes.clear();
+		for (Node<K>[] wheel : wheels) {
+			Arrays.fill(wheel, null);
+		}
+		Arrays.fill(counts, 0);
+		dueHead = null;
+		dueTail = null;
+	}
+
+	/**
+	 * Advances the wheel up to the tick.
+	 *
+	 * @param nowTick the now tick
+	 */
+	private void advance(long nowTick) {
+		while (currentTick < nowTick) {
+			if (counts[0] == 0) {
+				// nothing on the lowest level; jump to the last tick before the next cascade
+				long lastInRotation = currentTick | WHEEL_MASK;
+				if (lastInRotation > currentTick) {
+					currentTick = Math.min(lastInRotation, nowTick);
+					continue;
+				}
+			}
+			currentTick++;
+			int idx = (int) (currentTick & WHEEL_MASK);
+			if (idx == 0) {
+				cascade(1);
+			}
+			var node = wheels[0][idx];
+			wheels[0][idx] = null;
+			while (node != null) {
+				var next = node.next;
+				counts[0]--;
+				node.prev = null;
+				node.next = null;
+				appendDue(node);
+				node = next;
+			}
+		}
+	}
+
+	/**
+	 * Moves nodes of the current slot of the level to lower levels.
+	 *
+	 * @param level the level
+	 */
+	private void cascade(int level) {
+		int idx = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+		var node = wheels[level][idx];
+		wheels[level][idx] = null;
+		while (node != null) {
+			var next = node.next;
+			counts[level]--;
+			node.prev = null;
+			node.next = null;
+			place(node);
+			node = next;
+		}
+		if (idx == 0 && level + 1 < LEVELS) {
+			cascade(level + 1);
+		}
+	}
+
+	/**
+	 * Places the node on the level matching its distance from the current tick.
+	 * Nodes beyond the range of the top level are placed at the end of the range.
+	 *
+	 * @param node the node
+	 */
+	private void place(Node<K> node) {
+		long delta = node.tick - currentTick;
+		if (delta <= 0) {
+			appendDue(node);
+			return;
+		}
+		long tick = node.tick;
+		if (delta > MAX_DELTA) {
+			delta = MAX_DELTA;
+			tick  = currentTick + MAX_DELTA;
+		}
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+			level++;
+		}
+		int slot = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+		var head = wheels[level][slot];
+		node.level = level;
+		node.slot = slot;
+		node.prev = null;
+		node.next = head;
+		if (head != null) {
+			head.prev = node;
+		}
+		wheels[level][slot] = node;
+		counts[level]++;
+	}
+
+	/**
+	 * Appends the node to the due list.
+	 *
+	 * @param node the node
+	 */
+	private void appendDue(Node<K> node) {
+		node.level = DUE;
+		node.next = null;
+		node.prev = dueTail;
+		if (dueTail == null) {
+			dueHead = node;
+		} else {
+			dueTail.next = node;
+		}
+		dueTail = node;
+	}
+
+	/**
+	 * Unlink.
+	 *
+	 * @param node the node
+	 */
+	private void unlink(Node<K> node) {
+		if (node.level == DUE) {
+			if (node.prev == null) {
+				dueHead = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				dueTail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+		} else {
+			if (node.prev == null) {
+				wheels[node.level][node.slot] = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next != null) {
+				node.next.prev = node.prev;
+			}
+			counts[node.level]--;
+		}
+		node.prev = null;
+		node.next = null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "TimingWheelDelayProvider [keys=" + nodes.size() + ", tickMillis=" + tickMillis + ", currentTick=" + currentTick + "]";
+	}
+
+}
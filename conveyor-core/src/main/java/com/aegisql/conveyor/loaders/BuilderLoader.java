@@ -43,8 +43,8 @@ public final class BuilderLoader<K,OUT> {
 	/** The value. */
 	public final BuilderSupplier<OUT> value;
 
-	/** The properties. */
-	private final Map<String,Object> properties = new HashMap<>();
+	/** The properties. Never modified after construction, so copies of the loader share the same map. */
+	private final Map<String,Object> properties;
 	
 	/**  The priority. */
 	public final long priority;
@@ -81,7 +81,7 @@ public final class BuilderLoader<K,OUT> {
 		this.key = key;
 		this.value = value;
 		this.priority = priority;
-		this.properties.putAll(properties);
+		this.properties = properties;
 	}
 
 	/**
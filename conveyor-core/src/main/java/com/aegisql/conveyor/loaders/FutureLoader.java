@@ -36,8 +36,8 @@ public final class FutureLoader<K,OUT> {
 	/** The key. */
 	public final K key;
 
-	/** The properties. */
-	private final Map<String,Object> properties = new HashMap<>();
+	/** The properties. Never modified after construction, so copies of the loader share the same map. */
+	private final Map<String,Object> properties;
 	
 	/**  The priority. */
 	public final long priority;
@@ -68,7 +68,7 @@ public final class FutureLoader<K,OUT> {
 		this.ttlMsec = ttlMsec;
 		this.key = key;
 		this.priority = priority;
-		this.properties.putAll(properties);
+		this.properties = properties;
 	}
 
 	/**
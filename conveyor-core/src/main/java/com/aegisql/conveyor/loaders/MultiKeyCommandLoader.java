@@ -2,6 +2,8 @@ package com.aegisql.conveyor.loaders;
 
 import com.aegisql.conveyor.BuildingSite.Memento;
 import com.aegisql.conveyor.CommandLabel;
+import com.aegisql.conveyor.IndexFilter;
+import com.aegisql.conveyor.KeyRange;
 import com.aegisql.conveyor.ProductBin;
 import com.aegisql.conveyor.cart.command.GeneralCommand;
 import com.aegisql.conveyor.serial.SerializablePredicate;
@@ -103,6 +105,30 @@ public final class MultiKeyCommandLoader<K,OUT> {
 		return new MultiKeyCommandLoader<>(conveyor, creationTime, expirationTime, ttlMsec, p);
 	}
 
+	/**
+	 * Foreach key with the value of the collector index.
+	 *
+	 * @param index the index name
+	 * @param value the value
+	 * @return the multi key command loader
+	 * @see IndexFilter
+	 */
+	public MultiKeyCommandLoader<K,OUT> foreach(String index, Object value) {
+		return foreach(IndexFilter.of(index, value));
+	}
+
+	/**
+	 * Foreach key from the lower bound, inclusive, to the upper bound, exclusive.
+	 *
+	 * @param from the from, null - no lower bound
+	 * @param to the to, null - no upper bound
+	 * @return the multi key command loader
+	 * @see KeyRange
+	 */
+	public MultiKeyCommandLoader<K,OUT> range(K from, K to) {
+		return foreach(KeyRange.of(from, to));
+	}
+
 	/**
 	 * Expiration time.
 	 *
@@ -1,17 +1,24 @@
 package com.aegisql.conveyor.loaders;
 
 import com.aegisql.conveyor.Conveyor;
+import com.aegisql.conveyor.IndexFilter;
+import com.aegisql.conveyor.KeyRange;
+import com.aegisql.conveyor.cart.CartBatchFuture;
 import com.aegisql.conveyor.serial.SerializablePredicate;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -24,6 +31,12 @@ public final class PartLoader<K,L> {
 
 	/** The placer. */
 	private final Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer;
+
+	/** The fire and forget placer. */
+	private final Consumer<PartLoader<K,L>> firer;
+
+	/** The bulk placer. Places parts of the stream using this loader as a template. */
+	private final BiFunction<PartLoader<K,L>, Stream<? extends Map.Entry<K,?>>, CompletableFuture<Boolean>> bulkPlacer;
 	
 	/** The creation time. */
 	public final long creationTime; 
@@ -49,13 +62,15 @@ public final class PartLoader<K,L> {
 	/** The part value. */
 	public final Object partValue;
 	
-	/** The properties. */
-	private final Map<String,Object> properties = new HashMap<>();
+	/** The properties. Never modified after construction, so copies of the loader share the same map. */
+	private final Map<String,Object> properties;
 
 	/**
 	 * Instantiates a new part loader.
 	 *
 	 * @param placer the placer
+	 * @param firer the fire and forget placer
+	 * @param bulkPlacer the bulk placer
 	 * @param creationTime the creation time
 	 * @param expirationTime the expiration time
 	 * @param ttlMsec the ttl msec
@@ -68,6 +83,8 @@ public final class PartLoader<K,L> {
 	 */
 	private PartLoader(
 			Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer, 
+			Consumer<PartLoader<K,L>> firer, 
+			BiFunction<PartLoader<K,L>, Stream<? extends Map.Entry<K,?>>, CompletableFuture<Boolean>> bulkPlacer, 
 			long creationTime, 
 			long expirationTime, 
 			long ttlMsec, 
@@ -78,6 +95,8 @@ public final class PartLoader<K,L> {
 			SerializablePredicate<K> filter, 
 			Map<String,Object> properties) {
 		this.placer         = placer;
+		this.firer          = firer;
+		this.bulkPlacer     = bulkPlacer;
 		this.creationTime   = creationTime;
 		this.expirationTime = expirationTime;
 		this.ttlMsec        = ttlMsec;
@@ -86,13 +105,15 @@ public final class PartLoader<K,L> {
 		this.partValue      = value;
 		this.filter         = filter;
 		this.priority       = priority;
-		this.properties.putAll(properties);
+		this.properties = properties;
 	}
 
 	/**
 	 * Instantiates a new part loader.
 	 *
 	 * @param placer the placer
+	 * @param firer the fire and forget placer
+	 * @param bulkPlacer the bulk placer
 	 * @param creationTime the creation time
 	 * @param ttl the ttl
 	 * @param priority the priority
@@ -106,6 +127,8 @@ public final class PartLoader<K,L> {
 	@SuppressWarnings("SameParameterValue")
 	private PartLoader(
 			Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer, 
+			Consumer<PartLoader<K,L>> firer, 
+			BiFunction<PartLoader<K,L>, Stream<? extends Map.Entry<K,?>>, CompletableFuture<Boolean>> bulkPlacer, 
 			long creationTime, 
 			long ttl, 
 			long priority, 
@@ -116,6 +139,8 @@ public final class PartLoader<K,L> {
 			Map<String,Object> properties, 
 			boolean dumb) {
 		this(placer,
+				firer,
+				bulkPlacer,
 				creationTime,
 				creationTime + ttl,
 				ttl,
@@ -133,7 +158,31 @@ public final class PartLoader<K,L> {
 	 * @param placer the placer
 	 */
 	public PartLoader(Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer) {
-		this(placer,System.currentTimeMillis(),0,0,0,null,null,null,null,Collections.EMPTY_MAP);
+		this(placer,placer::apply);
+	}
+
+	/**
+	 * Instantiates a new part loader.
+	 *
+	 * @param placer the placer
+	 * @param firer the fire and forget placer
+	 */
+	public PartLoader(Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer, Consumer<PartLoader<K,L>> firer) {
+		this(placer,firer,null);
+	}
+
+	/**
+	 * Instantiates a new part loader.
+	 *
+	 * @param placer the placer
+	 * @param firer the fire and forget placer
+	 * @param bulkPlacer the bulk placer
+	 */
+	public PartLoader(
+			Function<PartLoader<K,L>, CompletableFuture<Boolean>> placer, 
+			Consumer<PartLoader<K,L>> firer, 
+			BiFunction<PartLoader<K,L>, Stream<? extends Map.Entry<K,?>>, CompletableFuture<Boolean>> bulkPlacer) {
+		this(placer,firer,bulkPlacer,System.currentTimeMillis(),0,0,0,null,null,null,null,Collections.EMPTY_MAP);
 	}
 	
 	/**
@@ -143,7 +192,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> id(K k) {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, k, label, partValue, null/*either id or filter*/, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, k, label, partValue, null/*either id or filter*/, properties);
 	}
 
 	/**
@@ -162,7 +211,31 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> foreach(SerializablePredicate<K> f) {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, null/*either id or filter*/, label, partValue, f, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, null/*either id or filter*/, label, partValue, f, properties);
+	}
+
+	/**
+	 * Foreach key with the value of the collector index.
+	 *
+	 * @param index the index name
+	 * @param value the value
+	 * @return the part loader
+	 * @see IndexFilter
+	 */
+	public PartLoader<K,L> foreach(String index, Object value) {
+		return foreach(IndexFilter.of(index, value));
+	}
+
+	/**
+	 * Foreach key from the lower bound, inclusive, to the upper bound, exclusive.
+	 *
+	 * @param from the from, null - no lower bound
+	 * @param to the to, null - no upper bound
+	 * @return the part loader
+	 * @see KeyRange
+	 */
+	public PartLoader<K,L> range(K from, K to) {
+		return foreach(KeyRange.of(from, to));
 	}
 	
 	/**
@@ -172,7 +245,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> label(L l) {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, key, l, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, key, l, partValue, filter, properties);
 	}
 
 	/**
@@ -182,7 +255,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> value(Object v) {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, key, label, v, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, key, label, v, filter, properties);
 	}
 
 	/**
@@ -192,7 +265,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  expirationTime(long et) {
-		return new PartLoader<>(placer, creationTime, et, 0, priority, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, et, 0, priority, key, label, partValue, filter, properties);
 	}
 
 	/**
@@ -202,7 +275,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  creationTime(long ct) {
-		return new PartLoader<>(placer, ct, expirationTime, 0, priority, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, ct, expirationTime, 0, priority, key, label, partValue, filter, properties);
 	}
 
 	/**
@@ -212,7 +285,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> expirationTime(Instant instant) {
-		return new PartLoader<>(placer, creationTime, instant.toEpochMilli(), 0, priority, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, instant.toEpochMilli(), 0, priority, key, label, partValue, filter, properties);
 	}
 
 	/**
@@ -222,7 +295,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  creationTime(Instant instant) {
-		return new PartLoader<>(placer, instant.toEpochMilli(), expirationTime, 0, priority, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, instant.toEpochMilli(), expirationTime, 0, priority, key, label, partValue, filter, properties);
 	}
 
 	/**
@@ -233,7 +306,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  ttl(long time, TimeUnit unit) {
-		return new PartLoader<>(placer, creationTime, TimeUnit.MILLISECONDS.convert(time, unit), priority, key, label, partValue, filter, properties, true);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, TimeUnit.MILLISECONDS.convert(time, unit), priority, key, label, partValue, filter, properties, true);
 	}
 	
 	/**
@@ -243,7 +316,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  ttl(Duration duration) {
-		return new PartLoader<>(placer, creationTime, duration.toMillis(), priority, key, label, partValue, filter, properties, true);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, duration.toMillis(), priority, key, label, partValue, filter, properties, true);
 	}
 
 	/**
@@ -253,7 +326,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  priority(long p) {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, p, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, p, key, label, partValue, filter, properties);
 	}
 
 	/**
@@ -262,7 +335,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L>  increasePriority() {
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority + 1, key, label, partValue, filter, properties);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority + 1, key, label, partValue, filter, properties);
 	}
 
 
@@ -272,7 +345,7 @@ public final class PartLoader<K,L> {
 	 * @return the part loader
 	 */
 	public PartLoader<K,L> clearProperties() {
-		return new PartLoader<K,L>(placer,creationTime,expirationTime,ttlMsec,priority,key,label,partValue,filter,Collections.EMPTY_MAP);
+		return new PartLoader<K,L>(placer,firer,bulkPlacer,creationTime,expirationTime,ttlMsec,priority,key,label,partValue,filter,Collections.EMPTY_MAP);
 	}
 
 	/**
@@ -284,7 +357,7 @@ public final class PartLoader<K,L> {
 	public PartLoader<K,L> clearProperty(String k) {
 		Map<String, Object> newMap = new HashMap<>(properties);
 		newMap.remove(k);
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
 	}
 
 	/**
@@ -297,7 +370,7 @@ public final class PartLoader<K,L> {
 	public PartLoader<K,L> addProperty(String k, Object v) {
 		Map<String, Object> newMap = new HashMap<>(properties);
 		newMap.put(k, v);
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
 	}
 
 	/**
@@ -310,7 +383,7 @@ public final class PartLoader<K,L> {
 		Map<String,Object> newMap = new HashMap<>();
 		newMap.putAll(properties);
 		newMap.putAll(moreProperties);
-		return new PartLoader<>(placer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
+		return new PartLoader<>(placer, firer, bulkPlacer, creationTime, expirationTime, ttlMsec, priority, key, label, partValue, filter, newMap);
 	}
 	
 	/**
@@ -343,6 +416,43 @@ public final class PartLoader<K,L> {
 		return placer.apply(this);
 	}
 
+	/**
+	 * Fire and forget. Places the part without creating a future for it.
+	 * Failures are reported to the scrap consumer of the conveyor only.
+	 */
+	public void fire() {
+		firer.accept(this);
+	}
+
+	/**
+	 * Places all parts of the stream. Key and value of each entry replace the key and value of this loader,
+	 * other settings, including label, ttl, priority and properties, are shared by all parts.
+	 * Parts are validated and enqueued in one pass.
+	 *
+	 * @param parts the stream of key-value pairs
+	 * @return the aggregate future. True, if all parts were accepted
+	 */
+	public CompletableFuture<Boolean> placeAll(Stream<? extends Map.Entry<K,?>> parts) {
+		if(bulkPlacer != null) {
+			return bulkPlacer.apply(this, parts);
+		}
+		List<PartLoader<K,L>> loaders = parts.map(e->id(e.getKey()).value(e.getValue())).toList();
+		CartBatchFuture batch = new CartBatchFuture(loaders.size());
+		loaders.forEach(pl->batch.add(pl.place()));
+		return batch;
+	}
+
+	/**
+	 * Places all parts of the map.
+	 *
+	 * @param parts the map of key-value pairs
+	 * @return the aggregate future. True, if all parts were accepted
+	 * @see #placeAll(Stream)
+	 */
+	public CompletableFuture<Boolean> placeAll(Map<K,?> parts) {
+		return placeAll(parts.entrySet().stream());
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -1,6 +1,9 @@
 package com.aegisql.conveyor.loaders;
 
 import com.aegisql.conveyor.Conveyor;
+import com.aegisql.conveyor.consumers.result.AsyncResult;
+import com.aegisql.conveyor.consumers.result.BatchResult;
+import com.aegisql.conveyor.consumers.result.BatchResultConsumer;
 import com.aegisql.conveyor.consumers.result.ResultConsumer;
 import com.aegisql.conveyor.serial.SerializablePredicate;
 
@@ -9,6 +12,7 @@ import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -306,6 +310,30 @@ public final class ResultConsumerLoader<K,OUT> {
 				);
 	}
 
+	/**
+	 * First. Products are delivered to the batch consumer by the {@link BatchResult}.
+	 *
+	 * @param consumer the batch consumer
+	 * @param batchSize the max batch size
+	 * @param linger the max time the first product of the batch waits for the delivery
+	 * @return the result consumer loader
+	 */
+	public ResultConsumerLoader<K,OUT> first(BatchResultConsumer<K,OUT> consumer, int batchSize, Duration linger) {
+		return first(BatchResult.of(consumer, batchSize, linger));
+	}
+
+	/**
+	 * And then. Products are delivered to the batch consumer by the {@link BatchResult}.
+	 *
+	 * @param consumer the batch consumer
+	 * @param batchSize the max batch size
+	 * @param linger the max time the first product of the batch waits for the delivery
+	 * @return the result consumer loader
+	 */
+	public ResultConsumerLoader<K,OUT> andThen(BatchResultConsumer<K,OUT> consumer, int batchSize, Duration linger) {
+		return andThen(BatchResult.of(consumer, batchSize, linger));
+	}
+
 	/**
 	 * Before.
 	 *
@@ -327,6 +355,42 @@ public final class ResultConsumerLoader<K,OUT> {
 				);
 	}
 
+	/**
+	 * Delivers products to the consumer defined so far on the lanes of the {@link AsyncResult}.
+	 * Conveyor thread only hands off the product. Products with the same key are delivered in order.
+	 * Consumers added by the andThen after this call run on the conveyor thread.
+	 * Lanes are closed when the conveyor stops.
+	 *
+	 * @param lanes the number of lanes
+	 * @param capacity the capacity of each lane
+	 * @param overflow the overflow policy
+	 * @return the result consumer loader
+	 */
+	public ResultConsumerLoader<K,OUT> async(int lanes, int capacity, AsyncResult.Overflow overflow) {
+		Objects.requireNonNull(consumer, "Result consumer must be defined before async");
+		return new ResultConsumerLoader<>(
+				this.placer,
+				this.globalPlacer,
+				this.creationTime,
+				this.expirationTime,
+				this.ttlMsec,
+				this.key,
+				AsyncResult.of(consumer, lanes, capacity, overflow)
+				,this.filter,
+				properties,
+				priority
+				);
+	}
+
+	/**
+	 * Delivers products to the consumer defined so far on the lanes of the {@link AsyncResult}.
+	 * A lane per available processor, default lane capacity, the BLOCK overflow policy.
+	 *
+	 * @return the result consumer loader
+	 */
+	public ResultConsumerLoader<K,OUT> async() {
+		return async(Runtime.getRuntime().availableProcessors(), AsyncResult.DEFAULT_CAPACITY, AsyncResult.Overflow.BLOCK);
+	}
 	
 	/**
 	 * Clear properties.
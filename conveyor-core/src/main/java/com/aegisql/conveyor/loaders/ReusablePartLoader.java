@@ -0,0 +1,410 @@
+package com.aegisql.conveyor.loaders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The Class ReusablePartLoader.
+ * Mutable counterpart of the {@link PartLoader} for hot producer loops.
+ * Setters modify this instance and return it, so the fluent chain does not allocate.
+ * place() and fire() hand the current state to the conveyor, which creates the cart,
+ * and then reset the loader to the template state, so the same instance can be used for the next part.
+ * <p>
+ * Instances are not thread safe. Keep one loader per producer thread.
+ *
+ * @param <K> the key type
+ * @param <L> the label type
+ */
+public final class ReusablePartLoader<K,L> {
+
+	/** The placer. */
+	private final Function<ReusablePartLoader<K,L>, CompletableFuture<Boolean>> placer;
+
+	/** The fire and forget placer. */
+	private final Consumer<ReusablePartLoader<K,L>> firer;
+
+	/** The template label. */
+	private L templateLabel;
+
+	/** The template ttl msec. */
+	private long templateTtlMsec;
+
+	/** The template priority. */
+	private long templatePriority;
+
+	/** The template properties. */
+	private Map<String,Object> templateProperties = Collections.emptyMap();
+
+	/** The key. */
+	private K key;
+
+	/** The label. */
+	private L label;
+
+	/** The part value. */
+	private Object partValue;
+
+	/** The creation time. 0 - time of the placement. */
+	private long creationTime;
+
+	/** The expiration time. */
+	private long expirationTime;
+
+	/** The ttl msec. */
+	private long ttlMsec;
+
+	/** The priority. */
+	private long priority;
+
+	/** The properties. Created on first use. */
+	private Map<String,Object> properties;
+
+	/**
+	 * Instantiates a new reusable part loader.
+	 *
+	 * @param placer the placer
+	 * @param firer the fire and forget placer
+	 */
+	public ReusablePartLoader(Function<ReusablePartLoader<K,L>, CompletableFuture<Boolean>> placer, Consumer<ReusablePartLoader<K,L>> firer) {
+		this.placer = placer;
+		this.firer  = firer;
+	}
+
+	/**
+	 * Makes current label, ttl, priority and properties the template.
+	 * Template values survive reset, so only key and value have to be set for every part.
+	 *
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> template() {
+		templateLabel      = label;
+		templateTtlMsec    = ttlMsec;
+		templatePriority   = priority;
+		templateProperties = properties == null || properties.isEmpty() ? Collections.emptyMap() : new HashMap<>(properties);
+		return this;
+	}
+
+	/**
+	 * Resets the loader to the template state.
+	 *
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> reset() {
+		key            = null;
+		partValue      = null;
+		label          = templateLabel;
+		creationTime   = 0;
+		expirationTime = 0;
+		ttlMsec        = templateTtlMsec;
+		priority       = templatePriority;
+		if(properties != null) {
+			properties.clear();
+			properties.putAll(templateProperties);
+		} else if( ! templateProperties.isEmpty()) {
+			properties = new HashMap<>(templateProperties);
+		}
+		return this;
+	}
+
+	/**
+	 * Id.
+	 *
+	 * @param k the k
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> id(K k) {
+		this.key = k;
+		return this;
+	}
+
+	/**
+	 * Label.
+	 *
+	 * @param l the l
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> label(L l) {
+		this.label = l;
+		return this;
+	}
+
+	/**
+	 * Value.
+	 *
+	 * @param v the v
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> value(Object v) {
+		this.partValue = v;
+		return this;
+	}
+
+	/**
+	 * Expiration time.
+	 *
+	 * @param et the et
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> expirationTime(long et) {
+		this.expirationTime = et;
+		this.ttlMsec = 0;
+		return this;
+	}
+
+	/**
+	 * Creation time.
+	 *
+	 * @param ct the ct
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> creationTime(long ct) {
+		this.creationTime = ct;
+		return this;
+	}
+
+	/**
+	 * Expiration time.
+	 *
+	 * @param instant the instant
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> expirationTime(Instant instant) {
+		return expirationTime(instant.toEpochMilli());
+	}
+
+	/**
+	 * Creation time.
+	 *
+	 * @param instant the instant
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> creationTime(Instant instant) {
+		return creationTime(instant.toEpochMilli());
+	}
+
+	/**
+	 * Ttl.
+	 *
+	 * @param time the time
+	 * @param unit the unit
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> ttl(long time, TimeUnit unit) {
+		this.ttlMsec = TimeUnit.MILLISECONDS.convert(time, unit);
+		return this;
+	}
+
+	/**
+	 * Ttl.
+	 *
+	 * @param duration the duration
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> ttl(Duration duration) {
+		this.ttlMsec = duration.toMillis();
+		return this;
+	}
+
+	/**
+	 * Priority.
+	 *
+	 * @param p the p
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> priority(long p) {
+		this.priority = p;
+		return this;
+	}
+
+	/**
+	 * Adds the property.
+	 *
+	 * @param k the k
+	 * @param v the v
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> addProperty(String k, Object v) {
+		if(properties == null) {
+			properties = new HashMap<>();
+		}
+		properties.put(k, v);
+		return this;
+	}
+
+	/**
+	 * Adds the properties.
+	 *
+	 * @param moreProperties the more properties
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> addProperties(Map<String,Object> moreProperties) {
+		if(properties == null) {
+			properties = new HashMap<>();
+		}
+		properties.putAll(moreProperties);
+		return this;
+	}
+
+	/**
+	 * Clear property.
+	 *
+	 * @param k the k
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> clearProperty(String k) {
+		if(properties != null) {
+			properties.remove(k);
+		}
+		return this;
+	}
+
+	/**
+	 * Clear properties.
+	 *
+	 * @return the reusable part loader
+	 */
+	public ReusablePartLoader<K,L> clearProperties() {
+		if(properties != null) {
+			properties.clear();
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the key.
+	 *
+	 * @return the key
+	 */
+	public K getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the label.
+	 *
+	 * @return the label
+	 */
+	public L getLabel() {
+		return label;
+	}
+
+	/**
+	 * Gets the part value.
+	 *
+	 * @return the part value
+	 */
+	public Object getPartValue() {
+		return partValue;
+	}
+
+	/**
+	 * Gets the creation time. Current time, if not set explicitly.
+	 *
+	 * @return the creation time
+	 */
+	public long getCreationTime() {
+		if(creationTime == 0) {
+			creationTime = System.currentTimeMillis();
+		}
+		return creationTime;
+	}
+
+	/**
+	 * Gets the expiration time. Computed from the creation time, if ttl is set.
+	 *
+	 * @return the expiration time
+	 */
+	public long getExpirationTime() {
+		if(ttlMsec > 0) {
+			return getCreationTime() + ttlMsec;
+		}
+		return expirationTime;
+	}
+
+	/**
+	 * Gets the ttl msec.
+	 *
+	 * @return the ttl msec
+	 */
+	public long getTtlMsec() {
+		return ttlMsec;
+	}
+
+	/**
+	 * Gets the priority.
+	 *
+	 * @return the priority
+	 */
+	public long getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Gets the all properties.
+	 *
+	 * @return the all properties
+	 */
+	public Map<String,Object> getAllProperties() {
+		return properties == null ? Collections.emptyMap() : Collections.unmodifiableMap(properties);
+	}
+
+	/**
+	 * Place. Resets the loader.
+	 *
+	 * @return the completable future
+	 */
+	public CompletableFuture<Boolean> place() {
+		try {
+			return placer.apply(this);
+		} finally {
+			reset();
+		}
+	}
+
+	/**
+	 * Fire and forget. Resets the loader.
+	 *
+	 * @see PartLoader#fire()
+	 */
+	public void fire() {
+		try {
+			firer.accept(this);
+		} finally {
+			reset();
+		}
+	}
+
+	/**
+	 * Immutable copy of the current state.
+	 *
+	 * @param partLoader the part loader of the conveyor
+	 * @return the part loader
+	 */
+	public PartLoader<K,L> toPartLoader(PartLoader<K,L> partLoader) {
+		return partLoader
+				.id(key)
+				.label(label)
+				.value(partValue)
+				.creationTime(getCreationTime())
+				.expirationTime(getExpirationTime())
+				.priority(priority)
+				.addProperties(getAllProperties());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ReusablePartLoader [creationTime=" + creationTime + ", expirationTime="
+				+ expirationTime + ", ttlMsec=" + ttlMsec + ", priority=" + priority + ", key=" + key + ", label=" + label + ", partValue=" + partValue + ", properties=" + properties + "]";
+	}
+
+}
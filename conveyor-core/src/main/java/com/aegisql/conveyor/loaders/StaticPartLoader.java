@@ -35,8 +35,8 @@ public final class StaticPartLoader<L> {
 	/**  The priority. */
 	public final long priority;
 	
-	/** The properties. */
-	private final Map<String,Object> properties = new HashMap<>();
+	/** The properties. Never modified after construction, so copies of the loader share the same map. */
+	private final Map<String,Object> properties;
 
 	
 	/**
@@ -60,7 +60,7 @@ public final class StaticPartLoader<L> {
 		this.staticPartValue = value;
 		this.create = create;
 		this.priority = priority;
-		this.properties.putAll(properties);
+		this.properties = properties;
 	}
 
 	/**
@@ -69,7 +69,7 @@ public final class StaticPartLoader<L> {
 	 * @param placer the placer
 	 */
 	public StaticPartLoader(Function<StaticPartLoader<L>, CompletableFuture<Boolean>> placer) {
-		this(placer,null,null,true,0,new HashMap<>());
+		this(placer,null,null,true,0,Collections.EMPTY_MAP);
 	}
 	
 	/**
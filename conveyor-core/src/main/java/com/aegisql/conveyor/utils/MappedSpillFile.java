@@ -0,0 +1,262 @@
+package com.aegisql.conveyor.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The Class MappedSpillFile.
+ * Append only storage of byte records in a memory mapped file.
+ * <p>
+ * The file is mapped in segments of fixed size, a record never crosses the segment boundary.
+ * Records are appended to the current segment. When it is full, appending moves to the lowest
+ * free segment, or to the new segment at the end of the file. A segment becomes free when all its records
+ * are released. The mapping of a free segment is dropped, so its pages are unmapped when the buffer is collected.
+ * The file never grows beyond the peak number of segments with live records plus one.
+ * Written pages are managed by the OS page cache, not by the java heap.
+ * The file is deleted on close. Not thread safe.
+ */
+public final class MappedSpillFile implements Closeable {
+
+	/** The Constant DEFAULT_SEGMENT_SIZE. */
+	public final static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/** The path. */
+	private final Path path;
+
+	/** The channel. */
+	private final FileChannel channel;
+
+	/** The segment size. */
+	private final int segmentSize;
+
+	/** The mapped segments. Null for free segments. */
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	/** The number of records not released, per segment. */
+	private int[] segmentRecords = new int[8];
+
+	/** The free segments. */
+	private final BitSet freeSegments = new BitSet();
+
+	/** The segment records are appended to. -1, if none. */
+	private int current = -1;
+
+	/** The append offset in the current segment. */
+	private int offset;
+
+	/** The free segment which mapping is kept until the next segment is chosen. -1, if none. */
+	private int retained = -1;
+
+	/** The number of records not released. */
+	private long liveRecords;
+
+	/** The bytes of records not released. */
+	private long liveBytes;
+
+	/**
+	 * Instantiates a new mapped spill file.
+	 *
+	 * @param path the path
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public MappedSpillFile(Path path) throws IOException {
+		this(path, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Instantiates a new mapped spill file.
+	 *
+	 * @param path the path
+	 * @param segmentSize the segment size, also the max record size
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public MappedSpillFile(Path path, int segmentSize) throws IOException {
+		if (segmentSize < 1) {
+			throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+		}
+		this.path        = path;
+		this.segmentSize = segmentSize;
+		this.channel     = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Gets the path.
+	 *
+	 * @return the path
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Gets the max record size.
+	 *
+	 * @return the max record size
+	 */
+	public int getMaxRecordSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * Gets the mapped size of the file.
+	 *
+	 * @return the mapped size
+	 */
+	public long getMappedSize() {
+		return segments.stream().filter(segment -> segment != null).count() * segmentSize;
+	}
+
+	/**
+	 * Gets the number of segments in the file, mapped or free.
+	 *
+	 * @return the segment count
+	 */
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Gets the bytes of records not released.
+	 *
+	 * @return the live bytes
+	 */
+	public long getLiveBytes() {
+		return liveBytes;
+	}
+
+	/**
+	 * Gets the number of records not released.
+	 *
+	 * @return the live records
+	 */
+	public long getLiveRecords() {
+		return liveRecords;
+	}
+
+	/**
+	 * Segment by index. Maps the segment if needed.
+	 *
+	 * @param index the segment index
+	 * @return the mapped byte buffer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private MappedByteBuffer segment(int index) throws IOException {
+		var segment = segments.get(index);
+		if (segment == null) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentSize, segmentSize);
+			segments.set(index, segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * Moves appending to the lowest free segment, or to the new segment at the end of the file.
+	 */
+	private void nextSegment() {
+		int index = freeSegments.nextSetBit(0);
+		if (index < 0) {
+			index = segments.size();
+			segments.add(null);
+			if (index == segmentRecords.length) {
+				segmentRecords = Arrays.copyOf(segmentRecords, index * 2);
+			}
+		} else {
+			freeSegments.clear(index);
+		}
+		if (retained >= 0 && retained != index) {
+			segments.set(retained, null);
+		}
+		retained = -1;
+		current  = index;
+		offset   = 0;
+	}
+
+	/**
+	 * Appends the record.
+	 *
+	 * @param data the data
+	 * @return the position of the record
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public long append(byte[] data) throws IOException {
+		if (data.length > segmentSize) {
+			throw new IllegalArgumentException("Record of " + data.length + " bytes exceeds the segment size " + segmentSize);
+		}
+		if (current < 0 || offset + data.length > segmentSize) {
+			nextSegment();
+		}
+		segment(current).put(offset, data);
+		long recordPosition = (long) current * segmentSize + offset;
+		offset += data.length;
+		segmentRecords[current]++;
+		liveRecords++;
+		liveBytes += data.length;
+		return recordPosition;
+	}
+
+	/**
+	 * Reads the record.
+	 *
+	 * @param recordPosition the record position
+	 * @param length the length
+	 * @return the data
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public byte[] read(long recordPosition, int length) throws IOException {
+		byte[] data = new byte[length];
+		segment((int) (recordPosition / segmentSize)).get((int) (recordPosition % segmentSize), data);
+		return data;
+	}
+
+	/**
+	 * Releases the record. When all records of the segment are released, the segment becomes free.
+	 *
+	 * @param recordPosition the record position
+	 * @param length the length of the released record
+	 */
+	public void release(long recordPosition, int length) {
+		int index = (int) (recordPosition / segmentSize);
+		liveRecords--;
+		liveBytes -= length;
+		if (--segmentRecords[index] == 0) {
+			freeSegments.set(index);
+			if (index == current) {
+				// likely to be reused by the next append
+				current  = -1;
+				retained = index;
+			} else {
+				segments.set(index, null);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		segments.clear();
+		channel.close();
+		Files.deleteIfExists(path);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MappedSpillFile [path=" + path + ", segments=" + segments.size() + ", freeSegments=" + freeSegments.cardinality() + ", liveRecords=" + liveRecords
+				+ ", liveBytes=" + liveBytes + "]";
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.aegisql.conveyor.utils;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The Class MpscRingBufferQueue.
+ * Bounded, pre-allocated, lock-free multi-producer single-consumer queue.
+ * Capacity is rounded up to the power of two. Producers claim slots with a CAS
+ * on the tail counter and publish elements through per-slot sequence numbers,
+ * so no node is allocated per element. {@link #offer(Object)} returns false when
+ * the buffer is full.
+ * poll(), peek() and remove() must be called from a single consumer thread.
+ *
+ * @param <E> the element type
+ */
+public class MpscRingBufferQueue<E> extends AbstractQueue<E> {
+
+	/** The mask. */
+	private final int mask;
+
+	/** The buffer. */
+	private final AtomicReferenceArray<E> buffer;
+
+	/** The slot sequences. */
+	private final AtomicLongArray sequences;
+
+	/** The producer index. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The consumer index. */
+	private volatile long head;
+
+	/**
+	 * Instantiates a new mpsc ring buffer queue.
+	 *
+	 * @param capacity the capacity, rounded up to the power of two
+	 */
+	public MpscRingBufferQueue(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Ring buffer capacity must be in range 1.." + (1 << 30) + ": " + capacity);
+		}
+		int size = capacity == 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Gets the capacity.
+	 *
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Queue#offer(java.lang.Object)
+	 */
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "Ring buffer does not accept null elements");
+		for (;;) {
+			long t = tail.get();
+			int idx = (int) (t & mask);
+			long dif = sequences.get(idx) - t;
+			if (dif == 0) {
+				if (tail.compareAndSet(t, t + 1)) {
+					buffer.lazySet(idx, e);
+					sequences.set(idx, t + 1);
+					return true;
+				}
+			} else if (dif < 0) {
+				return false;
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Queue#poll()
+	 */
+	@Override
+	public E poll() {
+		long h = head;
+		int idx = (int) (h & mask);
+		if (sequences.get(idx) != h + 1) {
+			return null;
+		}
+		E e = buffer.get(idx);
+		buffer.lazySet(idx, null);
+		sequences.lazySet(idx, h + mask + 1);
+		head = h + 1;
+		return e;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Queue#peek()
+	 */
+	@Override
+	public E peek() {
+		long h = head;
+		int idx = (int) (h & mask);
+		if (sequences.get(idx) != h + 1) {
+			return null;
+		}
+		return buffer.get(idx);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		long size = tail.get() - head;
+		if (size < 0) {
+			return 0;
+		}
+		return (int) Math.min(size, capacity());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return tail.get() == head;
+	}
+
+	/**
+	 * Weakly consistent iterator over the published elements.
+	 * Does not support removal.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<>() {
+			private long index = head;
+			private E next = advance();
+
+			private E advance() {
+				while (index < tail.get()) {
+					int idx = (int) (index & mask);
+					long i = index++;
+					E e = buffer.get(idx);
+					if (e != null && sequences.get(idx) == i + 1) {
+						return e;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public E next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				E e = next;
+				next = advance();
+				return e;
+			}
+		};
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MpscRingBufferQueue [capacity=" + capacity() + ", size=" + size() + "]";
+	}
+
+}
@@ -0,0 +1,455 @@
+package com.aegisql.conveyor.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The Class PrimitiveKeyMap.
+ * Open addressing hash map for {@link Long} or {@link Integer} keys.
+ * Keys are stored unboxed in a long array and values in a parallel object array,
+ * so there is no entry object per mapping and no boxed key is retained by the map.
+ * Collisions are resolved by linear probing, removal shifts following entries back,
+ * so the table never contains tombstones.
+ * <p>
+ * Only keys of the class given to the constructor are accepted. Lookups with keys of
+ * other classes or null never match, put() of such key throws {@link ClassCastException}.
+ * Null values are not permitted. Entries are boxed on iteration.
+ * Not thread safe.
+ *
+ * @param <K> the key type, Long or Integer
+ * @param <V> the value type
+ */
+public class PrimitiveKeyMap<K,V> extends AbstractMap<K,V> {
+
+	/** The minimal capacity. */
+	private final static int MIN_CAPACITY = 16;
+
+	/** The key class. */
+	private final Class<K> keyClass;
+
+	/** True for Long keys, false for Integer keys. */
+	private final boolean longKeys;
+
+	/** The keys. */
+	private long[] keys;
+
+	/** The values. Null marks a free slot. */
+	private Object[] values;
+
+	/** The mask. */
+	private int mask;
+
+	/** The size. */
+	private int size;
+
+	/** The resize threshold. */
+	private int threshold;
+
+	/** The modification count. */
+	private int modCount;
+
+	/** The entry set. */
+	private Set<Entry<K,V>> entrySet;
+
+	/**
+	 * Instantiates a new primitive key map.
+	 *
+	 * @param keyClass the key class, Long.class or Integer.class
+	 */
+	public PrimitiveKeyMap(Class<K> keyClass) {
+		this(keyClass, MIN_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new primitive key map.
+	 *
+	 * @param keyClass the key class, Long.class or Integer.class
+	 * @param expectedSize the expected size
+	 */
+	public PrimitiveKeyMap(Class<K> keyClass, int expectedSize) {
+		if( ! supports(keyClass)) {
+			throw new IllegalArgumentException("Only Long and Integer keys are supported: " + keyClass);
+		}
+		this.keyClass = keyClass;
+		this.longKeys = keyClass == Long.class;
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * Checks if the key class can be stored unboxed.
+	 *
+	 * @param keyClass the key class
+	 * @return true, for Long and Integer
+	 */
+	public static boolean supports(Class<?> keyClass) {
+		return keyClass == Long.class || keyClass == Integer.class;
+	}
+
+	/**
+	 * Gets the key class.
+	 *
+	 * @return the key class
+	 */
+	public Class<K> getKeyClass() {
+		return keyClass;
+	}
+
+	/**
+	 * Table size for the expected number of entries.
+	 *
+	 * @param expectedSize the expected size
+	 * @return the power of two
+	 */
+	private static int tableSizeFor(int expectedSize) {
+		long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+		if (needed > (1 << 30)) {
+			return 1 << 30;
+		}
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+
+	/**
+	 * Allocates the tables.
+	 *
+	 * @param capacity the capacity
+	 */
+	private void allocate(int capacity) {
+		keys      = new long[capacity];
+		values    = new Object[capacity];
+		mask      = capacity - 1;
+		threshold = capacity / 4 * 3;
+	}
+
+	/**
+	 * Slot of the key.
+	 *
+	 * @param key the key
+	 * @return the slot
+	 */
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * Checks the class of the key.
+	 *
+	 * @param key the key
+	 * @return true, if the key can be stored
+	 */
+	private boolean accepts(Object key) {
+		return key != null && key.getClass() == keyClass;
+	}
+
+	/**
+	 * To long.
+	 *
+	 * @param key the key
+	 * @return the long
+	 */
+	private static long toLong(Object key) {
+		return ((Number) key).longValue();
+	}
+
+	/**
+	 * Boxes the key.
+	 *
+	 * @param key the key
+	 * @return the boxed key
+	 */
+	@SuppressWarnings("unchecked")
+	private K box(long key) {
+		if (longKeys) {
+			return (K) Long.valueOf(key);
+		}
+		return (K) Integer.valueOf((int) key);
+	}
+
+	/**
+	 * Finds the slot of the key.
+	 *
+	 * @param key the key
+	 * @return the slot, or -1
+	 */
+	private int find(long key) {
+		for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return accepts(key) && find(toLong(key)) >= 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if( ! accepts(key)) {
+			return null;
+		}
+		int i = find(toLong(key));
+		return i < 0 ? null : (V) values[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		Objects.requireNonNull(value, "PrimitiveKeyMap does not accept null values");
+		if( ! accepts(key)) {
+			throw new ClassCastException("Expected key of " + keyClass + " but was " + (key == null ? null : key.getClass()));
+		}
+		long k = toLong(key);
+		int i = slot(k);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == k) {
+				V old = (V) values[i];
+				values[i] = value;
+				return old;
+			}
+		}
+		keys[i] = k;
+		values[i] = value;
+		modCount++;
+		if (++size > threshold) {
+			resize();
+		}
+		return null;
+	}
+
+	/**
+	 * Doubles the tables.
+	 */
+	private void resize() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		if (oldKeys.length == (1 << 30)) {
+			throw new IllegalStateException("PrimitiveKeyMap capacity exceeded");
+		}
+		allocate(oldKeys.length * 2);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				int i = slot(oldKeys[j]);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if( ! accepts(key)) {
+			return null;
+		}
+		int i = find(toLong(key));
+		if (i < 0) {
+			return null;
+		}
+		V old = (V) values[i];
+		removeAt(i);
+		return old;
+	}
+
+	/**
+	 * Removes the entry at the slot and shifts the following entries of the cluster back.
+	 *
+	 * @param i the slot
+	 */
+	private void removeAt(int i) {
+		values[i] = null;
+		size--;
+		modCount++;
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = slot(keys[j]);
+			// move entry j to the free slot i, if i is between the home slot and j
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				values[j] = null;
+				i = j;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+		if (size > 0) {
+			allocate(MIN_CAPACITY);
+			size = 0;
+			modCount++;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Map#forEach(java.util.function.BiConsumer)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		int mc = modCount;
+		Object[] vals = values;
+		long[] ks = keys;
+		for (int i = 0; i < vals.length; i++) {
+			if (vals[i] != null) {
+				action.accept(box(ks[i]), (V) vals[i]);
+			}
+		}
+		if (mc != modCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Entry<K,V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<>() {
+				@Override
+				public Iterator<Entry<K,V>> iterator() {
+					return new EntryIterator();
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public void clear() {
+					PrimitiveKeyMap.this.clear();
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * The Class EntryIterator.
+	 * Iterates over a snapshot of the tables, so removal through the iterator
+	 * does not affect the order of remaining entries.
+	 */
+	private final class EntryIterator implements Iterator<Entry<K,V>> {
+
+		/** The keys. */
+		private final long[] ks;
+
+		/** The values. */
+		private final Object[] vals;
+
+		/** The next slot. */
+		private int next = -1;
+
+		/** The last returned key. */
+		private K last;
+
+		/** The expected mod count. */
+		private int expectedModCount = modCount;
+
+		/**
+		 * Instantiates a new entry iterator.
+		 */
+		EntryIterator() {
+			ks = keys.clone();
+			vals = values.clone();
+			advance();
+		}
+
+		/**
+		 * Moves to the next occupied slot.
+		 */
+		private void advance() {
+			do {
+				next++;
+			} while (next < vals.length && vals[next] == null);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return next < vals.length;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public Entry<K,V> next() {
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if ( ! hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = box(ks[next]);
+			Entry<K,V> e = new SimpleImmutableEntry<>(last, (V) vals[next]);
+			advance();
+			return e;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			PrimitiveKeyMap.this.remove(last);
+			expectedModCount = modCount;
+			last = null;
+		}
+	}
+
+}
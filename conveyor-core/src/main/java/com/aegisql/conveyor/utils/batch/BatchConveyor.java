@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorGroup;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.SmartLabel;
 import com.aegisql.conveyor.loaders.PartLoader;
 
@@ -22,6 +24,23 @@ public class BatchConveyor <V> extends AssemblingConveyor<String, SmartLabel<Bat
 	 */
 	public BatchConveyor() {
 		super();
+		init();
+	}
+
+	/**
+	 * Instantiates a new batch conveyor running in the conveyor group.
+	 *
+	 * @param group the conveyor group
+	 */
+	public BatchConveyor(ConveyorGroup group) {
+		super(Priority.DEFAULT, group);
+		init();
+	}
+
+	/**
+	 * Init.
+	 */
+	private void init() {
 		this.setName("BatchConveyor");
 	}
 	
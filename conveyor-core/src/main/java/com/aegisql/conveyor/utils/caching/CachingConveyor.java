@@ -6,6 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorGroup;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.BuildingSite;
 import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.consumers.scrap.LogScrap;
@@ -28,6 +30,23 @@ public class CachingConveyor<K, L, OUT> extends AssemblingConveyor<K, L, OUT> {
 	 */
 	public CachingConveyor() {
 		super();
+		init();
+	}
+
+	/**
+	 * Instantiates a new caching conveyor running in the conveyor group.
+	 *
+	 * @param group the conveyor group
+	 */
+	public CachingConveyor(ConveyorGroup group) {
+		super(Priority.DEFAULT, group);
+		init();
+	}
+
+	/**
+	 * Init.
+	 */
+	private void init() {
 		this.setReadinessEvaluator( (k,l) -> false);
 		this.setName("CachingConveyor");
 		this.setOnTimeoutAction(builder-> LOG.debug("Cache Timeout {}", builder));
@@ -1,6 +1,8 @@
 package com.aegisql.conveyor.utils.scalar;
 
 import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorGroup;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.Conveyor;
 import com.aegisql.conveyor.loaders.PartLoader;
 
@@ -19,6 +21,23 @@ public class ScalarConvertingConveyor <K,IN,OUT> extends AssemblingConveyor<K, S
 	 */
 	public ScalarConvertingConveyor() {
 		super();
+		init();
+	}
+
+	/**
+	 * Instantiates a new scalar converting conveyor running in the conveyor group.
+	 *
+	 * @param group the conveyor group
+	 */
+	public ScalarConvertingConveyor(ConveyorGroup group) {
+		super(Priority.DEFAULT, group);
+		init();
+	}
+
+	/**
+	 * Init.
+	 */
+	private void init() {
 		this.setName("ScalarConvertingConveyor");
 		this.setReadinessEvaluator((state,builder) -> true ); //ready right after evaluation
 		this.setDefaultCartConsumer(Conveyor.getConsumerFor(this).filter(l->true, (b,v)->{
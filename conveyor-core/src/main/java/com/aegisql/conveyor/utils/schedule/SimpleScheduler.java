@@ -5,6 +5,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorGroup;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.BuilderSupplier;
 import com.aegisql.conveyor.cart.CreatingCart;
 import com.aegisql.conveyor.cart.ShoppingCart;
@@ -24,6 +26,23 @@ public class SimpleScheduler<K> extends AssemblingConveyor<K, Schedule, Schedula
 	 */
 	public SimpleScheduler() {
 		super();
+		init();
+	}
+
+	/**
+	 * Instantiates a new simple scheduler running in the conveyor group.
+	 *
+	 * @param group the conveyor group
+	 */
+	public SimpleScheduler(ConveyorGroup group) {
+		super(Priority.DEFAULT, group);
+		init();
+	}
+
+	/**
+	 * Init.
+	 */
+	private void init() {
 		this.setName("SchedulingConveyor");
 		this.setIdleHeartBeat(1, TimeUnit.SECONDS);
 		this.resultConsumer().first(bin -> LOG.debug("Task complete {}",bin)).set();
@@ -0,0 +1,32 @@
+package com.aegisql.conveyor.validation;
+
+import java.io.Serial;
+
+/**
+ * The Class CartRejectedException.
+ * Thrown by the cart validators. Rejections are expected, frequent and fully described by the message,
+ * so the exception does not fill in the stack trace.
+ */
+public class CartRejectedException extends IllegalStateException {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new cart rejected exception.
+	 *
+	 * @param message the message
+	 */
+	public CartRejectedException(String message) {
+		super(message);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Throwable#fillInStackTrace()
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.junit.Assert.*;
@@ -620,6 +621,61 @@ public class AssemblingConveyorTest {
 	}
 
 
+	/**
+	 * Test batch drain.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testBatchDrain() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		assertEquals(1, conveyor.getDrainBatchSize());
+		conveyor.setDrainBatchSize(64);
+		conveyor.setDrainTimeBudget(Duration.ofMillis(5));
+		assertEquals(64, conveyor.getDrainBatchSize());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(5), conveyor.getDrainTimeBudgetNanos());
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> {
+			UserBuilder userBuilder = (UserBuilder) builder;
+			switch (label) {
+			case "setFirst" -> userBuilder.setFirst((String) value);
+			case "setLast" -> userBuilder.setLast((String) value);
+			case "setYearOfBirth" -> userBuilder.setYearOfBirth((Integer) value);
+			default -> throw new RuntimeException("Unknown label " + label);
+			}
+		});
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 3);
+		ResultQueue<Integer,User> outQueue = ResultQueue.of(conveyor);
+		conveyor.resultConsumer().first(outQueue).set();
+		// carts pile up while suspended, so the resumed conveyor drains full batches
+		conveyor.suspend();
+		CompletableFuture<Boolean> last = null;
+		for(int i = 0; i < 1000; i++) {
+			conveyor.part().id(i).label("setFirst").value("F"+i).place();
+			conveyor.part().id(i).label("setLast").value("L"+i).place();
+			last = conveyor.part().id(i).label("setYearOfBirth").value(1900+i).place();
+		}
+		assertEquals(0, conveyor.getMaxDrained());
+		conveyor.resume();
+		assertTrue(last.get());
+		assertEquals(1000, outQueue.size());
+		assertEquals(0, conveyor.getCollectorSize());
+		assertEquals(3000, conveyor.getCartCounter());
+		assertTrue(conveyor.getMaxDrained() > 1);
+		assertTrue(conveyor.getMaxDrained() <= 64);
+		conveyor.stop();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchDrainRejectsZero() {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		try {
+			conveyor.setDrainBatchSize(0);
+		} finally {
+			conveyor.stop();
+		}
+	}
+
 	/**
 	 * Test delayed.
 	 *
@@ -793,4 +849,132 @@ public class AssemblingConveyorTest {
 		
 	}
 
+	/**
+	 * Test expiration is driven by the build deadline, not by the idle heart beat.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testExpirationWithoutHeartBeat() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		conveyor.setIdleHeartBeat(1, TimeUnit.HOURS);
+		conveyor.setDefaultBuilderTimeout(50, TimeUnit.MILLISECONDS);
+		List<Integer> expired = new ArrayList<>();
+		conveyor.scrapConsumer(bin -> expired.add(bin.key)).set();
+		conveyor.part().id(1).label("setFirst").value("A").place().get();
+		assertEquals(1, conveyor.getCollectorSize());
+		Thread.sleep(300);
+		assertEquals(List.of(1), expired);
+		assertEquals(0, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test mass expiration is processed in portions interleaved with the input queue.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testExpirationBudget() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		conveyor.setDefaultBuilderTimeout(100, TimeUnit.MILLISECONDS);
+		conveyor.setExpirationBatchSize(10);
+		conveyor.setExpirationTimeBudget(Duration.ofMillis(50));
+		assertEquals(10, conveyor.getExpirationBatchSize());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(50), conveyor.getExpirationTimeBudgetNanos());
+		CountDownLatch firstExpired = new CountDownLatch(1);
+		AtomicInteger expired = new AtomicInteger();
+		conveyor.scrapConsumer(bin -> {
+			firstExpired.countDown();
+			expired.incrementAndGet();
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+			}
+		}).set();
+		CompletableFuture<Boolean> last = null;
+		for (int i = 0; i < 500; i++) {
+			last = conveyor.part().id(i).label("setFirst").value("A" + i).place();
+		}
+		assertTrue(last.get());
+		assertTrue(firstExpired.await(1, TimeUnit.SECONDS));
+		assertTrue(conveyor.part().id(1000).label("setFirst").value("X").ttl(1, TimeUnit.HOURS).place().get());
+		assertTrue(expired.get() < 500);
+		for (int i = 0; i < 300 && (expired.get() < 500 || conveyor.getCollectorSize() > 1); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(500, expired.get());
+		assertEquals(0, conveyor.getExpiredBacklogSize());
+		assertEquals(1, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test builds rescheduled while waiting in the expired backlog do not expire.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testRescheduleInExpiredBacklog() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		conveyor.setDefaultBuilderTimeout(100, TimeUnit.MILLISECONDS);
+		conveyor.setExpirationBatchSize(1);
+		CountDownLatch firstExpired = new CountDownLatch(1);
+		AtomicInteger expired = new AtomicInteger();
+		conveyor.scrapConsumer(bin -> {
+			firstExpired.countDown();
+			expired.incrementAndGet();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+			}
+		}).set();
+		CompletableFuture<Boolean> last = null;
+		for (int i = 0; i < 20; i++) {
+			last = conveyor.part().id(i).label("setFirst").value("A" + i).place();
+		}
+		assertTrue(last.get());
+		assertTrue(firstExpired.await(1, TimeUnit.SECONDS));
+		List<CompletableFuture<Boolean>> rescheduled = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			rescheduled.add(conveyor.command().id(i).ttl(1, TimeUnit.HOURS).reschedule());
+		}
+		// keys expired before their command are not found
+		for (CompletableFuture<Boolean> future : rescheduled) {
+			future.handle((res, e) -> res).get();
+		}
+		for (int i = 0; i < 100 && conveyor.getExpiredBacklogSize() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, conveyor.getExpiredBacklogSize());
+		int expiredAfterReschedule = expired.get();
+		Thread.sleep(200);
+		assertEquals(expiredAfterReschedule, expired.get());
+		assertTrue(expiredAfterReschedule < 20);
+		assertEquals(20, expired.get() + conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test expiration batch size must be positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testExpirationBatchSizeRejectsZero() {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		try {
+			conveyor.setExpirationBatchSize(0);
+		} finally {
+			conveyor.stop();
+		}
+	}
+
 }
@@ -0,0 +1,200 @@
+package com.aegisql.conveyor;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.consumers.result.ResultQueue;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+
+/**
+ * The Class BackpressureTest.
+ */
+public class BackpressureTest {
+
+	/**
+	 * Conveyor with input queue of given size, ready after single setFirst part.
+	 *
+	 * @param queueSize the queue size
+	 * @return the assembling conveyor
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private AssemblingConveyor<Integer, String, User> conveyor(int queueSize) {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>(() -> new ArrayBlockingQueue(queueSize));
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		return conveyor;
+	}
+
+	/**
+	 * Test reject mode is default.
+	 */
+	@Test
+	public void testRejectMode() {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(2);
+		assertEquals(PlacementMode.REJECT, conveyor.getPlacementMode());
+		List<FailureType> scrap = new ArrayList<>();
+		conveyor.scrapConsumer(bin -> scrap.add(bin.failureType)).set();
+		conveyor.suspend();
+		conveyor.part().id(1).label("setFirst").value("A").place();
+		conveyor.part().id(2).label("setFirst").value("B").place();
+		CompletableFuture<Boolean> f = conveyor.part().id(3).label("setFirst").value("C").place();
+		assertTrue(f.isCompletedExceptionally());
+		assertEquals(List.of(FailureType.CART_REJECTED), scrap);
+		conveyor.stop();
+	}
+
+	/**
+	 * Test block mode with timeout.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testBlockMode() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(2);
+		ResultQueue<Integer, User> results = ResultQueue.of(conveyor);
+		conveyor.resultConsumer(results).set();
+		conveyor.setPlacementMode(PlacementMode.BLOCK);
+		conveyor.setPlacementTimeout(Duration.ofMillis(100));
+		conveyor.suspend();
+		conveyor.part().id(1).label("setFirst").value("A").place();
+		conveyor.part().id(2).label("setFirst").value("B").place();
+		long start = System.currentTimeMillis();
+		CompletableFuture<Boolean> f = conveyor.part().id(3).label("setFirst").value("C").place();
+		assertTrue(System.currentTimeMillis() - start >= 100);
+		assertTrue(f.isCompletedExceptionally());
+
+		conveyor.setPlacementTimeout(1, TimeUnit.SECONDS);
+		new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+			}
+			conveyor.resume();
+		}).start();
+		CompletableFuture<Boolean> last = null;
+		for (int i = 3; i <= 10; i++) {
+			last = conveyor.part().id(i).label("setFirst").value("X" + i).place();
+		}
+		assertTrue(last.get());
+		assertEquals(10, results.size());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test async mode.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testAsyncMode() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(2);
+		ResultQueue<Integer, User> results = ResultQueue.of(conveyor);
+		conveyor.resultConsumer(results).set();
+		conveyor.setPlacementMode(PlacementMode.ASYNC);
+		conveyor.suspend();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			futures.add(conveyor.part().id(i).label("setFirst").value("X" + i).place());
+		}
+		assertEquals(2, conveyor.getInputQueueSize());
+		assertEquals(8, conveyor.getPendingPlacementsSize());
+		futures.forEach(f -> assertFalse(f.isDone()));
+		conveyor.resume();
+		for (CompletableFuture<Boolean> f : futures) {
+			assertTrue(f.get());
+		}
+		assertEquals(10, results.size());
+		for (int i = 1; i <= 10; i++) {
+			assertEquals("X" + i, results.poll().getFirst());
+		}
+		assertEquals(0, conveyor.getPendingPlacementsSize());
+		conveyor.completeAndStop().get();
+	}
+
+	/**
+	 * Test async mode with bounded pending placements.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testAsyncModeBounded() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(2);
+		ResultQueue<Integer, User> results = ResultQueue.of(conveyor);
+		conveyor.resultConsumer(results).set();
+		conveyor.setPlacementMode(PlacementMode.ASYNC);
+		conveyor.setMaxPendingPlacements(3);
+		conveyor.suspend();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			futures.add(conveyor.part().id(i).label("setFirst").value("X" + i).place());
+		}
+		assertEquals(2, conveyor.getInputQueueSize());
+		assertEquals(3, conveyor.getPendingPlacementsSize());
+		for (int i = 5; i < 10; i++) {
+			assertTrue(futures.get(i).isCancelled());
+		}
+		conveyor.resume();
+		for (int i = 0; i < 5; i++) {
+			assertTrue(futures.get(i).get());
+		}
+		assertEquals(5, results.size());
+		assertEquals(0, conveyor.getPendingPlacementsSize());
+		conveyor.completeAndStop().get();
+	}
+
+	/**
+	 * Test watermarks.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWatermarks() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(100);
+		AtomicInteger high = new AtomicInteger();
+		AtomicInteger low = new AtomicInteger();
+		conveyor.setQueueWatermarks(5, 1, high::incrementAndGet, low::incrementAndGet);
+		conveyor.suspend();
+		for (int i = 1; i <= 4; i++) {
+			conveyor.part().id(i).label("setFirst").value("X" + i).place();
+		}
+		assertEquals(0, high.get());
+		CompletableFuture<Boolean> last = null;
+		for (int i = 5; i <= 10; i++) {
+			last = conveyor.part().id(i).label("setFirst").value("X" + i).place();
+		}
+		assertEquals(1, high.get());
+		assertEquals(0, low.get());
+		conveyor.resume();
+		assertTrue(last.get());
+		Thread.sleep(50);
+		assertEquals(1, low.get());
+		assertEquals(1, high.get());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test illegal watermarks.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalWatermarks() {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor(10);
+		try {
+			conveyor.setQueueWatermarks(1, 1, () -> {}, () -> {});
+		} finally {
+			conveyor.stop();
+		}
+	}
+
+}
@@ -9,6 +9,9 @@ import com.aegisql.conveyor.user.User;
 import com.aegisql.conveyor.user.UserBuilder;
 import org.junit.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
@@ -145,4 +148,51 @@ public class BuildingSiteTest {
 		
 	}
 
+	/**
+	 * Test readiness state views follow the site, are read only and are released after the test.
+	 */
+	@Test()
+	public void testReadinessStateView() {
+		ShoppingCart<Integer,String,String> c = new ShoppingCart<>(1,"v1","l",100,TimeUnit.MILLISECONDS);
+		List<State<Integer,String>> states = new ArrayList<>();
+		List<Map<String,Integer>> histories = new ArrayList<>();
+		BuildingSite<Integer, String, Cart<Integer,?,String>, User> bs = new BuildingSite<>
+		(
+				c, 
+				() -> { return new UserBuilder();},
+				(label,value,builder)-> { }, 
+				(state,builder)->{
+					states.add(state);
+					histories.add(Map.copyOf(state.eventHistory));
+					assertEquals(Integer.valueOf(1), state.key);
+					assertEquals(state.previouslyAccepted, state.carts.size());
+					assertNull(state.eventHistory.get("x"));
+					try {
+						state.eventHistory.put("x", 1);
+						fail("read only");
+					} catch (UnsupportedOperationException e) {
+					}
+					return state.previouslyAccepted == 3;
+				}, 
+				null,
+				100, TimeUnit.MILLISECONDS,false,true,false,0,false,null,null,null, null);
+		bs.accept(c);
+		assertFalse(bs.ready());
+		bs.accept(new ShoppingCart<>(1,"v2","m"));
+		bs.accept(new ShoppingCart<>(1,"v3","l"));
+		assertTrue(bs.ready());
+		assertNotSame(states.get(0), states.get(1));
+		assertSame(states.get(0).carts, states.get(1).carts);
+		assertEquals(Map.of("l", 1), histories.get(0));
+		assertEquals(Map.of("l", 2, "m", 1), histories.get(1));
+		assertEquals(Integer.valueOf(1), states.get(1).key);
+		assertTrue(states.get(1).carts.isEmpty());
+		State<Integer,String> snapshot = bs.getState();
+		assertNotSame(states.get(0), snapshot);
+		assertEquals(histories.get(1), snapshot.eventHistory);
+		bs.accept(new ShoppingCart<>(1,"v4","m"));
+		assertEquals(Integer.valueOf(1), snapshot.eventHistory.get("m"));
+		assertEquals(3, snapshot.previouslyAccepted);
+	}
+
 }
@@ -0,0 +1,181 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.CartBatchFuture;
+import com.aegisql.conveyor.cart.ShoppingCart;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class BulkPlacementTest {
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private AssemblingConveyor<Integer, String, User> conveyor(int queueSize) {
+        AssemblingConveyor<Integer, String, User> conveyor = queueSize > 0
+                ? new AssemblingConveyor<>(() -> new ArrayBlockingQueue(queueSize))
+                : new AssemblingConveyor<>();
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+        conveyor.setReadinessEvaluator((state, builder) -> true);
+        return conveyor;
+    }
+
+    private static List<Cart<Integer, ?, String>> carts(int from, int to) {
+        List<Cart<Integer, ?, String>> carts = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            carts.add(new ShoppingCart<>(i, "A" + i, "setFirst"));
+        }
+        return carts;
+    }
+
+    @Test
+    public void batchFutureTest() {
+        var empty = new CartBatchFuture(0);
+        assertTrue(empty.join());
+
+        var batch = new CartBatchFuture(3);
+        List<Cart<Integer, ?, String>> carts = carts(0, 3);
+        carts.forEach(batch::add);
+        carts.get(0).getFuture().complete(true);
+        carts.get(0).getFuture().complete(true);
+        carts.get(1).getFuture().complete(true);
+        assertFalse(batch.isDone());
+        assertEquals(1, batch.getPending());
+        carts.get(2).getFuture().cancel(true);
+        assertFalse(batch.join());
+
+        var failed = new CartBatchFuture(2);
+        CompletableFuture<Boolean> f1 = new CompletableFuture<>();
+        CompletableFuture<Boolean> f2 = new CompletableFuture<>();
+        failed.add(f1);
+        failed.add(f2);
+        f1.completeExceptionally(new IllegalStateException("failed"));
+        assertFalse(failed.isDone());
+        f2.complete(true);
+        try {
+            failed.join();
+            fail("must fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void placeAllBuildsProductsTest() {
+        var conveyor = conveyor(0);
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        assertTrue(conveyor.placeAll(carts(0, 100)).join());
+        assertTrue(conveyor.placeAll(List.of()).join());
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(100, counter.get());
+    }
+
+    @Test
+    public void partLoaderPlaceAllTest() {
+        var conveyor = conveyor(0);
+        List<User> users = new ArrayList<>();
+        conveyor.resultConsumer(bin -> users.add(bin.product)).set();
+        CompletableFuture<Boolean> future = conveyor.part().label("setFirst").addProperty("P", 1)
+                .placeAll(IntStream.range(0, 10).mapToObj(i -> Map.entry(i, "A" + i)));
+        assertTrue(future.join());
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(10, users.size());
+        assertTrue(users.stream().allMatch(u -> u.getFirst().startsWith("A")));
+    }
+
+    @Test
+    public void placeAllRejectedCartsTest() {
+        var conveyor = conveyor(0);
+        List<FailureType> scrap = new ArrayList<>();
+        conveyor.scrapConsumer(bin -> scrap.add(bin.failureType)).set();
+        conveyor.resultConsumer(bin -> {}).set();
+        conveyor.addCartBeforePlacementValidator(cart -> {
+            if (cart.getKey() < 0) {
+                throw new IllegalArgumentException("negative key");
+            }
+        });
+        CompletableFuture<Boolean> future = conveyor.placeAll(carts(-2, 3));
+        try {
+            future.join();
+            fail("must fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(List.of(FailureType.CART_REJECTED, FailureType.CART_REJECTED), scrap);
+        assertEquals(2, conveyor.getRejectedCartCounter());
+        assertTrue(conveyor.completeAndStop().join());
+    }
+
+    @Test
+    public void placeAllFullQueueTest() {
+        var conveyor = conveyor(2);
+        List<FailureType> scrap = new ArrayList<>();
+        conveyor.scrapConsumer(bin -> scrap.add(bin.failureType)).set();
+        conveyor.resultConsumer(bin -> {}).set();
+        conveyor.suspend();
+        List<Cart<Integer, ?, String>> carts = carts(0, 4);
+        CompletableFuture<Boolean> future = conveyor.placeAll(carts);
+        assertTrue(carts.get(2).getFuture().isCompletedExceptionally());
+        assertTrue(carts.get(3).getFuture().isCompletedExceptionally());
+        assertEquals(List.of(FailureType.CART_REJECTED, FailureType.CART_REJECTED), scrap);
+        assertEquals(2, conveyor.getRejectedCartCounter());
+        conveyor.resume();
+        try {
+            future.join();
+            fail("must fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(carts.get(0).getFuture().join());
+        assertTrue(carts.get(1).getFuture().join());
+        conveyor.completeAndStop().join();
+    }
+
+    private void measure(String name, int n, Consumer<AssemblingConveyor<Integer, String, User>> producer) {
+        var conveyor = conveyor(0);
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        long start = System.nanoTime();
+        producer.accept(conveyor);
+        long producerTime = System.nanoTime() - start;
+        assertTrue(conveyor.completeAndStop().join());
+        long totalTime = System.nanoTime() - start;
+        assertEquals(n, counter.get());
+        System.out.printf("%s: producer %.1f ns/part, total %.1f ns/part%n",
+                name, producerTime / (double) n, totalTime / (double) n);
+    }
+
+    @Test
+    public void placeVsPlaceAllPerformanceTest() {
+        int n = 500_000;
+        int batchSize = 1000;
+        for (int round = 0; round < 2; round++) {
+            measure("place()   ", n, c -> {
+                for (int i = 0; i < n; i++) {
+                    c.part().id(i).label("setFirst").value("A").place();
+                }
+            });
+            measure("placeAll()", n, c -> {
+                var loader = c.part().label("setFirst");
+                for (int i = 0; i < n; i += batchSize) {
+                    loader.placeAll(IntStream.range(i, i + batchSize).mapToObj(k -> Map.entry(k, "A")));
+                }
+            });
+        }
+    }
+
+}
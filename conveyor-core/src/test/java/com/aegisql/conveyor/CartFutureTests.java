@@ -81,6 +81,8 @@ public class CartFutureTests {
 		Cart<Integer, String, UserBuilderEvents> c3 = new ShoppingCart<>(2, "Mike", UserBuilderEvents.CREATE,100,TimeUnit.MILLISECONDS);
 		Cart<Integer, Integer, UserBuilderEvents> c4 = new ShoppingCart<>(1,1999, UserBuilderEvents.SET_YEAR);
 
+		// keep the carts in the queue until the futures are checked
+		conveyor.suspend();
 		CompletableFuture<Boolean> cf1 = conveyor.place(c1);
 		assertFalse(cf1.isDone());
 		CompletableFuture<Boolean> cf2 = conveyor.place(c2);
@@ -89,6 +91,7 @@ public class CartFutureTests {
 		assertFalse(cf3.isDone());
 		CompletableFuture<Boolean> cf4 = conveyor.place(c4);
 		assertFalse(cf4.isDone());
+		conveyor.resume();
 
 		assertTrue(cf1.get());
 		assertTrue(cf2.get());
@@ -293,6 +296,8 @@ public class CartFutureTests {
 		Cart<Integer, String, UserBuilderEvents> c3 = new ShoppingCart<>(2, "Mike", UserBuilderEvents.CREATE,100,TimeUnit.MILLISECONDS);
 		Cart<Integer, Integer, UserBuilderEvents> c4 = new ShoppingCart<>(1,1999, UserBuilderEvents.SET_YEAR);
 
+		// keep the carts in the queue until the futures are checked
+		conveyor.suspend();
 		conveyor.place(c1);
 		CompletableFuture<User> cf1 = conveyor.future().id(1).expirationTime(System.currentTimeMillis()+100).get();
 		conveyor.place(c2);
@@ -303,6 +308,7 @@ public class CartFutureTests {
 
 		assertFalse(cf1.isDone());
 		assertFalse(cf2.isDone());
+		conveyor.resume();
 
 
 		User u1 = cf1.get();
@@ -335,6 +341,8 @@ public class CartFutureTests {
 		CompletableFuture<User> cf1 = conveyor.future().id(1).ttl(Duration.ofMillis(100)).get();
 		CompletableFuture<User> cf2 = conveyor.future().id(2).ttl(Duration.ofMillis(100)).get();
 
+		// keep the carts in the queue until the futures are checked
+		conveyor.suspend();
 		conveyor.place(c1);
 		conveyor.place(c2);
 		conveyor.place(c3);
@@ -342,6 +350,7 @@ public class CartFutureTests {
 
 		assertFalse(cf1.isDone());
 		assertFalse(cf2.isDone());
+		conveyor.resume();
 
 
 		User u1 = cf1.get();
@@ -378,6 +387,8 @@ public class CartFutureTests {
 		CompletableFuture<User> cf1 = conveyor.future().id(1).expirationTime(Instant.now().plusMillis(100)).get();
 		CompletableFuture<User> cf2 = conveyor.future().id(2).expirationTime(Instant.now().plusMillis(100)).get();
 
+		// keep the carts in the queue until the futures are checked
+		conveyor.suspend();
 		conveyor.place(c1);
 		conveyor.place(c2);
 		conveyor.place(c3);
@@ -385,6 +396,7 @@ public class CartFutureTests {
 
 		assertFalse(cf1.isDone());
 		assertFalse(cf2.isDone());
+		conveyor.resume();
 
 
 		User u1 = cf1.get();
@@ -3,20 +3,26 @@
  */
 package com.aegisql.conveyor;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import com.aegisql.conveyor.validation.CommonValidators;
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.aegisql.conveyor.cart.AbstractCart;
 import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.cart.LoadType;
 import com.aegisql.conveyor.cart.ShoppingCart;
@@ -182,4 +188,115 @@ public class CartTest {
 		Cart c1 = new ShoppingCart<>("k",null,"l1",0,0,null,LoadType.PART,0);
 		CommonValidators.CART_VALUE_NOT_NULL().accept(c1);
 	}
+
+	/**
+	 * Properties are allocated by the first write.
+	 */
+	@Test
+	public void lazyPropertiesTest() {
+		ShoppingCart<String,String,String> c = new ShoppingCart<>("k","v","l");
+		assertSame(Collections.emptyMap(), c.getAllProperties());
+		c.clearProperty("A");
+		c.putAllProperties(Map.of());
+		assertSame(Collections.emptyMap(), c.getAllProperties());
+		assertNull(c.getProperty("A", String.class));
+		c.addProperty("A", "a");
+		assertEquals(Map.of("A","a"), c.getAllProperties());
+		Cart<String,String,String> copy = c.copy();
+		c.clearProperty("A");
+		assertEquals("a", copy.getProperty("A", String.class));
+		assertTrue(c.getAllProperties().isEmpty());
+		ShoppingCart<String,String,String> c2 = new ShoppingCart<>("k","v","l",0,0,Map.of("B",1),LoadType.PART,0);
+		assertEquals(Integer.valueOf(1), c2.getProperty("B", Integer.class));
+	}
+
+	/**
+	 * Unobserved carts share one future.
+	 */
+	@Test
+	public void unobservedFutureTest() {
+		ShoppingCart<String,String,String> c1 = new ShoppingCart<>("k","v","l");
+		ShoppingCart<String,String,String> c2 = new ShoppingCart<>("k","v","l");
+		assertFalse(c1.isUnobserved());
+		c1.markUnobserved();
+		c2.markUnobserved();
+		assertTrue(c1.isUnobserved());
+		assertSame(c1.getFuture(), c2.getFuture());
+		assertSame(AbstractCart.NEVER_OBSERVED, c1.getFuture());
+		assertFalse(c1.getFuture().complete(false));
+		assertFalse(c1.getFuture().completeExceptionally(new RuntimeException()));
+		assertFalse(c1.getFuture().cancel(true));
+		c1.getFuture().obtrudeValue(false);
+		assertTrue(c2.getFuture().join());
+
+		AssemblingConveyor<String, String, String> conveyor = new AssemblingConveyor<>();
+		conveyor.setBuilderSupplier(() -> () -> "X");
+		conveyor.setDefaultCartConsumer((l, v, b) -> {});
+		conveyor.setReadinessEvaluator((s, b) -> true);
+		List<String> res = new ArrayList<>();
+		conveyor.resultConsumer(bin -> res.add(bin.key)).set();
+		conveyor.place(c1);
+		assertTrue(conveyor.completeAndStop().join());
+		assertEquals(List.of("k"), res);
+		assertSame(AbstractCart.NEVER_OBSERVED, c1.getFuture());
+	}
+
+	/**
+	 * Nano time stamping can be switched off per conveyor.
+	 */
+	@Test
+	public void nanoTimeStampingTest() {
+		AssemblingConveyor<String, String, String> unstamped = new AssemblingConveyor<>();
+		AssemblingConveyor<String, String, String> stamped = new AssemblingConveyor<>();
+		assertTrue(unstamped.isNanoTimeStamping());
+		unstamped.setNanoTimeStamping(false);
+		unstamped.suspend();
+		stamped.suspend();
+		unstamped.part().id("k").label("l").value("v").place();
+		stamped.part().id("k").label("l").value("v").place();
+		assertEquals(0, unstamped.inQueue.peek().getCartCreationNanoTime());
+		assertNotEquals(0, stamped.inQueue.peek().getCartCreationNanoTime());
+		assertNotEquals(0, new ShoppingCart<>("k","v","l").getCartCreationNanoTime());
+		unstamped.stop();
+		stamped.stop();
+		AssemblingConveyor<String, String, String> prioritized = new AssemblingConveyor<>(PriorityBlockingQueue::new);
+		try {
+			prioritized.setNanoTimeStamping(false);
+			fail("Priority queue needs the stamp");
+		} catch (IllegalStateException e) {
+		} finally {
+			prioritized.stop();
+		}
+	}
+
+	/**
+	 * Compact cart allocation.
+	 */
+	@Test
+	public void compactCartAllocationTest() {
+		var bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported());
+		var sunBean = (com.sun.management.ThreadMXBean) bean;
+		long id = Thread.currentThread().getId();
+		int n = 1_000_000;
+		List<Cart<Integer,Integer,String>> carts = new ArrayList<>(n);
+		for(int i = 0; i < n; i++) {
+			carts.add(new ShoppingCart<>(i,i,"l"));
+		}
+		carts.clear();
+		long start = sunBean.getThreadAllocatedBytes(id);
+		for(int i = 0; i < n; i++) {
+			var c = new ShoppingCart<>(i,i,"l");
+			Collections.<String,Object>emptyMap().forEach(c::addProperty);
+			c.markUnobserved();
+			c.getFuture().complete(true);
+			carts.add(c);
+		}
+		double bytes = (sunBean.getThreadAllocatedBytes(id) - start) / (double) n;
+		System.out.printf("Compact cart: %.1f bytes/cart%n", bytes);
+		// cart itself, boxed key and value, and the method reference, when the JIT does not eliminate it.
+		// No HashMap, no CompletableFuture
+		assertTrue(bytes < 136);
+	}
+
 }
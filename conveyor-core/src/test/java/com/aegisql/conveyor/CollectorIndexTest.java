@@ -0,0 +1,166 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CollectorIndexTest {
+
+	private final List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+
+	private AssemblingConveyor<Integer, String, User> conveyor(String name) {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>(Priority.DEFAULT, CollectorType.<Integer>hashed()
+				.withIndex("region", cart -> cart.getProperty("REGION", String.class))
+				.withIndex("parity", cart -> cart.getKey() % 2 == 0 ? "even" : "odd"));
+		conveyor.setName(name);
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> {
+			if ("first".equals(label)) {
+				((UserBuilder) builder).setFirst((String) value);
+			} else {
+				((UserBuilder) builder).setLast((String) value);
+			}
+		});
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+		conveyor.resultConsumer(bin -> results.add(bin.key)).set();
+		conveyor.scrapConsumer(bin -> {}).set();
+		return conveyor;
+	}
+
+	private static void open(AssemblingConveyor<Integer, String, User> conveyor, int n) {
+		CompletableFuture<Boolean> last = null;
+		for (int i = 0; i < n; i++) {
+			var loader = conveyor.part().id(i).label("first").value("F" + i);
+			if (i % 10 == 0) {
+				loader = loader.addProperty("REGION", "EU");
+			}
+			last = loader.place();
+		}
+		// commands overtake parts waiting in the input queue
+		assertTrue(last.join());
+	}
+
+	@Test
+	public void indexedPartTest() {
+		var conveyor = conveyor("indexedPartTest");
+		open(conveyor, 1000);
+		assertTrue(conveyor.part().foreach("region", "EU").label("last").value("L").place().join());
+		assertEquals(100, results.size());
+		assertTrue(results.stream().allMatch(k -> k % 10 == 0));
+		// completed builds left the index
+		results.clear();
+		assertTrue(conveyor.part().foreach("region", "EU").label("last").value("L").place().join());
+		assertTrue(results.isEmpty());
+		assertEquals(900, conveyor.getCollectorSize());
+		assertTrue(conveyor.part().foreach("parity", "odd").label("last").value("L").place().join());
+		assertEquals(500, results.size());
+		assertEquals(400, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test
+	public void indexedCommandTest() {
+		var conveyor = conveyor("indexedCommandTest");
+		open(conveyor, 100);
+		assertTrue(conveyor.part().id(1000).label("first").value("F").addProperty("REGION", "US").place().join());
+		assertTrue(conveyor.command().foreach("region", "EU").cancel().join());
+		assertEquals(91, conveyor.getCollectorSize());
+		assertTrue(conveyor.command().foreach().foreach("region", "US").cancel().join());
+		assertEquals(90, conveyor.getCollectorSize());
+		// unknown value matches nothing
+		assertTrue(conveyor.command().foreach("region", "ASIA").cancel().join());
+		assertEquals(90, conveyor.getCollectorSize());
+		// unknown index without the fallback is rejected
+		try {
+			conveyor.command().foreach("country", "EU").cancel();
+			fail("Unknown index must be rejected");
+		} catch (IllegalStateException e) {
+		}
+		try {
+			conveyor.part().foreach("country", "EU").label("last").value("L").place().join();
+			fail("Unknown index must be rejected");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(90, conveyor.getCollectorSize());
+		// full scan is still available
+		var tested = new AtomicInteger();
+		assertTrue(conveyor.command().foreach(k -> tested.incrementAndGet() > 0 && k < 50).cancel().join());
+		assertEquals(90, tested.get());
+		assertEquals(45, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test
+	public void indexFallbackTest() {
+		var conveyor = conveyor("indexFallbackTest");
+		open(conveyor, 100);
+		// declared index ignores the fallback
+		assertTrue(conveyor.command().foreach(IndexFilter.<Integer>of("region", "EU", k -> false)).cancel().join());
+		assertEquals(90, conveyor.getCollectorSize());
+		// unknown index tests all keys with the fallback
+		assertTrue(conveyor.command().foreach(IndexFilter.<Integer>of("country", "EU", k -> k < 50)).cancel().join());
+		assertEquals(45, conveyor.getCollectorSize());
+		assertTrue(conveyor.part().foreach(IndexFilter.<Integer>of("country", "EU", k -> k % 2 == 1)).label("last").value("L").place().join());
+		assertEquals(20, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test
+	public void indexedScanComparisonTest() {
+		var conveyor = conveyor("indexedScanComparisonTest");
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		int n = 200_000;
+		for (int i = 0; i < n; i++) {
+			var loader = conveyor.part().id(i).label("first").value("F");
+			if (i < 10) {
+				loader = loader.addProperty("REGION", "EU");
+			}
+			loader.place();
+		}
+		assertTrue(conveyor.command().foreach().peek(bin -> {}).join());
+		long t1 = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			conveyor.part().foreach(k -> k < 10).label("last").value("L").place().join();
+		}
+		long t2 = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			conveyor.part().foreach("region", "EU").label("last").value("L").place().join();
+		}
+		long t3 = System.nanoTime();
+		System.out.println("10 broadcasts to 10 of " + n + " builds. Full scan "
+				+ TimeUnit.NANOSECONDS.toMillis(t2 - t1) + " ms, index " + TimeUnit.NANOSECONDS.toMillis(t3 - t2) + " ms");
+		conveyor.stop();
+	}
+
+	@Test
+	public void indexIsPartOfCollectorTypeTest() {
+		CollectorType<Integer> type = CollectorType.<Integer>sorted().withIndex("region", cart -> cart.getProperty("REGION", String.class));
+		assertTrue(type.isSorted());
+		assertTrue(type.hasIndex("region"));
+		assertFalse(CollectorType.sorted().hasIndex("region"));
+		assertFalse(type.withIndex("parity", cart -> cart.getKey() % 2).equals(type));
+		assertFalse(type.hasIndex("parity"));
+		var conveyor = conveyor("indexIsPartOfCollectorTypeTest");
+		var copy = conveyor.detach();
+		assertTrue(copy.getCollectorType().hasIndex("region"));
+		copy.stop();
+		conveyor.stop();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void indexNameMustBeUniqueTest() {
+		CollectorType.<Integer>hashed().withIndex("region", cart -> null).withIndex("region", cart -> null);
+	}
+
+}
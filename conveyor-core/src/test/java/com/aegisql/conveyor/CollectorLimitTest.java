@@ -0,0 +1,160 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CollectorLimitTest {
+
+	private final List<Integer> scrapped = Collections.synchronizedList(new ArrayList<>());
+
+	private AssemblingConveyor<Integer, String, User> conveyor(String name) {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName(name);
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+		conveyor.scrapConsumer(bin -> {
+			if (bin.failureType == FailureType.BUILD_EVICTED) {
+				scrapped.add(bin.key);
+			}
+		}).set();
+		return conveyor;
+	}
+
+	private static void place(AssemblingConveyor<Integer, String, User> conveyor, int key) {
+		assertTrue(conveyor.part().id(key).label("first").value("A").place().join());
+	}
+
+	@Test
+	public void oldestCreatedTest() {
+		var conveyor = conveyor("oldestCreatedTest");
+		ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+		conveyor.resultConsumer(counter).set();
+		conveyor.setMaxCollectorSize(5);
+		for (int i = 0; i < 10; i++) {
+			place(conveyor, i);
+		}
+		assertEquals(List.of(0, 1, 2, 3, 4), scrapped);
+		assertEquals(5, conveyor.getCollectorSize());
+		for (int i = 5; i < 10; i++) {
+			place(conveyor, i);
+		}
+		assertEquals(5, counter.get());
+		assertEquals(5, conveyor.getEvictedBuildCounter());
+		assertEquals(0, conveyor.getCollectorSize());
+		assertTrue(conveyor.completeAndStop().join());
+	}
+
+	@Test
+	public void leastRecentlyUpdatedTest() {
+		var conveyor = conveyor("leastRecentlyUpdatedTest");
+		conveyor.resultConsumer(bin -> {}).set();
+		conveyor.setEvictionPolicy(EvictionPolicy.LEAST_RECENTLY_UPDATED);
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 100);
+		conveyor.setMaxCollectorSize(3);
+		place(conveyor, 1);
+		place(conveyor, 2);
+		place(conveyor, 3);
+		place(conveyor, 1);
+		place(conveyor, 4);
+		assertEquals(List.of(2), scrapped);
+		for (int i = 0; i < 200; i++) {
+			place(conveyor, 1);
+			place(conveyor, 4);
+		}
+		place(conveyor, 5);
+		assertEquals(List.of(2, 3), scrapped);
+		assertEquals(3, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test
+	public void soonestExpiringTest() {
+		var conveyor = conveyor("soonestExpiringTest");
+		conveyor.resultConsumer(bin -> {}).set();
+		conveyor.setEvictionPolicy(EvictionPolicy.SOONEST_EXPIRING);
+		conveyor.setMaxCollectorSize(2);
+		conveyor.part().id(1).label("first").value("A").ttl(1, TimeUnit.HOURS).place().join();
+		conveyor.part().id(2).label("first").value("A").place().join();
+		conveyor.part().id(3).label("first").value("A").ttl(1, TimeUnit.MINUTES).place().join();
+		conveyor.part().id(4).label("first").value("A").ttl(2, TimeUnit.HOURS).place().join();
+		// key 3 expires first, but the site being processed is never evicted
+		assertEquals(List.of(1, 3), scrapped);
+		conveyor.stop();
+	}
+
+	@Test
+	public void maxBytesAndOverflowHandlerTest() throws Exception {
+		var conveyor = conveyor("maxBytesAndOverflowHandlerTest");
+		conveyor.resultConsumer(bin -> {}).set();
+		List<Integer> overflow = new ArrayList<>();
+		conveyor.setCollectorOverflowHandler(bin -> {
+			assertEquals(FailureType.BUILD_EVICTED, bin.failureType);
+			overflow.add(bin.key);
+		});
+		conveyor.setCollectorSizeEstimator(bs -> 100);
+		conveyor.setMaxCollectorBytes(250);
+		CompletableFuture<User> future = conveyor.future().id(1).get();
+		place(conveyor, 1);
+		place(conveyor, 2);
+		assertEquals(200, conveyor.getEstimatedCollectorBytes());
+		place(conveyor, 3);
+		assertEquals(List.of(1), overflow);
+		assertTrue(scrapped.isEmpty());
+		assertTrue(future.isCancelled());
+		assertEquals(200, conveyor.getEstimatedCollectorBytes());
+		place(conveyor, 2);
+		assertEquals(100, conveyor.getEstimatedCollectorBytes());
+
+		var server = ManagementFactory.getPlatformMBeanServer();
+		var objectName = new ObjectName("com.aegisql.conveyor:type=maxBytesAndOverflowHandlerTest");
+		assertEquals(1L, server.getAttribute(objectName, "EvictedBuildCounter"));
+		assertEquals(250L, server.getAttribute(objectName, "MaxCollectorBytes"));
+		assertEquals(100L, server.getAttribute(objectName, "EstimatedCollectorBytes"));
+		assertEquals(Integer.MAX_VALUE, server.getAttribute(objectName, "MaxCollectorSize"));
+		assertEquals("OLDEST_CREATED", server.getAttribute(objectName, "EvictionPolicy"));
+		conveyor.stop();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongMaxSizeTest() {
+		new AssemblingConveyor<>().setMaxCollectorSize(0);
+	}
+
+	@Test
+	public void cardinalitySpikeTest() {
+		var conveyor = conveyor("cardinalitySpikeTest");
+		ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+		conveyor.resultConsumer(counter).set();
+		conveyor.scrapConsumer(bin -> {}).set();
+		conveyor.setMaxCollectorSize(1000);
+		int n = 100_000;
+		CompletableFuture<Boolean> last = null;
+		for (int i = 0; i < n; i++) {
+			last = conveyor.part().id(i).label("first").value("A").place();
+			// every 10th key is completed right away
+			if (i % 10 == 0) {
+				conveyor.part().id(i).label("first").value("B").place();
+			}
+		}
+		assertTrue(last.join());
+		assertTrue(conveyor.getCollectorSize() <= 1000);
+		assertEquals(n / 10, counter.get());
+		assertEquals(n - n / 10 - conveyor.getCollectorSize(), conveyor.getEvictedBuildCounter());
+		conveyor.stop();
+	}
+
+}
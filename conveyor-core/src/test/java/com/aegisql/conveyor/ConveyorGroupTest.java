@@ -0,0 +1,236 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.consumers.result.ResultQueue;
+import com.aegisql.conveyor.consumers.scrap.ScrapCounter;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import com.aegisql.conveyor.utils.scalar.ScalarConvertingBuilder;
+import com.aegisql.conveyor.utils.scalar.ScalarConvertingConveyor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConveyorGroupTest {
+
+    @SuppressWarnings("unchecked")
+    private AssemblingConveyor<Integer, String, User> conveyor(ConveyorGroup group) {
+        AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>(Priority.DEFAULT, group);
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> {
+            UserBuilder userBuilder = (UserBuilder) builder;
+            switch (label) {
+                case "setFirst" -> userBuilder.setFirst((String) value);
+                case "setLast" -> userBuilder.setLast((String) value);
+                default -> userBuilder.setYearOfBirth((Integer) value);
+            }
+        });
+        conveyor.setReadinessEvaluator(Conveyor.getTesterFor(conveyor).accepted(3));
+        return conveyor;
+    }
+
+    @Test
+    public void manyConveyorsShareThreadsTest() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        ConveyorGroup group = new ConveyorGroup("manyConveyors", 2);
+        List<AssemblingConveyor<Integer, String, User>> conveyors = new ArrayList<>();
+        List<ResultQueue<Integer, User>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            var conveyor = conveyor(group);
+            var queue = ResultQueue.of(conveyor);
+            conveyor.resultConsumer(queue).set();
+            conveyors.add(conveyor);
+            results.add(queue);
+        }
+        assertEquals(200, group.getConveyors());
+        assertTrue(Thread.activeCount() - threadsBefore <= 2);
+        CompletableFuture<Boolean> last = null;
+        for (int id = 0; id < 10; id++) {
+            for (var conveyor : conveyors) {
+                conveyor.part().id(id).label("setFirst").value("F" + id).place();
+                conveyor.part().id(id).label("setLast").value("L" + id).place();
+                last = conveyor.part().id(id).label("setYearOfBirth").value(1900 + id).place();
+            }
+        }
+        assertTrue(last.get());
+        for (var conveyor : conveyors) {
+            assertTrue(conveyor.completeAndStop().get());
+        }
+        for (var queue : results) {
+            assertEquals(10, queue.size());
+            assertEquals("F0", queue.poll().getFirst());
+        }
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(0, group.getConveyors());
+        System.out.println(group + " steps=" + group.getSteps() + " wakeUps=" + group.getWakeUps());
+    }
+
+    @Test
+    public void expirationTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("expiration", 1);
+        var conveyor = conveyor(group);
+        conveyor.setIdleHeartBeat(10, TimeUnit.MILLISECONDS);
+        conveyor.setDefaultBuilderTimeout(50, TimeUnit.MILLISECONDS);
+        ScrapCounter<Integer> scrap = ScrapCounter.of(conveyor);
+        conveyor.scrapConsumer(scrap).set();
+        conveyor.resultConsumer(bin -> {}).set();
+        assertTrue(conveyor.part().id(1).label("setFirst").value("A").place().get());
+        assertEquals(1, conveyor.getCollectorSize());
+        Thread.sleep(150);
+        assertEquals(0, conveyor.getCollectorSize());
+        assertEquals(1, scrap.get());
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleConveyorsDoNotWakeUpTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("idle", 2);
+        for (int i = 0; i < 100; i++) {
+            conveyor(group).setIdleHeartBeat(10, TimeUnit.MILLISECONDS);
+        }
+        long wakeUps = group.getWakeUps();
+        Thread.sleep(200);
+        // 100 dedicated threads would wake up about 2000 times
+        assertTrue(group.getWakeUps() - wakeUps < 10);
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void scalarConvertingConveyorTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("scalar", 1);
+        ScalarConvertingConveyor<String, String, Integer> conveyor = new ScalarConvertingConveyor<>(group);
+        conveyor.setBuilderSupplier(() -> new ScalarConvertingBuilder<String, Integer>() {
+            @Override
+            public Integer get() {
+                return Integer.parseInt(scalar);
+            }
+        });
+        AtomicInteger sum = new AtomicInteger();
+        conveyor.resultConsumer(bin -> sum.addAndGet(bin.product)).set();
+        CompletableFuture<Boolean> last = null;
+        for (int i = 1; i <= 100; i++) {
+            last = conveyor.part().id("k" + i).value("" + i).place();
+        }
+        assertTrue(last.get());
+        assertTrue(conveyor.completeAndStop().get());
+        assertEquals(5050, sum.get());
+        assertSame(group, conveyor.getConveyorGroup());
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdownStopsConveyorsTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("shutdown", 1);
+        var conveyor = conveyor(group);
+        List<FailureType> scrap = new ArrayList<>();
+        conveyor.scrapConsumer(bin -> scrap.add(bin.failureType)).set();
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+        assertFalse(conveyor.isRunning());
+        assertTrue(conveyor.part().id(1).label("setFirst").value("A").place().isCompletedExceptionally());
+        assertEquals(List.of(FailureType.CART_REJECTED), scrap);
+    }
+
+    @Test
+    public void supersededTimersAreRemovedTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("supersededTimers", 1);
+        var conveyor = conveyor(group);
+        CompletableFuture<Boolean> last = null;
+        // every next build expires earlier, so each step replaces the timer of the conveyor
+        for (int i = 0; i < 1000; i++) {
+            last = conveyor.part().id(i).label("setFirst").value("F" + i).ttl(60_000 - i, TimeUnit.MILLISECONDS).place();
+            last.get();
+        }
+        assertTrue(last.get());
+        assertTrue(group.getTimers() < 50);
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void blockingPlacementOnEventLoopIsRejectedTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("blockingPlacement", 1);
+        var conveyor = conveyor(group);
+        AssemblingConveyor<Integer, String, User> target = new AssemblingConveyor<>(() -> new ArrayBlockingQueue(1), group);
+        target.setBuilderSupplier(UserBuilder::new);
+        target.setPlacementMode(PlacementMode.BLOCK);
+        target.suspend();
+        List<CompletableFuture<Boolean>> forwarded = new ArrayList<>();
+        conveyor.resultConsumer(bin -> forwarded.add(target.part().id(bin.key).label("setFirst").value(bin.product.getFirst()).place())).set();
+        for (int id = 1; id <= 2; id++) {
+            conveyor.part().id(id).label("setFirst").value("F").place();
+            conveyor.part().id(id).label("setLast").value("L").place();
+            assertTrue(conveyor.part().id(id).label("setYearOfBirth").value(2000).place().get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(2, forwarded.size());
+        assertFalse(forwarded.get(0).isDone());
+        assertTrue(forwarded.get(1).isCompletedExceptionally());
+        assertEquals(1, target.getRejectedCartCounter());
+        target.resume();
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotJoinAfterShutdownTest() {
+        ConveyorGroup group = new ConveyorGroup("closed", 1);
+        group.shutdown();
+        conveyor(group);
+    }
+
+    @Test
+    public void failedJoinLeavesNoTraceTest() {
+        ConveyorGroup group = new ConveyorGroup("failedJoin", 1);
+        group.shutdown();
+        try {
+            conveyor(group);
+            fail("Conveyor must not join the group after shutdown");
+        } catch (IllegalStateException e) {
+        }
+        assertEquals(0, group.getConveyors());
+        assertTrue(Conveyor.getKnownConveyorNames().stream().noneMatch(n -> n.startsWith("AssemblingConveyor failedJoin-")));
+    }
+
+    @Test
+    public void interruptIsIgnoredForGroupMembersTest() throws Exception {
+        ConveyorGroup group = new ConveyorGroup("interrupt", 1);
+        var conveyor = conveyor(group);
+        CountDownLatch entered = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> {
+            entered.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        var future = conveyor.part().id(1).label("setFirst").value("F").place();
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+        conveyor.interrupt(conveyor.getName());
+        assertTrue(future.get(1, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        group.shutdown();
+        assertTrue(group.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroThreadsTest() {
+        new ConveyorGroup("zero", 0);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.exception.ConveyorRuntimeException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.Assert.*;
+
+public class ConveyorThreadFactoryTest {
+
+    @Test
+    public void valueOfTest() {
+        assertSame(ConveyorThreadFactory.PLATFORM, ConveyorThreadFactory.valueOf("platform"));
+        assertSame(ConveyorThreadFactory.DAEMON, ConveyorThreadFactory.valueOf("DAEMON"));
+        assertNotNull(ConveyorThreadFactory.valueOf("VIRTUAL"));
+        if( ! ConveyorThreadFactory.isVirtualThreadSupported()) {
+            assertSame(ConveyorThreadFactory.PLATFORM, ConveyorThreadFactory.virtual());
+        }
+    }
+
+    @Test(expected = ConveyorRuntimeException.class)
+    public void valueOfFails() {
+        ConveyorThreadFactory.valueOf("GREEN");
+    }
+
+    @Test
+    public void conveyorUsesThreadFactoryTest() throws Exception {
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        ThreadFactory tf = r -> {
+            Thread t = ConveyorThreadFactory.DAEMON.newThread(r);
+            threads.add(t);
+            return t;
+        };
+        AssemblingConveyor<Integer, String, String> c = new AssemblingConveyor<>(Priority.DEFAULT, tf);
+        assertSame(tf, c.getThreadFactory());
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0).isDaemon());
+        assertEquals(c.getName(), threads.get(0).getName());
+        c.setBuilderSupplier(() -> () -> "test");
+        c.setDefaultCartConsumer((label, value, builder) -> {});
+        c.setReadinessEvaluator(Conveyor.getTesterFor(c).accepted(1));
+        assertTrue(c.part().id(1).label("A").value("a").place().get());
+
+        AssemblingConveyor<Integer, String, String> copy = c.detach();
+        assertSame(tf, copy.getThreadFactory());
+        assertEquals(2, threads.size());
+        c.stop();
+        copy.stop();
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.ShoppingCart;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventHistoryTest {
+
+	enum Step {
+		FIRST, SECOND, THIRD,
+		WITH_BODY {
+			@Override
+			public String toString() {
+				return "body";
+			}
+		}
+	}
+
+	@Test
+	public void enumHistoryTest() {
+		EventHistory<Step> history = new EventHistory<>();
+		assertTrue(history.isEmpty());
+		history.register(Step.THIRD);
+		history.increment(Step.FIRST);
+		history.increment(Step.FIRST);
+		history.register(Step.FIRST);
+		assertEquals(2, history.size());
+		assertEquals(Integer.valueOf(2), history.get(Step.FIRST));
+		assertEquals(Integer.valueOf(0), history.get(Step.THIRD));
+		assertNull(history.get(Step.SECOND));
+		assertFalse(history.containsKey(Step.SECOND));
+		assertFalse(history.containsKey("FIRST"));
+		assertFalse(history.containsKey(null));
+		// ordinal order, as in EnumMap
+		assertEquals(List.of(Step.FIRST, Step.THIRD), new ArrayList<>(history.keySet()));
+		assertEquals(Map.of(Step.FIRST, 2, Step.THIRD, 0), history);
+	}
+
+	@Test
+	public void linearHistoryTest() {
+		EventHistory<String> history = new EventHistory<>();
+		history.register("c");
+		history.increment("a");
+		history.increment(null);
+		history.increment("a");
+		assertEquals(Integer.valueOf(0), history.get("c"));
+		assertEquals(Integer.valueOf(2), history.get("a"));
+		assertEquals(Integer.valueOf(1), history.get(null));
+		// insertion order, as in LinkedHashMap
+		assertEquals(List.of("c", "a"), new ArrayList<>(history.keySet()).subList(0, 2));
+		assertEquals("{c=0, a=2, null=1}", history.toString());
+	}
+
+	@Test
+	public void switchToLinearHistoryTest() {
+		EventHistory<Object> history = new EventHistory<>();
+		history.increment(Step.SECOND);
+		history.increment(Step.FIRST);
+		history.increment(Step.SECOND);
+		history.increment("x");
+		history.increment(Step.WITH_BODY);
+		history.increment(Step.FIRST);
+		Map<Object,Integer> expected = new LinkedHashMap<>();
+		expected.put(Step.FIRST, 2);
+		expected.put(Step.SECOND, 2);
+		expected.put("x", 1);
+		expected.put(Step.WITH_BODY, 1);
+		assertEquals(expected, history);
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(history.keySet()));
+	}
+
+	@Test
+	public void indexedHistoryTest() {
+		EventHistory<Integer> history = new EventHistory<>();
+		Map<Integer,Integer> expected = new LinkedHashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			int label = (i * 7) % 100;
+			history.increment(label);
+			expected.merge(label, 1, Integer::sum);
+		}
+		assertEquals(expected, history);
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(history.keySet()));
+		history.reset();
+		assertTrue(history.isEmpty());
+		history.set(5, 3);
+		assertEquals(Map.of(5, 3), history);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void readOnlyTest() {
+		EventHistory<String> history = new EventHistory<>();
+		history.increment("a");
+		history.put("a", 2);
+	}
+
+	@Test
+	public void siteMementoTest() {
+		BuildingSite<Integer, Step, Cart<Integer,?,Step>, User> bs = site(new ShoppingCart<>(1, "v", Step.SECOND), false);
+		bs.accept(new ShoppingCart<>(1, "v", Step.FIRST));
+		bs.accept(new ShoppingCart<>(1, "v", Step.FIRST));
+		assertTrue(bs.getProperties().isEmpty());
+		assertTrue(bs.getAcceptedCarts().isEmpty());
+		bs.addProperty("P", 1);
+		var memento = bs.getMemento();
+		BuildingSite<Integer, Step, Cart<Integer,?,Step>, User> restored = site(new ShoppingCart<>(1, memento, Step.THIRD), false);
+		assertEquals(Map.of(Step.FIRST, 2, Step.SECOND, 0, Step.THIRD, 0), restored.getState().eventHistory);
+		assertEquals(Map.of("P", 1), restored.getProperties());
+		assertEquals(2, restored.getAcceptCount());
+	}
+
+	private static BuildingSite<Integer, Step, Cart<Integer,?,Step>, User> site(Cart<Integer,?,Step> cart, boolean saveCarts) {
+		return new BuildingSite<>(cart, UserBuilder::new, (label, value, builder) -> { }, (state, builder) -> false, null,
+				100, TimeUnit.MILLISECONDS, false, saveCarts, false, 0, false, null, null, null, null);
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@Test
+	public void bytesPerSiteTest() {
+		int n = 200_000;
+		// carts are retained by the sites anyway, so they are allocated outside of the measurement
+		List<Cart<Integer,?,Step>> first = new ArrayList<>(n);
+		List<Cart<Integer,?,Step>> second = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			first.add(new ShoppingCart<>(i, "v", Step.FIRST));
+			second.add(new ShoppingCart<>(i, "v", Step.SECOND));
+		}
+		List<BuildingSite<Integer, Step, Cart<Integer,?,Step>, User>> sites = new ArrayList<>(n);
+		long before = usedHeap();
+		for (int i = 0; i < n; i++) {
+			var bs = site(first.get(i), false);
+			bs.accept(first.get(i));
+			bs.accept(second.get(i));
+			sites.add(bs);
+		}
+		double bytesPerSite = (usedHeap() - before) / (double) n;
+		assertEquals(n, sites.size());
+		System.out.printf("Building site with two enum labels: %.1f bytes/site%n", bytesPerSite);
+	}
+
+}
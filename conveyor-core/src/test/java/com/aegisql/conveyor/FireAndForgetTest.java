@@ -0,0 +1,195 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.cart.AbstractCart;
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.ShoppingCart;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.consumers.scrap.ScrapConsumer;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fire and forget placement tests and benchmark.
+ * The benchmark compares the producer cost of place() and fire() of a part.
+ * Parts are placed into a suspended conveyor, the input queue is cleared after each invocation.
+ * The JUnit test runs a short in-process smoke run. For real numbers run main, it uses the annotated settings.
+ * Add -prof gc to the JMH command line to see the producer allocation per part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(FireAndForgetTest.PARTS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireAndForgetTest {
+
+    static final int PARTS = 10_000;
+
+    private AssemblingConveyor<Integer, String, User> benchmarkConveyor;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private AssemblingConveyor<Integer, String, User> conveyor(int queueSize) {
+        AssemblingConveyor<Integer, String, User> conveyor = queueSize > 0
+                ? new AssemblingConveyor<>(() -> new ArrayBlockingQueue(queueSize))
+                : new AssemblingConveyor<>();
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+        conveyor.setReadinessEvaluator((state, builder) -> true);
+        return conveyor;
+    }
+
+    @Test
+    public void fireBuildsProductsTest() {
+        var conveyor = conveyor(0);
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        for (int i = 0; i < 100; i++) {
+            conveyor.part().id(i).label("setFirst").value("A" + i).fire();
+        }
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(100, counter.get());
+        assertEquals(0, conveyor.getRejectedCartCounter());
+    }
+
+    @Test
+    public void placeAndForgetMarksCartUnobservedTest() {
+        var conveyor = conveyor(0);
+        conveyor.resultConsumer(bin -> {}).set();
+        ShoppingCart<Integer, String, String> cart = new ShoppingCart<>(1, "A", "setFirst");
+        conveyor.placeAndForget(cart);
+        assertTrue(conveyor.completeAndStop().join());
+        assertSame(AbstractCart.NEVER_OBSERVED, cart.getFuture());
+    }
+
+    @Test
+    public void fireFailuresGoToScrapTest() {
+        var conveyor = conveyor(2);
+        List<FailureType> scrap = new ArrayList<>();
+        conveyor.scrapConsumer(bin -> scrap.add(bin.failureType)).set();
+        conveyor.suspend();
+        conveyor.part().id(1).label("setFirst").value("A").fire();
+        conveyor.part().id(2).label("setFirst").value("B").fire();
+        conveyor.part().id(3).label("setFirst").value("C").fire();
+        conveyor.part().id(4).label("setFirst").value("D").fire();
+        assertEquals(List.of(FailureType.CART_REJECTED, FailureType.CART_REJECTED), scrap);
+        assertEquals(2, conveyor.getRejectedCartCounter());
+        conveyor.stop();
+    }
+
+    @Test
+    public void fireUsesCartScrapConsumerTest() {
+        var conveyor = conveyor(0);
+        List<String> cartScrap = new ArrayList<>();
+        conveyor.addCartBeforePlacementValidator(cart -> {
+            throw new IllegalArgumentException("rejected");
+        });
+        ShoppingCart<Integer, String, String> cart = new ShoppingCart<>(1, "A", "setFirst") {
+            @Override
+            public ScrapConsumer<Integer, Cart<Integer, String, String>> getScrapConsumer() {
+                return super.getScrapConsumer().andThen(bin -> cartScrap.add(bin.comment));
+            }
+        };
+        conveyor.placeAndForget(cart);
+        assertEquals(List.of("rejected"), cartScrap);
+        assertEquals(1, conveyor.getRejectedCartCounter());
+        conveyor.stop();
+    }
+
+    @Test
+    public void fireValidationFailureTest() {
+        var conveyor = conveyor(0);
+        List<String> scrap = new ArrayList<>();
+        conveyor.scrapConsumer(bin -> scrap.add(bin.comment)).set();
+        conveyor.addCartBeforePlacementValidator(cart -> {
+            if (cart.getKey() < 0) {
+                throw new IllegalArgumentException("negative key");
+            }
+        });
+        conveyor.part().id(-1).label("setFirst").value("A").fire();
+        assertEquals(List.of("negative key"), scrap);
+        assertEquals(1, conveyor.getRejectedCartCounter());
+        conveyor.stop();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        benchmarkConveyor = conveyor(0);
+        benchmarkConveyor.suspend();
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearInputQueue() {
+        benchmarkConveyor.inQueue.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        benchmarkConveyor.stop();
+    }
+
+    @Benchmark
+    public void place(Blackhole blackhole) {
+        for (int i = 0; i < PARTS; i++) {
+            blackhole.consume(benchmarkConveyor.part().id(i).label("setFirst").value("A").place());
+        }
+    }
+
+    @Benchmark
+    public void fire() {
+        for (int i = 0; i < PARTS; i++) {
+            benchmarkConveyor.part().id(i).label("setFirst").value("A").fire();
+        }
+    }
+
+    @Test
+    public void placeVsFireBenchmarkSmokeTest() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FireAndForgetTest.class.getName() + "\\.")
+                .forks(0)
+                .warmupIterations(1)
+                .warmupTime(TimeValue.milliseconds(100))
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(200))
+                .shouldFailOnError(true)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        assertEquals(2, results.size());
+        results.forEach(r -> assertTrue(r.getPrimaryResult().getScore() > 0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FireAndForgetTest.class.getName() + "\\.").build()).run();
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.user.UserBuilderEvents;
+import com.aegisql.conveyor.user.UserBuilderSmart;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LabelDispatcherTest {
+
+    enum Color { RED, GREEN, BLUE }
+
+    @Test
+    public void whenChainIsCompiledTest() {
+        List<String> out = new ArrayList<>();
+        LabeledValueConsumer<String, Integer, List<String>> lvc = (l, v, b) -> b.add("fallback:" + l);
+        lvc = lvc
+                .<Integer>when("a", (b, v) -> b.add("a" + v))
+                .when("b", v -> out.add("b" + v))
+                .when("c", () -> out.add("c"))
+                .<Integer>when("a", (b, v) -> b.add("A" + v))
+                .ignore("d");
+        assertTrue(lvc instanceof LabelDispatcher);
+        assertEquals(Set.of("a", "b", "c", "d"), ((LabelDispatcher<String, Integer, List<String>>) lvc).labels());
+        lvc.accept("a", 1, out);
+        lvc.accept("b", 2, out);
+        lvc.accept("c", 3, out);
+        lvc.accept("d", 4, out);
+        lvc.accept("e", 5, out);
+        lvc.accept(null, 6, out);
+        assertEquals(List.of("A1", "b2", "c", "fallback:e", "fallback:null"), out);
+    }
+
+    @Test
+    public void filterInTheMiddleKeepsOrderTest() {
+        List<String> out = new ArrayList<>();
+        LabeledValueConsumer<String, Integer, List<String>> lvc = (l, v, b) -> b.add("fallback");
+        lvc = lvc
+                .<Integer>when("a", (b, v) -> b.add("inner a"))
+                .<Integer>filter(l -> l.startsWith("a"), (b, v) -> b.add("filter"))
+                .<Integer>when("ab", (b, v) -> b.add("outer ab"));
+        lvc.accept("a", 1, out);
+        lvc.accept("ab", 1, out);
+        lvc.accept("x", 1, out);
+        assertEquals(List.of("filter", "outer ab", "fallback"), out);
+    }
+
+    @Test
+    public void enumLabelsTest() {
+        List<String> out = new ArrayList<>();
+        LabeledValueConsumer<Object, Integer, List<String>> lvc = (l, v, b) -> b.add("fallback");
+        lvc = lvc
+                .when(Color.RED, () -> out.add("red"))
+                .when(Color.BLUE, () -> out.add("blue"))
+                .when(TimeUnit.SECONDS, () -> out.add("seconds"))
+                .when("GREEN", () -> out.add("green string"));
+        lvc.accept(Color.RED, 0, out);
+        lvc.accept(Color.GREEN, 0, out);
+        lvc.accept(Color.BLUE, 0, out);
+        lvc.accept(TimeUnit.SECONDS, 0, out);
+        lvc.accept("GREEN", 0, out);
+        assertEquals(List.of("red", "fallback", "blue", "seconds", "green string"), out);
+    }
+
+    @Test
+    public void smartLabelEnumTest() {
+        LabelDispatcher<UserBuilderEvents, Object, UserBuilderSmart> dispatcher = LabelDispatcher.of(UserBuilderEvents.class,
+                (l, v, b) -> fail("unexpected " + l));
+        assertEquals(Set.of(UserBuilderEvents.values()), dispatcher.labels());
+        UserBuilderSmart builder = new UserBuilderSmart();
+        dispatcher.accept(UserBuilderEvents.SET_FIRST, "John", builder);
+        dispatcher.accept(UserBuilderEvents.SET_LAST, "Doe", builder);
+        dispatcher.accept(UserBuilderEvents.SET_YEAR, 1999, builder);
+        assertEquals("John", builder.get().getFirst());
+        assertEquals("Doe", builder.get().getLast());
+        assertEquals(1999, builder.get().getYearOfBirth());
+    }
+
+    @Test
+    public void dispatchPerformanceTest() {
+        int labels = 50;
+        int[] counter = new int[1];
+        LabeledValueConsumer<String, Integer, int[]> fallback = (l, v, b) -> {};
+        LabeledValueConsumer<String, Integer, int[]> chain = fallback;
+        LabeledValueConsumer<String, Integer, int[]> compiled = fallback;
+        String[] names = new String[labels];
+        for (int i = 0; i < labels; i++) {
+            String label = "label" + i;
+            names[i] = label;
+            chain = chain.<Integer>filter(l -> l.equals(label), (b, v) -> b[0] += v);
+            compiled = compiled.<Integer>when(label, (b, v) -> b[0] += v);
+        }
+        int n = 2_000_000;
+        for (int i = 0; i < n / 10; i++) {
+            chain.accept(names[i % labels], 1, counter);
+            compiled.accept(names[i % labels], 1, counter);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            chain.accept(names[i % labels], 1, counter);
+        }
+        long chainTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            compiled.accept(names[i % labels], 1, counter);
+        }
+        long compiledTime = System.nanoTime() - start;
+        System.out.printf("%d labels. chain: %.1f ns/label compiled: %.1f ns/label%n", labels,
+                chainTime / (double) n, compiledTime / (double) n);
+        assertEquals(2 * (n + n / 10), counter[0]);
+    }
+
+}
@@ -1,65 +1,153 @@
 package com.aegisql.conveyor;
 
 import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
+/**
+ * Conveyor lookup benchmark.
+ * Compares the registry lookup of Conveyor.byName with a plain HashMap and with the JMX server.
+ * The JUnit test runs a short in-process smoke run. For real numbers run main, it uses the annotated settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
 public class LookupPerformanceTest {
 
-    private static final int TESTS = 10_000_000;
+    private static final int CONVEYORS = 10;
 
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
 
-    @Test
-    public void hashTablePerfTest() {
-        Map<String, Conveyor<Integer, String, String>> conveyors = createConveyors("FOR_HASH_TABLE_");
-
-        long start = System.currentTimeMillis();
-        for(int i = 0; i < TESTS; i++) {
-            for(String name: conveyors.keySet()) {
-                if(conveyors.containsKey(name)) {
-                    Conveyor<Integer, String, String> c = conveyors.get(name);
-                    assertNotNull(c);
-                    assertTrue(c.isRunning());
-                } else {
-                    fail("Expected conveyors!");
-                }
-            }
+    private final List<AssemblingConveyor<Integer, String, String>> created = new ArrayList<>();
+
+    private final Map<String, Conveyor> hashTable = new HashMap<>();
+
+    private String[] names;
+
+    private ObjectName[] objectNames;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        names = new String[CONVEYORS];
+        objectNames = new ObjectName[CONVEYORS];
+        for (int i = 0; i < CONVEYORS; i++) {
+            AssemblingConveyor<Integer, String, String> c = new AssemblingConveyor<>();
+            c.setName("LOOKUP_BENCHMARK_" + (i + 1));
+            created.add(c);
+            hashTable.put(c.getName(), c);
+            names[i] = c.getName();
+            objectNames[i] = new ObjectName("com.aegisql.conveyor:type=" + c.getName());
         }
-        long end = System.currentTimeMillis();
-        System.out.println("hashTablePerfTest "+(end-start)/1000.0+"s");
     }
 
-    @Test
-    public void jmxLookupPerfTest() {
-        Map<String, Conveyor<Integer, String, String>> conveyors = createConveyors("FOR_JMX_SERVER_");
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        created.forEach(Conveyor::stop);
+        created.forEach(Conveyor::unRegister);
+        created.clear();
+        hashTable.clear();
+    }
+
+    private String nextName() {
+        return names[next++ % CONVEYORS];
+    }
+
+    @Benchmark
+    public Conveyor hashTableLookup() {
+        return hashTable.get(nextName());
+    }
 
-        long start = System.currentTimeMillis();
-        for(int i = 0; i < TESTS; i++) {
-            for(String name: conveyors.keySet()) {
+    @Benchmark
+    public Conveyor registryLookup() {
+        return Conveyor.byName(nextName());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Conveyor registryLookupContended() {
+        return Conveyor.byName(names[(int) (Thread.currentThread().getId() % CONVEYORS)]);
+    }
+
+    @Benchmark
+    public Conveyor jmxLookup() throws Exception {
+        return (Conveyor) mBeanServer.invoke(objectNames[next++ % CONVEYORS], "conveyor", null, null);
+    }
+
+    @Test
+    public void lookupTest() throws Exception {
+        setUp();
+        try {
+            for (String name : names) {
                 Conveyor c = Conveyor.byName(name);
-                assertNotNull(c);
+                assertSame(hashTable.get(name), c);
+                assertSame(c, jmxLookup());
                 assertTrue(c.isRunning());
             }
+            assertTrue(Conveyor.getKnownConveyorNames().containsAll(hashTable.keySet()));
+        } finally {
+            tearDown();
+        }
+        for (String name : names) {
+            try {
+                Conveyor.byName(name);
+                fail("Unregistered conveyor must not be found");
+            } catch (RuntimeException e) {
+            }
         }
-        long end = System.currentTimeMillis();
-        System.out.println("jmxLookupPerfTest "+(end-start)/1000.0+"s");
     }
 
-    private Map<String,Conveyor<Integer,String,String>> createConveyors(String namePrefix) {
-        Map<String, Conveyor<Integer, String, String>> conveyors = new HashMap<>();
-
-        int CONVEYORS = 10;
-        for(int i = 0; i < CONVEYORS; i++) {
-            AssemblingConveyor<Integer,String,String> c = new AssemblingConveyor<>();
-            c.setName(namePrefix+(i+1));
-            conveyors.put(c.getName(),c);
-            assertNotNull(Conveyor.byName(c.getName()));
-        }
+    @Test
+    public void lookupBenchmarkSmokeTest() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LookupPerformanceTest.class.getName() + "\\.")
+                .forks(0)
+                .warmupIterations(1)
+                .warmupTime(TimeValue.milliseconds(100))
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(200))
+                .shouldFailOnError(true)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        assertEquals(4, results.size());
+        results.forEach(r -> assertTrue(r.getPrimaryResult().getScore() > 0));
+    }
 
-        return conveyors;
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LookupPerformanceTest.class.getName() + "\\.").build()).run();
     }
 
 }
@@ -309,4 +309,29 @@ public class PrioritySupplierTest {
         assertNotNull(Priority.valueOf("superimportantfirst"));
     }
 
+    @Test
+    public void testRingBufferWithConveyor() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 1000;
+        SimpleConveyor<Integer,A> c = new SimpleConveyor(Priority.ringBuffer(producers*perProducer),ABuilder::new);
+        ResultQueue<Integer, A> results = ResultQueue.of(c);
+        c.resultConsumer(results).set();
+        c.setReadinessEvaluator(Conveyor.getTesterFor(c).accepted("val"));
+        Thread[] threads = new Thread[producers];
+        for(int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(()->{
+                for(int i = 0; i < perProducer; i++) {
+                    c.part().id(base+i).label("val").value("v"+(base+i)).place();
+                }
+            });
+            threads[p].start();
+        }
+        for(Thread t:threads) {
+            t.join();
+        }
+        c.completeAndStop().join();
+        assertEquals(producers*perProducer,results.size());
+    }
+
 }
\ No newline at end of file
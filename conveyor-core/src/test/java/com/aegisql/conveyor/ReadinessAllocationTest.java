@@ -0,0 +1,81 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.ShoppingCart;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ReadinessAllocationTest {
+
+    private static final int PARTS = 20;
+    private static final int WARM_UP = 200_000;
+    private static final int TESTS = 2_000_000;
+
+    private static long allocatedBytes() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private BuildingSite<Integer, String, Cart<Integer, ?, String>, User> site(BiPredicate<State<Integer, String>, Supplier<? extends User>> readiness) {
+        Cart<Integer, String, String> first = new ShoppingCart<>(1, "v0", "l0", 1, TimeUnit.HOURS);
+        BuildingSite<Integer, String, Cart<Integer, ?, String>, User> bs = new BuildingSite<>(
+                first,
+                UserBuilder::new,
+                (label, value, builder) -> { },
+                readiness,
+                null,
+                1, TimeUnit.HOURS, false, false, false, 0, false, null, null, null, null);
+        for (int i = 0; i < PARTS; i++) {
+            bs.accept(new ShoppingCart<>(1, "v" + i, "l" + i, 1, TimeUnit.HOURS));
+        }
+        return bs;
+    }
+
+    @Test
+    public void readinessAllocationTest() {
+        Assume.assumeTrue(allocatedBytes() >= 0);
+        ReadinessTester<Integer, String, User> readiness = new ReadinessTester<Integer, String, User>().accepted("l" + (PARTS - 1), 2);
+        var bs = site(readiness);
+
+        // before: every test materializes a state snapshot
+        for (int i = 0; i < WARM_UP; i++) {
+            assertFalse(readiness.test(bs.getState(), null));
+        }
+        long start = allocatedBytes();
+        long time = System.nanoTime();
+        for (int i = 0; i < TESTS; i++) {
+            readiness.test(bs.getState(), null);
+        }
+        long snapshotTime = System.nanoTime() - time;
+        double snapshotBytes = (allocatedBytes() - start) / (double) TESTS;
+
+        // after: ready() uses the live read only views
+        for (int i = 0; i < WARM_UP; i++) {
+            assertFalse(bs.ready());
+        }
+        start = allocatedBytes();
+        time = System.nanoTime();
+        for (int i = 0; i < TESTS; i++) {
+            bs.ready();
+        }
+        long viewTime = System.nanoTime() - time;
+        double viewBytes = (allocatedBytes() - start) / (double) TESTS;
+
+        System.out.printf("State snapshot: %.1f bytes/test %.1f ns/test%n", snapshotBytes, snapshotTime / (double) TESTS);
+        System.out.printf("State view:     %.1f bytes/test %.1f ns/test%n", viewBytes, viewTime / (double) TESTS);
+        assertTrue(viewBytes * 10 < snapshotBytes);
+    }
+
+}
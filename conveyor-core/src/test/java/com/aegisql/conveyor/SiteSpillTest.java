@@ -0,0 +1,166 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SiteSpillTest {
+
+	public static class PayloadBuilder implements Supplier<String>, Serializable {
+		@Serial
+		private static final long serialVersionUID = 1L;
+		private final byte[] payload = new byte[10_000];
+		private String first;
+		private String second;
+		@Override
+		public String get() {
+			return first + " " + second + " " + payload.length;
+		}
+	}
+
+	private final List<Integer> scrapped = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+	private AssemblingConveyor<Integer, String, String> conveyor(String name) throws Exception {
+		AssemblingConveyor<Integer, String, String> conveyor = new AssemblingConveyor<>();
+		conveyor.setName(name);
+		conveyor.setBuilderSupplier(PayloadBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> {
+			var b = (PayloadBuilder) builder;
+			if ("first".equals(label)) {
+				b.first = (String) value;
+			} else {
+				b.second = (String) value;
+			}
+		});
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+		conveyor.resultConsumer(bin -> results.add(bin.product)).set();
+		conveyor.scrapConsumer(bin -> {
+			if (bin.failureType == FailureType.BUILD_EXPIRED) {
+				scrapped.add(bin.key);
+			}
+		}).set();
+		conveyor.setSpillFile(Files.createTempFile(name, ".spill"));
+		conveyor.setSpillHeapThreshold(0);
+		conveyor.setSpillIdleTime(0, TimeUnit.MILLISECONDS);
+		return conveyor;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while ( ! condition.getAsBoolean()) {
+			assertTrue("Timeout", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+		}
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	@Test
+	public void spillAndFaultInTest() throws Exception {
+		var conveyor = conveyor("spillAndFaultInTest");
+		Path path = conveyor.getSpillFile();
+		int n = 1000;
+		CompletableFuture<String> future = conveyor.future().id(-1).get();
+		conveyor.part().id(-1).label("first").value("F").place().join();
+		for (int i = 0; i < n; i++) {
+			conveyor.part().id(i).label("first").value("A" + i).place();
+		}
+		assertTrue(conveyor.part().id(n).label("first").value("A").place().join());
+		long heapBefore = usedHeap();
+		Thread.sleep(1100);
+		// next cart wakes up the conveyor
+		conveyor.part().id(n + 1).label("first").value("A").place().join();
+		await(() -> conveyor.getSpilledBuildCount() == n + 2);
+		long heapAfter = usedHeap();
+		System.out.println("Heap with " + (n + 2) + " builds on heap " + heapBefore + " spilled " + heapAfter
+				+ " spill bytes " + conveyor.getSpilledBytes());
+		// build with the future stays on heap
+		assertEquals(1, conveyor.getCollectorSize());
+		assertTrue(conveyor.getSpilledBytes() > (n + 2) * 10_000L);
+
+		var server = ManagementFactory.getPlatformMBeanServer();
+		var objectName = new ObjectName("com.aegisql.conveyor:type=spillAndFaultInTest");
+		assertEquals(n + 2, server.getAttribute(objectName, "SpilledBuildCount"));
+		assertEquals(path.toString(), server.getAttribute(objectName, "SpillFile"));
+
+		for (int i = 0; i < n; i++) {
+			conveyor.part().id(i).label("second").value("B" + i).place();
+		}
+		assertTrue(conveyor.part().id(-1).label("second").value("S").place().join());
+		assertEquals("F S 10000", future.join());
+		await(() -> results.size() == n + 1);
+		for (int i = 0; i < n; i++) {
+			assertTrue(results.contains("A" + i + " B" + i + " 10000"));
+		}
+		assertEquals(2, conveyor.getSpilledBuildCount());
+		assertEquals(0, conveyor.getCollectorSize());
+		conveyor.part().id(n).label("second").value("B").place();
+		assertTrue(conveyor.part().id(n + 1).label("second").value("B").place().join());
+		assertTrue(conveyor.completeAndStop().join());
+		assertEquals(n + 3, results.size());
+		assertEquals(0, conveyor.getSpilledBuildCount());
+		// file is deleted when the conveyor thread leaves
+		await(() -> ! Files.exists(path));
+	}
+
+	@Test
+	public void spilledBuildExpiresTest() throws Exception {
+		var conveyor = conveyor("spilledBuildExpiresTest");
+		conveyor.part().id(1).label("first").value("A").ttl(1500, TimeUnit.MILLISECONDS).place().join();
+		conveyor.part().id(2).label("first").value("A").ttl(1500, TimeUnit.MILLISECONDS).place().join();
+		await(() -> conveyor.getSpilledBuildCount() == 1);
+		Thread.sleep(1100);
+		conveyor.part().id(3).label("first").value("A").place().join();
+		await(() -> conveyor.getSpilledBuildCount() == 3);
+		await(() -> scrapped.size() == 2);
+		assertTrue(scrapped.containsAll(List.of(1, 2)));
+		// scrap consumer runs before the expired build leaves the collector
+		await(() -> conveyor.getSpilledBuildCount() == 1);
+		await(() -> conveyor.getCollectorSize() == 0);
+		conveyor.stop();
+		// spilled builds are drained when the conveyor thread leaves
+		await(() -> conveyor.getSpilledBuildCount() == 0);
+	}
+
+	@Test
+	public void commandFaultsInTest() throws Exception {
+		var conveyor = conveyor("commandFaultsInTest");
+		conveyor.part().id(1).label("first").value("A").place().join();
+		await(() -> conveyor.getSpilledBuildCount() == 1);
+		List<String> peeked = new ArrayList<>();
+		assertTrue(conveyor.command().id(1).peek(bin -> peeked.add(bin.product)).join());
+		assertEquals(List.of("A null 10000"), peeked);
+		assertEquals(0, conveyor.getSpilledBuildCount());
+		assertEquals(1, conveyor.getCollectorSize());
+		assertTrue(conveyor.command().id(1).cancel().join());
+		assertEquals(0, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongThresholdTest() {
+		new AssemblingConveyor<>().setSpillHeapThreshold(1.5);
+	}
+
+}
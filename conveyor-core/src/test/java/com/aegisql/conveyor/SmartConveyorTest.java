@@ -132,7 +132,7 @@ public class SmartConveyorTest {
 		Cart<Integer, Integer, UserBuilderEvents> c3 = new ShoppingCart<>(1, 1999, UserBuilderEvents.SET_YEAR);
 
 		conveyor.place(c1);
-		conveyor.place(c2);
+		conveyor.place(c2).get();
 		User u0 = outMap.get(1);
 		assertNull(u0);
 		conveyor.command().id(1).ttl(10, TimeUnit.SECONDS).reschedule();
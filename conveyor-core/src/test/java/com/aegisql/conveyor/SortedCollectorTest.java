@@ -0,0 +1,155 @@
+package com.aegisql.conveyor;
+
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SortedCollectorTest {
+
+	private final List<Long> results = Collections.synchronizedList(new ArrayList<>());
+
+	private AssemblingConveyor<Long, String, User> conveyor(String name, boolean sorted) {
+		return conveyor(name, sorted ? CollectorType.sorted() : CollectorType.hashed());
+	}
+
+	@SuppressWarnings("unchecked")
+	private AssemblingConveyor<Long, String, User> conveyor(String name, CollectorType<Long> collectorType) {
+		return conveyor(name, new AssemblingConveyor<>(Priority.DEFAULT, collectorType));
+	}
+
+	private AssemblingConveyor<Long, String, User> conveyor(String name, AssemblingConveyor<Long, String, User> conveyor) {
+		conveyor.setName(name);
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> {
+			if ("first".equals(label)) {
+				((UserBuilder) builder).setFirst((String) value);
+			} else {
+				((UserBuilder) builder).setLast((String) value);
+			}
+		});
+		conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+		conveyor.resultConsumer(bin -> results.add(bin.key)).set();
+		conveyor.scrapConsumer(bin -> {}).set();
+		return conveyor;
+	}
+
+	private static void open(AssemblingConveyor<Long, String, User> conveyor, int n) {
+		for (long i = 0; i < n - 1; i++) {
+			conveyor.part().id(i).label("first").value("F").place();
+		}
+		assertTrue(conveyor.part().id(n - 1L).label("first").value("F").place().join());
+	}
+
+	@Test
+	public void keyRangeTest() {
+		KeyRange<Long> range = KeyRange.of(10L, 20L);
+		assertTrue(range.test(10L));
+		assertTrue(range.test(19L));
+		assertFalse(range.test(20L));
+		assertFalse(range.test(9L));
+		assertTrue(KeyRange.below(5L).test(Long.MIN_VALUE));
+		assertFalse(KeyRange.below(5L).test(5L));
+		assertTrue(KeyRange.from(5L).test(Long.MAX_VALUE));
+		assertFalse(KeyRange.from(5L).test(4L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void notComparableBoundTest() {
+		KeyRange.of(new Object(), null);
+	}
+
+	@Test
+	public void rangePartTest() {
+		var conveyor = conveyor("rangePartTest", true);
+		assertTrue(conveyor.isSortedCollector());
+		open(conveyor, 1000);
+		assertTrue(conveyor.part().range(100L, 200L).label("last").value("L").place().join());
+		assertEquals(100, results.size());
+		assertTrue(results.stream().allMatch(k -> k >= 100 && k < 200));
+		assertEquals(900, conveyor.getCollectorSize());
+		// empty range
+		assertTrue(conveyor.part().range(500L, 500L).label("last").value("L").place().join());
+		assertTrue(conveyor.part().range(600L, 500L).label("last").value("L").place().join());
+		assertEquals(900, conveyor.getCollectorSize());
+		assertTrue(conveyor.part().range(900L, null).label("last").value("L").place().join());
+		assertEquals(800, conveyor.getCollectorSize());
+		conveyor.stop();
+	}
+
+	@Test
+	public void rangeCommandTest() {
+		var conveyor = conveyor("rangeCommandTest", true);
+		open(conveyor, 1000);
+		assertTrue(conveyor.command().range(null, 500L).cancel().join());
+		assertEquals(500, conveyor.getCollectorSize());
+		assertTrue(conveyor.command().foreach().range(500L, 600L).cancel().join());
+		assertEquals(400, conveyor.getCollectorSize());
+		List<Long> peeked = new ArrayList<>();
+		assertTrue(conveyor.command().range(990L, null).peek(bin -> peeked.add(bin.key)).join());
+		assertEquals(10, peeked.size());
+		conveyor.stop();
+	}
+
+	@Test
+	public void rangeInUnsortedCollectorTest() {
+		var conveyor = conveyor("rangeInUnsortedCollectorTest", CollectorType.keyType(Long.class));
+		assertFalse(conveyor.isSortedCollector());
+		open(conveyor, 1000);
+		assertTrue(conveyor.command().range(null, 500L).cancel().join());
+		assertEquals(500, conveyor.getCollectorSize());
+		assertTrue(conveyor.part().range(500L, 600L).label("last").value("L").place().join());
+		assertEquals(100, results.size());
+		conveyor.stop();
+	}
+
+	@Test
+	public void rangeScanComparisonTest() {
+		int n = 200_000;
+		for (boolean sorted : new boolean[] {false, true}) {
+			var conveyor = conveyor("rangeScanComparisonTest" + sorted, sorted);
+			conveyor.setReadinessEvaluator((state, builder) -> false);
+			open(conveyor, n);
+			long t1 = System.nanoTime();
+			for (long i = 0; i < 10; i++) {
+				conveyor.part().range(i * 10, i * 10 + 10).label("last").value("L").place().join();
+			}
+			long t2 = System.nanoTime();
+			System.out.println("10 range broadcasts to 10 of " + n + " builds. sorted=" + sorted + " "
+					+ TimeUnit.NANOSECONDS.toMillis(t2 - t1) + " ms");
+			conveyor.stop();
+		}
+	}
+
+	@Test
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void existingBuildsFirstTest() throws InterruptedException {
+		var conveyor = conveyor("existingBuildsFirstSortedTest", new AssemblingConveyor<Long, String, User>((Supplier) Priority.EXISTING_BUILDS_FIRST, CollectorType.sorted()));
+		assertSame(CollectorType.sorted(), conveyor.getCollectorType());
+		// producers test open keys while the conveyor thread rebalances the tree
+		Thread[] producers = new Thread[4];
+		for (int t = 0; t < producers.length; t++) {
+			final long base = t * 10_000L;
+			producers[t] = new Thread(() -> {
+				for (long i = 0; i < 10_000; i++) {
+					conveyor.part().id(base + i).label("first").value("F").place();
+					conveyor.part().id(base + i).label("last").value("L").place();
+				}
+			});
+			producers[t].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertTrue(conveyor.completeAndStop().join());
+		assertEquals(40_000, results.size());
+	}
+
+}
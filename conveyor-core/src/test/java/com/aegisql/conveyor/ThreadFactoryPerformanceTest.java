@@ -0,0 +1,60 @@
+package com.aegisql.conveyor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.Assert.*;
+
+public class ThreadFactoryPerformanceTest {
+
+    private static final int CONVEYORS = 1000;
+
+    private static final int PARTS = 100;
+
+    private void runTest(String name, ThreadFactory threadFactory) {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        long memBefore = rt.totalMemory() - rt.freeMemory();
+        int threadsBefore = Thread.activeCount();
+        long start = System.currentTimeMillis();
+        List<AssemblingConveyor<Integer, String, String>> conveyors = new ArrayList<>();
+        for(int i = 0; i < CONVEYORS; i++) {
+            AssemblingConveyor<Integer, String, String> c = new AssemblingConveyor<>(Priority.DEFAULT, threadFactory);
+            c.setBuilderSupplier(() -> () -> "test");
+            c.setDefaultCartConsumer((label, value, builder) -> {});
+            c.setReadinessEvaluator(Conveyor.getTesterFor(c).accepted(1));
+            conveyors.add(c);
+        }
+        long created = System.currentTimeMillis();
+        long memAfter = rt.totalMemory() - rt.freeMemory();
+        int threadsAfter = Thread.activeCount();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for(int j = 0; j < PARTS; j++) {
+            for(AssemblingConveyor<Integer, String, String> c:conveyors) {
+                futures.add(c.part().id(j).label("A").value("a").place());
+            }
+        }
+        futures.forEach(f -> assertTrue(f.join()));
+        long end = System.currentTimeMillis();
+        conveyors.forEach(Conveyor::stop);
+        System.out.println(name + " conveyors=" + CONVEYORS + " create " + (created - start) / 1000.0 + "s"
+                + " heap +" + (memAfter - memBefore) / 1024 + "KB"
+                + " platform threads +" + (threadsAfter - threadsBefore)
+                + " throughput " + (CONVEYORS * PARTS * 1000L / Math.max(1, end - created)) + " parts/s");
+    }
+
+    @Test
+    public void platformThreadsPerfTest() {
+        runTest("PLATFORM", ConveyorThreadFactory.PLATFORM);
+    }
+
+    @Test
+    public void virtualThreadsPerfTest() {
+        runTest(ConveyorThreadFactory.isVirtualThreadSupported() ? "VIRTUAL" : "VIRTUAL(not supported, PLATFORM)", ConveyorThreadFactory.virtual());
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.exception.ConveyorRuntimeException;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class AsyncResultTest {
+
+	@Test
+	public void perKeyOrderTest() throws InterruptedException {
+		Map<Integer, List<Integer>> delivered = new ConcurrentHashMap<>();
+		AsyncResult<Integer, Integer> async = AsyncResult.of(bin -> delivered
+				.computeIfAbsent(bin.key, k -> Collections.synchronizedList(new ArrayList<>()))
+				.add(bin.product), 4, 16, AsyncResult.Overflow.BLOCK);
+		for (int i = 0; i < 10_000; i++) {
+			async.accept(ResultConsumerTest.getProductBin(i % 10, i));
+		}
+		assertTrue(async.awaitDelivery(10, TimeUnit.SECONDS));
+		assertEquals(10_000, async.getDelivered());
+		assertEquals(0, async.getPending());
+		assertEquals(10, delivered.size());
+		delivered.forEach((k, list) -> {
+			assertEquals(1000, list.size());
+			for (int i = 1; i < list.size(); i++) {
+				assertTrue(list.get(i - 1) < list.get(i));
+			}
+		});
+		assertTrue(async.getMaxLatencyNanos() >= async.getAverageLatencyNanos());
+		System.out.println(async);
+		async.close();
+		assertTrue(async.isClosed());
+	}
+
+	@Test
+	public void discardTest() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		AsyncResult<Integer, Integer> async = AsyncResult.of(bin -> {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, 1, 2, AsyncResult.Overflow.DISCARD);
+		for (int i = 0; i < 10; i++) {
+			async.accept(ResultConsumerTest.getProductBin(1, i));
+		}
+		latch.countDown();
+		assertTrue(async.awaitDelivery(10, TimeUnit.SECONDS));
+		assertTrue(async.getDiscarded() >= 7);
+		assertEquals(10, async.getDelivered() + async.getDiscarded());
+		async.close();
+	}
+
+	@Test(expected = ConveyorRuntimeException.class)
+	public void closedTest() {
+		AsyncResult<Integer, Integer> async = AsyncResult.of(bin -> {});
+		async.close();
+		async.accept(ResultConsumerTest.getProductBin(1, 1));
+	}
+
+	@Test
+	public void acceptRacingCloseTest() throws Exception {
+		for (int run = 0; run < 20; run++) {
+			AtomicInteger delivered = new AtomicInteger();
+			AtomicInteger rejected = new AtomicInteger();
+			AsyncResult<Integer, Integer> async = AsyncResult.of(bin -> delivered.incrementAndGet(), 4, 8, AsyncResult.Overflow.BLOCK);
+			CountDownLatch start = new CountDownLatch(1);
+			List<Thread> producers = new ArrayList<>();
+			for (int p = 0; p < 4; p++) {
+				int key = p;
+				Thread producer = new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < 1000; i++) {
+						try {
+							async.accept(ResultConsumerTest.getProductBin(key, i));
+						} catch (ConveyorRuntimeException e) {
+							rejected.incrementAndGet();
+						}
+					}
+				});
+				producer.start();
+				producers.add(producer);
+			}
+			start.countDown();
+			async.close();
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			assertEquals(0, async.getPending());
+			assertEquals(4000, delivered.get() + rejected.get());
+			assertEquals(delivered.get(), async.getDelivered());
+		}
+	}
+
+	@Test
+	public void failedConsumerTest() throws InterruptedException {
+		AsyncResult<Integer, Integer> async = AsyncResult.of(bin -> {
+			if (bin.product % 2 == 0) {
+				throw new RuntimeException("test");
+			}
+		}, 2, 10, AsyncResult.Overflow.BLOCK);
+		for (int i = 0; i < 10; i++) {
+			async.accept(ResultConsumerTest.getProductBin(i, i));
+		}
+		async.close();
+		assertEquals(5, async.getDelivered());
+		assertEquals(5, async.getFailed());
+	}
+
+	@Test
+	public void slowConsumerDoesNotStallAssemblyTest() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		List<Integer> scrapped = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName("slowConsumerDoesNotStallAssemblyTest");
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		conveyor.resultConsumer(bin -> {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			results.add(bin.key);
+		}).async(2, 10, AsyncResult.Overflow.FAIL).set();
+		conveyor.scrapConsumer(bin -> {
+			if (bin.failureType == FailureType.RESULT_CONSUMER_FAILED) {
+				scrapped.add(bin.key);
+			}
+		}).set();
+		CompletableFuture<Boolean> last = null;
+		for (int i = 0; i < 100; i++) {
+			last = conveyor.part().id(i).label("first").value("F").place();
+		}
+		// lanes hold 20 products and deliver one each, the rest is rejected without waiting for the consumer
+		assertTrue(last.handle((res, e) -> true).join());
+		await(() -> scrapped.size() >= 78);
+		assertTrue(scrapped.size() >= 78);
+		latch.countDown();
+		var async = (AsyncResult<Integer, User>) conveyor.getResultConsumer();
+		assertTrue(async.awaitDelivery(10, TimeUnit.SECONDS));
+		// the scrap of the last rejected product may still be on its way
+		await(() -> results.size() + scrapped.size() == 100);
+		assertEquals(100, results.size() + scrapped.size());
+		conveyor.stop();
+		await(async::isClosed);
+		assertTrue(async.isClosed());
+	}
+
+	@Test
+	public void failedConsumerIsScrappedTest() throws InterruptedException {
+		List<Integer> scrapped = Collections.synchronizedList(new ArrayList<>());
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName("failedConsumerIsScrappedTest");
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		conveyor.resultConsumer(bin -> {
+			if (bin.key % 2 == 0) {
+				throw new RuntimeException("test");
+			}
+		}).async(2, 10, AsyncResult.Overflow.BLOCK).set();
+		conveyor.scrapConsumer(bin -> {
+			if (bin.failureType == FailureType.RESULT_CONSUMER_FAILED) {
+				scrapped.add(bin.key);
+			}
+		}).set();
+		for (int i = 0; i < 10; i++) {
+			conveyor.part().id(i).label("first").value("F").place();
+		}
+		assertTrue(conveyor.completeAndStop().join());
+		var async = (AsyncResult<Integer, User>) conveyor.getResultConsumer();
+		await(async::isClosed);
+		assertTrue(async.isClosed());
+		assertTrue(async.awaitDelivery(10, TimeUnit.SECONDS));
+		assertEquals(5, async.getDelivered());
+		assertEquals(5, async.getFailed());
+		assertEquals(5, scrapped.size());
+		scrapped.forEach(key -> assertEquals(0, key % 2));
+		assertEquals(5, conveyor.getScrapCounter(FailureType.RESULT_CONSUMER_FAILED));
+	}
+
+	@Test
+	public void sharedConsumerIsClosedByLastConveyorTest() throws InterruptedException {
+		AsyncResult<Integer, User> async = AsyncResult.of(bin -> {});
+		List<AssemblingConveyor<Integer, String, User>> conveyors = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+			conveyor.setName("sharedConsumerIsClosedByLastConveyorTest" + i);
+			conveyor.setBuilderSupplier(UserBuilder::new);
+			conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+			conveyor.setReadinessEvaluator((state, builder) -> true);
+			conveyor.resultConsumer(async).set();
+			assertTrue(conveyor.part().id(i).label("first").value("F").place().join());
+			conveyors.add(conveyor);
+		}
+		assertTrue(conveyors.get(0).completeAndStop().join());
+		Thread.sleep(100);
+		assertFalse(async.isClosed());
+		assertTrue(conveyors.get(1).part().id(10).label("first").value("F").place().join());
+		assertTrue(conveyors.get(1).completeAndStop().join());
+		await(async::isClosed);
+		assertTrue(async.isClosed());
+		assertTrue(async.awaitDelivery(10, TimeUnit.SECONDS));
+		assertEquals(3, async.getDelivered());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while ( ! condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+}
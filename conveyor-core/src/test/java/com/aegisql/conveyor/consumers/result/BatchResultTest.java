@@ -0,0 +1,188 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ProductBin;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class BatchResultTest {
+
+	@Test
+	public void batchSizeTest() {
+		List<List<ProductBin<Integer, String>>> batches = new ArrayList<>();
+		BatchResult<Integer, String> br = BatchResult.of(batches::add, 10, Duration.ZERO);
+		for (int i = 0; i < 25; i++) {
+			br.accept(ResultConsumerTest.getProductBin(i, "v" + i));
+		}
+		assertEquals(2, batches.size());
+		assertEquals(5, br.getPending());
+		br.close();
+		assertEquals(3, batches.size());
+		assertEquals(10, batches.get(0).size());
+		assertEquals(5, batches.get(2).size());
+		assertEquals(Integer.valueOf(24), batches.get(2).get(4).key);
+		assertEquals(25, br.getProducts());
+		assertEquals(3, br.getBatches());
+		System.out.println(br);
+	}
+
+	@Test
+	public void lingerTest() throws InterruptedException {
+		List<List<ProductBin<Integer, String>>> batches = Collections.synchronizedList(new ArrayList<>());
+		BatchResult<Integer, String> br = BatchResult.of(batches::add, 100, Duration.ofMillis(50));
+		br.accept(ResultConsumerTest.getProductBin(1, "v1"));
+		br.accept(ResultConsumerTest.getProductBin(2, "v2"));
+		assertEquals(0, batches.size());
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, batches.size());
+		assertEquals(2, batches.get(0).size());
+		assertEquals(0, br.getPending());
+	}
+
+	@Test
+	public void failedBatchTest() {
+		BatchResult<Integer, String> br = BatchResult.of(batch -> {
+			throw new RuntimeException("test");
+		}, 2, Duration.ZERO);
+		br.accept(ResultConsumerTest.getProductBin(1, "v1"));
+		br.accept(ResultConsumerTest.getProductBin(2, "v2"));
+		assertEquals(1, br.getFailed());
+		assertEquals(0, br.getProducts());
+	}
+
+	@Test
+	public void acceptDoesNotWaitForLingeringDeliveryTest() throws InterruptedException {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		BatchResult<Integer, String> br = BatchResult.of(batch -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			sizes.add(batch.size());
+		}, 10, Duration.ofMillis(20));
+		br.accept(ResultConsumerTest.getProductBin(1, "v1"));
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+		// the consumer is busy with the lingering batch, the monitor is free
+		br.accept(ResultConsumerTest.getProductBin(2, "v2"));
+		assertEquals(1, br.getPending());
+		release.countDown();
+		await(() -> sizes.size() == 2);
+		assertEquals(List.of(1, 1), sizes);
+	}
+
+	@Test
+	public void slowConsumerDoesNotDelayOtherBatchesTest() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		BatchResult<Integer, String> slow = BatchResult.of(batch -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, 10, Duration.ofMillis(10));
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		BatchResult<Integer, String> fast = BatchResult.of(batch -> sizes.add(batch.size()), 10, Duration.ofMillis(50));
+		slow.accept(ResultConsumerTest.getProductBin(1, "v1"));
+		fast.accept(ResultConsumerTest.getProductBin(2, "v2"));
+		await(() -> sizes.size() == 1);
+		assertEquals(List.of(1), sizes);
+		assertEquals(0, slow.getBatches());
+		release.countDown();
+		await(() -> slow.getBatches() == 1);
+		assertEquals(1, slow.getBatches());
+	}
+
+	@Test
+	public void slowConsumerUsesOneDeliveryThreadTest() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		BatchResult<Integer, String> br = BatchResult.of(batch -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			sizes.add(batch.size());
+		}, 10, Duration.ofMillis(1));
+		long threadsBefore = deliveryThreads();
+		for (int i = 0; i < 20; i++) {
+			br.accept(ResultConsumerTest.getProductBin(i, "v" + i));
+			await(() -> br.getPending() == 0);
+		}
+		assertTrue(deliveryThreads() <= threadsBefore + 1);
+		release.countDown();
+		await(() -> sizes.size() == 20);
+		assertEquals(20, sizes.size());
+	}
+
+	private static long deliveryThreads() {
+		return Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals("BatchResult-delivery")).count();
+	}
+
+	@Test
+	public void flushOnStopTest() throws InterruptedException {
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName("flushOnStopTest");
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		conveyor.resultConsumer().first((BatchResultConsumer<Integer, User>) batch -> sizes.add(batch.size()), 10, Duration.ZERO).set();
+		for (int i = 0; i < 25; i++) {
+			conveyor.part().id(i).label("first").value("F").place();
+		}
+		assertTrue(conveyor.completeAndStop().join());
+		await(() -> sizes.size() == 3);
+		assertEquals(List.of(10, 10, 5), sizes);
+	}
+
+	@Test
+	public void loaderCompositionTest() {
+		AtomicInteger single = new AtomicInteger();
+		List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+		BatchResultConsumer<Integer, User> sink = batch -> sizes.add(batch.size());
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName("loaderCompositionTest");
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		conveyor.resultConsumer(bin -> single.incrementAndGet())
+				.andThen(sink, 100, Duration.ofSeconds(10))
+				.set();
+		for (int i = 0; i < 999; i++) {
+			conveyor.part().id(i).label("first").value("F").place();
+		}
+		assertTrue(conveyor.part().id(999).label("first").value("F").place().join());
+		assertEquals(1000, single.get());
+		assertEquals(10, sizes.size());
+		assertTrue(sizes.stream().allMatch(s -> s == 100));
+		conveyor.stop();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while ( ! condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+}
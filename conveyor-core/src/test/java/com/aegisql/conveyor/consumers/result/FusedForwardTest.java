@@ -0,0 +1,193 @@
+package com.aegisql.conveyor.consumers.result;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.Conveyor;
+import com.aegisql.conveyor.ConveyorGroup;
+import com.aegisql.conveyor.Priority;
+import com.aegisql.conveyor.ProductBin;
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class FusedForwardTest {
+
+	private AssemblingConveyor<Integer, String, User> stage(String name, ConveyorGroup group) {
+		AssemblingConveyor<Integer, String, User> conveyor = group == null ? new AssemblingConveyor<>() : new AssemblingConveyor<>(Priority.DEFAULT, group);
+		conveyor.setName(name);
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> {
+			if (value instanceof User user) {
+				((UserBuilder) builder).setFirst(user.getFirst() + "+");
+			} else {
+				((UserBuilder) builder).setFirst((String) value);
+			}
+		});
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		return conveyor;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ForwardResult<Integer, String> from(AssemblingConveyor<Integer, String, User> conveyor) {
+		return ForwardResult.from(conveyor);
+	}
+
+	private void await(List<?> results, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (results.size() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, results.size());
+	}
+
+	private static long inlineDepth() {
+		return Arrays.stream(new Throwable().getStackTrace()).filter(e -> e.getMethodName().equals("processInline")).count();
+	}
+
+	@Test
+	public void fusedPipelineTest() throws InterruptedException {
+		var a = stage("fusedPipelineA", null);
+		var b = stage("fusedPipelineB", null);
+		var c = stage("fusedPipelineC", null);
+		List<ProductBin<Integer, User>> results = Collections.synchronizedList(new ArrayList<>());
+		from(a).to(b).label("user").fused().bind();
+		from(b).to("fusedPipelineC").label("user").fused().bind();
+		c.resultConsumer(results::add).set();
+		for (int i = 0; i < 100; i++) {
+			a.part().id(i).label("first").value("F" + i).place();
+		}
+		await(results, 100);
+		results.forEach(bin -> {
+			assertEquals("F" + bin.key + "++", bin.product.getFirst());
+			assertEquals("fusedPipelineA", bin.properties.get("FORWARDED"));
+		});
+		a.stop();
+		b.stop();
+		c.stop();
+	}
+
+	@Test
+	public void fusedBatchTest() throws InterruptedException {
+		var a = stage("fusedBatchA", null);
+		var b = stage("fusedBatchB", null);
+		List<ProductBin<Integer, User>> results = Collections.synchronizedList(new ArrayList<>());
+		from(a).to(b).label("user").transformKey(bin -> (Integer) bin.key + 1000).fused(10, Duration.ofMillis(50)).bind();
+		b.resultConsumer(results::add).set();
+		for (int i = 0; i < 25; i++) {
+			a.part().id(i).label("first").value("F" + i).place();
+		}
+		// two full batches and the lingering rest
+		await(results, 25);
+		results.forEach(bin -> {
+			assertTrue(bin.key >= 1000);
+			assertEquals("F" + (bin.key - 1000) + "+", bin.product.getFirst());
+		});
+		a.stop();
+		b.stop();
+	}
+
+	@Test
+	public void fusedForeachTest() throws InterruptedException {
+		var a = stage("fusedForeachA", null);
+		var b = stage("fusedForeachB", null);
+		List<ProductBin<Integer, User>> results = Collections.synchronizedList(new ArrayList<>());
+		b.setReadinessEvaluator(Conveyor.getTesterFor(b).accepted(2));
+		b.resultConsumer(results::add).set();
+		from(a).to(b).label("user").foreach(k -> k % 2 == 0).fused().bind();
+		for (int i = 0; i < 4; i++) {
+			b.part().id(i).label("first").value("B" + i).place();
+		}
+		a.part().id(100).label("first").value("A").place().join();
+		await(results, 2);
+		results.forEach(bin -> {
+			assertEquals(0, bin.key % 2);
+			assertEquals("A+", bin.product.getFirst());
+		});
+		a.stop();
+		b.stop();
+	}
+
+	@Test
+	public void colocatedStagesRunInlineTest() throws InterruptedException {
+		ConveyorGroup group = new ConveyorGroup("colocatedStages", 1);
+		var a = stage("colocatedA", group);
+		var b = stage("colocatedB", group);
+		var c = stage("colocatedC", group);
+		List<Long> depths = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		a.resultConsumer(bin -> threads.add(Thread.currentThread())).set();
+		from(a).to(b).label("user").fused().bind();
+		from(b).to(c).label("user").fused().bind();
+		c.resultConsumer(bin -> {
+			threads.add(Thread.currentThread());
+			depths.add(inlineDepth());
+		}).set();
+		for (int i = 0; i < 100; i++) {
+			a.part().id(i).label("first").value("F" + i).place();
+		}
+		await(depths, 100);
+		// B and C processed the product on the stack of A
+		depths.forEach(depth -> assertEquals(2L, depth.longValue()));
+		assertEquals(1, threads.stream().distinct().count());
+		assertEquals(100, b.getCartCounter());
+		group.shutdown();
+		assertTrue(group.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void forwardedCartIsCreatedByTargetTest() throws InterruptedException {
+		var a = stage("createdByTargetA", null);
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		AssemblingConveyor<Integer, String, User> b = new AssemblingConveyor<>((Supplier) Priority.EXISTING_BUILDS_FIRST);
+		b.setName("createdByTargetB");
+		b.setBuilderSupplier(UserBuilder::new);
+		b.setDefaultCartConsumer((label, value, builder) -> {});
+		b.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+		b.resultConsumer(bin -> {}).set();
+		List<Cart<Integer, ?, String>> forwarded = Collections.synchronizedList(new ArrayList<>());
+		b.addCartBeforePlacementValidator(cart -> {
+			if ("user".equals(cart.getLabel())) {
+				forwarded.add(cart);
+			}
+		});
+		from(a).to(b).label("user").fused().bind();
+		assertTrue(b.part().id(1).label("first").value("B").place().join());
+		a.part().id(1).label("first").value("F1").place();
+		await(forwarded, 1);
+		a.part().id(2).label("first").value("F2").place();
+		await(forwarded, 2);
+		// part for the open build goes first, as any other part placed to the target
+		assertEquals(1, forwarded.get(0).getPriority());
+		assertEquals(0, forwarded.get(1).getPriority());
+		forwarded.forEach(cart -> assertNotEquals(0, cart.getCartCreationNanoTime()));
+		a.stop();
+		b.stop();
+	}
+
+	@Test
+	public void separateThreadsAreNotInlinedTest() throws InterruptedException {
+		var a = stage("separateA", null);
+		var b = stage("separateB", null);
+		List<Long> depths = Collections.synchronizedList(new ArrayList<>());
+		from(a).to(b).label("user").fused().bind();
+		b.resultConsumer(bin -> depths.add(inlineDepth())).set();
+		for (int i = 0; i < 10; i++) {
+			a.part().id(i).label("first").value("F" + i).place();
+		}
+		await(depths, 10);
+		depths.forEach(depth -> assertEquals(0L, depth.longValue()));
+		a.stop();
+		b.stop();
+	}
+
+}
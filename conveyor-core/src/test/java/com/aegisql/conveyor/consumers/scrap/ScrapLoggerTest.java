@@ -0,0 +1,104 @@
+package com.aegisql.conveyor.consumers.scrap;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ScrapBin;
+import com.aegisql.conveyor.ScrapBin.FailureType;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import com.aegisql.conveyor.validation.CartRejectedException;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScrapLoggerTest {
+
+	private static ScrapBin<Integer, Object> scrapBin(int key, FailureType type) {
+		return new ScrapBin<>(null, key, "scrap", "test", null, type, new HashMap<>(), null);
+	}
+
+	@Test
+	public void rateLimitAndSampleTest() throws InterruptedException {
+		ScrapLogger<Integer> logger = new ScrapLogger<>(LoggerFactory.getLogger(ScrapLoggerTest.class), 10, 100, 1000);
+		for (int i = 0; i < 1000; i++) {
+			logger.accept(scrapBin(i, i % 2 == 0 ? FailureType.BUILD_EXPIRED : FailureType.CART_REJECTED));
+		}
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (logger.getLoggedCounter() < 19 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		// 10 detailed and 9 sampled out of 990 suppressed, unless the test crossed the window
+		assertTrue(logger.getLoggedCounter() >= 19);
+		assertTrue(logger.getSuppressedCounter() >= 900);
+		assertTrue(logger.getSuppressedCounter() <= 990);
+		System.out.println(logger);
+	}
+
+	@Test
+	public void renderedOnCallingThreadTest() throws InterruptedException {
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+		Object scrap = new Object() {
+			@Override
+			public String toString() {
+				threads.add(Thread.currentThread());
+				return "live scrap";
+			}
+		};
+		ScrapLogger<Integer> logger = new ScrapLogger<>(LoggerFactory.getLogger(ScrapLoggerTest.class));
+		logger.accept(new ScrapBin<>(null, 1, scrap, "test", null, FailureType.GENERAL_FAILURE, new HashMap<>(), null));
+		// rendered before the handoff
+		assertEquals(List.of(Thread.currentThread()), threads);
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (logger.getLoggedCounter() < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, logger.getLoggedCounter());
+		assertEquals(1, threads.size());
+	}
+
+	@Test
+	public void dropTest() {
+		ScrapLogger<Integer> logger = new ScrapLogger<>(LoggerFactory.getLogger(ScrapLoggerTest.class), 100_000, 0, 1);
+		for (int i = 0; i < 1000; i++) {
+			logger.accept(scrapBin(i, FailureType.GENERAL_FAILURE));
+		}
+		assertTrue(logger.getDroppedCounter() > 0);
+		assertEquals(0, logger.getSuppressedCounter());
+	}
+
+	@Test
+	public void conveyorScrapCountersTest() throws InterruptedException {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setName("conveyorScrapCountersTest");
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		for (int i = 0; i < 10; i++) {
+			conveyor.part().id(i).label("first").value("F").ttl(50, TimeUnit.MILLISECONDS).place();
+		}
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (conveyor.getScrapCounter(FailureType.BUILD_EXPIRED) < 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(10, conveyor.getScrapCounter(FailureType.BUILD_EXPIRED));
+		conveyor.stop();
+		conveyor.part().id(100).label("first").value("F").place();
+		assertEquals(1, conveyor.getScrapCounter(FailureType.CART_REJECTED));
+		assertEquals(11, conveyor.getScrapCounter());
+		assertEquals(Long.valueOf(10), conveyor.getScrapCounters().get("BUILD_EXPIRED"));
+	}
+
+	@Test
+	public void stacklessRejectionTest() {
+		var e = new CartRejectedException("rejected");
+		assertEquals(0, e.getStackTrace().length);
+		assertTrue(e instanceof IllegalStateException);
+	}
+
+}
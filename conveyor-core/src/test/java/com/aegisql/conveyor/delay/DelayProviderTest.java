@@ -109,4 +109,18 @@ public class DelayProviderTest {
 		
 	}
 
+	/**
+	 * Test next expiration time.
+	 */
+	@Test
+	public void testNextExpirationTime() {
+		DelayProvider<String> p = new DelayProvider<>();
+		assertEquals(Long.MAX_VALUE, p.nextExpirationTime());
+		long now = System.currentTimeMillis();
+		p.add("A", now + 100);
+		p.add("B", now + 50);
+		assertEquals(now + 50, p.nextExpirationTime());
+		p.clear();
+		assertEquals(Long.MAX_VALUE, p.nextExpirationTime());
+	}
 }
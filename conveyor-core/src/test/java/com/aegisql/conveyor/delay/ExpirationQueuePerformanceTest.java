@@ -0,0 +1,64 @@
+package com.aegisql.conveyor.delay;
+
+import static org.junit.Assert.*;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * The Class ExpirationQueuePerformanceTest.
+ * Compares DelayQueue based DelayProvider with the TimingWheelDelayProvider
+ * when every key has its own expiration time.
+ */
+public class ExpirationQueuePerformanceTest {
+
+	/** The keys. */
+	private final static int KEYS = 500_000;
+
+	/**
+	 * Run.
+	 *
+	 * @param name the name
+	 * @param supplier the supplier
+	 */
+	private void run(String name, Supplier<ExpirationQueue<Integer>> supplier) {
+		ExpirationQueue<Integer> q = supplier.get();
+		long base = System.currentTimeMillis() + 60_000;
+		long start = System.nanoTime();
+		for (int i = 0; i < KEYS; i++) {
+			q.add(i, base + i);
+		}
+		long added = System.nanoTime();
+		for (int i = 0; i < KEYS; i++) {
+			q.delete(i, base + i);
+			q.add(i, base + KEYS + i);
+		}
+		long rescheduled = System.nanoTime();
+		for (int i = 0; i < KEYS; i += 2) {
+			q.delete(i, base + KEYS + i);
+		}
+		long deleted = System.nanoTime();
+		assertEquals(0, q.getAllExpiredKeys().size());
+		System.out.println(name + " add " + (added - start) / 1000000.0 + "ms reschedule "
+				+ (rescheduled - added) / 1000000.0 + "ms delete " + (deleted - rescheduled) / 1000000.0 + "ms");
+		q.clear();
+	}
+
+	/**
+	 * Test delay provider.
+	 */
+	@Test
+	public void testDelayProvider() {
+		run("DelayProvider", DelayProvider::new);
+	}
+
+	/**
+	 * Test timing wheel.
+	 */
+	@Test
+	public void testTimingWheel() {
+		run("TimingWheelDelayProvider", TimingWheelDelayProvider::new);
+	}
+
+}
@@ -0,0 +1,229 @@
+package com.aegisql.conveyor.delay;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+
+/**
+ * The Class TimingWheelDelayProviderTest.
+ */
+public class TimingWheelDelayProviderTest {
+
+	/**
+	 * Test basic expiration.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void test() throws InterruptedException {
+		TimingWheelDelayProvider<String> p = new TimingWheelDelayProvider<>();
+		long now = System.currentTimeMillis();
+
+		p.add("A", now + 100);
+		p.add("B", now + 100);
+		p.add("C", now + 100);
+		assertEquals(3, p.delayedSize());
+		p.add("D", now + 200);
+		p.add("E", now + 200);
+		p.add("F", now + 200);
+		assertEquals(6, p.delayedSize());
+
+		List<String> e = p.getAllExpiredKeys();
+		assertEquals(0, e.size());
+
+		Thread.sleep(101);
+		e = p.getAllExpiredKeys();
+		assertEquals(3, e.size());
+		assertTrue(e.containsAll(List.of("A", "B", "C")));
+		Thread.sleep(101);
+		e = p.getAllExpiredKeys();
+		assertEquals(3, e.size());
+		assertTrue(e.containsAll(List.of("D", "E", "F")));
+		assertEquals(0, p.delayedSize());
+
+		p.add("A", now);
+		p.add("B", now);
+		p.add("C", now);
+		e = p.getAllExpiredKeys();
+		assertEquals(3, e.size());
+	}
+
+
+	/**
+	 * Test far expiration time does not overflow the tick.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void farExpirationTest() throws InterruptedException {
+		for (long tick : new long[] {1, 1000}) {
+			TimingWheelDelayProvider<String> p = new TimingWheelDelayProvider<>(tick, TimeUnit.MILLISECONDS);
+			long now = System.currentTimeMillis();
+			p.add("FAR", Long.MAX_VALUE - 1);
+			p.add("MAX", Long.MAX_VALUE);
+			p.add("NEAR", now + 10);
+			assertEquals(3, p.delayedSize());
+			assertTrue(p.nextExpirationTime() <= now + 10 + tick);
+			Thread.sleep(10 + tick);
+			assertEquals(List.of("NEAR"), p.getAllExpiredKeys());
+			assertEquals(2, p.delayedSize());
+			assertTrue(p.nextExpirationTime() > now + TimeUnit.DAYS.toMillis(365));
+			assertTrue(p.getAllExpiredKeys().isEmpty());
+		}
+	}
+
+	/**
+	 * Test reschedule and delete.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void testRescheduleAndDelete() throws InterruptedException {
+		TimingWheelDelayProvider<String> p = new TimingWheelDelayProvider<>();
+		long now = System.currentTimeMillis();
+		p.add("A", now + 50);
+		p.add("B", now + 50);
+		p.add("C", now + 50);
+		p.add("A", now + 10_000);
+		p.delete("B", now + 50);
+		p.delete("X", now + 50);
+		assertEquals(2, p.delayedSize());
+		Thread.sleep(60);
+		assertEquals(List.of("C"), p.getAllExpiredKeys());
+		assertEquals(1, p.delayedSize());
+		p.clear();
+		assertEquals(0, p.delayedSize());
+		assertEquals(0, p.getAllExpiredKeys().size());
+	}
+
+	/**
+	 * Test keys scheduled on upper levels are cascaded and expire in order.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void testCascade() throws InterruptedException {
+		TimingWheelDelayProvider<Integer> p = new TimingWheelDelayProvider<>();
+		long now = System.currentTimeMillis();
+		List<Integer> keys = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			keys.add(i);
+		}
+		Collections.shuffle(keys);
+		for (Integer k : keys) {
+			p.add(k, now + k);
+		}
+		p.add(-1, now + 300_000);
+		List<Integer> expired = new ArrayList<>();
+		while (expired.size() < 600) {
+			expired.addAll(p.getAllExpiredKeys());
+			Thread.sleep(10);
+		}
+		assertEquals(600, expired.size());
+		for (int i = 1; i < expired.size(); i++) {
+			assertTrue(expired.get(i - 1) <= expired.get(i));
+		}
+		assertEquals(1, p.delayedSize());
+	}
+
+	/**
+	 * Test coarse tick.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void testCoarseTick() throws InterruptedException {
+		TimingWheelDelayProvider<String> p = new TimingWheelDelayProvider<>(10, TimeUnit.MILLISECONDS);
+		long now = System.currentTimeMillis();
+		p.add("A", now + 15);
+		assertEquals(0, p.getAllExpiredKeys().size());
+		Thread.sleep(30);
+		assertEquals(List.of("A"), p.getAllExpiredKeys());
+	}
+
+	/**
+	 * Test illegal tick.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalTick() {
+		new TimingWheelDelayProvider<String>(100, TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * Test conveyor with timing wheel.
+	 *
+	 * @throws InterruptedException the interrupted exception
+	 */
+	@Test
+	public void testConveyorWithTimingWheel() throws InterruptedException {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setExpirationQueue(TimingWheelDelayProvider::new);
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setDefaultBuilderTimeout(100, TimeUnit.MILLISECONDS);
+		conveyor.setIdleHeartBeat(10, TimeUnit.MILLISECONDS);
+		conveyor.setReadinessEvaluator((state, builder) -> false);
+		List<Integer> expired = Collections.synchronizedList(new ArrayList<>());
+		conveyor.scrapConsumer(bin -> expired.add(bin.key)).set();
+		for (int i = 0; i < 100; i++) {
+			conveyor.part().id(i).label("setFirst").value("A").place();
+		}
+		conveyor.part().id(100).label("setFirst").value("A").ttl(1, TimeUnit.HOURS).place();
+		Thread.sleep(300);
+		assertEquals(100, expired.size());
+		assertEquals(1, conveyor.getCollectorSize());
+		assertEquals(1, conveyor.getDelayedQueueSize());
+		conveyor.stop();
+	}
+
+	/**
+	 * Test expiration queue cannot be replaced while builds are scheduled.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testReplaceNonEmptyExpirationQueue() throws Exception {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		try {
+			conveyor.setBuilderSupplier(UserBuilder::new);
+			conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+			conveyor.setDefaultBuilderTimeout(1, TimeUnit.HOURS);
+			conveyor.setReadinessEvaluator((state, builder) -> false);
+			conveyor.part().id(1).label("setFirst").value("A").place().get();
+			conveyor.setExpirationQueue(TimingWheelDelayProvider::new);
+		} finally {
+			conveyor.stop();
+		}
+	}
+
+	/**
+	 * Test next expiration time is exact on the lowest level and never late on upper levels.
+	 */
+	@Test
+	public void testNextExpirationTime() {
+		TimingWheelDelayProvider<String> p = new TimingWheelDelayProvider<>();
+		assertEquals(Long.MAX_VALUE, p.nextExpirationTime());
+		long now = System.currentTimeMillis();
+		p.add("A", now + 100_000);
+		long next = p.nextExpirationTime();
+		assertTrue(next > now);
+		assertTrue(next <= now + 100_000);
+		p.add("B", now + 10);
+		assertEquals(now + 10, p.nextExpirationTime());
+		p.delete("B", now + 10);
+		assertEquals(next, p.nextExpirationTime());
+		p.add("C", now - 1);
+		p.getAllExpiredKeys();
+		p.delete("A", now + 100_000);
+		assertEquals(Long.MAX_VALUE, p.nextExpirationTime());
+	}
+}
@@ -0,0 +1,123 @@
+package com.aegisql.conveyor.loaders;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ReusablePartLoaderTest {
+
+	@Test
+	public void testFluentChainAndReset() {
+		List<String> placed = new ArrayList<>();
+		ReusablePartLoader<Integer, String> rl = new ReusablePartLoader<>(l -> {
+			placed.add(l.getKey() + ":" + l.getLabel() + ":" + l.getPartValue() + ":" + l.getPriority() + ":" + l.getAllProperties());
+			assertTrue(l.getCreationTime() > 0);
+			if (l.getTtlMsec() > 0) {
+				assertEquals(l.getCreationTime() + 1000, l.getExpirationTime());
+			}
+			return CompletableFuture.completedFuture(true);
+		}, l -> placed.add("fire " + l.getKey()));
+
+		assertSame(rl, rl.label("A").priority(3).ttl(1, TimeUnit.SECONDS).addProperty("P", 1).template());
+		assertSame(rl, rl.id(1).value("v1"));
+		assertTrue(rl.place().join());
+		assertNull(rl.getKey());
+		assertEquals("A", rl.getLabel());
+
+		rl.id(2).value("v2").label("B").priority(5).clearProperties().addProperty("Q", 2).place();
+		rl.id(3).fire();
+		rl.label(null).priority(0).ttl(0, TimeUnit.SECONDS).clearProperties().template();
+		rl.id(4).value("v4").place();
+
+		assertEquals(List.of("1:A:v1:3:{P=1}", "2:B:v2:5:{Q=2}", "fire 3", "4:null:v4:0:{}"), placed);
+	}
+
+	@Test
+	public void testToPartLoader() {
+		ReusablePartLoader<Integer, String> rl = new ReusablePartLoader<>(l -> null, l -> {});
+		rl.id(1).label("A").value("v").creationTime(1000).expirationTime(2000).priority(7).addProperty("P", "p");
+		PartLoader<Integer, String> pl = rl.toPartLoader(new PartLoader<>(l -> null));
+		assertEquals(Integer.valueOf(1), pl.key);
+		assertEquals("A", pl.label);
+		assertEquals("v", pl.partValue);
+		assertEquals(1000, pl.creationTime);
+		assertEquals(2000, pl.expirationTime);
+		assertEquals(7, pl.priority);
+		assertEquals(Map.of("P", "p"), pl.getAllProperties());
+	}
+
+	private AssemblingConveyor<Integer, String, User> conveyor() {
+		AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>();
+		conveyor.setBuilderSupplier(UserBuilder::new);
+		conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+		conveyor.setReadinessEvaluator((state, builder) -> true);
+		return conveyor;
+	}
+
+	@Test
+	public void testConveyorReusablePart() {
+		AssemblingConveyor<Integer, String, User> conveyor = conveyor();
+		List<String> names = new ArrayList<>();
+		conveyor.resultConsumer(bin -> {
+			assertEquals("x", bin.properties.get("P"));
+			names.add(bin.product.getFirst());
+		}).set();
+		ReusablePartLoader<Integer, String> rl = conveyor.reusablePart().label("setFirst").addProperty("P", "x").template();
+		CompletableFuture<Boolean> f = null;
+		for (int i = 0; i < 10; i++) {
+			f = rl.id(i).value("N" + i).place();
+		}
+		assertTrue(f.join());
+		assertTrue(conveyor.completeAndStop().join());
+		assertEquals(10, names.size());
+	}
+
+	private static long allocatedBytes() {
+		var bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+			return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	@Test
+	public void testProducerAllocation() {
+		Assume.assumeTrue(allocatedBytes() >= 0);
+		int n = 200_000;
+		for (int round = 0; round < 2; round++) {
+			AssemblingConveyor<Integer, String, User> conveyor = conveyor();
+			conveyor.resultConsumer(ResultCounter.of(conveyor)).set();
+			long bytes = allocatedBytes();
+			for (int i = 0; i < n; i++) {
+				conveyor.part().id(i).label("setFirst").value("A").ttl(1, TimeUnit.HOURS).fire();
+			}
+			double immutableBytes = (allocatedBytes() - bytes) / (double) n;
+			assertTrue(conveyor.completeAndStop().join());
+
+			conveyor = conveyor();
+			conveyor.resultConsumer(ResultCounter.of(conveyor)).set();
+			ReusablePartLoader<Integer, String> rl = conveyor.reusablePart();
+			bytes = allocatedBytes();
+			for (int i = 0; i < n; i++) {
+				rl.id(i).label("setFirst").value("A").ttl(1, TimeUnit.HOURS).fire();
+			}
+			double reusableBytes = (allocatedBytes() - bytes) / (double) n;
+			assertTrue(conveyor.completeAndStop().join());
+			System.out.printf("part(): %.1f bytes/part, reusablePart(): %.1f bytes/part%n", immutableBytes, reusableBytes);
+			assertTrue(reusableBytes < immutableBytes);
+		}
+	}
+
+}
@@ -193,7 +193,7 @@ public class BatchConveyorBuilderTest {
 		AtomicInteger ai = new AtomicInteger(0);
 		AtomicInteger aii = new AtomicInteger(0);
 		
-		b.setBuilderSupplier( () -> new BatchCollectingBuilder<>(10, 20, TimeUnit.MILLISECONDS) );
+		b.setBuilderSupplier( () -> new BatchCollectingBuilder<>(10, 100, TimeUnit.MILLISECONDS) );
 		b.scrapConsumer((obj)->{
 			System.out.println(obj);
 			ai.decrementAndGet();
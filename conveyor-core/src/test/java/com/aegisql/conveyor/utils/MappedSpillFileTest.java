@@ -0,0 +1,69 @@
+package com.aegisql.conveyor.utils;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MappedSpillFileTest {
+
+	@Test
+	public void appendReadTest() throws Exception {
+		Path path = Files.createTempFile("spill", ".dat");
+		try (var file = new MappedSpillFile(path, 16)) {
+			long p1 = file.append(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+			// does not fit the rest of the first segment
+			long p2 = file.append(new byte[] {11, 12, 13, 14, 15, 16, 17, 18});
+			assertEquals(0, p1);
+			assertEquals(16, p2);
+			assertEquals(32, file.getMappedSize());
+			assertEquals(2, file.getLiveRecords());
+			assertEquals(18, file.getLiveBytes());
+			assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, file.read(p1, 10));
+			assertArrayEquals(new byte[] {11, 12, 13, 14, 15, 16, 17, 18}, file.read(p2, 8));
+			file.release(p1, 10);
+			assertEquals(8, file.getLiveBytes());
+			// the first segment is free and unmapped
+			assertEquals(16, file.getMappedSize());
+			file.release(p2, 8);
+			assertEquals(0, file.getLiveRecords());
+			// the lowest free segment is reused
+			assertEquals(0, file.append(new byte[] {42}));
+			assertArrayEquals(new byte[] {42}, file.read(0, 1));
+		}
+		assertFalse(Files.exists(path));
+	}
+
+	@Test
+	public void freeSegmentsAreReusedTest() throws Exception {
+		Path path = Files.createTempFile("spill", ".dat");
+		try (var file = new MappedSpillFile(path, 16)) {
+			// one long living record and a stream of short living ones
+			long pinned = file.append(new byte[] {7, 7, 7, 7});
+			long[] window = new long[4];
+			for (int i = 0; i < 10_000; i++) {
+				int slot = i % window.length;
+				if (i >= window.length) {
+					file.release(window[slot], 8);
+				}
+				window[slot] = file.append(new byte[8]);
+			}
+			assertEquals(5, file.getLiveRecords());
+			assertTrue(file.getSegmentCount() <= 4);
+			assertTrue(file.getMappedSize() <= 4 * 16);
+			assertArrayEquals(new byte[] {7, 7, 7, 7}, file.read(pinned, 4));
+			assertEquals(path.toFile().length(), (long) file.getSegmentCount() * 16);
+		}
+		assertFalse(Files.exists(path));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooLargeRecordTest() throws Exception {
+		try (var file = new MappedSpillFile(Files.createTempFile("spill", ".dat"), 16)) {
+			file.append(new byte[17]);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.aegisql.conveyor.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class MpscRingBufferQueueTest {
+
+    @Test
+    public void basicTest() {
+        var q = new MpscRingBufferQueue<Integer>(3);
+        assertEquals(4, q.capacity());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        assertNull(q.peek());
+        assertTrue(q.offer(1));
+        assertTrue(q.offer(2));
+        assertTrue(q.offer(3));
+        assertTrue(q.offer(4));
+        assertFalse(q.offer(5));
+        assertEquals(4, q.size());
+        assertEquals(List.of(1, 2, 3, 4), new ArrayList<>(q));
+        assertEquals(Integer.valueOf(1), q.peek());
+        assertEquals(Integer.valueOf(1), q.poll());
+        assertTrue(q.offer(5));
+        assertEquals(Integer.valueOf(2), q.poll());
+        assertEquals(Integer.valueOf(3), q.poll());
+        assertEquals(Integer.valueOf(4), q.poll());
+        assertEquals(Integer.valueOf(5), q.poll());
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+        System.out.println(q);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addToFullQueueTest() {
+        var q = new MpscRingBufferQueue<Integer>(1);
+        q.add(1);
+        q.add(2);
+        q.add(3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullElementTest() {
+        new MpscRingBufferQueue<Integer>(1).offer(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityTest() {
+        new MpscRingBufferQueue<Integer>(0);
+    }
+
+    @Test
+    public void multipleProducersTest() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 100_000;
+        var q = new MpscRingBufferQueue<Integer>(1024);
+        var start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!q.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        Set<Integer> received = new HashSet<>();
+        int[] last = new int[producers];
+        java.util.Arrays.fill(last, -1);
+        while (received.size() < producers * perProducer) {
+            Integer v = q.poll();
+            if (v == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertTrue(received.add(v));
+            int p = v / perProducer;
+            assertTrue(last[p] < v % perProducer);
+            last[p] = v % perProducer;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(q.isEmpty());
+    }
+
+}
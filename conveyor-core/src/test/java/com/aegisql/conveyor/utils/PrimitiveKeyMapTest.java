@@ -0,0 +1,194 @@
+package com.aegisql.conveyor.utils;
+
+import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.CollectorType;
+import com.aegisql.conveyor.Priority;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.delay.TimingWheelDelayProvider;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveKeyMapTest {
+
+    @Test
+    public void basicTest() {
+        var map = new PrimitiveKeyMap<Long, String>(Long.class);
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(-1L, "b"));
+        assertNull(map.put(Long.MIN_VALUE, "c"));
+        assertEquals("a", map.put(1L, "A"));
+        assertEquals(3, map.size());
+        assertEquals("A", map.get(1L));
+        assertEquals("c", map.get(Long.MIN_VALUE));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(1));
+        assertFalse(map.containsKey(null));
+        assertNull(map.get("1"));
+        assertNull(map.remove(1));
+        assertEquals("b", map.remove(-1L));
+        assertEquals(Map.of(1L, "A", Long.MIN_VALUE, "c"), new HashMap<>(map));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void wrongKeyClassTest() {
+        new PrimitiveKeyMap<Object, String>((Class) Integer.class).put(1L, "a");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullValueTest() {
+        new PrimitiveKeyMap<Integer, String>(Integer.class).put(1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedKeyClassTest() {
+        new PrimitiveKeyMap<>(String.class);
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(7);
+        var map = new PrimitiveKeyMap<Integer, Integer>(Integer.class);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // small key range forces long clusters and frequent removals
+            int key = random.nextInt(5000) - 2500;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, i), map.put(key, i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        var map = new PrimitiveKeyMap<Integer, Integer>(Integer.class);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        List<Integer> seen = new ArrayList<>();
+        for (Iterator<Integer> it = map.keySet().iterator(); it.hasNext(); ) {
+            Integer key = it.next();
+            seen.add(key);
+            if (key % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, map.size());
+        map.forEach((k, v) -> assertTrue(k % 2 == 1));
+    }
+
+    @Test
+    public void conveyorWithPrimitiveCollectorTest() throws InterruptedException {
+        AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>(Priority.DEFAULT, CollectorType.keyType(Integer.class));
+        conveyor.setExpirationQueue(() -> new TimingWheelDelayProvider<>(1, TimeUnit.MILLISECONDS, Integer.class));
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultBuilderTimeout(50, TimeUnit.MILLISECONDS);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+        conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        List<Integer> expired = Collections.synchronizedList(new ArrayList<>());
+        conveyor.scrapConsumer(bin -> expired.add(bin.key)).set();
+        for (int i = 0; i < 100; i++) {
+            conveyor.part().id(i).label("first").value("A").place();
+        }
+        for (int i = 0; i < 100; i += 2) {
+            conveyor.part().id(i).label("first").value("B").place();
+        }
+        while (expired.size() < 50) {
+            Thread.sleep(10);
+        }
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(50, counter.get());
+        assertTrue(expired.stream().allMatch(k -> k % 2 == 1));
+        assertEquals(Integer.class, conveyor.getCollectorKeyType());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void existingBuildsFirstWithPrimitiveCollectorTest() throws InterruptedException {
+        AssemblingConveyor<Integer, String, User> conveyor = new AssemblingConveyor<>((Supplier) Priority.EXISTING_BUILDS_FIRST, CollectorType.keyType(Integer.class));
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+        conveyor.setReadinessEvaluator((state, builder) -> state.previouslyAccepted == 2);
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        // producers test open keys while the conveyor thread resizes the map
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            final int base = t * 10_000;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    conveyor.part().id(base + i).label("first").value("A").place();
+                    conveyor.part().id(base + i).label("first").value("B").place();
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(40_000, counter.get());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static double bytesPerKey(Long[] keys, Supplier<Map<Long, Object>> supplier) {
+        Object site = new Object();
+        long before = usedHeap();
+        Map<Long, Object> map = supplier.get();
+        for (Long key : keys) {
+            map.put(key, site);
+        }
+        long after = usedHeap();
+        assertEquals(keys.length, map.size());
+        return (after - before) / (double) keys.length;
+    }
+
+    @Test
+    public void memoryPerOpenBuildTest() {
+        int n = 5_000_000;
+        // keys are retained by the building sites anyway, so they are allocated outside of the measurement
+        Long[] keys = new Long[n];
+        IntFunction<Long> key = i -> (long) i * 31 + 1_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.apply(i);
+        }
+        double hashMap = bytesPerKey(keys, HashMap::new);
+        double primitive = bytesPerKey(keys, () -> new PrimitiveKeyMap<>(Long.class));
+        System.out.printf("Collector overhead at %d open builds. HashMap: %.1f bytes/build, PrimitiveKeyMap: %.1f bytes/build%n",
+                n, hashMap, primitive);
+        assertTrue(primitive < hashMap);
+    }
+
+}
@@ -3,6 +3,11 @@
  */
 package com.aegisql.conveyor.parallel;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -18,6 +23,7 @@ import com.aegisql.conveyor.BuilderAndFutureSupplier;
 import com.aegisql.conveyor.BuilderSupplier;
 import com.aegisql.conveyor.Conveyor;
 import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.CartBatchFuture;
 import com.aegisql.conveyor.cart.CreatingCart;
 import com.aegisql.conveyor.cart.FutureCart;
 import com.aegisql.conveyor.cart.ShoppingCart;
@@ -111,6 +117,30 @@ public class KBalancedParallelConveyor<K, L, OUT> extends ParallelConveyor<K, L,
 		return balancedCobveyor.place(cart);
 	}
 
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.Conveyor#placeAll(java.util.Collection)
+	 */
+	@Override
+	public CompletableFuture<Boolean> placeAll(Collection<? extends Cart<K, ?, L>> carts) {
+		Map<Conveyor<K,L,OUT>,List<Cart<K,?,L>>> shards = new LinkedHashMap<>();
+		for(Cart<K,?,L> cart:carts) {
+			Objects.requireNonNull(cart, "Cart is null");
+			shards.computeIfAbsent(this.balancingCart.apply(cart).get(0), c->new ArrayList<>()).add(cart);
+		}
+		CartBatchFuture batch = new CartBatchFuture(shards.size());
+		shards.forEach((conv,shard)->batch.add(conv.placeAll(shard)));
+		return batch;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.aegisql.conveyor.Conveyor#placeAndForget(com.aegisql.conveyor.cart.Cart)
+	 */
+	@Override
+	public <V> void placeAndForget(Cart<K,V,L> cart) {
+		Objects.requireNonNull(cart, "Cart is null");
+		this.balancingCart.apply(cart).get(0).placeAndForget(cart);
+	}
+
 	/* (non-Javadoc)
 	 * @see com.aegisql.conveyor.utils.parallel.ParallelConveyor#createBuildFutureWithCart(java.util.function.Function, com.aegisql.conveyor.BuilderSupplier)
 	 */
@@ -106,11 +106,49 @@ public abstract class ParallelConveyor<K, L, OUT> implements Conveyor<K, L, OUT>
 	
 	@Override
 	public PartLoader<K, L> part() {
-		return new PartLoader<>(cl -> {
-            ShoppingCart<K, Object, L> cart = new ShoppingCart<>(cl.key, cl.partValue, cl.label, cl.creationTime, cl.expirationTime, cl.priority);
-            cl.getAllProperties().forEach(cart::addProperty);
-            return place(cart);
-        });
+		return new PartLoader<>(cl -> place(partCart(cl)), cl -> placeAndForget(partCart(cl)),
+				(cl, parts) -> placeAll(parts.map(e -> partCart(cl, e.getKey(), e.getValue())).toList()));
+	}
+
+	/**
+	 * Creates the part cart.
+	 *
+	 * @param cl the part loader
+	 * @return the shopping cart
+	 */
+	private ShoppingCart<K, Object, L> partCart(PartLoader<K, L> cl) {
+		return partCart(cl, cl.key, cl.partValue);
+	}
+
+	/**
+	 * Creates the part cart for the key and value, using the part loader as a template.
+	 *
+	 * @param cl the part loader
+	 * @param key the key
+	 * @param value the value
+	 * @return the shopping cart
+	 */
+	private ShoppingCart<K, Object, L> partCart(PartLoader<K, L> cl, K key, Object value) {
+		ShoppingCart<K, Object, L> cart = new ShoppingCart<>(key, value, cl.label, cl.creationTime, cl.expirationTime, cl.priority);
+		cart.putAllProperties(cl.getAllProperties());
+		return cart;
+	}
+
+	@Override
+	public ReusablePartLoader<K, L> reusablePart() {
+		return new ReusablePartLoader<>(rl -> place(partCart(rl)), rl -> placeAndForget(partCart(rl)));
+	}
+
+	/**
+	 * Creates the part cart from the current state of the reusable part loader.
+	 *
+	 * @param rl the reusable part loader
+	 * @return the shopping cart
+	 */
+	private ShoppingCart<K, Object, L> partCart(ReusablePartLoader<K, L> rl) {
+		ShoppingCart<K, Object, L> cart = new ShoppingCart<>(rl.getKey(), rl.getPartValue(), rl.getLabel(), rl.getCreationTime(), rl.getExpirationTime(), rl.getPriority());
+		cart.putAllProperties(rl.getAllProperties());
+		return cart;
 	}
 	
 	@Override
@@ -0,0 +1,55 @@
+package com.aegisql.conveyor.parallel;
+
+import com.aegisql.conveyor.cart.Cart;
+import com.aegisql.conveyor.cart.ShoppingCart;
+import com.aegisql.conveyor.consumers.result.ResultCounter;
+import com.aegisql.conveyor.user.User;
+import com.aegisql.conveyor.user.UserBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class KBalancedBulkPlacementTest {
+
+    private KBalancedParallelConveyor<Integer, String, User> conveyor() {
+        KBalancedParallelConveyor<Integer, String, User> conveyor = new KBalancedParallelConveyor<>(4);
+        conveyor.setBuilderSupplier(UserBuilder::new);
+        conveyor.setDefaultCartConsumer((label, value, builder) -> ((UserBuilder) builder).setFirst((String) value));
+        conveyor.setReadinessEvaluator((state, builder) -> true);
+        return conveyor;
+    }
+
+    @Test
+    public void placeAllIsPartitionedByShardTest() {
+        var conveyor = conveyor();
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        List<Cart<Integer, ?, String>> carts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            carts.add(new ShoppingCart<>(i, "A" + i, "setFirst"));
+        }
+        assertTrue(conveyor.placeAll(carts).join());
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(1000, counter.get());
+    }
+
+    @Test
+    public void partLoaderPlaceAllTest() {
+        var conveyor = conveyor();
+        ResultCounter<Integer, User> counter = ResultCounter.of(conveyor);
+        conveyor.resultConsumer(counter).set();
+        Map<Integer, String> parts = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            parts.put(i, "A" + i);
+        }
+        assertTrue(conveyor.part().label("setFirst").placeAll(parts).join());
+        assertTrue(conveyor.completeAndStop().join());
+        assertEquals(1000, counter.get());
+    }
+
+}
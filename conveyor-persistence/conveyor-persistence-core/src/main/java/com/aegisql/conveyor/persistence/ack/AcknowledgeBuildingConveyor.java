@@ -1,11 +1,14 @@
 package com.aegisql.conveyor.persistence.ack;
 
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.aegisql.conveyor.AcknowledgeStatus;
 import com.aegisql.conveyor.AssemblingConveyor;
 import com.aegisql.conveyor.Conveyor;
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.SmartLabel;
 import com.aegisql.conveyor.cart.Cart;
 import com.aegisql.conveyor.persistence.core.Persistence;
@@ -50,7 +53,20 @@ public class AcknowledgeBuildingConveyor <K> extends AssemblingConveyor<K, Smart
 	 * @param forward the forward
 	 */
 	public <L,OUT> AcknowledgeBuildingConveyor(Persistence<K> persistence, Conveyor<K, L, OUT> forward) {
-		super();
+		this(persistence, forward, ConveyorThreadFactory.PLATFORM);
+	}
+
+	/**
+	 * Instantiates a new acknowledge building conveyor.
+	 *
+	 * @param <L> the generic type
+	 * @param <OUT> the generic type
+	 * @param persistence the persistence
+	 * @param forward the forward
+	 * @param threadFactory the inner thread factory
+	 */
+	public <L,OUT> AcknowledgeBuildingConveyor(Persistence<K> persistence, Conveyor<K, L, OUT> forward, ThreadFactory threadFactory) {
+		super(Priority.DEFAULT, threadFactory);
 		this.setName("AcknowledgeBuildingConveyor<"+(forward == null ? "":forward.getName())+">");
 		this.setBuilderSupplier( () -> new AcknowledgeBuilder<>(persistence, forward, this)  );
 		this.setIdleHeartBeat(100, TimeUnit.MILLISECONDS);
@@ -1,9 +1,12 @@
 package com.aegisql.conveyor.persistence.cleanup;
 
 import java.util.Collection;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import com.aegisql.conveyor.AssemblingConveyor;
+import com.aegisql.conveyor.ConveyorThreadFactory;
+import com.aegisql.conveyor.Priority;
 import com.aegisql.conveyor.SmartLabel;
 import com.aegisql.conveyor.loaders.FutureLoader;
 import com.aegisql.conveyor.loaders.PartLoader;
@@ -38,7 +41,17 @@ public class PersistenceCleanupBatchConveyor <K> extends AssemblingConveyor<Sing
 	 * @param persistence the persistence
 	 */
 	public PersistenceCleanupBatchConveyor(Persistence<K> persistence) {
-		super();
+		this(persistence, ConveyorThreadFactory.PLATFORM);
+	}
+
+	/**
+	 * Instantiates a new persistence cleanup batch conveyor.
+	 *
+	 * @param persistence the persistence
+	 * @param threadFactory the inner thread factory
+	 */
+	public PersistenceCleanupBatchConveyor(Persistence<K> persistence, ThreadFactory threadFactory) {
+		super(Priority.DEFAULT, threadFactory);
 		this.setName("PersistenceCleanupBatchConveyor");
 		this.setIdleHeartBeat(100, TimeUnit.MILLISECONDS);
 		this.setBuilderSupplier( () -> new CleaunupBatchBuilder<>(persistence)  );
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.*;
 
@@ -81,8 +82,9 @@ public class PersistentConveyor<K, L, OUT> implements Conveyor<K, L, OUT> {
 		Persistence<K> cleanPersistence = persistence.copy();
 
 		this.forward = forward;
-		this.cleaner = new PersistenceCleanupBatchConveyor<>(cleanPersistence);
-		this.ackConveyor = new AcknowledgeBuildingConveyor<>(ackPersistence, forward);
+		ThreadFactory threadFactory = forward instanceof AssemblingConveyor ac ? ac.getThreadFactory() : ConveyorThreadFactory.PLATFORM;
+		this.cleaner = new PersistenceCleanupBatchConveyor<>(cleanPersistence, threadFactory);
+		this.ackConveyor = new AcknowledgeBuildingConveyor<>(ackPersistence, forward, threadFactory);
 		this.ackConveyor.staticPart().value(persistence.getMinCompactSize()).label(ackConveyor.MIN_COMPACT).place();
 
 		String name = forward.getName();